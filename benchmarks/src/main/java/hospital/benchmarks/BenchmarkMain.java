@@ -0,0 +1,35 @@
+package hospital.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count: 1, 2, 4, ... up to N
+ *
+ * Usage: BenchmarkMain [include regex] [max threads]
+ * Max threads defaults to the number of processors. Results for each thread
+ * count are written to jmh-threads-<n>.csv in the working directory.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkMain.class.getPackageName() + "\\..*";
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.CSV)
+                    .result("jmh-threads-" + threads + ".csv")
+                    .build();
+            new Runner(options).run();
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
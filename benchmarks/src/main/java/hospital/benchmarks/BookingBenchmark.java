@@ -0,0 +1,90 @@
+package hospital.benchmarks;
+
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.HospitalService;
+import hospital.server.DoctorDirectory;
+import java.rmi.RemoteException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * bookAppointment against empty calendars
+ *
+ * Calendars fill up (each doctor has DoctorCalendar.HORIZON_DAYS days of
+ * 32 slots), so a throughput run would end up timing the "no free slots" path.
+ * Instead every iteration starts a fresh service and times a fixed batch of
+ * BATCH_SIZE bookings per thread. Keep threads x BATCH_SIZE below the capacity
+ * of the smallest roster (10,240 slots for 5 doctors) so every call books.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = BookingBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = BookingBenchmark.BATCH_SIZE)
+@Fork(1)
+public class BookingBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"5", "100", "1000", "10000"})
+        public int doctors;
+
+        @Param({ServiceFixture.LOCAL, ServiceFixture.RMI})
+        public String transport;
+
+        private final ServiceFixture fixture = new ServiceFixture();
+        private DoctorDirectory directory;
+        HospitalService service;
+
+        @Setup(Level.Trial)
+        public void createDirectory() {
+            directory = ServiceFixture.createDirectory(doctors);
+        }
+
+        @Setup(Level.Iteration)
+        public void start() throws Exception {
+            service = fixture.open(directory, transport);
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() throws Exception {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Patient {
+        private int next;
+        private String name;
+
+        @Setup(Level.Trial)
+        public void name() {
+            name = "Patient " + Thread.currentThread().getName();
+        }
+
+        int nextDoctorId(Service state) {
+            int doctorId = next;
+            next = next + 1 == state.doctors ? 0 : next + 1;
+            return doctorId;
+        }
+    }
+
+    @Benchmark
+    public BookingResult bookAppointment(Service state, Patient patient) throws RemoteException {
+        return state.service.bookAppointment(patient.nextDoctorId(state), patient.name);
+    }
+}
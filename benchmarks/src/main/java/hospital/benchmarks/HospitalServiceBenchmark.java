@@ -0,0 +1,83 @@
+package hospital.benchmarks;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.HospitalService;
+import java.rmi.RemoteException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read-only HospitalService calls: availability, next free slot and the doctor list
+ *
+ * The service is started once per trial. Each thread walks the doctor IDs
+ * round-robin so calls are spread over the whole roster.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HospitalServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"5", "100", "1000", "10000"})
+        public int doctors;
+
+        @Param({ServiceFixture.LOCAL, ServiceFixture.RMI})
+        public String transport;
+
+        private final ServiceFixture fixture = new ServiceFixture();
+        HospitalService service;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            service = fixture.open(ServiceFixture.createDirectory(doctors), transport);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Exception {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DoctorCursor {
+        private int next;
+
+        int nextDoctorId(Service state) {
+            int doctorId = next;
+            next = next + 1 == state.doctors ? 0 : next + 1;
+            return doctorId;
+        }
+    }
+
+    @Benchmark
+    public boolean isDoctorAvailable(Service state, DoctorCursor cursor) throws RemoteException {
+        return state.service.isDoctorAvailable(cursor.nextDoctorId(state));
+    }
+
+    @Benchmark
+    public LocalDateTime getNextAvailableSlot(Service state, DoctorCursor cursor) throws RemoteException {
+        return state.service.getNextAvailableSlot(cursor.nextDoctorId(state));
+    }
+
+    @Benchmark
+    public Doctor[] getAvailableDoctors(Service state) throws RemoteException {
+        return state.service.getAvailableDoctors();
+    }
+}
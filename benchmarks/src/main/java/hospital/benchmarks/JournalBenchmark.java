@@ -0,0 +1,88 @@
+package hospital.benchmarks;
+
+import hospital.interfaces.Appointment;
+import hospital.server.BookingJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Journal append throughput in records per second
+ *
+ * appendSingle journals one booking per call and waits for it, so with many
+ * threads (-t 64) it measures how well group commit shares each fsync.
+ * appendBatch journals BATCH_SIZE bookings per call and waits once. Every
+ * trial writes to a fresh temporary directory, which is deleted afterwards;
+ * snapshots are off so only the append path is timed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+
+        @Param({"true", "false"})
+        public boolean fsync;
+
+        private final AtomicLong nextId = new AtomicLong(1);
+        private Path directory;
+        BookingJournal journal;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("journal-benchmark");
+            journal = new BookingJournal(directory, fsync, Long.MAX_VALUE);
+            journal.start(List::of, List::of);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            journal.close();
+            JournalFiles.delete(directory);
+        }
+
+        Appointment next() {
+            long id = nextId.getAndIncrement();
+            return new Appointment(id, (int) (id % 100), 29_000_000L + id, "Patient " + id);
+        }
+    }
+
+    @Benchmark
+    public void appendSingle(Journal state) throws IOException {
+        state.journal.append(state.next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void appendBatch(Journal state) throws IOException {
+        List<Appointment> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(state.next());
+        }
+        state.journal.appendAll(batch);
+    }
+}
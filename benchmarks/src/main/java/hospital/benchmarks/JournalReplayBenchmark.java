@@ -0,0 +1,115 @@
+package hospital.benchmarks;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.Doctor;
+import hospital.server.BookingJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to recover a journal of a given number of booking records
+ *
+ * The journal is written once per trial, without fsync, and then replayed
+ * from disk on every iteration into a replayer that only counts the records,
+ * so the result is the cost of mapping, checksumming and decoding.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JournalReplayBenchmark {
+
+    private static final int WRITE_BATCH = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+
+        @Param({"1000000", "10000000"})
+        public int records;
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            directory = Files.createTempDirectory("replay-benchmark");
+            try (BookingJournal journal = new BookingJournal(directory, false, Long.MAX_VALUE)) {
+                journal.start(List::of, List::of);
+                List<Appointment> batch = new ArrayList<>(WRITE_BATCH);
+                for (long id = 1; id <= records; id++) {
+                    batch.add(new Appointment(id, (int) (id % 100), 29_000_000L + id, "Patient " + id));
+                    if (batch.size() == WRITE_BATCH) {
+                        journal.appendAll(batch);
+                        batch.clear();
+                    }
+                }
+                journal.appendAll(batch);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            JournalFiles.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public long recover(Journal state) throws IOException {
+        CountingReplayer replayer = new CountingReplayer();
+        new BookingJournal(state.directory, false, Long.MAX_VALUE).recover(replayer);
+        if (replayer.booked != state.records) {
+            throw new IllegalStateException("Replayed " + replayer.booked + " of " + state.records + " records");
+        }
+        return replayer.booked;
+    }
+
+    private static final class CountingReplayer implements BookingJournal.Replayer {
+        long booked;
+
+        @Override
+        public void booked(Appointment appointment) {
+            booked++;
+        }
+
+        @Override
+        public void cancelled(long appointmentId) {
+        }
+
+        @Override
+        public void rescheduled(long appointmentId, long epochMinute) {
+        }
+
+        @Override
+        public void doctorAdded(Doctor doctor) {
+        }
+
+        @Override
+        public void doctorRemoved(int doctorId) {
+        }
+
+        @Override
+        public void shiftSet(int doctorId, int startSlot, int endSlot) {
+        }
+
+        @Override
+        public void leaveSet(int doctorId, long fromEpochDay, long toEpochDay) {
+        }
+    }
+}
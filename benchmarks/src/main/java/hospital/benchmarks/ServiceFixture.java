@@ -0,0 +1,111 @@
+package hospital.benchmarks;
+
+import hospital.interfaces.HospitalService;
+import hospital.server.DoctorDirectory;
+import hospital.server.HospitalServiceImpl;
+import hospital.transport.TransportConfig;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+
+/**
+ * Starts a hospital service for a benchmark and hands out the reference to call
+ *
+ * With the "local" transport the benchmark calls HospitalServiceImpl directly.
+ * With "rmi" the service is exported, bound in a loopback registry and looked up
+ * again, so every call pays for serialization and a TCP round trip just like a
+ * real client. The registry port is -Dhospital.benchmark.port (default 1199).
+ */
+final class ServiceFixture {
+
+    static final String LOCAL = "local";
+    static final String RMI = "rmi";
+
+    private static final String SERVICE_NAME = "HospitalServiceBenchmark";
+    private static final String[] SPECIALIZATIONS = {
+            "Cardiologist", "Pediatrician", "Dermatologist", "General Medicine", "Gynecologist"};
+
+    // One registry per forked JVM; a port can only be bound once
+    private static Registry registry;
+    private static Registry registryStub;
+
+    private HospitalServiceImpl impl;
+    private HospitalService service;
+
+    /**
+     * Builds a roster of the given size
+     */
+    static DoctorDirectory createDirectory(int doctorCount) {
+        if (doctorCount <= SPECIALIZATIONS.length) {
+            return HospitalServiceImpl.createDefaultDirectory();
+        }
+        DoctorDirectory directory = new DoctorDirectory();
+        for (int i = 0; i < doctorCount; i++) {
+            String specialization = SPECIALIZATIONS[i % SPECIALIZATIONS.length];
+            directory.register("Dr. Benchmark " + i, specialization, specialization + " consultations");
+        }
+        return directory;
+    }
+
+    /**
+     * Starts a fresh in-memory service over the directory
+     * @return the reference benchmarks should call
+     */
+    HospitalService open(DoctorDirectory directory, String transport) throws Exception {
+        impl = new HospitalServiceImpl(directory, 0, null);
+        if (LOCAL.equals(transport)) {
+            service = impl;
+        } else if (RMI.equals(transport)) {
+            UnicastRemoteObject.exportObject(impl, 0);
+            service = bind(impl);
+        } else {
+            throw new IllegalArgumentException("Unknown transport: " + transport);
+        }
+        return service;
+    }
+
+    /**
+     * Starts a fresh in-memory service exported over RMI with the given socket settings
+     * @return the remote stub benchmarks should call
+     */
+    HospitalService open(DoctorDirectory directory, TransportConfig transport) throws Exception {
+        impl = new HospitalServiceImpl(directory, 0, null);
+        UnicastRemoteObject.exportObject(impl, transport.getExportPort(),
+                transport.clientSocketFactory(), transport.serverSocketFactory());
+        service = bind(impl);
+        return service;
+    }
+
+    private static HospitalService bind(HospitalServiceImpl impl) throws Exception {
+        registry().rebind(SERVICE_NAME, impl);
+        return (HospitalService) registry().lookup(SERVICE_NAME);
+    }
+
+    void close() throws Exception {
+        if (impl != null && service != impl) {
+            registry().unbind(SERVICE_NAME);
+            try {
+                UnicastRemoteObject.unexportObject(impl, true);
+            } catch (NoSuchObjectException e) {
+                // Already unexported
+            }
+        }
+        impl = null;
+        service = null;
+    }
+
+    /**
+     * Stub for the registry; the object createRegistry returns would hand back
+     * the implementation itself instead of a remote stub
+     */
+    private static synchronized Registry registry() throws RemoteException {
+        if (registry == null) {
+            int port = Integer.getInteger("hospital.benchmark.port", 1199);
+            registry = LocateRegistry.createRegistry(port);
+            registryStub = LocateRegistry.getRegistry("localhost", port);
+        }
+        return registryStub;
+    }
+}
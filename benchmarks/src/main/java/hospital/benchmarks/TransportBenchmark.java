@@ -0,0 +1,83 @@
+package hospital.benchmarks;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.HospitalService;
+import hospital.transport.TransportConfig;
+import java.rmi.RemoteException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round-trip latency over loopback RMI with different socket factory settings
+ *
+ * "default" is the shipped transport.properties (TCP_NODELAY on, no compression),
+ * "nagle" turns TCP_NODELAY off and "compressed" deflates the streams at level 1.
+ * isDoctorAvailable is a tiny call; getAvailableDoctors with many doctors is a
+ * large reply where compression has something to save.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"default", "nagle", "compressed"})
+        public String socketSettings;
+
+        @Param({"5", "1000"})
+        public int doctors;
+
+        private final ServiceFixture fixture = new ServiceFixture();
+        HospitalService service;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            service = fixture.open(ServiceFixture.createDirectory(doctors), config(socketSettings));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Exception {
+            fixture.close();
+        }
+
+        private static TransportConfig config(String name) throws Exception {
+            Properties properties = new Properties();
+            switch (name) {
+                case "default" -> {
+                    return TransportConfig.load();
+                }
+                case "nagle" -> properties.setProperty("tcp.noDelay", "false");
+                case "compressed" -> properties.setProperty("compression.enabled", "true");
+                default -> throw new IllegalArgumentException("Unknown socket settings: " + name);
+            }
+            return TransportConfig.fromProperties(properties);
+        }
+    }
+
+    @Benchmark
+    public boolean isDoctorAvailable(Service state) throws RemoteException {
+        return state.service.isDoctorAvailable(0);
+    }
+
+    @Benchmark
+    public Doctor[] getAvailableDoctors(Service state) throws RemoteException {
+        return state.service.getAvailableDoctors();
+    }
+}
@@ -0,0 +1,57 @@
+package hospital.client;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.Doctor;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Turns appointment records received from the server into display text
+ * Shared by the console and GUI clients
+ */
+public final class AppointmentFormatter {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private AppointmentFormatter() {
+    }
+
+    /**
+     * Formats an appointment time, e.g. 2025-03-14 09:15
+     */
+    public static String formatTime(LocalDateTime time) {
+        return time.format(TIME_FORMAT);
+    }
+
+    /**
+     * Full confirmation shown to the patient after booking
+     */
+    public static String formatConfirmation(Appointment appointment, Doctor doctor) {
+        return String.format(
+                "✅ APPOINTMENT CONFIRMED\n" +
+                        "Patient: %s\n" +
+                        "Doctor: %s\n" +
+                        "Appointment Time: %s\n" +
+                        "Appointment ID: %s\n" +
+                        "Specialization: %s\n" +
+                        "Location: MetroCare Hospital, Nairobi\n" +
+                        "Please arrive 15 minutes early.",
+                appointment.getPatientName(), doctorName(appointment, doctor),
+                formatTime(appointment.getTime()), appointment.getDisplayId(),
+                doctor == null ? "-" : doctor.getDescription()
+        );
+    }
+
+    /**
+     * One-line summary, e.g. for lookups and listings
+     */
+    public static String formatSummary(Appointment appointment, Doctor doctor) {
+        return String.format("Patient: %s, Doctor: %s, Time: %s, ID: %s",
+                appointment.getPatientName(), doctorName(appointment, doctor),
+                formatTime(appointment.getTime()), appointment.getDisplayId());
+    }
+
+    private static String doctorName(Appointment appointment, Doctor doctor) {
+        return doctor == null ? "Doctor #" + appointment.getDoctorId() : doctor.getDisplayName();
+    }
+}
@@ -0,0 +1,267 @@
+package hospital.client;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingRequest;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorStatusEvent;
+import hospital.interfaces.HospitalEventListener;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.SlotHold;
+import hospital.interfaces.WaitlistStatus;
+import java.rmi.NoSuchObjectException;
+import java.rmi.server.UnicastRemoteObject;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking wrapper around the remote HospitalService
+ *
+ * Every call runs on its own virtual thread and returns a CompletableFuture,
+ * so callers such as the Swing GUI never block on the network. A call that
+ * takes longer than the timeout completes with a TimeoutException.
+ * Cancelling the returned future (or timing out) interrupts the worker; socket
+ * reads on virtual threads are interruptible, so the stuck call is abandoned.
+ */
+public class AsyncHospitalClient implements AutoCloseable {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration timeout;
+    private volatile DoctorDirectoryCache directory;
+    private volatile HospitalService service;
+    private HospitalEventListener listener;
+    private long subscriptionId = -1;
+
+    public AsyncHospitalClient() {
+        this(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param timeout Longest a single remote call may take
+     */
+    public AsyncHospitalClient(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Looks up the service in the RMI registry, or every node of -Dhospital.nodes if set
+     * @param serverURL e.g. rmi://localhost:1099/HospitalService
+     */
+    public CompletableFuture<Void> connect(String serverURL) {
+        return submit(() -> {
+            HospitalService remote = RoutingHospitalService.lookup(serverURL);
+            directory = new DoctorDirectoryCache(remote);
+            service = remote;
+            return null;
+        });
+    }
+
+    public boolean isConnected() {
+        return service != null;
+    }
+
+    /**
+     * Doctors from the client-side directory cache
+     */
+    public CompletableFuture<Doctor[]> getAvailableDoctors() {
+        return call(service -> directory.getDoctors());
+    }
+
+    /**
+     * Checks the server for directory changes now instead of waiting for the cache to expire
+     */
+    public CompletableFuture<Doctor[]> refreshDoctors() {
+        return call(service -> directory.refresh());
+    }
+
+    public CompletableFuture<Integer> findDoctorId(String doctorName) {
+        return call(service -> directory.findDoctorId(doctorName));
+    }
+
+    public CompletableFuture<BookingResult> bookAppointment(int doctorId, String patientName) {
+        return call(service -> service.bookAppointment(doctorId, patientName));
+    }
+
+    public CompletableFuture<List<BookingResult>> bookAppointments(List<BookingRequest> requests) {
+        return call(service -> service.bookAppointments(requests));
+    }
+
+    public CompletableFuture<SlotHold> holdSlot(int doctorId, int seconds) {
+        return call(service -> service.holdSlot(doctorId, seconds));
+    }
+
+    public CompletableFuture<BookingResult> confirmHold(long holdId, String patientName) {
+        return call(service -> service.confirmHold(holdId, patientName));
+    }
+
+    public CompletableFuture<Boolean> releaseHold(long holdId) {
+        return call(service -> service.releaseHold(holdId));
+    }
+
+    public CompletableFuture<Boolean> isDoctorAvailable(int doctorId) {
+        return call(service -> service.isDoctorAvailable(doctorId));
+    }
+
+    public CompletableFuture<LocalDateTime> getNextAvailableSlot(int doctorId) {
+        return call(service -> service.getNextAvailableSlot(doctorId));
+    }
+
+    public CompletableFuture<LocalDateTime> getEarliestSlot(String specialization, LocalDateTime from,
+                                                            LocalDateTime to) {
+        return call(service -> service.getEarliestSlot(specialization, from, to));
+    }
+
+    public CompletableFuture<BookingResult> findEarliestSlot(String specialization, LocalDateTime from,
+                                                             LocalDateTime to, String patientName) {
+        return call(service -> service.findEarliestSlot(specialization, from, to, patientName));
+    }
+
+    public CompletableFuture<Appointment> findAppointment(long appointmentId) {
+        return call(service -> service.findAppointment(appointmentId));
+    }
+
+    public CompletableFuture<BookingResult> cancelAppointment(long appointmentId) {
+        return call(service -> service.cancelAppointment(appointmentId));
+    }
+
+    public CompletableFuture<BookingResult> rescheduleAppointment(long appointmentId, LocalDateTime newTime) {
+        return call(service -> service.rescheduleAppointment(appointmentId, newTime));
+    }
+
+    public CompletableFuture<WaitlistStatus> joinWaitlist(int doctorId, String patientName, int urgency) {
+        return call(service -> service.joinWaitlist(doctorId, patientName, urgency));
+    }
+
+    public CompletableFuture<WaitlistStatus> getWaitlistStatus(long ticketId) {
+        return call(service -> service.getWaitlistStatus(ticketId));
+    }
+
+    public CompletableFuture<Boolean> leaveWaitlist(long ticketId) {
+        return call(service -> service.leaveWaitlist(ticketId));
+    }
+
+    public CompletableFuture<AppointmentPage> findAppointmentsByPatient(String patientName, long cursor, int limit) {
+        return call(service -> service.findAppointmentsByPatient(patientName, cursor, limit));
+    }
+
+    public CompletableFuture<AppointmentPage> getDoctorSchedule(int doctorId, LocalDateTime from, LocalDateTime to,
+                                                                long cursor, int limit) {
+        return call(service -> service.getDoctorSchedule(doctorId, from, to, cursor, limit));
+    }
+
+    public CompletableFuture<AppointmentPage> getAppointmentsOn(LocalDate day, long cursor, int limit) {
+        return call(service -> service.getAppointmentsOn(day, cursor, limit));
+    }
+
+    /**
+     * Asks the server to push doctor status changes instead of polling for them
+     * The handler runs on an RMI thread, first with every doctor's status and then with
+     * batches of changes; Swing callers must hand the events over to the EDT themselves.
+     * @return Subscription ID
+     */
+    public CompletableFuture<Long> subscribe(Consumer<List<DoctorStatusEvent>> handler) {
+        return call(service -> {
+            synchronized (this) {
+                if (listener == null) {
+                    listener = new EventListener(handler);
+                    UnicastRemoteObject.exportObject(listener, 0);
+                }
+                subscriptionId = service.subscribe(listener);
+                return subscriptionId;
+            }
+        });
+    }
+
+    /**
+     * Stops all running calls and ends the event subscription, if any
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (subscriptionId >= 0) {
+                try {
+                    service.unsubscribe(subscriptionId);
+                } catch (Exception e) {
+                    // The server drops subscribers it cannot reach anyway
+                }
+            }
+            if (listener != null) {
+                try {
+                    UnicastRemoteObject.unexportObject(listener, true);
+                } catch (NoSuchObjectException e) {
+                    // Already unexported
+                }
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> call(RemoteCall<T> call) {
+        return submit(() -> {
+            HospitalService current = service;
+            if (current == null) {
+                throw new IllegalStateException("Not connected to server");
+            }
+            return call.invoke(current);
+        });
+    }
+
+    /**
+     * Runs a task on a virtual thread, bounded by the timeout and cancellable through the returned future
+     */
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> worker = executor.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        // Timed out or cancelled by the caller: stop waiting on the server
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error != null) {
+                        worker.cancel(true);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Callback exported to the server for pushed events
+     */
+    private static final class EventListener implements HospitalEventListener {
+        private final Consumer<List<DoctorStatusEvent>> handler;
+
+        EventListener(Consumer<List<DoctorStatusEvent>> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void doctorStatusChanged(List<DoctorStatusEvent> events) {
+            handler.accept(events);
+        }
+    }
+
+    /**
+     * A single remote call on the service
+     */
+    @FunctionalInterface
+    private interface RemoteCall<T> {
+        T invoke(HospitalService service) throws Exception;
+    }
+}
@@ -0,0 +1,125 @@
+package hospital.client;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import hospital.interfaces.HospitalService;
+import java.rmi.RemoteException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Client-side copy of the hospital's doctor directory
+ *
+ * The first fetch downloads the whole directory. After that the cache only asks
+ * the server for the changes since its version, which is an empty reply when
+ * nothing changed. Within maxAge of the last check the cached doctors are used
+ * without any remote call.
+ */
+public class DoctorDirectoryCache {
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(30);
+
+    private final HospitalService service;
+    private final long maxAgeNanos;
+
+    // Sorted by ID so the doctor list keeps the server's order
+    private final Map<Integer, Doctor> doctorsById = new TreeMap<>();
+    private Doctor[] doctors = new Doctor[0];
+    private Map<String, Integer> idsByName = new HashMap<>();
+    private long version = -1;
+    private long lastCheckedNanos;
+
+    public DoctorDirectoryCache(HospitalService service) {
+        this(service, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * @param maxAge How long cached doctors are used before checking the server again
+     */
+    public DoctorDirectoryCache(HospitalService service, Duration maxAge) {
+        this.service = service;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * All doctors in ID order, checking the server first if the cache is stale
+     * Callers must not modify the returned array
+     */
+    public synchronized Doctor[] getDoctors() throws RemoteException {
+        if (version < 0 || System.nanoTime() - lastCheckedNanos > maxAgeNanos) {
+            refresh();
+        }
+        return doctors;
+    }
+
+    /**
+     * Fetches the changes since the cached version from the server right away
+     * @return All doctors in ID order
+     */
+    public synchronized Doctor[] refresh() throws RemoteException {
+        DoctorDirectoryDelta delta = service.getDoctorDirectoryDelta(version);
+        lastCheckedNanos = System.nanoTime();
+        if (!delta.isEmpty()) {
+            apply(delta);
+        }
+        version = delta.getVersion();
+        return doctors;
+    }
+
+    /**
+     * Looks up a doctor by ID
+     * @return the doctor, or null if there is no such doctor
+     */
+    public synchronized Doctor get(int doctorId) throws RemoteException {
+        getDoctors();
+        return doctorsById.get(doctorId);
+    }
+
+    /**
+     * Resolves a doctor's name or display name to its ID (case-insensitive)
+     * @return the ID, or -1 if no doctor has that name
+     */
+    public synchronized int findDoctorId(String doctorName) throws RemoteException {
+        getDoctors();
+        Integer id = doctorName == null ? null : idsByName.get(key(doctorName));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Makes the next lookup check with the server
+     */
+    public synchronized void invalidate() {
+        lastCheckedNanos = System.nanoTime() - maxAgeNanos - 1;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private void apply(DoctorDirectoryDelta delta) {
+        if (delta.isFullReload()) {
+            doctorsById.clear();
+        }
+        for (Doctor doctor : delta.getAdded()) {
+            doctorsById.put(doctor.getId(), doctor);
+        }
+        for (int removedId : delta.getRemovedIds()) {
+            doctorsById.remove(removedId);
+        }
+
+        doctors = doctorsById.values().toArray(new Doctor[0]);
+        Map<String, Integer> index = new HashMap<>();
+        for (Doctor doctor : doctors) {
+            index.put(key(doctor.getDisplayName()), doctor.getId());
+            index.putIfAbsent(key(doctor.getName()), doctor.getId());
+        }
+        idsByName = index;
+    }
+
+    private static String key(String doctorName) {
+        return doctorName.trim().toLowerCase(Locale.ROOT);
+    }
+}
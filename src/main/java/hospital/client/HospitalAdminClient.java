@@ -0,0 +1,345 @@
+package hospital.client;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.HospitalAdmin;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.Partitioning;
+import hospital.transport.TransportConfig;
+import java.rmi.Naming;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Console for hospital staff to change the doctor roster while the servers run
+ * Every node of a partitioned deployment holds the full roster, so each change
+ * is made on every node in -Dhospital.nodes (or on the single server). A new
+ * doctor gets its ID on the first node and is added under that ID on the rest,
+ * stopping at the first node that refuses; a removal goes to the doctor's own
+ * node first, which refuses it while the doctor still has bookings there.
+ */
+public class HospitalAdminClient {
+
+    private static HospitalAdmin[] nodes;
+    private static HospitalService hospitalService;
+    private static Partitioning partitioning;
+    private static Scanner scanner;
+
+    public static void main(String[] args) {
+        scanner = new Scanner(System.in);
+
+        try {
+            System.out.println("🛠️ MetroCare Hospital Roster Administration");
+            System.out.println("Connecting to hospital servers...");
+
+            TransportConfig transport = TransportConfig.load();
+            transport.applyConnectionReuse();
+            String serverURL = "rmi://localhost:" + transport.getRegistryPort() + "/HospitalService";
+            hospitalService = RoutingHospitalService.lookup(serverURL);
+
+            List<HospitalAdmin> admins = new ArrayList<>();
+            for (String url : adminURLs(serverURL)) {
+                admins.add((HospitalAdmin) Naming.lookup(url));
+            }
+            nodes = admins.toArray(new HospitalAdmin[0]);
+            partitioning = new Partitioning(nodes.length);
+
+            System.out.println("✅ Connected to " + nodes.length + " node(s) successfully!\n");
+
+            boolean running = true;
+            while (running) {
+                running = showMainMenu();
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error connecting to hospital server: " + e.getMessage());
+            System.err.println("Please ensure the server is running on localhost:1099");
+        } finally {
+            scanner.close();
+        }
+    }
+
+    /**
+     * Admin URL of every node: each node in -Dhospital.nodes, or the server at serverURL
+     */
+    private static List<String> adminURLs(String serverURL) {
+        String nodeURLs = System.getProperty("hospital.nodes");
+        List<String> serviceURLs = nodeURLs == null || nodeURLs.isBlank() ? List.of(serverURL)
+                : Arrays.stream(nodeURLs.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        return serviceURLs.stream()
+                .map(url -> url.substring(0, url.lastIndexOf('/') + 1) + HospitalAdmin.SERVICE_NAME)
+                .toList();
+    }
+
+    /**
+     * Displays the main menu and handles user choice
+     */
+    private static boolean showMainMenu() {
+        try {
+            System.out.println("\n" + "=".repeat(50));
+            System.out.println("        METROCARE ROSTER ADMINISTRATION");
+            System.out.println("=".repeat(50));
+            System.out.println("1. View Doctors");
+            System.out.println("2. Add a Doctor");
+            System.out.println("3. Remove a Doctor");
+            System.out.println("4. Set a Doctor's Shift");
+            System.out.println("5. Mark a Doctor on Leave");
+            System.out.println("6. End a Doctor's Leave");
+            System.out.println("7. Exit");
+            System.out.println("=".repeat(50));
+            System.out.print("Please select an option (1-7): ");
+
+            int choice = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+
+            switch (choice) {
+                case 1:
+                    viewDoctors();
+                    break;
+                case 2:
+                    addDoctor();
+                    break;
+                case 3:
+                    removeDoctor();
+                    break;
+                case 4:
+                    setShift();
+                    break;
+                case 5:
+                    setLeave(true);
+                    break;
+                case 6:
+                    setLeave(false);
+                    break;
+                case 7:
+                    System.out.println("\n👋 Goodbye!");
+                    return false;
+                default:
+                    System.out.println("❌ Invalid option. Please select 1-7.");
+            }
+
+        } catch (Exception e) {
+            System.out.println("❌ Invalid input. Please enter a number.");
+            scanner.nextLine(); // Clear invalid input
+        }
+
+        return true;
+    }
+
+    private static void viewDoctors() {
+        try {
+            System.out.println("\n📋 Doctors on the Roster:");
+            System.out.println("-".repeat(60));
+
+            Doctor[] doctors = hospitalService.getAvailableDoctors();
+            for (Doctor doctor : doctors) {
+                System.out.printf("#%d %s%s\n", doctor.getId(), doctor,
+                        hospitalService.isDoctorAvailable(doctor.getId()) ? "" : " (on leave today)");
+            }
+
+            System.out.println("-".repeat(60));
+            System.out.printf("Total doctors: %d\n", doctors.length);
+
+        } catch (Exception e) {
+            System.err.println("❌ Error retrieving doctors: " + e.getMessage());
+        }
+    }
+
+    private static void addDoctor() {
+        try {
+            System.out.println("\n➕ Add a Doctor");
+            System.out.println("-".repeat(30));
+
+            System.out.print("Enter doctor's name (e.g. Dr. Jane Doe): ");
+            String name = scanner.nextLine().trim();
+            System.out.print("Enter specialization: ");
+            String specialization = scanner.nextLine().trim();
+            System.out.print("Enter a short description: ");
+            String description = scanner.nextLine().trim();
+
+            // The first node picks the ID; every other node must take the doctor under that same ID
+            Doctor added = nodes[0].addDoctor(name, specialization, description);
+            for (int i = 1; i < nodes.length; i++) {
+                try {
+                    nodes[i].addDoctor(added.getId(), name, specialization, description);
+                } catch (RemoteException e) {
+                    System.out.println("❌ Node " + i + " did not add " + added.getDisplayName() + " as doctor #"
+                            + added.getId() + ": " + reason(e));
+                    System.out.println("❌ The rosters are out of step; retry the add once node " + i
+                            + " is back, or remove doctor #" + added.getId() + " from the nodes that have it");
+                    return;
+                }
+            }
+            System.out.println("✅ Added " + added.getDisplayName() + " as doctor #" + added.getId());
+
+        } catch (RemoteException e) {
+            System.out.println("❌ " + reason(e));
+        }
+    }
+
+    private static void removeDoctor() {
+        try {
+            System.out.println("\n➖ Remove a Doctor");
+            System.out.println("-".repeat(30));
+
+            int doctorId = readDoctorId();
+            if (doctorId < 0) {
+                return;
+            }
+            System.out.print("Remove doctor #" + doctorId + " from the roster for good? (y/n): ");
+            String confirm = scanner.nextLine().trim().toLowerCase();
+            if (!confirm.equals("y") && !confirm.equals("yes")) {
+                return;
+            }
+
+            // The owning node holds the doctor's bookings and refuses while there are any
+            int owner = partitioning.ownerOf(doctorId);
+            if (!nodes[owner].removeDoctor(doctorId)) {
+                System.out.println("❌ No doctor found with ID " + doctorId);
+                return;
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                if (i != owner) {
+                    int index = i;
+                    applyOnNode(i, () -> nodes[index].removeDoctor(doctorId));
+                }
+            }
+            System.out.println("✅ Doctor #" + doctorId + " was removed from the roster");
+
+        } catch (RemoteException e) {
+            System.out.println("❌ " + reason(e));
+        }
+    }
+
+    private static void setShift() {
+        try {
+            System.out.println("\n🕘 Set a Doctor's Shift");
+            System.out.println("-".repeat(30));
+
+            int doctorId = readDoctorId();
+            if (doctorId < 0) {
+                return;
+            }
+            LocalTime start;
+            LocalTime end;
+            try {
+                System.out.print("Enter shift start (HH:mm, from 09:00): ");
+                start = LocalTime.parse(scanner.nextLine().trim());
+                System.out.print("Enter shift end (HH:mm, up to 17:00): ");
+                end = LocalTime.parse(scanner.nextLine().trim());
+            } catch (DateTimeParseException e) {
+                System.out.println("❌ Invalid time. Please use HH:mm.");
+                return;
+            }
+
+            nodes[0].setShift(doctorId, start, end);
+            for (int i = 1; i < nodes.length; i++) {
+                int index = i;
+                applyOnNode(i, () -> {
+                    nodes[index].setShift(doctorId, start, end);
+                    return null;
+                });
+            }
+            System.out.println("✅ Doctor #" + doctorId + " can now be booked from " + start + " to " + end);
+
+        } catch (RemoteException e) {
+            System.out.println("❌ " + reason(e));
+        }
+    }
+
+    /**
+     * Marks a doctor on leave for some days, or ends the doctor's leave
+     */
+    private static void setLeave(boolean onLeave) {
+        try {
+            System.out.println(onLeave ? "\n🌴 Mark a Doctor on Leave" : "\n🩺 End a Doctor's Leave");
+            System.out.println("-".repeat(30));
+
+            int doctorId = readDoctorId();
+            if (doctorId < 0) {
+                return;
+            }
+            LocalDate from = null;
+            LocalDate to = null;
+            if (onLeave) {
+                try {
+                    System.out.print("Enter first day of leave (YYYY-MM-DD): ");
+                    from = LocalDate.parse(scanner.nextLine().trim());
+                    System.out.print("Enter last day of leave (YYYY-MM-DD): ");
+                    to = LocalDate.parse(scanner.nextLine().trim());
+                } catch (DateTimeParseException e) {
+                    System.out.println("❌ Invalid date. Please use YYYY-MM-DD.");
+                    return;
+                }
+            }
+
+            LocalDate first = from;
+            LocalDate last = to;
+            nodes[0].setLeave(doctorId, first, last);
+            for (int i = 1; i < nodes.length; i++) {
+                int index = i;
+                applyOnNode(i, () -> {
+                    nodes[index].setLeave(doctorId, first, last);
+                    return null;
+                });
+            }
+            System.out.println(onLeave
+                    ? "✅ Doctor #" + doctorId + " is on leave from " + first + " to " + last
+                    : "✅ Doctor #" + doctorId + " is back on the roster");
+
+        } catch (RemoteException e) {
+            System.out.println("❌ " + reason(e));
+        }
+    }
+
+    /**
+     * @return the doctor ID entered, or -1 if it was not a number
+     */
+    private static int readDoctorId() {
+        System.out.print("Enter doctor ID: ");
+        try {
+            return Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Invalid doctor ID.");
+            return -1;
+        }
+    }
+
+    /**
+     * Repeats a change made on the first node on another node, reporting rather than
+     * aborting if that node fails, so the remaining nodes still get the change
+     * @return the node's result, or null if it failed
+     */
+    private static <T> T applyOnNode(int index, NodeCall<T> call) {
+        try {
+            return call.call();
+        } catch (RemoteException e) {
+            System.out.println("⚠️ Node " + index + " did not take the change: " + reason(e));
+            return null;
+        }
+    }
+
+    /**
+     * The server's own message, without RMI's wrapping
+     */
+    private static String reason(RemoteException e) {
+        Throwable cause = e instanceof ServerException && e.getCause() != null ? e.getCause() : e;
+        String message = cause.getMessage();
+        if (message == null) {
+            return cause.toString();
+        }
+        int nested = message.indexOf("; nested exception is");
+        return nested < 0 ? message : message.substring(0, nested);
+    }
+
+    @FunctionalInterface
+    private interface NodeCall<T> {
+        T call() throws RemoteException;
+    }
+}
@@ -1,16 +1,50 @@
 package hospital.client;
 
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingRequest;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
 import hospital.interfaces.HospitalService;
-import java.rmi.Naming;
+import hospital.interfaces.ServiceBusyException;
+import hospital.interfaces.SlotHold;
+import hospital.interfaces.WaitlistStatus;
+import hospital.transport.TransportConfig;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
  * Client application for MetroCare Hospital appointment booking system
  * Connects to remote hospital service via RMI
+ * Run with {@code --import <file.csv>} to bulk-book a CSV of doctor,patient lines and exit,
+ * or with {@code --load} to run a capacity test (see {@link LoadGenerator}) and exit
  */
 public class HospitalClient {
 
+    // Number of bookings sent per batch call during bulk import
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    // Appointments listed per page before asking to continue
+    private static final int LIST_PAGE_SIZE = 20;
+
+    // How long a slot shown for booking is held while the user confirms
+    private static final int HOLD_SECONDS = 120;
+
+    private static final DateTimeFormatter INPUT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     private static HospitalService hospitalService;
+    private static DoctorDirectoryCache doctorDirectory;
     private static Scanner scanner;
 
     public static void main(String[] args) {
@@ -21,11 +55,26 @@ public class HospitalClient {
             System.out.println("🏥 Welcome to MetroCare Hospital Appointment System");
             System.out.println("Connecting to hospital server...");
 
-            String serverURL = "rmi://localhost:1099/HospitalService";
-            hospitalService = (HospitalService) Naming.lookup(serverURL);
+            TransportConfig transport = TransportConfig.load();
+            transport.applyConnectionReuse();
+            String serverURL = "rmi://localhost:" + transport.getRegistryPort() + "/HospitalService";
+            hospitalService = RoutingHospitalService.lookup(serverURL);
+            doctorDirectory = new DoctorDirectoryCache(hospitalService);
 
             System.out.println("✅ Connected to hospital server successfully!\n");
 
+            // Headless bulk import mode
+            if (args.length >= 2 && args[0].equals("--import")) {
+                importBookings(args[1]);
+                return;
+            }
+
+            // Headless load test mode
+            if (args.length >= 1 && args[0].equals("--load")) {
+                LoadGenerator.fromSystemProperties(hospitalService).run();
+                return;
+            }
+
             // Main application loop
             boolean running = true;
             while (running) {
@@ -52,9 +101,17 @@ public class HospitalClient {
             System.out.println("2. Book an Appointment");
             System.out.println("3. Check Doctor Availability");
             System.out.println("4. Get Next Available Slot");
-            System.out.println("5. Exit");
+            System.out.println("5. Find Appointment by ID");
+            System.out.println("6. Bulk Import Bookings (CSV)");
+            System.out.println("7. List Patient's Appointments");
+            System.out.println("8. View Doctor's Schedule for a Day");
+            System.out.println("9. Cancel an Appointment");
+            System.out.println("10. Reschedule an Appointment");
+            System.out.println("11. Check Waitlist Status");
+            System.out.println("12. Book First Available by Specialization");
+            System.out.println("13. Exit");
             System.out.println("=".repeat(50));
-            System.out.print("Please select an option (1-5): ");
+            System.out.print("Please select an option (1-13): ");
 
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -73,11 +130,36 @@ public class HospitalClient {
                     getNextAvailableSlot();
                     break;
                 case 5:
+                    findAppointment();
+                    break;
+                case 6:
+                    System.out.print("Enter CSV file path: ");
+                    importBookings(scanner.nextLine().trim());
+                    break;
+                case 7:
+                    listPatientAppointments();
+                    break;
+                case 8:
+                    viewDoctorSchedule();
+                    break;
+                case 9:
+                    cancelAppointment();
+                    break;
+                case 10:
+                    rescheduleAppointment();
+                    break;
+                case 11:
+                    checkWaitlistStatus();
+                    break;
+                case 12:
+                    bookEarliestBySpecialization();
+                    break;
+                case 13:
                     System.out.println("\nThank you for using MetroCare Hospital System!");
                     System.out.println("Have a great day! 🌟");
                     return false;
                 default:
-                    System.out.println("❌ Invalid option. Please select 1-5.");
+                    System.out.println("❌ Invalid option. Please select 1-13.");
             }
 
         } catch (Exception e) {
@@ -96,7 +178,7 @@ public class HospitalClient {
             System.out.println("\n📋 Available Doctors at MetroCare Hospital:");
             System.out.println("-".repeat(60));
 
-            String[] doctors = hospitalService.getAvailableDoctors();
+            Doctor[] doctors = doctorDirectory.getDoctors();
 
             for (int i = 0; i < doctors.length; i++) {
                 System.out.printf("%d. %s\n", i + 1, doctors[i]);
@@ -119,7 +201,7 @@ public class HospitalClient {
             System.out.println("-".repeat(30));
 
             // First show available doctors
-            String[] doctors = hospitalService.getAvailableDoctors();
+            Doctor[] doctors = doctorDirectory.getDoctors();
             System.out.println("Available doctors:");
             for (int i = 0; i < doctors.length; i++) {
                 System.out.printf("%d. %s\n", i + 1, doctors[i]);
@@ -135,7 +217,7 @@ public class HospitalClient {
                 return;
             }
 
-            String selectedDoctor = doctors[doctorChoice - 1];
+            Doctor selectedDoctor = doctors[doctorChoice - 1];
 
             // Get patient name
             System.out.print("Enter patient name: ");
@@ -146,24 +228,102 @@ public class HospitalClient {
                 return;
             }
 
-            // Confirm booking details
-            System.out.println("\n📋 Booking Summary:");
-            System.out.println("Doctor: " + selectedDoctor);
-            System.out.println("Patient: " + patientName);
-            System.out.print("Confirm booking? (y/n): ");
+            // Hold the slot so it is still free when the booking is confirmed
+            SlotHold hold = hospitalService.holdSlot(selectedDoctor.getId(), HOLD_SECONDS);
+            BookingResult result;
+            if (hold.isHeld()) {
+                System.out.println("\n📋 Booking Summary:");
+                System.out.println("Doctor: " + selectedDoctor);
+                System.out.println("Patient: " + patientName);
+                System.out.println("Time: " + AppointmentFormatter.formatTime(hold.getTime())
+                        + " (held for " + HOLD_SECONDS + " seconds)");
+                System.out.print("Confirm booking? (y/n): ");
+
+                String confirm = scanner.nextLine().trim().toLowerCase();
+                if (!confirm.equals("y") && !confirm.equals("yes")) {
+                    hospitalService.releaseHold(hold.getHoldId());
+                    System.out.println("❌ Booking cancelled.");
+                    return;
+                }
+
+                // Book the held slot
+                System.out.println("\n⏳ Processing appointment...");
+                result = hospitalService.confirmHold(hold.getHoldId(), patientName);
+            } else {
+                result = BookingResult.failed(hold.getMessage());
+            }
 
-            String confirm = scanner.nextLine().trim().toLowerCase();
-            if (!confirm.equals("y") && !confirm.equals("yes")) {
-                System.out.println("❌ Booking cancelled.");
+            System.out.println("\n" + "=".repeat(60));
+            if (result.isConfirmed()) {
+                System.out.println(AppointmentFormatter.formatConfirmation(result.getAppointment(), selectedDoctor));
+            } else {
+                System.out.println("❌ " + result.getMessage());
+            }
+            System.out.println("=".repeat(60));
+
+            if (!result.isConfirmed() && hospitalService.isDoctorAvailable(selectedDoctor.getId())
+                    && hospitalService.getNextAvailableSlot(selectedDoctor.getId()) == null) {
+                offerWaitlist(selectedDoctor, patientName);
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error booking appointment: " + e.getMessage());
+            scanner.nextLine(); // Clear any invalid input
+        }
+    }
+
+    /**
+     * Books the first free slot with any doctor of a chosen specialization
+     */
+    private static void bookEarliestBySpecialization() {
+        try {
+            System.out.println("\n⚡ Book First Available by Specialization");
+            System.out.println("-".repeat(40));
+
+            List<String> specializations = new ArrayList<>();
+            for (Doctor doctor : doctorDirectory.getDoctors()) {
+                if (!specializations.contains(doctor.getSpecialization())) {
+                    specializations.add(doctor.getSpecialization());
+                }
+            }
+            for (int i = 0; i < specializations.size(); i++) {
+                System.out.printf("%d. %s\n", i + 1, specializations.get(i));
+            }
+
+            System.out.print("\nSelect specialization (enter number 1-" + specializations.size() + "): ");
+            int choice = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            if (choice < 1 || choice > specializations.size()) {
+                System.out.println("❌ Invalid specialization selection.");
+                return;
+            }
+            String specialization = specializations.get(choice - 1);
+
+            LocalDateTime earliest = hospitalService.getEarliestSlot(specialization, null, null);
+            if (earliest == null) {
+                System.out.println("❌ No " + specialization + " has a free slot.");
+                return;
+            }
+            System.out.println("Earliest free slot: " + AppointmentFormatter.formatTime(earliest));
+
+            System.out.print("Enter patient name: ");
+            String patientName = scanner.nextLine().trim();
+            if (patientName.isEmpty()) {
+                System.out.println("❌ Patient name cannot be empty.");
                 return;
             }
 
-            // Make the appointment
             System.out.println("\n⏳ Processing appointment...");
-            String result = hospitalService.bookAppointment(selectedDoctor, patientName);
+            BookingResult result = hospitalService.findEarliestSlot(specialization, null, null, patientName);
 
             System.out.println("\n" + "=".repeat(60));
-            System.out.println(result);
+            if (result.isConfirmed()) {
+                Appointment appointment = result.getAppointment();
+                System.out.println(AppointmentFormatter.formatConfirmation(appointment,
+                        doctorDirectory.get(appointment.getDoctorId())));
+            } else {
+                System.out.println("❌ " + result.getMessage());
+            }
             System.out.println("=".repeat(60));
 
         } catch (Exception e) {
@@ -172,6 +332,82 @@ public class HospitalClient {
         }
     }
 
+    /**
+     * Offers to put a patient on a fully booked doctor's waitlist
+     */
+    private static void offerWaitlist(Doctor doctor, String patientName) throws RemoteException {
+        System.out.print("Join the waitlist for the next free slot? (y/n): ");
+        String confirm = scanner.nextLine().trim().toLowerCase();
+        if (!confirm.equals("y") && !confirm.equals("yes")) {
+            return;
+        }
+        System.out.print("Urgency (" + WaitlistStatus.MIN_URGENCY + " routine - " + WaitlistStatus.MAX_URGENCY
+                + " most urgent): ");
+        int urgency;
+        try {
+            urgency = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Invalid urgency.");
+            return;
+        }
+
+        WaitlistStatus status = hospitalService.joinWaitlist(doctor.getId(), patientName, urgency);
+        if (status.getState() == WaitlistStatus.State.REJECTED) {
+            System.out.println("❌ " + status.getMessage());
+            return;
+        }
+        System.out.println("✅ " + patientName + " is on the waitlist for " + doctor.getDisplayName() + ".");
+        System.out.println("Waitlist ticket: " + Appointment.formatId(status.getTicketId())
+                + " (use Check Waitlist Status to see when a slot is found)");
+    }
+
+    /**
+     * Shows a waitlist ticket, and the appointment once a slot was found
+     */
+    private static void checkWaitlistStatus() {
+        try {
+            System.out.println("\n⏳ Check Waitlist Status");
+            System.out.println("-".repeat(35));
+
+            System.out.print("Enter waitlist ticket (e.g. MCH123456789): ");
+            String ticket = scanner.nextLine().trim();
+            long ticketId = Appointment.parseId(ticket);
+            if (ticketId < 0) {
+                System.out.println("❌ Invalid waitlist ticket.");
+                return;
+            }
+
+            WaitlistStatus status = hospitalService.getWaitlistStatus(ticketId);
+            if (status == null) {
+                System.out.println("❌ No waitlist ticket found with ID " + ticket);
+                return;
+            }
+            switch (status.getState()) {
+                case BOOKED:
+                    System.out.println("✅ A slot was found!");
+                    System.out.println(AppointmentFormatter.formatSummary(status.getAppointment(),
+                            doctorDirectory.get(status.getDoctorId())));
+                    break;
+                case LEFT:
+                    System.out.println("Ticket " + ticket + " has left the waitlist.");
+                    break;
+                default:
+                    System.out.println("⏳ Still waiting for a slot with "
+                            + doctorDirectory.get(status.getDoctorId()).getDisplayName()
+                            + " (urgency " + status.getUrgency() + ").");
+                    System.out.print("Leave the waitlist? (y/n): ");
+                    String confirm = scanner.nextLine().trim().toLowerCase();
+                    if (confirm.equals("y") || confirm.equals("yes")) {
+                        System.out.println(hospitalService.leaveWaitlist(ticketId)
+                                ? "✅ Left the waitlist." : "❌ The ticket is no longer waiting.");
+                    }
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error checking waitlist: " + e.getMessage());
+        }
+    }
+
     /**
      * Checks if a specific doctor is available
      */
@@ -188,7 +424,8 @@ public class HospitalClient {
                 return;
             }
 
-            boolean available = hospitalService.isDoctorAvailable(doctorName);
+            int doctorId = doctorDirectory.findDoctorId(doctorName);
+            boolean available = doctorId >= 0 && hospitalService.isDoctorAvailable(doctorId);
 
             if (available) {
                 System.out.println("✅ " + doctorName + " is available for appointments.");
@@ -211,7 +448,7 @@ public class HospitalClient {
             System.out.println("-".repeat(35));
 
             // Show available doctors first
-            String[] doctors = hospitalService.getAvailableDoctors();
+            Doctor[] doctors = doctorDirectory.getDoctors();
             System.out.println("Available doctors:");
             for (int i = 0; i < doctors.length; i++) {
                 System.out.printf("%d. %s\n", i + 1, doctors[i]);
@@ -226,16 +463,334 @@ public class HospitalClient {
                 return;
             }
 
-            String selectedDoctor = doctors[doctorChoice - 1];
-            String nextSlot = hospitalService.getNextAvailableSlot(selectedDoctor);
+            Doctor selectedDoctor = doctors[doctorChoice - 1];
+            LocalDateTime nextSlot = hospitalService.getNextAvailableSlot(selectedDoctor.getId());
 
             System.out.println("\n📅 Next available appointment slot:");
             System.out.println("Doctor: " + selectedDoctor);
-            System.out.println("Available time: " + nextSlot);
+            System.out.println("Available time: "
+                    + (nextSlot == null ? "No free slots" : AppointmentFormatter.formatTime(nextSlot)));
 
         } catch (Exception e) {
             System.err.println("❌ Error getting available slot: " + e.getMessage());
             scanner.nextLine(); // Clear any invalid input
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Looks up a booked appointment by its ID
+     */
+    private static void findAppointment() {
+        try {
+            System.out.println("\n🔎 Find Appointment by ID");
+            System.out.println("-".repeat(35));
+
+            System.out.print("Enter appointment ID (e.g. MCH123456789): ");
+            String appointmentId = scanner.nextLine().trim();
+
+            long id = Appointment.parseId(appointmentId);
+            if (id < 0) {
+                System.out.println("❌ Invalid appointment ID.");
+                return;
+            }
+
+            Appointment appointment = hospitalService.findAppointment(id);
+            if (appointment == null) {
+                System.out.println("❌ No appointment found with ID " + appointmentId);
+                return;
+            }
+
+            Doctor doctor = doctorDirectory.get(appointment.getDoctorId());
+            System.out.println(AppointmentFormatter.formatSummary(appointment, doctor));
+
+        } catch (Exception e) {
+            System.err.println("❌ Error finding appointment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancels a booked appointment after showing it to the user
+     */
+    private static void cancelAppointment() {
+        try {
+            System.out.println("\n🗑️ Cancel an Appointment");
+            System.out.println("-".repeat(35));
+
+            Appointment appointment = askForAppointment();
+            if (appointment == null) {
+                return;
+            }
+            System.out.print("Cancel this appointment? (y/n): ");
+            String confirm = scanner.nextLine().trim().toLowerCase();
+            if (!confirm.equals("y") && !confirm.equals("yes")) {
+                System.out.println("Appointment kept.");
+                return;
+            }
+
+            BookingResult result = hospitalService.cancelAppointment(appointment.getId());
+            if (result.isConfirmed()) {
+                System.out.println("✅ Appointment " + appointment.getDisplayId() + " has been cancelled.");
+            } else {
+                System.out.println("❌ " + result.getMessage());
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error cancelling appointment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a booked appointment to another slot with the same doctor
+     */
+    private static void rescheduleAppointment() {
+        try {
+            System.out.println("\n🔁 Reschedule an Appointment");
+            System.out.println("-".repeat(35));
+
+            Appointment appointment = askForAppointment();
+            if (appointment == null) {
+                return;
+            }
+            LocalDateTime nextSlot = hospitalService.getNextAvailableSlot(appointment.getDoctorId());
+            if (nextSlot != null) {
+                System.out.println("Next free slot with this doctor: " + AppointmentFormatter.formatTime(nextSlot));
+            }
+
+            System.out.print("Enter new time (yyyy-mm-dd hh:mm): ");
+            LocalDateTime newTime;
+            try {
+                newTime = LocalDateTime.parse(scanner.nextLine().trim(), INPUT_TIME_FORMAT);
+            } catch (DateTimeParseException e) {
+                System.out.println("❌ Invalid time.");
+                return;
+            }
+
+            BookingResult result = hospitalService.rescheduleAppointment(appointment.getId(), newTime);
+            if (result.isConfirmed()) {
+                Doctor doctor = doctorDirectory.get(appointment.getDoctorId());
+                System.out.println("✅ Appointment moved.");
+                System.out.println(AppointmentFormatter.formatSummary(result.getAppointment(), doctor));
+            } else {
+                System.out.println("❌ " + result.getMessage());
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error rescheduling appointment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Asks for an appointment ID and shows the appointment
+     * @return the appointment, or null if the ID is invalid or unknown
+     */
+    private static Appointment askForAppointment() throws RemoteException {
+        System.out.print("Enter appointment ID (e.g. MCH123456789): ");
+        String appointmentId = scanner.nextLine().trim();
+
+        long id = Appointment.parseId(appointmentId);
+        if (id < 0) {
+            System.out.println("❌ Invalid appointment ID.");
+            return null;
+        }
+        Appointment appointment = hospitalService.findAppointment(id);
+        if (appointment == null) {
+            System.out.println("❌ No appointment found with ID " + appointmentId);
+            return null;
+        }
+        System.out.println(AppointmentFormatter.formatSummary(appointment,
+                doctorDirectory.get(appointment.getDoctorId())));
+        return appointment;
+    }
+
+    /**
+     * Lists every appointment booked for a patient, a page at a time
+     */
+    private static void listPatientAppointments() {
+        try {
+            System.out.println("\n🗂️ Patient's Appointments");
+            System.out.println("-".repeat(35));
+
+            System.out.print("Enter patient name: ");
+            String patientName = scanner.nextLine().trim();
+            if (patientName.isEmpty()) {
+                System.out.println("❌ Patient name cannot be empty.");
+                return;
+            }
+
+            int shown = printPages(cursor -> hospitalService.findAppointmentsByPatient(patientName, cursor,
+                    LIST_PAGE_SIZE));
+            if (shown == 0) {
+                System.out.println("❌ No appointments found for " + patientName);
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error listing appointments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Shows a doctor's booked appointments for one day, a page at a time
+     */
+    private static void viewDoctorSchedule() {
+        try {
+            System.out.println("\n📆 Doctor's Schedule");
+            System.out.println("-".repeat(35));
+
+            Doctor[] doctors = doctorDirectory.getDoctors();
+            System.out.println("Available doctors:");
+            for (int i = 0; i < doctors.length; i++) {
+                System.out.printf("%d. %s\n", i + 1, doctors[i]);
+            }
+
+            System.out.print("\nSelect doctor (enter number 1-" + doctors.length + "): ");
+            int doctorChoice = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+
+            if (doctorChoice < 1 || doctorChoice > doctors.length) {
+                System.out.println("❌ Invalid doctor selection.");
+                return;
+            }
+            Doctor selectedDoctor = doctors[doctorChoice - 1];
+
+            System.out.print("Enter date (yyyy-mm-dd, blank for tomorrow): ");
+            String dateText = scanner.nextLine().trim();
+            LocalDate day;
+            try {
+                day = dateText.isEmpty() ? LocalDate.now().plusDays(1) : LocalDate.parse(dateText);
+            } catch (DateTimeParseException e) {
+                System.out.println("❌ Invalid date.");
+                return;
+            }
+
+            System.out.println("\n" + selectedDoctor.getDisplayName() + " on " + day + ":");
+            int shown = printPages(cursor -> hospitalService.getDoctorSchedule(selectedDoctor.getId(),
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay(), cursor, LIST_PAGE_SIZE));
+            if (shown == 0) {
+                System.out.println("No appointments booked.");
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Error getting schedule: " + e.getMessage());
+            scanner.nextLine(); // Clear any invalid input
+        }
+    }
+
+    /**
+     * Prints query results page by page, asking before fetching each further page
+     * @return Number of appointments printed
+     */
+    private static int printPages(PageQuery query) throws Exception {
+        int shown = 0;
+        long cursor = AppointmentPage.FIRST_PAGE;
+        while (true) {
+            AppointmentPage page = query.fetch(cursor);
+            for (Appointment appointment : page.getAppointments()) {
+                Doctor doctor = doctorDirectory.get(appointment.getDoctorId());
+                System.out.printf("%d. %s\n", ++shown, AppointmentFormatter.formatSummary(appointment, doctor));
+            }
+            if (!page.hasMore()) {
+                return shown;
+            }
+            System.out.print("-- more (Enter to continue, q to stop) -- ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return shown;
+            }
+            cursor = page.getNextCursor();
+        }
+    }
+
+    /**
+     * Books every doctor,patient line of a CSV file through the batch API
+     * and reports the achieved booking rate
+     */
+    private static void importBookings(String csvPath) {
+        try {
+            System.out.println("\n📥 Bulk Import from " + csvPath);
+            System.out.println("-".repeat(35));
+
+            List<BookingRequest> requests = readBookingRequests(Path.of(csvPath));
+            if (requests.isEmpty()) {
+                System.out.println("❌ No bookings found in file.");
+                return;
+            }
+
+            int confirmed = 0;
+            int failed = 0;
+            long start = System.nanoTime();
+
+            for (int from = 0; from < requests.size(); from += IMPORT_BATCH_SIZE) {
+                List<BookingRequest> batch = requests.subList(from, Math.min(from + IMPORT_BATCH_SIZE, requests.size()));
+                List<BookingResult> results = bookBatch(batch);
+
+                for (int i = 0; i < results.size(); i++) {
+                    BookingResult result = results.get(i);
+                    if (result.isConfirmed()) {
+                        confirmed++;
+                    } else {
+                        failed++;
+                        System.out.println("❌ Line " + (from + i + 1) + " (" + batch.get(i).getPatientName() + "): "
+                                + result.getMessage());
+                    }
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.println("-".repeat(35));
+            System.out.printf("✅ Confirmed: %d, ❌ Failed: %d\n", confirmed, failed);
+            System.out.printf("Processed %d bookings in %.2f s (%.0f bookings/s)\n",
+                    requests.size(), seconds, requests.size() / seconds);
+
+        } catch (Exception e) {
+            System.err.println("❌ Error importing bookings: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends one batch, waiting and retrying while the server says it is busy
+     */
+    private static List<BookingResult> bookBatch(List<BookingRequest> batch)
+            throws RemoteException, InterruptedException {
+        while (true) {
+            try {
+                return hospitalService.bookAppointments(new ArrayList<>(batch));
+            } catch (RemoteException e) {
+                ServiceBusyException busy = ServiceBusyException.find(e);
+                if (busy == null) {
+                    throw e;
+                }
+                Thread.sleep(busy.getRetryAfterMillis());
+            }
+        }
+    }
+
+    /**
+     * Reads doctor,patient lines from a CSV file, skipping blank lines and an optional header
+     * Doctor names are resolved to IDs from the cached directory; unknown names get ID -1 and are rejected by the server
+     */
+    private static List<BookingRequest> readBookingRequests(Path csvFile) throws IOException {
+        List<BookingRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.trim().equalsIgnoreCase("doctor,patient")) {
+                    continue;
+                }
+                // Doctor names never contain commas, patient names might
+                String[] fields = line.split(",", 2);
+                if (fields.length < 2) {
+                    throw new IOException("Expected doctor,patient but got: " + line);
+                }
+                requests.add(new BookingRequest(doctorDirectory.findDoctorId(fields[0]), fields[1].trim()));
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Fetches one page of a paginated query
+     */
+    @FunctionalInterface
+    private interface PageQuery {
+        AppointmentPage fetch(long cursor) throws Exception;
+    }
+}
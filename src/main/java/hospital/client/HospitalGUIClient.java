@@ -1,6 +1,9 @@
 package hospital.client;
 
-import hospital.interfaces.HospitalService;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorStatusEvent;
+import hospital.interfaces.ServiceBusyException;
+import hospital.transport.TransportConfig;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -8,18 +11,34 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.rmi.Naming;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * COMPACT GUI Client - ALL BUTTONS VISIBLE, FITS ALL SCREENS
  */
 public class HospitalGUIClient extends JFrame {
 
-    private HospitalService hospitalService;
+    // Remote calls run on virtual threads; the EDT only starts them and shows results
+    private final transient AsyncHospitalClient hospitalClient = new AsyncHospitalClient(
+            Duration.ofSeconds(Long.getLong("hospital.client.timeoutSeconds", 10)));
+    private transient CompletableFuture<?> pendingRequest;
+    private final transient TransportConfig transport = loadTransportConfig();
+    private Doctor[] doctors = new Doctor[0];
+    // Latest status pushed by the server, by doctor ID (EDT only)
+    private final transient Map<Integer, DoctorStatusEvent> doctorStatus = new HashMap<>();
+    private JLabel nextSlotLabel;
     private JTextArea outputArea;
     private JComboBox<String> doctorComboBox;
     private JTextField patientNameField;
-    private JButton connectButton, refreshButton, bookButton, checkButton, slotButton;
+    private JButton connectButton, refreshButton, bookButton, checkButton, slotButton, cancelButton;
     private JLabel statusLabel;
     private boolean connected = false;
 
@@ -93,6 +112,10 @@ public class HospitalGUIClient extends JFrame {
         doctorComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 11));
         doctorComboBox.setEnabled(false);
 
+        nextSlotLabel = new JLabel(" ");
+        nextSlotLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        nextSlotLabel.setForeground(TEXT_DARK);
+
         refreshButton = createModernButton("Refresh Doctors", SUCCESS_GREEN);
         refreshButton.setEnabled(false);
 
@@ -113,10 +136,13 @@ public class HospitalGUIClient extends JFrame {
         checkButton = createModernButton("Check Availability", WARNING_ORANGE);
         slotButton = createModernButton("Get Next Slot", PRIMARY_BLUE);
 
+        cancelButton = createModernButton("Cancel Request", DANGER_RED);
+
         // Initially disable all action buttons
         bookButton.setEnabled(false);
         checkButton.setEnabled(false);
         slotButton.setEnabled(false);
+        cancelButton.setEnabled(false);
 
         // Modern output area
         outputArea = new JTextArea();
@@ -213,6 +239,9 @@ public class HospitalGUIClient extends JFrame {
         leftPanel.add(Box.createVerticalStrut(8));
         doctorComboBox.setAlignmentX(Component.CENTER_ALIGNMENT);
         leftPanel.add(doctorComboBox);
+        leftPanel.add(Box.createVerticalStrut(4));
+        nextSlotLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        leftPanel.add(nextSlotLabel);
         leftPanel.add(Box.createVerticalStrut(8));
         refreshButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         leftPanel.add(refreshButton);
@@ -234,6 +263,9 @@ public class HospitalGUIClient extends JFrame {
         leftPanel.add(Box.createVerticalStrut(6));
         slotButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         leftPanel.add(slotButton);
+        leftPanel.add(Box.createVerticalStrut(6));
+        cancelButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        leftPanel.add(cancelButton);
 
         // Right output panel with modern styling
         JPanel rightPanel = new JPanel(new BorderLayout());
@@ -274,48 +306,44 @@ public class HospitalGUIClient extends JFrame {
         bookButton.addActionListener(e -> bookAppointment());
         checkButton.addActionListener(e -> checkAvailability());
         slotButton.addActionListener(e -> getNextSlot());
+        cancelButton.addActionListener(e -> cancelRequest());
+        doctorComboBox.addActionListener(e -> showNextSlot());
     }
 
     private void connectToServer() {
-        try {
-            appendOutput("Connecting to server...\n");
-            String serverURL = "rmi://localhost:1099/HospitalService";
-            hospitalService = (HospitalService) Naming.lookup(serverURL);
-
+        appendOutput("Connecting to server...\n");
+        String serverURL = "rmi://localhost:" + transport.getRegistryPort() + "/HospitalService";
+        runRequest(hospitalClient.connect(serverURL), ignored -> {
             connected = true;
             statusLabel.setText("Connected");
             statusLabel.setForeground(SUCCESS_GREEN);
             connectButton.setText("Connected");
             connectButton.setBackground(SUCCESS_GREEN);
-            connectButton.setEnabled(false);
 
-            refreshButton.setEnabled(true);
             doctorComboBox.setEnabled(true);
             patientNameField.setEnabled(true);
-            bookButton.setEnabled(true);
-            checkButton.setEnabled(true);
-            slotButton.setEnabled(true);
 
             appendOutput("Connected successfully!\n");
             appendOutput("All premium features are now available.\n\n");
             refreshDoctors();
-
-        } catch (Exception e) {
-            appendOutput("Connection failed: " + e.getMessage() + "\n");
-            appendOutput("Make sure server is running on localhost:1099\n\n");
-        }
+            subscribeToUpdates();
+        }, error -> {
+            appendOutput("Connection failed: " + error + "\n");
+            appendOutput("Make sure server is running on localhost:" + transport.getRegistryPort() + "\n\n");
+        });
     }
 
     private void refreshDoctors() {
-        if (!connected) return;
-        try {
-            appendOutput("Loading doctors from hospital database...\n");
-            String[] doctors = hospitalService.getAvailableDoctors();
+        if (!connected || pendingRequest != null) return;
+
+        appendOutput("Loading doctors from hospital database...\n");
+        runRequest(hospitalClient.refreshDoctors(), loaded -> {
+            doctors = loaded;
 
             doctorComboBox.removeAllItems();
             doctorComboBox.addItem("-- Select Doctor --");
-            for (String doctor : doctors) {
-                doctorComboBox.addItem(doctor);
+            for (Doctor doctor : doctors) {
+                doctorComboBox.addItem(doctor.getDisplayName());
             }
 
             appendOutput("Successfully loaded " + doctors.length + " available doctors:\n");
@@ -325,19 +353,16 @@ public class HospitalGUIClient extends JFrame {
             }
             appendOutput("==========================================\n");
             appendOutput("Please select a doctor from the dropdown menu.\n\n");
-
-        } catch (Exception e) {
-            appendOutput("Error loading doctors: " + e.getMessage() + "\n\n");
-        }
+        }, error -> appendOutput("Error loading doctors: " + error + "\n\n"));
     }
 
     private void bookAppointment() {
         if (!connected) return;
 
-        String doctor = (String) doctorComboBox.getSelectedItem();
+        Doctor doctor = selectedDoctor();
         String patient = patientNameField.getText().trim();
 
-        if (doctor == null || doctor.equals("-- Select Doctor --")) {
+        if (doctor == null) {
             JOptionPane.showMessageDialog(this, "Please select a doctor.");
             return;
         }
@@ -347,56 +372,159 @@ public class HospitalGUIClient extends JFrame {
             return;
         }
 
-        try {
-            appendOutput("Booking appointment...\n");
-            String result = hospitalService.bookAppointment(doctor, patient);
+        appendOutput("Booking appointment...\n");
+        runRequest(hospitalClient.bookAppointment(doctor.getId(), patient), result -> {
+            if (!result.isConfirmed()) {
+                appendOutput("Booking failed: " + result.getMessage() + "\n\n");
+                return;
+            }
             appendOutput("APPOINTMENT CONFIRMED!\n");
             appendOutput("=======================================\n");
-            appendOutput(result + "\n");
+            appendOutput(AppointmentFormatter.formatConfirmation(result.getAppointment(), doctor) + "\n");
             appendOutput("=======================================\n\n");
 
             patientNameField.setText("");
             doctorComboBox.setSelectedIndex(0);
 
             JOptionPane.showMessageDialog(this, "Appointment booked successfully!");
-        } catch (Exception e) {
-            appendOutput("Booking failed: " + e.getMessage() + "\n\n");
-        }
+        }, error -> appendOutput("Booking failed: " + error + "\n\n"));
     }
 
     private void checkAvailability() {
         if (!connected) return;
 
-        String doctor = (String) doctorComboBox.getSelectedItem();
-        if (doctor == null || doctor.equals("-- Select Doctor --")) {
+        Doctor doctor = selectedDoctor();
+        if (doctor == null) {
             JOptionPane.showMessageDialog(this, "Please select a doctor.");
             return;
         }
 
-        try {
-            boolean available = hospitalService.isDoctorAvailable(doctor);
-            appendOutput("Availability check: " + doctor + " is " +
-                    (available ? "AVAILABLE" : "NOT AVAILABLE") + "\n\n");
-        } catch (Exception e) {
-            appendOutput("Error: " + e.getMessage() + "\n\n");
-        }
+        runRequest(hospitalClient.isDoctorAvailable(doctor.getId()), available ->
+                appendOutput("Availability check: " + doctor + " is " +
+                        (available ? "AVAILABLE" : "NOT AVAILABLE") + "\n\n"),
+                error -> appendOutput("Error: " + error + "\n\n"));
     }
 
     private void getNextSlot() {
         if (!connected) return;
 
-        String doctor = (String) doctorComboBox.getSelectedItem();
-        if (doctor == null || doctor.equals("-- Select Doctor --")) {
+        Doctor doctor = selectedDoctor();
+        if (doctor == null) {
             JOptionPane.showMessageDialog(this, "Please select a doctor.");
             return;
         }
 
+        runRequest(hospitalClient.getNextAvailableSlot(doctor.getId()), slot ->
+                appendOutput("Next available slot for " + doctor + ": "
+                        + (slot == null ? "No free slots" : AppointmentFormatter.formatTime(slot)) + "\n\n"),
+                error -> appendOutput("Error: " + error + "\n\n"));
+    }
+
+    /**
+     * Lets the server push slot changes so the next-slot label stays current without polling
+     * Runs alongside other requests; if it fails the GUI simply works without live updates
+     */
+    private void subscribeToUpdates() {
+        hospitalClient.subscribe(events -> SwingUtilities.invokeLater(() -> {
+            for (DoctorStatusEvent event : events) {
+                doctorStatus.put(event.getDoctorId(), event);
+            }
+            showNextSlot();
+        })).exceptionally(error -> {
+            SwingUtilities.invokeLater(() -> appendOutput("Live updates unavailable: " + describeError(error) + "\n\n"));
+            return null;
+        });
+    }
+
+    private void showNextSlot() {
+        Doctor doctor = selectedDoctor();
+        DoctorStatusEvent status = doctor == null ? null : doctorStatus.get(doctor.getId());
+        if (status == null) {
+            nextSlotLabel.setText(" ");
+        } else if (!status.isAvailable() || status.getNextAvailableSlot() == null) {
+            nextSlotLabel.setText("No free slots");
+        } else {
+            nextSlotLabel.setText("Next free: " + AppointmentFormatter.formatTime(status.getNextAvailableSlot()));
+        }
+    }
+
+    private void cancelRequest() {
+        if (pendingRequest != null) {
+            pendingRequest.cancel(true);
+        }
+    }
+
+    /**
+     * Tracks a remote call: buttons are disabled until it finishes, then the
+     * matching handler runs on the EDT with the result or an error message
+     */
+    private <T> void runRequest(CompletableFuture<T> request, Consumer<T> onSuccess, Consumer<String> onError) {
+        pendingRequest = request;
+        updateButtons();
+
+        request.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (pendingRequest == request) {
+                pendingRequest = null;
+            }
+            if (error == null) {
+                onSuccess.accept(value);
+            } else {
+                onError.accept(describeError(error));
+            }
+            updateButtons();
+        }));
+    }
+
+    private static String describeError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return "Request cancelled";
+        }
+        if (cause instanceof TimeoutException) {
+            return "Request timed out, the server is not responding";
+        }
+        ServiceBusyException busy = ServiceBusyException.find(cause);
+        if (busy != null) {
+            return "Server is busy, please try again in " + busy.getRetryAfterMillis() + " ms";
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * Only one request runs at a time; while it does, only Cancel is enabled
+     */
+    private void updateButtons() {
+        boolean busy = pendingRequest != null;
+        connectButton.setEnabled(!busy && !connected);
+        refreshButton.setEnabled(!busy && connected);
+        bookButton.setEnabled(!busy && connected);
+        checkButton.setEnabled(!busy && connected);
+        slotButton.setEnabled(!busy && connected);
+        cancelButton.setEnabled(busy);
+        setCursor(Cursor.getPredefinedCursor(busy ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+    }
+
+    /**
+     * Doctor picked in the combo box, or null if none is selected
+     */
+    private Doctor selectedDoctor() {
+        int index = doctorComboBox.getSelectedIndex();
+        return index >= 1 && index <= doctors.length ? doctors[index - 1] : null;
+    }
+
+    /**
+     * Transport settings shared with the server, falling back to the defaults if the file cannot be read
+     */
+    private static TransportConfig loadTransportConfig() {
+        TransportConfig config;
         try {
-            String slot = hospitalService.getNextAvailableSlot(doctor);
-            appendOutput("Next available slot for " + doctor + ": " + slot + "\n\n");
-        } catch (Exception e) {
-            appendOutput("Error: " + e.getMessage() + "\n\n");
+            config = TransportConfig.load();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read transport config, using defaults: " + e.getMessage());
+            config = TransportConfig.defaults();
         }
+        config.applyConnectionReuse();
+        return config;
     }
 
     private void appendOutput(String text) {
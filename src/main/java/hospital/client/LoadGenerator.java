@@ -0,0 +1,373 @@
+package hospital.client;
+
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.ServiceBusyException;
+import hospital.metrics.LatencyHistogram;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless open-loop load generator for capacity tests
+ *
+ * Calls are started on a fixed schedule of ratePerSecond, each on its own
+ * virtual thread, whether or not earlier calls have finished. Latency is
+ * measured from the time a call was scheduled to start, not from when it was
+ * actually sent, so a server that falls behind shows up in the percentiles
+ * instead of silently slowing the generator down (coordinated omission). At
+ * most maxInFlight calls run at once; beyond that the schedule keeps running
+ * and the wait counts towards latency.
+ *
+ * Run with {@code HospitalClient --load}. Configured with
+ * -Dhospital.load.rate (calls per second, default 200),
+ * -Dhospital.load.durationSeconds (default 60),
+ * -Dhospital.load.maxInFlight (default 1000),
+ * -Dhospital.load.reportSeconds (default 5),
+ * -Dhospital.load.warmupSeconds (calls scheduled in this first part of the run
+ * are left out of the summary but not of the interval reports, default 0),
+ * -Dhospital.load.mix (relative weights, default book=10,available=30,slot=40,directory=20)
+ * and -Dhospital.load.csv (file to write one line per operation and report interval to, default none).
+ */
+public class LoadGenerator {
+
+    /**
+     * Calls the generator makes, with their names in the mix setting
+     */
+    public enum Operation {
+        BOOK("book"), AVAILABILITY("available"), SLOT("slot"), DIRECTORY("directory");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        static Operation fromKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation in load mix: " + key);
+        }
+    }
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final HospitalService service;
+    private final double ratePerSecond;
+    private final long durationNanos;
+    private final int maxInFlight;
+    private final long reportNanos;
+    private final long warmupNanos;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Path csvFile;
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLong patientCounter = new AtomicLong();
+    private final Semaphore inFlight;
+    private volatile long maxScheduleLagNanos;
+    private int[] doctorIds;
+
+    /**
+     * @param service Service to load
+     * @param ratePerSecond Calls started per second
+     * @param durationSeconds How long to run
+     * @param maxInFlight Most calls running at once
+     * @param reportSeconds Seconds between interval reports
+     * @param warmupSeconds Seconds at the start left out of the summary
+     * @param mix Relative weight of each operation
+     * @param csvFile File to write interval results to, or null
+     */
+    public LoadGenerator(HospitalService service, double ratePerSecond, long durationSeconds, int maxInFlight,
+                         long reportSeconds, long warmupSeconds, Map<Operation, Integer> mix, Path csvFile) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("rate must be positive: " + ratePerSecond);
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        }
+        this.service = service;
+        this.ratePerSecond = ratePerSecond;
+        this.durationNanos = durationSeconds * 1_000_000_000L;
+        this.maxInFlight = maxInFlight;
+        this.reportNanos = Math.max(1, reportSeconds) * 1_000_000_000L;
+        this.warmupNanos = Math.max(0, warmupSeconds) * 1_000_000_000L;
+        this.csvFile = csvFile;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        operations = mix.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .toArray(Operation[]::new);
+        if (operations.length == 0) {
+            throw new IllegalArgumentException("Load mix has no operation with a positive weight");
+        }
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        for (Operation operation : operations) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    /**
+     * Reads the settings from system properties
+     */
+    public static LoadGenerator fromSystemProperties(HospitalService service) {
+        String csv = System.getProperty("hospital.load.csv");
+        return new LoadGenerator(service,
+                Double.parseDouble(System.getProperty("hospital.load.rate", "200")),
+                Long.getLong("hospital.load.durationSeconds", 60),
+                Integer.getInteger("hospital.load.maxInFlight", 1000),
+                Long.getLong("hospital.load.reportSeconds", 5),
+                Long.getLong("hospital.load.warmupSeconds", 0),
+                parseMix(System.getProperty("hospital.load.mix", "book=10,available=30,slot=40,directory=20")),
+                csv == null || csv.isBlank() ? null : Path.of(csv));
+    }
+
+    /**
+     * Parses a mix such as {@code book=10,slot=90}; operations left out are not called
+     */
+    public static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] keyValue = part.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Load mix entries look like book=10: " + part);
+            }
+            int weight = Integer.parseInt(keyValue[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Load mix weights cannot be negative: " + part);
+            }
+            weights.put(Operation.fromKey(keyValue[0].trim().toLowerCase(Locale.ROOT)), weight);
+        }
+        return weights;
+    }
+
+    /**
+     * Runs the schedule to the end, waits for the calls still running and prints the summary
+     */
+    public void run() throws RemoteException, IOException {
+        doctorIds = Arrays.stream(service.getAvailableDoctors()).mapToInt(Doctor::getId).toArray();
+        if (doctorIds.length == 0) {
+            throw new RemoteException("The server has no doctors to load");
+        }
+
+        System.out.printf("📈 Load test: %.0f calls/s for %d s, at most %d in flight, mix %s%n",
+                ratePerSecond, durationNanos / 1_000_000_000L, maxInFlight, describeMix());
+        PrintWriter csv = csvFile == null ? null
+                : new PrintWriter(Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8));
+        if (csv != null) {
+            csv.println("elapsedSeconds,operation,calls,errors,busy,meanMicros,p50Micros,p90Micros,p99Micros,p999Micros,maxMicros");
+        }
+
+        long start = System.nanoTime();
+        long nextReport = start + reportNanos;
+        long lastReport = start;
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long call = 0; ; call++) {
+                long scheduled = start + (long) (call * 1_000_000_000.0 / ratePerSecond);
+                if (scheduled - start >= durationNanos) {
+                    break;
+                }
+                long now = System.nanoTime();
+                if (now - nextReport >= 0) {
+                    report(now - start, now - lastReport, csv);
+                    lastReport = now;
+                    nextReport += reportNanos;
+                }
+                if (scheduled > now) {
+                    LockSupport.parkNanos(scheduled - now);
+                } else {
+                    maxScheduleLagNanos = Math.max(maxScheduleLagNanos, now - scheduled);
+                }
+
+                inFlight.acquireUninterruptibly();
+                Operation operation = pickOperation();
+                boolean measured = scheduled - start >= warmupNanos;
+                callers.execute(() -> {
+                    try {
+                        execute(operation, scheduled, measured);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long end = System.nanoTime();
+        report(end - start, end - lastReport, csv);
+        if (csv != null) {
+            csv.close();
+        }
+        printSummary(end - start);
+    }
+
+    /**
+     * Makes one call and records its latency from the scheduled start
+     */
+    private void execute(Operation operation, long scheduled, boolean measured) {
+        OperationStats operationStats = stats.get(operation);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int doctorId = doctorIds[random.nextInt(doctorIds.length)];
+        try {
+            switch (operation) {
+                case BOOK -> {
+                    BookingResult result = service.bookAppointment(doctorId,
+                            "Load Patient " + patientCounter.incrementAndGet());
+                    if (!result.isConfirmed() && measured) {
+                        operationStats.unconfirmed.increment();
+                    }
+                }
+                case AVAILABILITY -> service.isDoctorAvailable(doctorId);
+                case SLOT -> service.getNextAvailableSlot(doctorId);
+                case DIRECTORY -> service.getAvailableDoctors();
+            }
+            operationStats.record(System.nanoTime() - scheduled, measured);
+        } catch (RemoteException e) {
+            boolean busy = ServiceBusyException.find(e) != null;
+            (busy ? operationStats.intervalBusy : operationStats.intervalErrors).increment();
+            if (measured) {
+                (busy ? operationStats.busy : operationStats.errors).increment();
+            }
+        }
+    }
+
+    private Operation pickOperation() {
+        int ticket = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Prints, and optionally appends to the CSV, the results since the last report
+     */
+    private void report(long elapsedNanos, long intervalNanos, PrintWriter csv) {
+        double seconds = Math.max(1, intervalNanos) / 1e9;
+        long calls = 0;
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            LatencyHistogram interval = operationStats.takeInterval();
+            long errors = operationStats.intervalErrors.sumThenReset();
+            long busy = operationStats.intervalBusy.sumThenReset();
+            calls += interval.getCount();
+            lines.append(String.format("  %-10s %8.1f/s errors=%d busy=%d %s%n", entry.getKey().key(),
+                    interval.getCount() / seconds, errors, busy, formatLatency(interval)));
+            if (csv != null) {
+                csv.printf(Locale.ROOT, "%.1f,%s,%d,%d,%d,%.1f,%d,%d,%d,%d,%d%n", elapsedNanos / 1e9,
+                        entry.getKey().key(), interval.getCount(), errors, busy, interval.getMean() / 1000,
+                        interval.valueAtPercentile(50) / 1000, interval.valueAtPercentile(90) / 1000,
+                        interval.valueAtPercentile(99) / 1000, interval.valueAtPercentile(99.9) / 1000,
+                        interval.getMax() / 1000);
+            }
+        }
+        System.out.printf("[%5.0fs] %.1f calls/s, %d in flight%n%s", elapsedNanos / 1e9, calls / seconds,
+                maxInFlight - inFlight.availablePermits(), lines);
+        if (csv != null) {
+            csv.flush();
+        }
+    }
+
+    private void printSummary(long elapsedNanos) {
+        System.out.println("\n=== LOAD TEST SUMMARY ===");
+        long calls = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            LatencyHistogram total = operationStats.total;
+            calls += total.getCount();
+            System.out.printf("%-10s calls=%d errors=%d busy=%d%s %s%n", entry.getKey().key(), total.getCount(),
+                    operationStats.errors.sum(), operationStats.busy.sum(),
+                    entry.getKey() == Operation.BOOK ? " unconfirmed=" + operationStats.unconfirmed.sum() : "",
+                    formatLatency(total));
+        }
+        double seconds = (elapsedNanos - Math.min(warmupNanos, elapsedNanos)) / 1e9;
+        System.out.printf("Completed %d calls after warmup in %.1f s (%.1f calls/s, target %.0f/s)%n", calls,
+                seconds, calls / Math.max(seconds, 1e-9), ratePerSecond);
+        System.out.printf("Generator fell behind schedule by up to %.1f ms%n",
+                maxScheduleLagNanos / (double) NANOS_PER_MILLI);
+        System.out.println("=========================");
+    }
+
+    private String describeMix() {
+        StringBuilder mix = new StringBuilder();
+        for (int i = 0; i < operations.length; i++) {
+            int weight = cumulativeWeights[i] - (i == 0 ? 0 : cumulativeWeights[i - 1]);
+            mix.append(i == 0 ? "" : ",").append(operations[i].key()).append('=').append(weight);
+        }
+        return mix.toString();
+    }
+
+    private static String formatLatency(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "";
+        }
+        return String.format("p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                millis(histogram.valueAtPercentile(50)), millis(histogram.valueAtPercentile(90)),
+                millis(histogram.valueAtPercentile(99)), millis(histogram.valueAtPercentile(99.9)),
+                millis(histogram.getMax()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) NANOS_PER_MILLI;
+    }
+
+    /**
+     * Results for one operation, over the whole run and since the last report
+     */
+    private static final class OperationStats {
+        final LatencyHistogram total = new LatencyHistogram();
+        final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram());
+        final LongAdder errors = new LongAdder();
+        final LongAdder busy = new LongAdder();
+        final LongAdder intervalErrors = new LongAdder();
+        final LongAdder intervalBusy = new LongAdder();
+        final LongAdder unconfirmed = new LongAdder();
+
+        void record(long latencyNanos, boolean measured) {
+            if (measured) {
+                total.record(latencyNanos);
+            }
+            interval.get().record(latencyNanos);
+        }
+
+        /**
+         * Swaps in a fresh interval histogram; a call recording during the swap may land in either
+         */
+        LatencyHistogram takeInterval() {
+            return interval.getAndSet(new LatencyHistogram());
+        }
+    }
+}
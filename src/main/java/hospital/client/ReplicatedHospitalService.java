@@ -0,0 +1,314 @@
+package hospital.client;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingRequest;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import hospital.interfaces.HospitalEventListener;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.ReplicaRefusedException;
+import hospital.interfaces.SlotHold;
+import hospital.interfaces.WaitlistStatus;
+import java.net.MalformedURLException;
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.Naming;
+import java.rmi.NoSuchObjectException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side HospitalService over a primary and its read replicas
+ *
+ * Reads go to the replicas in turn; a replica that is too far behind refuses
+ * the read and it is retried on the primary. Bookings, cancellations,
+ * reschedules, holds and waitlist calls go to the primary. When the primary cannot be reached they are
+ * offered to the other servers, and whichever accepts (the promoted replica)
+ * becomes the primary from then on. A write is only retried elsewhere if it
+ * certainly did not run: the connection failed, or a replica refused it.
+ *
+ * Set -Dhospital.replicas to the comma-separated registry URLs of the replicas
+ * to make the clients use it; the server URL names the primary.
+ */
+public class ReplicatedHospitalService implements HospitalService {
+
+    private final HospitalService[] servers;
+    private volatile int primary;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    // Client subscription ID to {server index, that server's subscription ID}
+    private final ConcurrentHashMap<Long, long[]> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSubscriptionId = new AtomicLong(1);
+
+    /**
+     * @param primary The primary server
+     * @param replicas Its replicas
+     */
+    public ReplicatedHospitalService(HospitalService primary, List<HospitalService> replicas) {
+        List<HospitalService> all = new ArrayList<>();
+        all.add(primary);
+        all.addAll(replicas);
+        this.servers = all.toArray(new HospitalService[0]);
+    }
+
+    /**
+     * Looks up the primary and every replica in their registries
+     */
+    public static ReplicatedHospitalService connect(String primaryURL, List<String> replicaURLs)
+            throws RemoteException, NotBoundException, MalformedURLException {
+        List<HospitalService> replicas = new ArrayList<>();
+        for (String url : replicaURLs) {
+            replicas.add((HospitalService) Naming.lookup(url));
+        }
+        return new ReplicatedHospitalService((HospitalService) Naming.lookup(primaryURL), replicas);
+    }
+
+    /**
+     * Index of the server currently taking writes; 0 is the original primary
+     */
+    public int getPrimaryIndex() {
+        return primary;
+    }
+
+    @Override
+    public Doctor[] getAvailableDoctors() throws RemoteException {
+        return read(HospitalService::getAvailableDoctors);
+    }
+
+    @Override
+    public long getDirectoryVersion() throws RemoteException {
+        return read(HospitalService::getDirectoryVersion);
+    }
+
+    @Override
+    public DoctorDirectoryDelta getDoctorDirectoryDelta(long sinceVersion) throws RemoteException {
+        return read(server -> server.getDoctorDirectoryDelta(sinceVersion));
+    }
+
+    @Override
+    public int findDoctorId(String doctorName) throws RemoteException {
+        return read(server -> server.findDoctorId(doctorName));
+    }
+
+    @Override
+    public BookingResult bookAppointment(int doctorId, String patientName) throws RemoteException {
+        return write(server -> server.bookAppointment(doctorId, patientName));
+    }
+
+    @Override
+    public List<BookingResult> bookAppointments(List<BookingRequest> requests) throws RemoteException {
+        return write(server -> server.bookAppointments(requests));
+    }
+
+    @Override
+    public SlotHold holdSlot(int doctorId, int seconds) throws RemoteException {
+        return write(server -> server.holdSlot(doctorId, seconds));
+    }
+
+    @Override
+    public BookingResult confirmHold(long holdId, String patientName) throws RemoteException {
+        return write(server -> server.confirmHold(holdId, patientName));
+    }
+
+    @Override
+    public boolean releaseHold(long holdId) throws RemoteException {
+        return write(server -> server.releaseHold(holdId));
+    }
+
+    @Override
+    public boolean isDoctorAvailable(int doctorId) throws RemoteException {
+        return read(server -> server.isDoctorAvailable(doctorId));
+    }
+
+    @Override
+    public LocalDateTime getNextAvailableSlot(int doctorId) throws RemoteException {
+        return read(server -> server.getNextAvailableSlot(doctorId));
+    }
+
+    @Override
+    public LocalDateTime getEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to)
+            throws RemoteException {
+        return read(server -> server.getEarliestSlot(specialization, from, to));
+    }
+
+    @Override
+    public BookingResult findEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to,
+                                          String patientName) throws RemoteException {
+        return write(server -> server.findEarliestSlot(specialization, from, to, patientName));
+    }
+
+    @Override
+    public Appointment findAppointment(long appointmentId) throws RemoteException {
+        return read(server -> server.findAppointment(appointmentId));
+    }
+
+    @Override
+    public BookingResult cancelAppointment(long appointmentId) throws RemoteException {
+        return write(server -> server.cancelAppointment(appointmentId));
+    }
+
+    @Override
+    public BookingResult rescheduleAppointment(long appointmentId, LocalDateTime newTime) throws RemoteException {
+        return write(server -> server.rescheduleAppointment(appointmentId, newTime));
+    }
+
+    @Override
+    public AppointmentPage findAppointmentsByPatient(String patientName, long cursor, int limit)
+            throws RemoteException {
+        return read(server -> server.findAppointmentsByPatient(patientName, cursor, limit));
+    }
+
+    @Override
+    public AppointmentPage getDoctorSchedule(int doctorId, LocalDateTime from, LocalDateTime to, long cursor,
+                                             int limit) throws RemoteException {
+        return read(server -> server.getDoctorSchedule(doctorId, from, to, cursor, limit));
+    }
+
+    @Override
+    public AppointmentPage getAppointmentsOn(LocalDate day, long cursor, int limit) throws RemoteException {
+        return read(server -> server.getAppointmentsOn(day, cursor, limit));
+    }
+
+    @Override
+    public WaitlistStatus joinWaitlist(int doctorId, String patientName, int urgency) throws RemoteException {
+        return write(server -> server.joinWaitlist(doctorId, patientName, urgency));
+    }
+
+    /**
+     * Asks the primary: waitlists are kept on the primary only
+     */
+    @Override
+    public WaitlistStatus getWaitlistStatus(long ticketId) throws RemoteException {
+        return tryInOrder(writeOrder(), server -> server.getWaitlistStatus(ticketId));
+    }
+
+    @Override
+    public boolean leaveWaitlist(long ticketId) throws RemoteException {
+        return write(server -> server.leaveWaitlist(ticketId));
+    }
+
+    /**
+     * Subscribes on the primary, or on another server if the primary is down
+     * Replicas push the changes they apply, so either way the listener hears about every booking
+     */
+    @Override
+    public long subscribe(HospitalEventListener listener) throws RemoteException {
+        RemoteException failure = null;
+        for (int server : writeOrder()) {
+            try {
+                long serverId = servers[server].subscribe(listener);
+                long id = nextSubscriptionId.getAndIncrement();
+                subscriptions.put(id, new long[]{server, serverId});
+                return id;
+            } catch (RemoteException e) {
+                if (!notExecuted(e)) {
+                    throw e;
+                }
+                failure = failure == null ? e : failure;
+            }
+        }
+        throw failure;
+    }
+
+    @Override
+    public boolean unsubscribe(long subscriptionId) throws RemoteException {
+        long[] subscription = subscriptions.remove(subscriptionId);
+        return subscription != null && servers[(int) subscription[0]].unsubscribe(subscription[1]);
+    }
+
+    /**
+     * Runs a read on the next replica, then on the primary, then on any other server
+     */
+    private <T> T read(ServerCall<T> call) throws RemoteException {
+        int current = primary;
+        List<Integer> order = new ArrayList<>(servers.length);
+        if (servers.length > 1) {
+            int replica = Math.floorMod(nextReplica.getAndIncrement(), servers.length - 1);
+            order.add(replica >= current ? replica + 1 : replica);
+        }
+        order.add(current);
+        for (int server = 0; server < servers.length; server++) {
+            if (!order.contains(server)) {
+                order.add(server);
+            }
+        }
+        return tryInOrder(order, call);
+    }
+
+    /**
+     * Runs a write on the primary, failing over to the server that accepts it
+     * Replicas refuse writes, so a server that accepts one is the primary from then on
+     */
+    private <T> T write(ServerCall<T> call) throws RemoteException {
+        RemoteException failure = null;
+        for (int server : writeOrder()) {
+            try {
+                T result = call.invoke(servers[server]);
+                primary = server;
+                return result;
+            } catch (RemoteException e) {
+                if (!notExecuted(e)) {
+                    throw e;
+                }
+                failure = failure == null ? e : failure;
+            }
+        }
+        throw failure;
+    }
+
+    private List<Integer> writeOrder() {
+        int current = primary;
+        List<Integer> order = new ArrayList<>(servers.length);
+        order.add(current);
+        for (int server = 0; server < servers.length; server++) {
+            if (server != current) {
+                order.add(server);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Tries the servers in order until one runs the call
+     * @throws RemoteException the first server's failure if none ran it, or any failure that may have run it
+     */
+    private <T> T tryInOrder(List<Integer> order, ServerCall<T> call) throws RemoteException {
+        RemoteException failure = null;
+        for (int server : order) {
+            try {
+                return call.invoke(servers[server]);
+            } catch (RemoteException e) {
+                if (!notExecuted(e)) {
+                    throw e;
+                }
+                failure = failure == null ? e : failure;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Whether a failed call certainly did not run: it never reached the server, or a replica refused it
+     */
+    private static boolean notExecuted(RemoteException e) {
+        return ReplicaRefusedException.find(e) != null || e instanceof ConnectException
+                || e instanceof ConnectIOException || e instanceof NoSuchObjectException;
+    }
+
+    /**
+     * A call made on one server
+     */
+    @FunctionalInterface
+    private interface ServerCall<T> {
+        T invoke(HospitalService server) throws RemoteException;
+    }
+}
@@ -0,0 +1,434 @@
+package hospital.client;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingRequest;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import hospital.interfaces.HospitalEventListener;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.Partitioning;
+import hospital.interfaces.SlotHold;
+import hospital.interfaces.WaitlistStatus;
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side HospitalService that spreads calls over a partitioned deployment
+ *
+ * Calls about one doctor go to the node owning the doctor, calls about one
+ * appointment to the node that issued its ID (see {@link Partitioning}).
+ * Listing doctors, batch bookings, cross-doctor queries and subscriptions go
+ * to every node at once on virtual threads and the results are merged. Every
+ * node holds the full roster, so directory lookups are answered by node 0.
+ *
+ * Set -Dhospital.nodes to the comma-separated registry URLs of the nodes, in
+ * partition order, to make the clients use it.
+ */
+public class RoutingHospitalService implements HospitalService, AutoCloseable {
+
+    private final HospitalService[] nodes;
+    private final Partitioning partitioning;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Router subscription ID to each node's subscription ID
+    private final ConcurrentHashMap<Long, long[]> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSubscriptionId = new AtomicLong(1);
+
+    /**
+     * @param nodes One service per partition, in partition order
+     */
+    public RoutingHospitalService(List<HospitalService> nodes) {
+        this.nodes = nodes.toArray(new HospitalService[0]);
+        this.partitioning = new Partitioning(this.nodes.length);
+    }
+
+    /**
+     * Looks up every node in its registry
+     * @param nodeURLs Registry URL of each node, in partition order
+     */
+    public static RoutingHospitalService connect(List<String> nodeURLs)
+            throws RemoteException, NotBoundException, MalformedURLException {
+        List<HospitalService> nodes = new ArrayList<>();
+        for (String url : nodeURLs) {
+            nodes.add((HospitalService) Naming.lookup(url));
+        }
+        return new RoutingHospitalService(nodes);
+    }
+
+    /**
+     * Looks up the service the clients should use: a router over -Dhospital.nodes if
+     * that is set, the service at defaultURL with the read replicas in -Dhospital.replicas
+     * if that is set, otherwise the single service at defaultURL
+     */
+    public static HospitalService lookup(String defaultURL)
+            throws RemoteException, NotBoundException, MalformedURLException {
+        String nodeURLs = System.getProperty("hospital.nodes");
+        if (nodeURLs != null && !nodeURLs.isBlank()) {
+            return connect(splitURLs(nodeURLs));
+        }
+        String replicaURLs = System.getProperty("hospital.replicas");
+        if (replicaURLs != null && !replicaURLs.isBlank()) {
+            return ReplicatedHospitalService.connect(defaultURL, splitURLs(replicaURLs));
+        }
+        return (HospitalService) Naming.lookup(defaultURL);
+    }
+
+    private static List<String> splitURLs(String urls) {
+        return Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    @Override
+    public Doctor[] getAvailableDoctors() throws RemoteException {
+        List<Doctor> doctors = new ArrayList<>();
+        for (Doctor[] partition : fanOut(node -> nodes[node].getAvailableDoctors())) {
+            doctors.addAll(Arrays.asList(partition));
+        }
+        doctors.sort(Comparator.comparingInt(Doctor::getId));
+        return doctors.toArray(new Doctor[0]);
+    }
+
+    @Override
+    public long getDirectoryVersion() throws RemoteException {
+        return nodes[0].getDirectoryVersion();
+    }
+
+    @Override
+    public DoctorDirectoryDelta getDoctorDirectoryDelta(long sinceVersion) throws RemoteException {
+        return nodes[0].getDoctorDirectoryDelta(sinceVersion);
+    }
+
+    @Override
+    public int findDoctorId(String doctorName) throws RemoteException {
+        return nodes[0].findDoctorId(doctorName);
+    }
+
+    @Override
+    public BookingResult bookAppointment(int doctorId, String patientName) throws RemoteException {
+        return doctorNode(doctorId).bookAppointment(doctorId, patientName);
+    }
+
+    @Override
+    public List<BookingResult> bookAppointments(List<BookingRequest> requests) throws RemoteException {
+        // Split the batch by owning node, keeping each request's position
+        List<List<Integer>> positions = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            // Node 0 rejects a missing request like any other node would
+            positions.get(request == null ? 0 : partitioning.ownerOf(request.getDoctorId())).add(i);
+        }
+
+        List<Future<List<BookingResult>>> futures = new ArrayList<>();
+        for (int node = 0; node < nodes.length; node++) {
+            List<BookingRequest> part = new ArrayList<>();
+            for (int index : positions.get(node)) {
+                part.add(requests.get(index));
+            }
+            HospitalService service = nodes[node];
+            futures.add(part.isEmpty() ? null : executor.submit(() -> service.bookAppointments(part)));
+        }
+
+        BookingResult[] results = new BookingResult[requests.size()];
+        for (int node = 0; node < nodes.length; node++) {
+            if (futures.get(node) == null) {
+                continue;
+            }
+            List<BookingResult> partResults = await(futures.get(node), node);
+            List<Integer> partPositions = positions.get(node);
+            for (int i = 0; i < partPositions.size(); i++) {
+                results[partPositions.get(i)] = partResults.get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public SlotHold holdSlot(int doctorId, int seconds) throws RemoteException {
+        return doctorNode(doctorId).holdSlot(doctorId, seconds);
+    }
+
+    @Override
+    public BookingResult confirmHold(long holdId, String patientName) throws RemoteException {
+        return appointmentNode(holdId).confirmHold(holdId, patientName);
+    }
+
+    @Override
+    public boolean releaseHold(long holdId) throws RemoteException {
+        return appointmentNode(holdId).releaseHold(holdId);
+    }
+
+    @Override
+    public boolean isDoctorAvailable(int doctorId) throws RemoteException {
+        return doctorNode(doctorId).isDoctorAvailable(doctorId);
+    }
+
+    @Override
+    public LocalDateTime getNextAvailableSlot(int doctorId) throws RemoteException {
+        return doctorNode(doctorId).getNextAvailableSlot(doctorId);
+    }
+
+    @Override
+    public LocalDateTime getEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to)
+            throws RemoteException {
+        LocalDateTime earliest = null;
+        for (LocalDateTime slot : fanOut(node -> nodes[node].getEarliestSlot(specialization, from, to))) {
+            if (slot != null && (earliest == null || slot.isBefore(earliest))) {
+                earliest = slot;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Asks every node for its earliest slot, then books on the node with the earliest one
+     * If another booking takes that slot first, the node books its next one unless a
+     * different node offered an earlier slot, in which case that node is tried next.
+     */
+    @Override
+    public BookingResult findEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to,
+                                          String patientName) throws RemoteException {
+        List<LocalDateTime> slots = fanOut(node -> nodes[node].getEarliestSlot(specialization, from, to));
+        List<Integer> order = new ArrayList<>();
+        for (int node = 0; node < nodes.length; node++) {
+            if (slots.get(node) != null) {
+                order.add(node);
+            }
+        }
+        if (order.isEmpty()) {
+            // Let a node explain why nothing was found
+            return nodes[0].findEarliestSlot(specialization, from, to, patientName);
+        }
+        order.sort(Comparator.comparing(slots::get));
+
+        BookingResult result = null;
+        for (int node : order) {
+            result = nodes[node].findEarliestSlot(specialization, from, to, patientName);
+            if (result.isConfirmed()) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Appointment findAppointment(long appointmentId) throws RemoteException {
+        return appointmentNode(appointmentId).findAppointment(appointmentId);
+    }
+
+    @Override
+    public BookingResult cancelAppointment(long appointmentId) throws RemoteException {
+        return appointmentNode(appointmentId).cancelAppointment(appointmentId);
+    }
+
+    @Override
+    public BookingResult rescheduleAppointment(long appointmentId, LocalDateTime newTime) throws RemoteException {
+        return appointmentNode(appointmentId).rescheduleAppointment(appointmentId, newTime);
+    }
+
+    /**
+     * Asks every node for a page after the same cursor and keeps the lowest IDs
+     * Every node orders by appointment ID, so the last ID kept is a valid cursor for all of them
+     */
+    @Override
+    public AppointmentPage findAppointmentsByPatient(String patientName, long cursor, int limit)
+            throws RemoteException {
+        List<AppointmentPage> pages = fanOut(node -> nodes[node].findAppointmentsByPatient(patientName, cursor, limit));
+        return merge(pages, limit, Comparator.comparingLong(Appointment::getId), Appointment::getId);
+    }
+
+    @Override
+    public AppointmentPage getDoctorSchedule(int doctorId, LocalDateTime from, LocalDateTime to, long cursor,
+                                             int limit) throws RemoteException {
+        return doctorNode(doctorId).getDoctorSchedule(doctorId, from, to, cursor, limit);
+    }
+
+    /**
+     * Asks every node for a page after the same cursor and keeps the first by doctor and time
+     * The cursor packs the doctor ID and the minute of the day, which every node reads the same way
+     */
+    @Override
+    public AppointmentPage getAppointmentsOn(LocalDate day, long cursor, int limit) throws RemoteException {
+        if (day == null) {
+            return AppointmentPage.empty();
+        }
+        long fromMinute = Appointment.toEpochMinute(day.atStartOfDay());
+        List<AppointmentPage> pages = fanOut(node -> nodes[node].getAppointmentsOn(day, cursor, limit));
+        return merge(pages, limit,
+                Comparator.comparingInt(Appointment::getDoctorId).thenComparingLong(Appointment::getEpochMinute),
+                last -> ((long) last.getDoctorId() << 32) | (last.getEpochMinute() - fromMinute));
+    }
+
+    @Override
+    public WaitlistStatus joinWaitlist(int doctorId, String patientName, int urgency) throws RemoteException {
+        return doctorNode(doctorId).joinWaitlist(doctorId, patientName, urgency);
+    }
+
+    /**
+     * Tickets are numbered like appointments, so the node that issued one is known from its ID
+     */
+    @Override
+    public WaitlistStatus getWaitlistStatus(long ticketId) throws RemoteException {
+        return appointmentNode(ticketId).getWaitlistStatus(ticketId);
+    }
+
+    @Override
+    public boolean leaveWaitlist(long ticketId) throws RemoteException {
+        return appointmentNode(ticketId).leaveWaitlist(ticketId);
+    }
+
+    /**
+     * Subscribes the listener on every node; each node pushes the doctors it owns
+     */
+    @Override
+    public long subscribe(HospitalEventListener listener) throws RemoteException {
+        List<Future<Long>> futures = new ArrayList<>(nodes.length);
+        for (HospitalService node : nodes) {
+            futures.add(executor.submit(() -> node.subscribe(listener)));
+        }
+        long[] nodeIds = new long[nodes.length];
+        RemoteException failure = null;
+        for (int i = 0; i < nodes.length; i++) {
+            try {
+                nodeIds[i] = await(futures.get(i), i);
+            } catch (RemoteException e) {
+                nodeIds[i] = -1;
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            // Do not leave the nodes that did accept pushing to a listener nobody tracks
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodeIds[i] >= 0) {
+                    try {
+                        nodes[i].unsubscribe(nodeIds[i]);
+                    } catch (RemoteException ignored) {
+                        // The node drops listeners it cannot reach anyway
+                    }
+                }
+            }
+            throw failure;
+        }
+        long id = nextSubscriptionId.getAndIncrement();
+        subscriptions.put(id, nodeIds);
+        return id;
+    }
+
+    @Override
+    public boolean unsubscribe(long subscriptionId) throws RemoteException {
+        long[] nodeIds = subscriptions.remove(subscriptionId);
+        if (nodeIds == null) {
+            return false;
+        }
+        List<Boolean> removed = fanOut(node -> nodes[node].unsubscribe(nodeIds[node]));
+        return removed.contains(true);
+    }
+
+    /**
+     * Stops the fan-out threads; the remote nodes are not affected
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private HospitalService doctorNode(int doctorId) {
+        return nodes[partitioning.ownerOf(doctorId)];
+    }
+
+    private HospitalService appointmentNode(long appointmentId) {
+        return nodes[partitioning.ownerOfAppointment(appointmentId)];
+    }
+
+    /**
+     * Runs a call on every node in parallel
+     * @return Each node's result, in partition order
+     * @throws RemoteException the first node failure, in partition order
+     */
+    private <T> List<T> fanOut(NodeCall<T> call) throws RemoteException {
+        List<Future<T>> futures = new ArrayList<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            int node = i;
+            futures.add(executor.submit(() -> call.invoke(node)));
+        }
+        List<T> results = new ArrayList<>(nodes.length);
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(await(futures.get(i), i));
+        }
+        return results;
+    }
+
+    private static <T> T await(Future<T> future, int node) throws RemoteException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while waiting for node " + node);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RemoteException remote) {
+                throw remote;
+            }
+            throw new RemoteException("Node " + node + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Merges pages that were fetched after the same cursor into the first limit appointments overall
+     */
+    private static AppointmentPage merge(List<AppointmentPage> pages, int limit, Comparator<Appointment> order,
+                                         CursorOf cursorOf) {
+        int pageSize = Math.max(1, Math.min(limit, AppointmentPage.MAX_PAGE_SIZE));
+        List<Appointment> all = new ArrayList<>();
+        boolean more = false;
+        for (AppointmentPage page : pages) {
+            all.addAll(page.getAppointments());
+            more |= page.hasMore();
+        }
+        all.sort(order);
+        if (all.size() > pageSize) {
+            all = new ArrayList<>(all.subList(0, pageSize));
+            more = true;
+        }
+        return new AppointmentPage(all, more ? cursorOf.cursor(all.get(all.size() - 1)) : AppointmentPage.FIRST_PAGE);
+    }
+
+    /**
+     * A call made on the node with the given index
+     */
+    @FunctionalInterface
+    private interface NodeCall<T> {
+        T invoke(int node) throws Exception;
+    }
+
+    /**
+     * Cursor that continues a query after an appointment
+     */
+    @FunctionalInterface
+    private interface CursorOf {
+        long cursor(Appointment last);
+    }
+}
@@ -0,0 +1,122 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A booked appointment
+ * Encoded compactly on the wire: a long ID, an int doctor ID, the start time
+ * in epoch minutes (hospital local time) and the patient name
+ */
+public class Appointment implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ID_PREFIX = "MCH";
+
+    private long id;
+    private int doctorId;
+    private long epochMinute;
+    private String patientName;
+
+    /**
+     * Required by Externalizable
+     */
+    public Appointment() {
+    }
+
+    public Appointment(long id, int doctorId, long epochMinute, String patientName) {
+        this.id = id;
+        this.doctorId = doctorId;
+        this.epochMinute = epochMinute;
+        this.patientName = patientName;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public long getEpochMinute() {
+        return epochMinute;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    /**
+     * Start time of the appointment
+     */
+    public LocalDateTime getTime() {
+        return toTime(epochMinute);
+    }
+
+    /**
+     * ID as shown to patients, e.g. MCH123456789
+     */
+    public String getDisplayId() {
+        return formatId(id);
+    }
+
+    public static LocalDateTime toTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    public static long toEpochMinute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    public static String formatId(long appointmentId) {
+        return ID_PREFIX + appointmentId;
+    }
+
+    /**
+     * Parses a displayed ID back to its numeric form
+     * @return the numeric ID, or -1 if the text is not a valid appointment ID
+     */
+    public static long parseId(String appointmentId) {
+        if (appointmentId == null) {
+            return -1;
+        }
+        String digits = appointmentId.trim();
+        if (digits.regionMatches(true, 0, ID_PREFIX, 0, ID_PREFIX.length())) {
+            digits = digits.substring(ID_PREFIX.length());
+        }
+        try {
+            long id = Long.parseLong(digits);
+            return id < 0 ? -1 : id;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeInt(doctorId);
+        out.writeLong(epochMinute);
+        out.writeUTF(patientName);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        id = in.readLong();
+        doctorId = in.readInt();
+        epochMinute = in.readLong();
+        patientName = in.readUTF();
+    }
+
+    @Override
+    public String toString() {
+        return "Appointment{id=" + getDisplayId() + ", doctorId=" + doctorId
+                + ", time=" + getTime() + ", patient='" + patientName + "'}";
+    }
+}
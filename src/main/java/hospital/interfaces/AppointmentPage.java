@@ -0,0 +1,88 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.List;
+
+/**
+ * One page of an appointment query
+ * Pass the page's next cursor back to the same query to get the following page;
+ * a cursor of -1 marks the last page.
+ */
+public class AppointmentPage implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cursor that starts a query at its first page
+     */
+    public static final long FIRST_PAGE = -1;
+
+    /**
+     * Largest page the server returns, whatever limit is asked for
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private Appointment[] appointments;
+    private long nextCursor;
+
+    /**
+     * Required by Externalizable
+     */
+    public AppointmentPage() {
+    }
+
+    public AppointmentPage(List<Appointment> appointments, long nextCursor) {
+        this.appointments = appointments.toArray(new Appointment[0]);
+        this.nextCursor = nextCursor;
+    }
+
+    public static AppointmentPage empty() {
+        return new AppointmentPage(List.of(), FIRST_PAGE);
+    }
+
+    public List<Appointment> getAppointments() {
+        return List.of(appointments);
+    }
+
+    /**
+     * Cursor for the next page, or -1 if this is the last page
+     */
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != FIRST_PAGE;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(nextCursor);
+        out.writeInt(appointments.length);
+        for (Appointment appointment : appointments) {
+            appointment.writeExternal(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        nextCursor = in.readLong();
+        int size = in.readInt();
+        if (size < 0 || size > MAX_PAGE_SIZE) {
+            throw new IOException("Invalid page size: " + size);
+        }
+        appointments = new Appointment[size];
+        for (int i = 0; i < size; i++) {
+            appointments[i] = new Appointment();
+            appointments[i].readExternal(in);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentPage[size=" + appointments.length + ", nextCursor=" + nextCursor + "]";
+    }
+}
@@ -0,0 +1,32 @@
+package hospital.interfaces;
+
+import java.io.Serializable;
+
+/**
+ * A single booking in a batch sent to {@link HospitalService#bookAppointments}
+ */
+public class BookingRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int doctorId;
+    private final String patientName;
+
+    public BookingRequest(int doctorId, String patientName) {
+        this.doctorId = doctorId;
+        this.patientName = patientName;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingRequest{doctorId=" + doctorId + ", patient='" + patientName + "'}";
+    }
+}
@@ -0,0 +1,80 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Outcome of a booking, cancellation or reschedule
+ * Either confirmed with the affected appointment, or failed with an error message
+ */
+public class BookingResult implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Appointment appointment;
+    private String message;
+
+    /**
+     * Required by Externalizable
+     */
+    public BookingResult() {
+    }
+
+    private BookingResult(Appointment appointment, String message) {
+        this.appointment = appointment;
+        this.message = message;
+    }
+
+    public static BookingResult confirmed(Appointment appointment) {
+        return new BookingResult(appointment, null);
+    }
+
+    public static BookingResult failed(String message) {
+        return new BookingResult(null, message);
+    }
+
+    public boolean isConfirmed() {
+        return appointment != null;
+    }
+
+    /**
+     * The booked, cancelled or moved appointment, or null if the request failed
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Error message, or null if the booking was confirmed
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeBoolean(appointment != null);
+        if (appointment != null) {
+            appointment.writeExternal(out);
+        } else {
+            out.writeUTF(message);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        if (in.readBoolean()) {
+            appointment = new Appointment();
+            appointment.readExternal(in);
+        } else {
+            message = in.readUTF();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isConfirmed() ? "Confirmed: " + appointment : "Failed: " + message;
+    }
+}
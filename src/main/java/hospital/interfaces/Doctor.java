@@ -0,0 +1,76 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A doctor as listed in the hospital directory
+ */
+public class Doctor implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int id;
+    private String name;
+    private String specialization;
+    private String description;
+
+    /**
+     * Required by Externalizable
+     */
+    public Doctor() {
+    }
+
+    public Doctor(int id, String name, String specialization, String description) {
+        this.id = id;
+        this.name = name;
+        this.specialization = specialization;
+        this.description = description;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpecialization() {
+        return specialization;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Name and specialization, e.g. "Dr. Sarah Wanjiku - Cardiologist"
+     */
+    public String getDisplayName() {
+        return name + " - " + specialization;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(id);
+        out.writeUTF(name);
+        out.writeUTF(specialization);
+        out.writeUTF(description);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        id = in.readInt();
+        name = in.readUTF();
+        specialization = in.readUTF();
+        description = in.readUTF();
+    }
+
+    @Override
+    public String toString() {
+        return getDisplayName();
+    }
+}
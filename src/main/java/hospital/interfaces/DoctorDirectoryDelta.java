@@ -0,0 +1,98 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Changes to the doctor directory between a client's version and the current one
+ * With the full-reload flag set, the added doctors are the whole directory and
+ * the client should drop everything it had cached.
+ */
+public class DoctorDirectoryDelta implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long version;
+    private boolean fullReload;
+    private Doctor[] added;
+    private int[] removedIds;
+
+    /**
+     * Required by Externalizable
+     */
+    public DoctorDirectoryDelta() {
+    }
+
+    public DoctorDirectoryDelta(long version, boolean fullReload, Doctor[] added, int[] removedIds) {
+        this.version = version;
+        this.fullReload = fullReload;
+        this.added = added;
+        this.removedIds = removedIds;
+    }
+
+    /**
+     * Directory version the client is at after applying this delta
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFullReload() {
+        return fullReload;
+    }
+
+    /**
+     * Doctors added (or the whole directory on a full reload)
+     */
+    public Doctor[] getAdded() {
+        return added;
+    }
+
+    public int[] getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * True if nothing changed since the client's version
+     */
+    public boolean isEmpty() {
+        return !fullReload && added.length == 0 && removedIds.length == 0;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(version);
+        out.writeBoolean(fullReload);
+        out.writeInt(added.length);
+        for (Doctor doctor : added) {
+            doctor.writeExternal(out);
+        }
+        out.writeInt(removedIds.length);
+        for (int id : removedIds) {
+            out.writeInt(id);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        version = in.readLong();
+        fullReload = in.readBoolean();
+        added = new Doctor[in.readInt()];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = new Doctor();
+            added[i].readExternal(in);
+        }
+        removedIds = new int[in.readInt()];
+        for (int i = 0; i < removedIds.length; i++) {
+            removedIds[i] = in.readInt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DoctorDirectoryDelta[version=" + version + ", fullReload=" + fullReload
+                + ", added=" + added.length + ", removed=" + removedIds.length + "]";
+    }
+}
@@ -0,0 +1,82 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDateTime;
+
+/**
+ * Latest availability of one doctor, pushed to subscribed clients
+ * Events are coalesced: a client receives the doctor's state at send time,
+ * not one event per booking.
+ */
+public class DoctorStatusEvent implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int doctorId;
+    private boolean available;
+    private long nextSlotEpochMinute;
+    private int bookedAppointments;
+
+    /**
+     * Required by Externalizable
+     */
+    public DoctorStatusEvent() {
+    }
+
+    /**
+     * @param nextSlotEpochMinute Next free slot (see {@link Appointment#toEpochMinute}), or -1 if none
+     */
+    public DoctorStatusEvent(int doctorId, boolean available, long nextSlotEpochMinute, int bookedAppointments) {
+        this.doctorId = doctorId;
+        this.available = available;
+        this.nextSlotEpochMinute = nextSlotEpochMinute;
+        this.bookedAppointments = bookedAppointments;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    /**
+     * Same as {@link HospitalService#isDoctorAvailable}
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Same as {@link HospitalService#getNextAvailableSlot}: null if the doctor has no free slots
+     */
+    public LocalDateTime getNextAvailableSlot() {
+        return nextSlotEpochMinute < 0 ? null : Appointment.toTime(nextSlotEpochMinute);
+    }
+
+    public int getBookedAppointments() {
+        return bookedAppointments;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(doctorId);
+        out.writeBoolean(available);
+        out.writeLong(nextSlotEpochMinute);
+        out.writeInt(bookedAppointments);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        doctorId = in.readInt();
+        available = in.readBoolean();
+        nextSlotEpochMinute = in.readLong();
+        bookedAppointments = in.readInt();
+    }
+
+    @Override
+    public String toString() {
+        return "Doctor #" + doctorId + (available ? " available" : " not available")
+                + ", next slot " + getNextAvailableSlot() + ", " + bookedAppointments + " booked";
+    }
+}
@@ -0,0 +1,73 @@
+package hospital.interfaces;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Remote interface for changing the doctor roster while the hospital is running
+ * Exported by every server node next to its HospitalService; in a partitioned
+ * deployment each change must be made on every node. A new doctor gets its ID
+ * on the first node and is added under that ID everywhere else, which fails
+ * on a node whose roster is out of step instead of handing out another ID.
+ * Changes are journaled and replicated like bookings, and subscribers are
+ * told about them.
+ */
+public interface HospitalAdmin extends Remote {
+
+    /**
+     * Registry name the admin interface is exported under, next to the node's HospitalService
+     */
+    String SERVICE_NAME = "HospitalAdmin";
+
+    /**
+     * Adds a doctor with the next free ID; the new doctor works the full day with no leave
+     * @param name Name of the doctor
+     * @param specialization Specialization of the doctor
+     * @param description Short description shown to patients
+     * @return The added doctor
+     * @throws RemoteException if remote communication fails or the doctor cannot be added
+     */
+    Doctor addDoctor(String name, String specialization, String description) throws RemoteException;
+
+    /**
+     * Adds a doctor under an ID assigned by another node
+     * Refused unless doctorId is this node's next free ID; adding the same doctor
+     * again under its ID returns it unchanged, so a retried call is harmless.
+     * @param doctorId ID the doctor got on the first node
+     * @param name Name of the doctor
+     * @param specialization Specialization of the doctor
+     * @param description Short description shown to patients
+     * @return The added doctor
+     * @throws RemoteException if remote communication fails, or the doctor cannot be added under that ID
+     */
+    Doctor addDoctor(int doctorId, String name, String specialization, String description) throws RemoteException;
+
+    /**
+     * Removes a doctor; the ID is never reused
+     * Refused while the doctor still has upcoming appointments
+     * @param doctorId ID of the doctor
+     * @return true if the doctor was removed, false if no doctor has that ID
+     * @throws RemoteException if remote communication fails or the doctor has upcoming appointments
+     */
+    boolean removeDoctor(int doctorId) throws RemoteException;
+
+    /**
+     * Sets the hours a doctor can be booked each day; appointments already booked are kept
+     * @param doctorId ID of the doctor
+     * @param start Start of the shift, on a 15-minute boundary from 9:00
+     * @param end End of the shift, on a 15-minute boundary up to 17:00
+     * @throws RemoteException if remote communication fails or the doctor or shift is invalid
+     */
+    void setShift(int doctorId, LocalTime start, LocalTime end) throws RemoteException;
+
+    /**
+     * Marks a doctor on leave for a range of days; appointments already booked are kept
+     * @param doctorId ID of the doctor
+     * @param from First day of leave, or null to end any leave
+     * @param to Last day of leave (inclusive), or null to end any leave
+     * @throws RemoteException if remote communication fails or the doctor or days are invalid
+     */
+    void setLeave(int doctorId, LocalDate from, LocalDate to) throws RemoteException;
+}
@@ -0,0 +1,20 @@
+package hospital.interfaces;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Callback implemented by clients that want changes pushed instead of polling
+ * Exported by the client and registered with {@link HospitalService#subscribe}
+ */
+public interface HospitalEventListener extends Remote {
+
+    /**
+     * Called with a batch of doctors whose availability or free slots changed
+     * Calls for one subscriber never overlap; a slow listener only delays its own events
+     * @param events Latest status of each changed doctor, one event per doctor
+     * @throws RemoteException if remote communication fails
+     */
+    void doctorStatusChanged(List<DoctorStatusEvent> events) throws RemoteException;
+}
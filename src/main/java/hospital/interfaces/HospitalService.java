@@ -2,6 +2,9 @@ package hospital.interfaces;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Remote interface for Hospital Appointment System
@@ -11,33 +14,224 @@ public interface HospitalService extends Remote {
 
     /**
      * Retrieves list of available doctors
-     * @return Array of available doctor names
+     * @return Array of available doctors
      * @throws RemoteException if remote communication fails
      */
-    String[] getAvailableDoctors() throws RemoteException;
+    Doctor[] getAvailableDoctors() throws RemoteException;
+
+    /**
+     * Current version of the doctor directory
+     * Changes whenever a doctor is added or removed; clients compare it to the version they cached
+     * @return Directory version
+     * @throws RemoteException if remote communication fails
+     */
+    long getDirectoryVersion() throws RemoteException;
+
+    /**
+     * Gets the doctors added and removed since a directory version
+     * @param sinceVersion Version the client has cached, or -1 if it has nothing cached
+     * @return Changes since that version; the whole directory if the version is unknown
+     * @throws RemoteException if remote communication fails
+     */
+    DoctorDirectoryDelta getDoctorDirectoryDelta(long sinceVersion) throws RemoteException;
+
+    /**
+     * Resolves a doctor's name to its ID
+     * @param doctorName Name or display name of the doctor (case-insensitive)
+     * @return Doctor ID, or -1 if no doctor has that name
+     * @throws RemoteException if remote communication fails
+     */
+    int findDoctorId(String doctorName) throws RemoteException;
 
     /**
      * Books an appointment with specified doctor for a patient
-     * @param doctorName Name of the doctor
+     * @param doctorId ID of the doctor
      * @param patientName Name of the patient
-     * @return Confirmation message with appointment details
+     * @return The booked appointment, or the reason the booking failed
+     * @throws RemoteException if remote communication fails
+     */
+    BookingResult bookAppointment(int doctorId, String patientName) throws RemoteException;
+
+    /**
+     * Books many appointments in a single remote call
+     * Each booking succeeds or fails on its own; one bad entry does not fail the batch
+     * @param requests Bookings to make
+     * @return One result per request, in the same order
      * @throws RemoteException if remote communication fails
      */
-    String bookAppointment(String doctorName, String patientName) throws RemoteException;
+    List<BookingResult> bookAppointments(List<BookingRequest> requests) throws RemoteException;
+
+    /**
+     * Reserves a doctor's next free slot for a while, so it can be shown before booking
+     * The slot is booked with {@link #confirmHold}, given back with {@link #releaseHold},
+     * or freed automatically when the hold expires.
+     * @param doctorId ID of the doctor
+     * @param seconds How long to hold the slot
+     * @return The hold with the slot's time, or an error message
+     * @throws RemoteException if remote communication fails
+     */
+    SlotHold holdSlot(int doctorId, int seconds) throws RemoteException;
+
+    /**
+     * Books a held slot for a patient
+     * @param holdId ID returned by {@link #holdSlot}
+     * @param patientName Name of the patient
+     * @return Result with the appointment, or an error message if the hold expired or was used
+     * @throws RemoteException if remote communication fails
+     */
+    BookingResult confirmHold(long holdId, String patientName) throws RemoteException;
+
+    /**
+     * Gives a held slot back without booking it
+     * @param holdId ID returned by {@link #holdSlot}
+     * @return true if the hold was still active
+     * @throws RemoteException if remote communication fails
+     */
+    boolean releaseHold(long holdId) throws RemoteException;
 
     /**
      * Checks if a specific doctor is available
-     * @param doctorName Name of the doctor to check
+     * @param doctorId ID of the doctor to check
      * @return true if doctor is available, false otherwise
      * @throws RemoteException if remote communication fails
      */
-    boolean isDoctorAvailable(String doctorName) throws RemoteException;
+    boolean isDoctorAvailable(int doctorId) throws RemoteException;
 
     /**
      * Gets the next available appointment slot for a doctor
-     * @param doctorName Name of the doctor
-     * @return Next available time slot
+     * @param doctorId ID of the doctor
+     * @return Next available time slot, or null if the doctor is unknown or fully booked
+     * @throws RemoteException if remote communication fails
+     */
+    LocalDateTime getNextAvailableSlot(int doctorId) throws RemoteException;
+
+    /**
+     * Gets the earliest free slot with any doctor of a specialization
+     * @param specialization Specialization, e.g. "Cardiologist" (case-insensitive)
+     * @param from Start of the window, or null for as soon as possible
+     * @param to End of the window (exclusive), or null for the end of the booking horizon
+     * @return Earliest free time slot in the window, or null if there is none
+     * @throws RemoteException if remote communication fails
+     */
+    LocalDateTime getEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to)
+            throws RemoteException;
+
+    /**
+     * Books the earliest free slot with any doctor of a specialization
+     * Every matching doctor is searched and the winning slot is claimed atomically,
+     * so two patients never get the same slot; ties go to the lower doctor ID.
+     * @param specialization Specialization, e.g. "Cardiologist" (case-insensitive)
+     * @param from Start of the window, or null for as soon as possible
+     * @param to End of the window (exclusive), or null for the end of the booking horizon
+     * @param patientName Name of the patient
+     * @return Result with the appointment (and so the doctor), or an error message
+     * @throws RemoteException if remote communication fails
+     */
+    BookingResult findEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to, String patientName)
+            throws RemoteException;
+
+    /**
+     * Looks up a booked appointment by its ID
+     * @param appointmentId Numeric appointment ID (see {@link Appointment#parseId})
+     * @return The appointment, or null if no appointment has that ID
+     * @throws RemoteException if remote communication fails
+     */
+    Appointment findAppointment(long appointmentId) throws RemoteException;
+
+    /**
+     * Cancels a booked appointment and frees its slot for other patients
+     * @param appointmentId Numeric appointment ID (see {@link Appointment#parseId})
+     * @return The cancelled appointment, or the reason it could not be cancelled
+     * @throws RemoteException if remote communication fails
+     */
+    BookingResult cancelAppointment(long appointmentId) throws RemoteException;
+
+    /**
+     * Moves a booked appointment to another free slot with the same doctor
+     * The old slot is only freed once the new one is secured
+     * @param appointmentId Numeric appointment ID (see {@link Appointment#parseId})
+     * @param newTime Start of the new slot, on a slot boundary within the booking horizon
+     * @return The moved appointment, with its ID unchanged, or the reason it could not be moved
+     * @throws RemoteException if remote communication fails
+     */
+    BookingResult rescheduleAppointment(long appointmentId, LocalDateTime newTime) throws RemoteException;
+
+    /**
+     * Finds a patient's appointments, in the order they were booked
+     * @param patientName Name of the patient (case-insensitive)
+     * @param cursor {@link AppointmentPage#FIRST_PAGE}, or the next cursor of the previous page
+     * @param limit Most appointments to return, capped at {@link AppointmentPage#MAX_PAGE_SIZE}
+     * @return One page of appointments
+     * @throws RemoteException if remote communication fails
+     */
+    AppointmentPage findAppointmentsByPatient(String patientName, long cursor, int limit) throws RemoteException;
+
+    /**
+     * Gets a doctor's appointments in a time range, earliest first
+     * @param doctorId ID of the doctor
+     * @param from Earliest start time (inclusive), or null for no lower bound
+     * @param to Latest start time (exclusive), or null for no upper bound
+     * @param cursor {@link AppointmentPage#FIRST_PAGE}, or the next cursor of the previous page
+     * @param limit Most appointments to return, capped at {@link AppointmentPage#MAX_PAGE_SIZE}
+     * @return One page of appointments; empty if the doctor is unknown
+     * @throws RemoteException if remote communication fails
+     */
+    AppointmentPage getDoctorSchedule(int doctorId, LocalDateTime from, LocalDateTime to, long cursor, int limit)
+            throws RemoteException;
+
+    /**
+     * Gets every appointment on a day, grouped by doctor and earliest first
+     * @param day Day of the appointments
+     * @param cursor {@link AppointmentPage#FIRST_PAGE}, or the next cursor of the previous page
+     * @param limit Most appointments to return, capped at {@link AppointmentPage#MAX_PAGE_SIZE}
+     * @return One page of appointments
+     * @throws RemoteException if remote communication fails
+     */
+    AppointmentPage getAppointmentsOn(LocalDate day, long cursor, int limit) throws RemoteException;
+
+    /**
+     * Registers a callback for doctor status changes
+     * The listener first receives the status of every doctor, then batches of changes
+     * @param listener Exported client callback
+     * @return Subscription ID for {@link #unsubscribe}
+     * @throws RemoteException if remote communication fails or the server has too many subscribers
+     */
+    long subscribe(HospitalEventListener listener) throws RemoteException;
+
+    /**
+     * Stops pushing events to a subscriber
+     * @param subscriptionId ID returned by {@link #subscribe}
+     * @return true if the subscription existed
+     * @throws RemoteException if remote communication fails
+     */
+    boolean unsubscribe(long subscriptionId) throws RemoteException;
+
+    /**
+     * Puts a patient on a doctor's waitlist
+     * When one of the doctor's slots frees up (or is free already), the most urgent
+     * patient who has waited longest is booked into it automatically.
+     * @param doctorId ID of the doctor
+     * @param patientName Name of the patient
+     * @param urgency Priority from {@link WaitlistStatus#MIN_URGENCY} to {@link WaitlistStatus#MAX_URGENCY}
+     * @return The new WAITING ticket, or REJECTED with the reason
+     * @throws RemoteException if remote communication fails
+     */
+    WaitlistStatus joinWaitlist(int doctorId, String patientName, int urgency) throws RemoteException;
+
+    /**
+     * Looks up a waitlist ticket
+     * Waitlists are kept on the primary only, so a replica refuses this read
+     * @param ticketId Ticket returned by {@link #joinWaitlist}
+     * @return Current status, including the appointment once BOOKED, or null if the ticket is unknown
+     * @throws RemoteException if remote communication fails
+     */
+    WaitlistStatus getWaitlistStatus(long ticketId) throws RemoteException;
+
+    /**
+     * Takes a patient off a waitlist
+     * @param ticketId Ticket returned by {@link #joinWaitlist}
+     * @return true if the patient was still waiting and has left
      * @throws RemoteException if remote communication fails
      */
-    String getNextAvailableSlot(String doctorName) throws RemoteException;
-}
\ No newline at end of file
+    boolean leaveWaitlist(long ticketId) throws RemoteException;
+}
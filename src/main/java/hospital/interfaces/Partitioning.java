@@ -0,0 +1,75 @@
+package hospital.interfaces;
+
+/**
+ * Maps doctors and appointments to the nodes of a partitioned deployment
+ *
+ * Every node holds the whole doctor roster but only takes bookings for the
+ * doctors it owns: doctor d belongs to node {@code d % nodeCount}. An
+ * appointment lives on the node that issued its ID, which is found from the
+ * node bits of the ID, so nodes must be started with a node ID that maps back
+ * to their own index.
+ */
+public final class Partitioning {
+
+    public static final String SERVICE_NAME = "HospitalService";
+
+    // Node ID position in an appointment ID; see the server's AppointmentIdGenerator
+    private static final int NODE_ID_SHIFT = 12;
+    private static final int NODE_ID_MASK = (1 << 10) - 1;
+
+    private final int nodeCount;
+
+    /**
+     * @param nodeCount Number of partitions the doctors are spread over
+     */
+    public Partitioning(int nodeCount) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("nodeCount must be at least 1: " + nodeCount);
+        }
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * A single node owning every doctor
+     */
+    public static Partitioning single() {
+        return new Partitioning(1);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Index of the node that owns a doctor
+     */
+    public int ownerOf(int doctorId) {
+        return Math.floorMod(doctorId, nodeCount);
+    }
+
+    /**
+     * Index of the node that issued, and stores, an appointment
+     */
+    public int ownerOfAppointment(long appointmentId) {
+        return Math.floorMod(nodeIdOf(appointmentId), nodeCount);
+    }
+
+    /**
+     * Node ID embedded in an appointment ID
+     */
+    public static int nodeIdOf(long appointmentId) {
+        return (int) ((appointmentId >>> NODE_ID_SHIFT) & NODE_ID_MASK);
+    }
+
+    /**
+     * Registry name of a node, e.g. HospitalService-1; a single node keeps the plain name
+     */
+    public String serviceName(int nodeIndex) {
+        return nodeCount == 1 ? SERVICE_NAME : SERVICE_NAME + "-" + nodeIndex;
+    }
+
+    @Override
+    public String toString() {
+        return "Partitioning[nodes=" + nodeCount + "]";
+    }
+}
@@ -0,0 +1,33 @@
+package hospital.interfaces;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown by a replica for a call it will not serve; the call was not executed
+ * Replicas refuse every write (send it to the primary) and refuse reads while
+ * they lag further behind the primary than their staleness bound (read from
+ * the primary instead). A primary replaced by a promoted replica refuses
+ * every write the same way. RMI delivers it to the client wrapped in a
+ * {@link java.rmi.ServerException}, use {@link #find} to get it back.
+ */
+public class ReplicaRefusedException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReplicaRefusedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Finds a ReplicaRefusedException in an exception's cause chain
+     * @return the exception, or null if the failure was something else
+     */
+    public static ReplicaRefusedException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ReplicaRefusedException refused) {
+                return refused;
+            }
+        }
+        return null;
+    }
+}
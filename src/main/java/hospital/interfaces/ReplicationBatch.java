@@ -0,0 +1,171 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A run of consecutive booking mutations sent from a primary to a replica
+ * The mutations are in the server's journal record format and opaque to
+ * clients. A batch carrying a snapshot replaces everything the replica had:
+ * it rebuilds the doctor roster from the roster records, loads the snapshot,
+ * then applies the mutations.
+ */
+public class ReplicationBatch implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long epoch;
+    private long generation;
+    private int nodeId;
+    private long firstSequence;
+    private int recordCount;
+    private byte[] records;
+    private long headSequence;
+    private Appointment[] snapshot;
+    private byte[] roster;
+
+    /**
+     * Required by Externalizable
+     */
+    public ReplicationBatch() {
+    }
+
+    /**
+     * @param epoch Identifies the primary's run; sequence numbers restart with every epoch
+     * @param generation Primary generation of the sender, raised by every promotion
+     * @param nodeId Node ID the sender issues appointment IDs under
+     * @param firstSequence Sequence number of the first mutation in records
+     * @param recordCount Number of mutations in records
+     * @param records Encoded mutations
+     * @param headSequence Latest sequence number on the primary when the batch was made
+     * @param snapshot Every appointment to start over from, or null for an incremental batch
+     * @param roster Encoded roster changes that rebuild the primary's doctors, sent with a snapshot
+     */
+    public ReplicationBatch(long epoch, long generation, int nodeId, long firstSequence, int recordCount,
+                            byte[] records, long headSequence, Appointment[] snapshot, byte[] roster) {
+        this.epoch = epoch;
+        this.generation = generation;
+        this.nodeId = nodeId;
+        this.firstSequence = firstSequence;
+        this.recordCount = recordCount;
+        this.records = records;
+        this.headSequence = headSequence;
+        this.snapshot = snapshot;
+        this.roster = roster;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public byte[] getRecords() {
+        return records;
+    }
+
+    /**
+     * Sequence number to fetch from next
+     */
+    public long getNextSequence() {
+        return firstSequence + recordCount;
+    }
+
+    public long getHeadSequence() {
+        return headSequence;
+    }
+
+    /**
+     * True if the replica has every mutation the primary had when it made the batch
+     */
+    public boolean isCaughtUp() {
+        return getNextSequence() > headSequence;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot != null;
+    }
+
+    /**
+     * Every appointment to start over from, or null for an incremental batch
+     */
+    public Appointment[] getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Encoded roster changes to apply before the snapshot, or null for an incremental batch
+     */
+    public byte[] getRoster() {
+        return roster;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeLong(epoch);
+        out.writeLong(generation);
+        out.writeInt(nodeId);
+        out.writeLong(firstSequence);
+        out.writeInt(recordCount);
+        out.writeLong(headSequence);
+        out.writeInt(records.length);
+        out.write(records);
+        out.writeInt(snapshot == null ? -1 : snapshot.length);
+        if (snapshot != null) {
+            for (Appointment appointment : snapshot) {
+                appointment.writeExternal(out);
+            }
+        }
+        out.writeInt(roster == null ? -1 : roster.length);
+        if (roster != null) {
+            out.write(roster);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        epoch = in.readLong();
+        generation = in.readLong();
+        nodeId = in.readInt();
+        firstSequence = in.readLong();
+        recordCount = in.readInt();
+        headSequence = in.readLong();
+        records = new byte[in.readInt()];
+        in.readFully(records);
+        int snapshotSize = in.readInt();
+        if (snapshotSize >= 0) {
+            snapshot = new Appointment[snapshotSize];
+            for (int i = 0; i < snapshotSize; i++) {
+                snapshot[i] = new Appointment();
+                snapshot[i].readExternal(in);
+            }
+        }
+        int rosterSize = in.readInt();
+        if (rosterSize >= 0) {
+            roster = new byte[rosterSize];
+            in.readFully(roster);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationBatch[epoch=" + epoch + ", first=" + firstSequence + ", records=" + recordCount
+                + ", head=" + headSequence + (snapshot == null ? "" : ", snapshot=" + snapshot.length) + "]";
+    }
+}
@@ -0,0 +1,40 @@
+package hospital.interfaces;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Stream of booking mutations exported by a primary server for its replicas
+ * Mutations are numbered from 1 in the order the primary made them durable.
+ * A replica asks for the mutations from the sequence number after the last one
+ * it applied; if it is too far behind, or the primary restarted since (the
+ * epoch changed), it gets a snapshot of every appointment instead.
+ * A replica promoted to primary fences the primary it followed, so that one
+ * refuses writes if it is still (or again) running.
+ */
+public interface ReplicationSource extends Remote {
+
+    /**
+     * Registry name the primary exports its replication source under
+     */
+    String SERVICE_NAME = "HospitalReplication";
+
+    /**
+     * Gets the next batch of mutations, waiting for new ones if the replica is caught up
+     * @param epoch Epoch of the last batch the replica applied, or -1 if it has none
+     * @param fromSequence First sequence number the replica needs
+     * @param maxRecords Most mutations to return
+     * @param waitMillis Longest to wait when there are no new mutations
+     * @return The mutations, possibly none, or a snapshot to start over from
+     * @throws RemoteException if remote communication fails or this node is not a primary
+     */
+    ReplicationBatch fetch(long epoch, long fromSequence, int maxRecords, long waitMillis) throws RemoteException;
+
+    /**
+     * Tells this primary that a replica was promoted in a newer generation, so it must stop taking writes
+     * @param generation Generation of the promoted replica
+     * @return true if this node refuses writes now, false if its own generation is as new or newer
+     * @throws RemoteException if remote communication fails
+     */
+    boolean fence(long generation) throws RemoteException;
+}
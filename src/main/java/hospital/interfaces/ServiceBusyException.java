@@ -0,0 +1,41 @@
+package hospital.interfaces;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown when the server turns a call away because it is overloaded or the
+ * caller sent too many requests; the call was not executed and can be retried
+ * RMI delivers it to the client wrapped in a {@link java.rmi.ServerException},
+ * use {@link #find} to get it back.
+ */
+public class ServiceBusyException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public ServiceBusyException(String message, long retryAfterMillis) {
+        super(message + ", retry after " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * How long the client should wait before trying again
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Finds a ServiceBusyException in an exception's cause chain
+     * @return the exception, or null if the failure was something else
+     */
+    public static ServiceBusyException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceBusyException busy) {
+                return busy;
+            }
+        }
+        return null;
+    }
+}
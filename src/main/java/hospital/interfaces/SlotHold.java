@@ -0,0 +1,111 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of holding a slot
+ * Either held (the slot is reserved until the hold expires), or failed with an error message
+ */
+public class SlotHold implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long holdId = -1;
+    private int doctorId = -1;
+    private long epochMinute;
+    private long expiresAtMillis;
+    private String message;
+
+    /**
+     * Required by Externalizable
+     */
+    public SlotHold() {
+    }
+
+    private SlotHold(long holdId, int doctorId, long epochMinute, long expiresAtMillis, String message) {
+        this.holdId = holdId;
+        this.doctorId = doctorId;
+        this.epochMinute = epochMinute;
+        this.expiresAtMillis = expiresAtMillis;
+        this.message = message;
+    }
+
+    public static SlotHold held(long holdId, int doctorId, long epochMinute, long expiresAtMillis) {
+        return new SlotHold(holdId, doctorId, epochMinute, expiresAtMillis, null);
+    }
+
+    public static SlotHold failed(String message) {
+        return new SlotHold(-1, -1, 0, 0, message);
+    }
+
+    public boolean isHeld() {
+        return message == null;
+    }
+
+    /**
+     * ID to confirm or release the hold with, or -1 if the hold failed
+     */
+    public long getHoldId() {
+        return holdId;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    /**
+     * Start time of the held slot, or null if the hold failed
+     */
+    public LocalDateTime getTime() {
+        return isHeld() ? Appointment.toTime(epochMinute) : null;
+    }
+
+    /**
+     * When the hold lapses, in epoch milliseconds of the server's clock
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Error message, or null if the slot is held
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeBoolean(isHeld());
+        if (isHeld()) {
+            out.writeLong(holdId);
+            out.writeInt(doctorId);
+            out.writeLong(epochMinute);
+            out.writeLong(expiresAtMillis);
+        } else {
+            out.writeUTF(message);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        if (in.readBoolean()) {
+            holdId = in.readLong();
+            doctorId = in.readInt();
+            epochMinute = in.readLong();
+            expiresAtMillis = in.readLong();
+        } else {
+            message = in.readUTF();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isHeld() ? "Hold " + Appointment.formatId(holdId) + " on doctor #" + doctorId + " at " + getTime()
+                : "Failed: " + message;
+    }
+}
@@ -0,0 +1,129 @@
+package hospital.interfaces;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Where a patient stands on a doctor's waitlist
+ * Either a ticket (waiting, booked into a freed slot, or left), or a rejected
+ * request with an error message
+ */
+public class WaitlistStatus implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Least and most urgent waitlist priority; more urgent patients get freed slots first
+     */
+    public static final int MIN_URGENCY = 0;
+    public static final int MAX_URGENCY = 9;
+
+    public enum State { WAITING, BOOKED, LEFT, REJECTED }
+
+    private State state;
+    private long ticketId;
+    private int doctorId;
+    private int urgency;
+    private Appointment appointment;
+    private String message;
+
+    /**
+     * Required by Externalizable
+     */
+    public WaitlistStatus() {
+    }
+
+    private WaitlistStatus(State state, long ticketId, int doctorId, int urgency, Appointment appointment,
+                           String message) {
+        this.state = state;
+        this.ticketId = ticketId;
+        this.doctorId = doctorId;
+        this.urgency = urgency;
+        this.appointment = appointment;
+        this.message = message;
+    }
+
+    public static WaitlistStatus of(State state, long ticketId, int doctorId, int urgency, Appointment appointment) {
+        return new WaitlistStatus(state, ticketId, doctorId, urgency, appointment, null);
+    }
+
+    public static WaitlistStatus rejected(String message) {
+        return new WaitlistStatus(State.REJECTED, -1, -1, 0, null, message);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Ticket to check or leave the waitlist with, or -1 if the request was rejected
+     */
+    public long getTicketId() {
+        return ticketId;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public int getUrgency() {
+        return urgency;
+    }
+
+    /**
+     * The appointment the patient was booked into, or null unless BOOKED
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Error message, or null unless REJECTED
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(state.ordinal());
+        if (state == State.REJECTED) {
+            out.writeUTF(message);
+            return;
+        }
+        out.writeLong(ticketId);
+        out.writeInt(doctorId);
+        out.writeByte(urgency);
+        out.writeBoolean(appointment != null);
+        if (appointment != null) {
+            appointment.writeExternal(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        state = State.values()[in.readByte()];
+        if (state == State.REJECTED) {
+            ticketId = -1;
+            doctorId = -1;
+            message = in.readUTF();
+            return;
+        }
+        ticketId = in.readLong();
+        doctorId = in.readInt();
+        urgency = in.readByte();
+        if (in.readBoolean()) {
+            appointment = new Appointment();
+            appointment.readExternal(in);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return state == State.REJECTED ? "Rejected: " + message
+                : "Waitlist ticket " + Appointment.formatId(ticketId) + " for doctor #" + doctorId + ": " + state
+                + (appointment == null ? "" : " " + appointment);
+    }
+}
@@ -0,0 +1,96 @@
+package hospital.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call, error, in-flight and latency tracking for one service method
+ * All counters are striped LongAdders so recording never serializes callers.
+ */
+public class MethodMetrics implements MethodMetricsMBean {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Marks the start of a call
+     * @return start timestamp to pass to {@link #end}
+     */
+    public long begin() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a call started with {@link #begin}
+     */
+    public void end(long startNanos, boolean failed) {
+        latency.record(System.nanoTime() - startNanos);
+        inFlight.decrement();
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return latency.valueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getP99Micros() {
+        return latency.valueAtPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getP999Micros() {
+        return latency.valueAtPercentile(99.9) / 1000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return latency.getMax() / 1000;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        latency.reset();
+    }
+}
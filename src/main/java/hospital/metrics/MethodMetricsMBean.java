@@ -0,0 +1,29 @@
+package hospital.metrics;
+
+/**
+ * JMX view of the metrics for one service method
+ * Latencies are reported in microseconds
+ */
+public interface MethodMetricsMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    long getInFlight();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+
+    /**
+     * Clears counters and latencies (in-flight requests are kept)
+     */
+    void reset();
+}
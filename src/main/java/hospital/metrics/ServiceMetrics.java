@@ -0,0 +1,151 @@
+package hospital.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-method metrics for a service interface
+ *
+ * {@link #instrument} wraps an implementation in a dynamic proxy that times
+ * every interface call and counts calls, errors (thrown exceptions) and
+ * in-flight requests. The numbers are exposed as one JMX MBean per method
+ * under {@code <domain>:type=ServiceMetrics,service=<interface>,method=<name>}
+ * and can be dumped to a text file.
+ */
+public class ServiceMetrics {
+
+    private final String serviceName;
+    private final Map<String, MethodMetrics> metricsByName = new LinkedHashMap<>();
+
+    /**
+     * @param serviceInterface Interface whose methods are tracked
+     */
+    public ServiceMetrics(Class<?> serviceInterface) {
+        this.serviceName = serviceInterface.getSimpleName();
+        for (Method method : serviceInterface.getMethods()) {
+            metricsByName.putIfAbsent(method.getName(), new MethodMetrics(method.getName()));
+        }
+    }
+
+    /**
+     * Wraps a target so every call through the interface is recorded
+     */
+    public <T> T instrument(Class<T> serviceInterface, T target) {
+        Map<Method, MethodMetrics> byMethod = new HashMap<>();
+        for (Method method : serviceInterface.getMethods()) {
+            byMethod.put(method, metricsByName.get(method.getName()));
+        }
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            MethodMetrics metrics = byMethod.get(method);
+            if (metrics == null) {
+                return invoke(target, method, args);
+            }
+            long start = metrics.begin();
+            boolean failed = true;
+            try {
+                Object result = invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                metrics.end(start, failed);
+            }
+        };
+        return serviceInterface.cast(Proxy.newProxyInstance(serviceInterface.getClassLoader(),
+                new Class<?>[]{serviceInterface}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Metrics for one method, or null if the interface has no such method
+     */
+    public MethodMetrics get(String methodName) {
+        return metricsByName.get(methodName);
+    }
+
+    public Collection<MethodMetrics> all() {
+        return Collections.unmodifiableCollection(metricsByName.values());
+    }
+
+    /**
+     * Registers one MBean per method with the platform MBean server
+     */
+    public void registerMBeans(String domain) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (MethodMetrics metrics : metricsByName.values()) {
+            ObjectName name = new ObjectName(domain + ":type=ServiceMetrics,service=" + serviceName
+                    + ",method=" + metrics.getName());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        }
+    }
+
+    /**
+     * One line per method that has been called, e.g. for periodic status output
+     */
+    public String formatReport() {
+        StringBuilder report = new StringBuilder();
+        for (MethodMetrics metrics : metricsByName.values()) {
+            if (metrics.getCalls() == 0 && metrics.getInFlight() == 0) {
+                continue;
+            }
+            report.append(String.format("%-24s calls=%d errors=%d inFlight=%d mean=%.1fus p50=%dus p99=%dus p999=%dus max=%dus%n",
+                    metrics.getName(), metrics.getCalls(), metrics.getErrors(), metrics.getInFlight(),
+                    metrics.getMeanMicros(), metrics.getP50Micros(), metrics.getP99Micros(),
+                    metrics.getP999Micros(), metrics.getMaxMicros()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes a snapshot of every method's metrics to a file, replacing it atomically
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        StringBuilder snapshot = new StringBuilder();
+        snapshot.append("# ").append(serviceName).append(" metrics at ").append(Instant.now()).append('\n');
+        for (MethodMetrics metrics : metricsByName.values()) {
+            String prefix = metrics.getName() + ".";
+            snapshot.append(prefix).append("calls=").append(metrics.getCalls()).append('\n')
+                    .append(prefix).append("errors=").append(metrics.getErrors()).append('\n')
+                    .append(prefix).append("inFlight=").append(metrics.getInFlight()).append('\n')
+                    .append(prefix).append("meanMicros=").append(String.format("%.1f", metrics.getMeanMicros())).append('\n')
+                    .append(prefix).append("p50Micros=").append(metrics.getP50Micros()).append('\n')
+                    .append(prefix).append("p99Micros=").append(metrics.getP99Micros()).append('\n')
+                    .append(prefix).append("p999Micros=").append(metrics.getP999Micros()).append('\n')
+                    .append(prefix).append("maxMicros=").append(metrics.getMaxMicros()).append('\n');
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, snapshot, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
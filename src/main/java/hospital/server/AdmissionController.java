@@ -0,0 +1,269 @@
+package hospital.server;
+
+import hospital.interfaces.ServiceBusyException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.server.RemoteServer;
+import java.rmi.server.ServerNotActiveException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control in front of the hospital service
+ *
+ * Every call first takes a token from its client host's token bucket, then one
+ * of maxConcurrent execution permits. A call that gets neither is rejected at
+ * once with a {@link ServiceBusyException} carrying a retry-after hint, instead
+ * of queueing on an RMI thread. Staff hosts form a priority lane: they are not
+ * rate limited and may use all permits, while everyone else is held back once
+ * only staffReserved permits are left.
+ *
+ * Off unless -Dhospital.admission.maxConcurrent is set above 0 (64 is a sensible
+ * start); the other settings are -Dhospital.admission.staffReserved (default 8),
+ * -Dhospital.admission.ratePerSecond (per host, default 50),
+ * -Dhospital.admission.burst (default 100) and
+ * -Dhospital.admission.staffHosts (comma-separated addresses, default none).
+ */
+public class AdmissionController {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    // Host used for calls that do not come in over RMI
+    static final String LOCAL_HOST = "local";
+
+    // Client host of a call that came in through another front-end, e.g. the HTTP gateway
+    private static final ThreadLocal<String> FOREIGN_CALLER = new ThreadLocal<>();
+
+    private static final long BUSY_RETRY_MILLIS = 50;
+    private static final int SWEEP_EVERY = 1024;
+
+    private final int maxConcurrent;
+    private final int patientLimit;
+    private final double ratePerSecond;
+    private final double burst;
+    private final Set<String> staffHosts;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger bucketsCreated = new AtomicInteger();
+    private final LongAdder rejectedBusy = new LongAdder();
+    private final LongAdder rejectedRateLimited = new LongAdder();
+
+    /**
+     * @param maxConcurrent Calls allowed to run at once
+     * @param staffReserved Permits only staff hosts may use
+     * @param ratePerSecond Sustained calls per second per non-staff host
+     * @param burst Calls a host may make at once after being idle
+     * @param staffHosts Addresses of staff workstations
+     */
+    public AdmissionController(int maxConcurrent, int staffReserved, double ratePerSecond, double burst,
+                               Set<String> staffHosts) {
+        if (staffReserved >= maxConcurrent) {
+            throw new IllegalArgumentException("staffReserved must be less than maxConcurrent");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.patientLimit = maxConcurrent - staffReserved;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.staffHosts = Set.copyOf(staffHosts);
+    }
+
+    /**
+     * Reads the settings from system properties
+     * @return the controller, or null if admission control is disabled
+     */
+    public static AdmissionController fromSystemProperties() {
+        int maxConcurrent = Integer.getInteger("hospital.admission.maxConcurrent", 0);
+        if (maxConcurrent <= 0) {
+            return null;
+        }
+        Set<String> staffHosts = Arrays.stream(System.getProperty("hospital.admission.staffHosts", "").split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toSet());
+        return new AdmissionController(maxConcurrent,
+                Integer.getInteger("hospital.admission.staffReserved", 8),
+                Double.parseDouble(System.getProperty("hospital.admission.ratePerSecond", "50")),
+                Double.parseDouble(System.getProperty("hospital.admission.burst", "100")),
+                staffHosts);
+    }
+
+    /**
+     * Wraps a target so every call through the interface passes admission first
+     */
+    public <T> T protect(Class<T> serviceInterface, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return invoke(target, method, args);
+            }
+            admit(callerHost());
+            try {
+                return invoke(target, method, args);
+            } finally {
+                release();
+            }
+        };
+        return serviceInterface.cast(Proxy.newProxyInstance(serviceInterface.getClassLoader(),
+                new Class<?>[]{serviceInterface}, handler));
+    }
+
+    /**
+     * Takes a rate token and an execution permit for a call from a host
+     * The caller must call release() when the call ends
+     * @throws ServiceBusyException if the call is rejected
+     */
+    void admit(String host) throws ServiceBusyException {
+        admit(host, System.nanoTime());
+    }
+
+    /**
+     * Admits a call at the given {@link System#nanoTime()}
+     */
+    void admit(String host, long now) throws ServiceBusyException {
+        boolean staff = staffHosts.contains(host);
+        if (!staff) {
+            long waitNanos = bucketFor(host, now).tryAcquire(now);
+            if (waitNanos > 0) {
+                rejectedRateLimited.increment();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("admission.rateLimited", "host", host);
+                }
+                throw new ServiceBusyException("Too many requests from " + host,
+                        Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            }
+        }
+
+        int limit = staff ? maxConcurrent : patientLimit;
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejectedBusy.increment();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("admission.busy", "host", host, "inFlight", current);
+                }
+                throw new ServiceBusyException("Server is busy", BUSY_RETRY_MILLIS);
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+    }
+
+    /**
+     * Gives back the execution permit of an admitted call that has ended
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedBusy() {
+        return rejectedBusy.sum();
+    }
+
+    public long getRejectedRateLimited() {
+        return rejectedRateLimited.sum();
+    }
+
+    private TokenBucket bucketFor(String host, long now) {
+        TokenBucket bucket = buckets.get(host);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(host, h -> new TokenBucket(ratePerSecond, burst, now));
+            if (bucketsCreated.incrementAndGet() % SWEEP_EVERY == 0) {
+                sweepIdleBuckets(now);
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new bucket for that host starts full anyway
+     */
+    private void sweepIdleBuckets(long now) {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Runs a call on behalf of a client that did not come in over RMI, so it is
+     * rate limited as that client's host
+     */
+    static <T> T callAs(String host, Callable<T> call) throws Exception {
+        FOREIGN_CALLER.set(host);
+        try {
+            return call.call();
+        } finally {
+            FOREIGN_CALLER.remove();
+        }
+    }
+
+    /**
+     * Address of the client making the current call
+     */
+    private static String callerHost() {
+        String foreign = FOREIGN_CALLER.get();
+        if (foreign != null) {
+            return foreign;
+        }
+        try {
+            return RemoteServer.getClientHost();
+        } catch (ServerNotActiveException e) {
+            return LOCAL_HOST;
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Classic token bucket refilled continuously at a fixed rate
+     */
+    private static final class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double ratePerSecond, double capacity, long now) {
+            this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise nanoseconds until one is available
+         */
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
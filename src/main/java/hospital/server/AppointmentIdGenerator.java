@@ -0,0 +1,66 @@
+package hospital.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, Snowflake-style appointment ID generator
+ * Layout: 41 bits of milliseconds since 2025-01-01 UTC, 10 bits of node ID and a
+ * 12-bit per-millisecond sequence. IDs are strictly increasing within a node,
+ * stay unique across restarts because they are time based, and never collide
+ * between nodes as long as every node is started with its own node ID.
+ */
+public class AppointmentIdGenerator {
+
+    static final long CUSTOM_EPOCH = 1735689600000L; // 2025-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long nodeId;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence), without the node bits
+    private final AtomicLong lastState = new AtomicLong();
+
+    public AppointmentIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Generates the next appointment ID
+     * If more than 4096 IDs are requested in one millisecond, or the clock moves
+     * backwards, the sequence carries into the timestamp so IDs stay monotonic
+     */
+    public long nextId() {
+        long now = System.currentTimeMillis() - CUSTOM_EPOCH;
+        while (true) {
+            long last = lastState.get();
+            long next = Math.max(now << SEQUENCE_BITS, last + 1);
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * Makes sure every later ID is greater than the given one, e.g. one issued by
+     * this node in an earlier run or by the primary this node took over from
+     */
+    public void advancePast(long appointmentId) {
+        long state = ((appointmentId >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS)
+                | (appointmentId & ((1L << SEQUENCE_BITS) - 1));
+        lastState.accumulateAndGet(state, Math::max);
+    }
+
+    /**
+     * Node that issued an ID
+     * Clients read the same bits through {@link hospital.interfaces.Partitioning#nodeIdOf}
+     */
+    public static int nodeOf(long appointmentId) {
+        return (int) ((appointmentId >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
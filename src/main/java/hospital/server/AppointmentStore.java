@@ -0,0 +1,313 @@
+package hospital.server;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe store for booked appointments
+ *
+ * Each doctor has its own ledger, a skip list ordered by start time, so bookings
+ * for different doctors never contend and a doctor's schedule for any time range
+ * is a range scan. A second index maps each patient (by case-insensitive name)
+ * to their appointments in booking order. Every index is updated without locks;
+ * queries see a weakly consistent view while bookings continue. Changes to an
+ * existing appointment run inside the ID index's compute for that ID, so a
+ * concurrent cancel and reschedule of one appointment cannot interleave.
+ */
+public class AppointmentStore {
+
+    // Indexed by doctor ID; grown copy-on-write when doctors are registered
+    private volatile DoctorLedger[] ledgers = new DoctorLedger[0];
+    private final ConcurrentHashMap<Long, Appointment> appointmentsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, Appointment>> appointmentsByPatient =
+            new ConcurrentHashMap<>();
+    private final LongAdder totalAppointments = new LongAdder();
+
+    /**
+     * Creates an empty ledger for a doctor (no-op if one already exists)
+     */
+    public synchronized void registerDoctor(int doctorId) {
+        if (doctorId < ledgers.length && ledgers[doctorId] != null) {
+            return;
+        }
+        DoctorLedger[] grown = Arrays.copyOf(ledgers, Math.max(ledgers.length, doctorId + 1));
+        grown[doctorId] = new DoctorLedger();
+        ledgers = grown;
+    }
+
+    /**
+     * Records an appointment for a doctor
+     * The calendar gives every appointment its own slot, so a doctor never has two at the same time
+     * @return false if the doctor has no ledger
+     */
+    public boolean add(Appointment appointment) {
+        DoctorLedger ledger = ledger(appointment.getDoctorId());
+        if (ledger == null) {
+            return false;
+        }
+        ledger.add(appointment);
+        index(appointment);
+        totalAppointments.increment();
+        return true;
+    }
+
+    /**
+     * Records several appointments for one doctor
+     * @return false if the doctor has no ledger
+     */
+    public boolean addAll(int doctorId, List<Appointment> appointments) {
+        DoctorLedger ledger = ledger(doctorId);
+        if (ledger == null) {
+            return false;
+        }
+        for (Appointment appointment : appointments) {
+            ledger.add(appointment);
+            index(appointment);
+        }
+        totalAppointments.add(appointments.size());
+        return true;
+    }
+
+    /**
+     * Removes an appointment, e.g. when it could not be made durable
+     * @return the removed appointment, or null if no appointment has that ID
+     */
+    public Appointment remove(long appointmentId) {
+        Appointment[] removed = new Appointment[1];
+        appointmentsById.computeIfPresent(appointmentId, (id, current) -> {
+            unindex(current);
+            removed[0] = current;
+            return null;
+        });
+        if (removed[0] != null) {
+            totalAppointments.decrement();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Removes an appointment only if it has not been changed since it was read
+     * @return false if the appointment was cancelled or rescheduled in the meantime
+     */
+    public boolean remove(Appointment appointment) {
+        boolean[] removed = new boolean[1];
+        appointmentsById.computeIfPresent(appointment.getId(), (id, current) -> {
+            if (current != appointment) {
+                return current;
+            }
+            unindex(current);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            totalAppointments.decrement();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Swaps an appointment for a changed copy with the same ID and doctor, e.g. a new start time
+     * @return false if the appointment was cancelled or rescheduled in the meantime
+     */
+    public boolean replace(Appointment current, Appointment replacement) {
+        boolean[] replaced = new boolean[1];
+        appointmentsById.computeIfPresent(current.getId(), (id, existing) -> {
+            if (existing != current) {
+                return existing;
+            }
+            unindex(current);
+            ledger(replacement.getDoctorId()).add(replacement);
+            indexPatient(replacement);
+            replaced[0] = true;
+            return replacement;
+        });
+        return replaced[0];
+    }
+
+    /**
+     * Looks up an appointment by its ID
+     * @return the appointment, or null if no appointment has that ID
+     */
+    public Appointment findById(long appointmentId) {
+        return appointmentsById.get(appointmentId);
+    }
+
+    /**
+     * A patient's appointments in booking order
+     * @param cursor ID of the last appointment on the previous page, or -1 for the first page
+     */
+    public AppointmentPage findByPatient(String patientName, long cursor, int limit) {
+        NavigableMap<Long, Appointment> byId = appointmentsByPatient.get(patientKey(patientName));
+        if (byId == null) {
+            return AppointmentPage.empty();
+        }
+        return page(cursor == AppointmentPage.FIRST_PAGE ? byId : byId.tailMap(cursor, false), limit);
+    }
+
+    /**
+     * A doctor's appointments starting in [fromMinute, toMinute), in time order
+     * @param cursor Start minute of the last appointment on the previous page, or -1 for the first page
+     */
+    public AppointmentPage scheduleFor(int doctorId, long fromMinute, long toMinute, long cursor, int limit) {
+        DoctorLedger ledger = ledger(doctorId);
+        if (ledger == null || fromMinute >= toMinute) {
+            return AppointmentPage.empty();
+        }
+        long start = cursor == AppointmentPage.FIRST_PAGE ? fromMinute : Math.max(fromMinute, cursor + 1);
+        if (start >= toMinute) {
+            return AppointmentPage.empty();
+        }
+        return page(ledger.byTime.subMap(start, true, toMinute, false), limit);
+    }
+
+    /**
+     * Every doctor's appointments starting in [fromMinute, toMinute), by doctor ID and then time
+     * The range must be shorter than 2^31 minutes, as the cursor packs the doctor ID and an offset into the range
+     * @param cursor Cursor from the previous page, or -1 for the first page
+     */
+    public AppointmentPage scheduleForAll(long fromMinute, long toMinute, long cursor, int limit) {
+        DoctorLedger[] current = ledgers;
+        int doctorId = 0;
+        long start = fromMinute;
+        if (cursor != AppointmentPage.FIRST_PAGE) {
+            doctorId = (int) (cursor >>> 32);
+            start = fromMinute + (cursor & 0xFFFF_FFFFL) + 1;
+        }
+
+        List<Appointment> appointments = new ArrayList<>(Math.min(limit, 64));
+        for (; doctorId < current.length; doctorId++, start = fromMinute) {
+            if (current[doctorId] == null || start >= toMinute) {
+                continue;
+            }
+            for (Appointment appointment : current[doctorId].byTime.subMap(start, true, toMinute, false).values()) {
+                if (appointments.size() == limit) {
+                    Appointment last = appointments.get(limit - 1);
+                    long nextCursor = ((long) last.getDoctorId() << 32) | (last.getEpochMinute() - fromMinute);
+                    return new AppointmentPage(appointments, nextCursor);
+                }
+                appointments.add(appointment);
+            }
+        }
+        return new AppointmentPage(appointments, AppointmentPage.FIRST_PAGE);
+    }
+
+    /**
+     * Number of appointments booked with a doctor
+     */
+    public int count(int doctorId) {
+        DoctorLedger ledger = ledger(doctorId);
+        return ledger == null ? 0 : ledger.size();
+    }
+
+    /**
+     * Copy of the appointments booked with a doctor, in time order
+     */
+    public List<Appointment> appointmentsFor(int doctorId) {
+        DoctorLedger ledger = ledger(doctorId);
+        return ledger == null ? List.of() : new ArrayList<>(ledger.byTime.values());
+    }
+
+    /**
+     * Live view of every stored appointment (weakly consistent while bookings continue)
+     */
+    public Collection<Appointment> allAppointments() {
+        return appointmentsById.values();
+    }
+
+    /**
+     * Number of appointments across all doctors
+     */
+    public long totalCount() {
+        return totalAppointments.sum();
+    }
+
+    private void index(Appointment appointment) {
+        appointmentsById.put(appointment.getId(), appointment);
+        indexPatient(appointment);
+    }
+
+    private void indexPatient(Appointment appointment) {
+        appointmentsByPatient.compute(patientKey(appointment.getPatientName()), (key, byId) -> {
+            if (byId == null) {
+                byId = new ConcurrentSkipListMap<>();
+            }
+            byId.put(appointment.getId(), appointment);
+            return byId;
+        });
+    }
+
+    /**
+     * Drops an appointment from the ledger and patient index; the caller handles the ID index
+     */
+    private void unindex(Appointment appointment) {
+        DoctorLedger ledger = ledger(appointment.getDoctorId());
+        if (ledger != null) {
+            ledger.remove(appointment);
+        }
+        appointmentsByPatient.computeIfPresent(patientKey(appointment.getPatientName()), (key, byId) -> {
+            byId.remove(appointment.getId(), appointment);
+            return byId.isEmpty() ? null : byId;
+        });
+    }
+
+    private DoctorLedger ledger(int doctorId) {
+        DoctorLedger[] current = ledgers;
+        return doctorId >= 0 && doctorId < current.length ? current[doctorId] : null;
+    }
+
+    /**
+     * Takes up to limit appointments from an ordered view; the cursor is the key of the last one taken
+     */
+    private static AppointmentPage page(NavigableMap<Long, Appointment> view, int limit) {
+        List<Appointment> appointments = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Map.Entry<Long, Appointment>> entries = view.entrySet().iterator();
+        long lastKey = AppointmentPage.FIRST_PAGE;
+        while (entries.hasNext() && appointments.size() < limit) {
+            Map.Entry<Long, Appointment> entry = entries.next();
+            appointments.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new AppointmentPage(appointments, entries.hasNext() ? lastKey : AppointmentPage.FIRST_PAGE);
+    }
+
+    static String patientKey(String patientName) {
+        return patientName == null ? "" : patientName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One doctor's appointments keyed by start minute
+     * The skip list needs no lock; the size is kept separately because counting a skip list walks it
+     */
+    private static final class DoctorLedger {
+        private final ConcurrentSkipListMap<Long, Appointment> byTime = new ConcurrentSkipListMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(Appointment appointment) {
+            if (byTime.put(appointment.getEpochMinute(), appointment) == null) {
+                size.incrementAndGet();
+            }
+        }
+
+        void remove(Appointment appointment) {
+            if (byTime.remove(appointment.getEpochMinute(), appointment)) {
+                size.decrementAndGet();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package hospital.server;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous structured logger for the server
+ *
+ * Request threads only build a small event (name plus key/value fields) and put
+ * it into a bounded ring buffer; a single writer thread formats events as
+ * {@code time LEVEL [thread] event key=value ...} and writes them out, so RMI
+ * threads never contend on the console lock. Values holding spaces, quotes, '='
+ * or control characters are quoted with backslash escapes, so every event stays
+ * on one line; stack traces follow it indented by a tab. When the buffer is
+ * full the event is either dropped (counted and reported) or the caller blocks,
+ * depending on the overflow policy. Events below the current level are rejected
+ * before any field array or string is created.
+ *
+ * Configured with -Dhospital.log.level (DEBUG, INFO, WARN, ERROR; default INFO),
+ * -Dhospital.log.overflow (DROP or BLOCK; default DROP) and
+ * -Dhospital.log.capacity (default 8192).
+ */
+public final class AsyncLogger {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    public enum Overflow { DROP, BLOCK }
+
+    private static final AsyncLogger INSTANCE = new AsyncLogger(
+            Level.valueOf(System.getProperty("hospital.log.level", "INFO").toUpperCase(Locale.ROOT)),
+            Overflow.valueOf(System.getProperty("hospital.log.overflow", "DROP").toUpperCase(Locale.ROOT)),
+            Integer.getInteger("hospital.log.capacity", 8192),
+            System.out);
+
+    private final BlockingQueue<Event> ring;
+    private final Overflow overflow;
+    private final PrintStream out;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile Level level;
+
+    private AsyncLogger(Level level, Overflow overflow, int capacity, PrintStream out) {
+        this.level = level;
+        this.overflow = overflow;
+        this.out = out;
+        this.ring = new ArrayBlockingQueue<>(capacity);
+
+        writer = new Thread(this::writeLoop, "async-logger");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "async-logger-flush"));
+    }
+
+    /**
+     * The server-wide logger
+     */
+    public static AsyncLogger get() {
+        return INSTANCE;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public boolean isEnabled(Level candidate) {
+        return candidate.ordinal() >= level.ordinal();
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /**
+     * Number of events dropped because the ring buffer was full
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public void debug(String event) {
+        if (isEnabled(Level.DEBUG)) enqueue(Level.DEBUG, event, null);
+    }
+
+    public void debug(String event, String k1, Object v1) {
+        if (isEnabled(Level.DEBUG)) enqueue(Level.DEBUG, event, null, k1, v1);
+    }
+
+    public void debug(String event, String k1, Object v1, String k2, Object v2) {
+        if (isEnabled(Level.DEBUG)) enqueue(Level.DEBUG, event, null, k1, v1, k2, v2);
+    }
+
+    public void debug(String event, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+        if (isEnabled(Level.DEBUG)) enqueue(Level.DEBUG, event, null, k1, v1, k2, v2, k3, v3);
+    }
+
+    public void info(String event) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, event, null);
+    }
+
+    public void info(String event, String k1, Object v1) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, event, null, k1, v1);
+    }
+
+    public void info(String event, String k1, Object v1, String k2, Object v2) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, event, null, k1, v1, k2, v2);
+    }
+
+    public void info(String event, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, event, null, k1, v1, k2, v2, k3, v3);
+    }
+
+    public void warn(String event, String k1, Object v1) {
+        if (isEnabled(Level.WARN)) enqueue(Level.WARN, event, null, k1, v1);
+    }
+
+    public void warn(String event, String k1, Object v1, String k2, Object v2) {
+        if (isEnabled(Level.WARN)) enqueue(Level.WARN, event, null, k1, v1, k2, v2);
+    }
+
+    public void error(String event, Throwable error) {
+        if (isEnabled(Level.ERROR)) enqueue(Level.ERROR, event, error);
+    }
+
+    public void error(String event, Throwable error, String k1, Object v1) {
+        if (isEnabled(Level.ERROR)) enqueue(Level.ERROR, event, error, k1, v1);
+    }
+
+    /**
+     * Waits briefly for queued events to be written, e.g. at shutdown
+     */
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!ring.isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+    private void enqueue(Level eventLevel, String name, Throwable error, Object... fields) {
+        Event event = new Event(System.currentTimeMillis(), eventLevel, Thread.currentThread().getName(),
+                name, fields, error);
+        if (overflow == Overflow.BLOCK) {
+            try {
+                ring.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            }
+        } else if (!ring.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Single consumer: drains the ring in batches and flushes once it is empty
+     */
+    private void writeLoop() {
+        StringBuilder line = new StringBuilder(256);
+        List<Event> batch = new ArrayList<>(256);
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                batch.add(ring.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            ring.drainTo(batch, 255);
+
+            synchronized (out) {
+                for (Event event : batch) {
+                    line.setLength(0);
+                    format(event, line);
+                    out.append(line);
+                    if (event.error != null) {
+                        appendStackTrace(event.error, out);
+                    }
+                }
+
+                long drops = dropped.sum();
+                if (drops != reportedDrops) {
+                    out.append(Instant.now().toString()).append(" WARN [async-logger] log.dropped total=")
+                            .append(String.valueOf(drops)).append('\n');
+                    reportedDrops = drops;
+                }
+                if (ring.isEmpty()) {
+                    out.flush();
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private static void format(Event event, StringBuilder line) {
+        line.append(Instant.ofEpochMilli(event.timeMillis)).append(' ')
+                .append(event.level).append(" [").append(event.thread).append("] ")
+                .append(event.name);
+        for (int i = 0; i + 1 < event.fields.length; i += 2) {
+            line.append(' ').append(event.fields[i]).append('=');
+            appendValue(String.valueOf(event.fields[i + 1]), line);
+        }
+        if (event.error != null) {
+            line.append(" error=");
+            appendQuoted(String.valueOf(event.error), line);
+        }
+        line.append('\n');
+    }
+
+    /**
+     * Appends a value bare if it cannot be mistaken for a delimiter, otherwise quoted
+     * Values come from callers (patient names, exception messages), so a line break
+     * or "key=value" inside one must not start a forged line or field.
+     */
+    private static void appendValue(String value, StringBuilder line) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\' || c == 0x7f) {
+                appendQuoted(value, line);
+                return;
+            }
+        }
+        if (value.isEmpty()) {
+            line.append("\"\"");
+        } else {
+            line.append(value);
+        }
+    }
+
+    private static void appendQuoted(String value, StringBuilder line) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < ' ' || c == 0x7f) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Writes the stack trace with every line indented by a tab, so a line break in
+     * an exception message cannot pass for the start of another event
+     */
+    private static void appendStackTrace(Throwable error, PrintStream out) {
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        for (String traceLine : trace.toString().split("\\R")) {
+            out.append('\t').append(traceLine).append('\n');
+        }
+    }
+
+    private record Event(long timeMillis, Level level, String thread, String name, Object[] fields,
+                         Throwable error) {
+    }
+}
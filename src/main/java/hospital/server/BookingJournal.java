@@ -0,0 +1,736 @@
+package hospital.server;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.Doctor;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable append-only journal of booking mutations
+ *
+ * A mutation is a booking, a cancellation, a reschedule or a change to the
+ * doctor roster. Records are framed as [int length][int CRC32C][payload] and appended to
+ * numbered segment files (journal-N.log) through a FileChannel. Callers add
+ * their records to a shared buffer and block until a single writer thread
+ * has written and fsynced it, so concurrent bookings share one fsync
+ * (group commit).
+ *
+ * Every {@code snapshotInterval} records the journal rolls to a new segment
+ * and writes a snapshot (snapshot-N.dat) of the roster and the whole store,
+ * roster first so replayed bookings find their doctors; older segments
+ * and snapshots are then deleted, so recovery only replays one snapshot plus
+ * the segments written since. Recovery memory-maps each file and stops at
+ * the first torn or corrupt record of a segment.
+ *
+ * Replay is idempotent: the store must already contain a record before it is
+ * journaled, so a snapshot taken after a roll covers every earlier segment,
+ * and records found in both a snapshot and a later segment are applied twice.
+ * Cancelling or rescheduling an appointment that is not in the store is a no-op,
+ * as is adding a doctor whose ID is already assigned; shifts and leave are
+ * recorded as their new value, so applying them again changes nothing.
+ * Roster changes are journaled before they are applied, so the roster source
+ * must wait for a change in progress to be applied before it reads the roster.
+ */
+public class BookingJournal implements Closeable {
+
+    /**
+     * Receives records during recovery
+     */
+    public interface Replayer {
+        void booked(Appointment appointment);
+
+        void cancelled(long appointmentId);
+
+        void rescheduled(long appointmentId, long epochMinute);
+
+        void doctorAdded(Doctor doctor);
+
+        void doctorRemoved(int doctorId);
+
+        void shiftSet(int doctorId, int startSlot, int endSlot);
+
+        void leaveSet(int doctorId, long fromEpochDay, long toEpochDay);
+    }
+
+    static final byte BOOKED = 1;
+    static final byte CANCELLED = 2;
+    static final byte RESCHEDULED = 3;
+    static final byte DOCTOR_ADDED = 4;
+    static final byte DOCTOR_REMOVED = 5;
+    static final byte SHIFT_SET = 6;
+    static final byte LEAVE_SET = 7;
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    private static final int HEADER_BYTES = 8;
+    private static final int CANCELLED_BYTES = 1 + 8;
+    private static final int RESCHEDULED_BYTES = 1 + 8 + 8;
+    private static final int DOCTOR_REMOVED_BYTES = 1 + 4;
+    private static final int SHIFT_SET_BYTES = 1 + 4 + 1 + 1;
+    private static final int LEAVE_SET_BYTES = 1 + 4 + 8 + 8;
+    private static final int SNAPSHOT_MAGIC = 0x4D43534E; // "MCSN"
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long snapshotInterval;
+
+    // Guards the append buffer, sequence numbers and segment roll requests
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Condition rolled = lock.newCondition();
+
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appendedRecords;
+    private long durableRecords;
+    private long recordsSinceSnapshot;
+    private boolean rollRequested;
+    private boolean snapshotRunning;
+    private boolean closed;
+    private IOException failure;
+
+    // Owned by the writer thread once started
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+
+    private final CRC32C crc = new CRC32C();
+    private Thread writer;
+    private volatile Thread snapshotter;
+    private Supplier<Collection<Appointment>> snapshotSource;
+    private Supplier<List<byte[]>> rosterSource;
+
+    /**
+     * @param directory Directory holding segment and snapshot files (created if missing)
+     * @param fsync Whether each group commit is forced to disk
+     * @param snapshotInterval Number of journaled records between snapshots
+     */
+    public BookingJournal(Path directory, boolean fsync, long snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.snapshotInterval = snapshotInterval;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Replays the latest snapshot and every segment written after it
+     * Must be called once, before {@link #start}
+     * @return number of records replayed
+     */
+    public long recover(Replayer replayer) throws IOException {
+        long snapshot = latestFile(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        long replayed = 0;
+        if (snapshot >= 0) {
+            replayed += replayFile(snapshotPath(snapshot), Integer.BYTES + Long.BYTES, replayer);
+        }
+        for (long number : fileNumbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (number >= snapshot) {
+                replayed += replayFile(segmentPath(number), 0, replayer);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Opens a fresh segment and starts the group-commit writer
+     * @param snapshotSource Supplies every live appointment when a snapshot is taken
+     * @param rosterSource Supplies framed records that rebuild the doctor roster when a snapshot is taken
+     */
+    public void start(Supplier<Collection<Appointment>> snapshotSource, Supplier<List<byte[]>> rosterSource)
+            throws IOException {
+        this.snapshotSource = snapshotSource;
+        this.rosterSource = rosterSource;
+        openSegment(Math.max(latestFile(SEGMENT_PREFIX, SEGMENT_SUFFIX), latestFile(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) + 1);
+
+        writer = new Thread(this::writeLoop, "booking-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Journals one booking and waits until it is durable
+     */
+    public void append(Appointment appointment) throws IOException {
+        appendAll(List.of(appointment));
+    }
+
+    /**
+     * Journals several bookings and waits once until all of them are durable
+     */
+    public void appendAll(List<Appointment> appointments) throws IOException {
+        if (appointments.isEmpty()) {
+            return;
+        }
+        commit(appointments.size(), () -> {
+            for (Appointment appointment : appointments) {
+                encodeBooked(appointment);
+            }
+        });
+    }
+
+    /**
+     * Journals a cancellation and waits until it is durable
+     */
+    public void appendCancelled(long appointmentId) throws IOException {
+        commit(1, () -> encodeCancelled(pending(CANCELLED_BYTES), appointmentId, crc));
+    }
+
+    /**
+     * Journals an appointment's move to a new start time and waits until it is durable
+     */
+    public void appendRescheduled(long appointmentId, long epochMinute) throws IOException {
+        commit(1, () -> encodeRescheduled(pending(RESCHEDULED_BYTES), appointmentId, epochMinute, crc));
+    }
+
+    /**
+     * Journals a framed roster record (see {@link #doctorAddedRecord} and the like) and waits until it is durable
+     */
+    public void appendRoster(byte[] record) throws IOException {
+        commit(1, () -> pending(record.length - HEADER_BYTES).put(record));
+    }
+
+    /**
+     * Encodes records into the pending buffer under the lock and waits for the group commit that writes them
+     */
+    private void commit(int records, Runnable encoder) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            encoder.run();
+            appendedRecords += records;
+            long target = appendedRecords;
+            hasPending.signal();
+
+            while (durableRecords < target && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableRecords < target) {
+                throw new IOException("Booking journal write failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes pending records, stops the writer and waits for a snapshot in progress,
+     * so no file changes once this returns
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            hasPending.signal();
+            rolled.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (writer != null) {
+                writer.join();
+            }
+            Thread running = snapshotter;
+            if (running != null) {
+                running.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Booking journal is closed");
+        }
+        if (failure != null) {
+            throw new IOException("Booking journal failed earlier", failure);
+        }
+    }
+
+    /**
+     * Group-commit loop: swaps out the pending buffer, writes and fsyncs it,
+     * then wakes every caller whose records it contained
+     */
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            boolean roll;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !rollRequested && !closed) {
+                    hasPending.awaitUninterruptibly();
+                }
+                if (pending.position() == 0 && !rollRequested && closed) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                batchEnd = appendedRecords;
+                roll = rollRequested;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                batch.flip();
+                segmentBytes += batch.remaining();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+                batch.clear();
+                if (roll || segmentBytes >= MAX_SEGMENT_BYTES) {
+                    openSegment(segment + 1);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    flushed.signalAll();
+                    rolled.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                LOG.error("journal.write.failed", e, "segment", segment);
+                return;
+            }
+
+            boolean snapshotDue;
+            lock.lock();
+            try {
+                spare = batch;
+                recordsSinceSnapshot += batchEnd - durableRecords;
+                durableRecords = batchEnd;
+                if (roll) {
+                    rollRequested = false;
+                    rolled.signalAll();
+                }
+                snapshotDue = recordsSinceSnapshot >= snapshotInterval && !snapshotRunning && !closed;
+                if (snapshotDue) {
+                    snapshotRunning = true;
+                    recordsSinceSnapshot = 0;
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            if (snapshotDue) {
+                Thread started = new Thread(this::takeSnapshot, "booking-journal-snapshot");
+                started.setDaemon(true);
+                snapshotter = started;
+                started.start();
+            }
+        }
+    }
+
+    /**
+     * Rolls to a new segment, writes a snapshot of the store as of that point and
+     * deletes the segments and snapshots it supersedes
+     */
+    private void takeSnapshot() {
+        try {
+            long snapshotSegment;
+            lock.lock();
+            try {
+                // Once closed, the writer may be gone and nobody would roll the segment
+                if (closed) {
+                    return;
+                }
+                rollRequested = true;
+                hasPending.signal();
+                while (rollRequested && failure == null && !closed) {
+                    rolled.awaitUninterruptibly();
+                }
+                if (rollRequested || failure != null) {
+                    return;
+                }
+                snapshotSegment = segment;
+            } finally {
+                lock.unlock();
+            }
+
+            writeSnapshot(snapshotSegment, rosterSource.get(), snapshotSource.get());
+            for (long number : fileNumbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (number < snapshotSegment) {
+                    Files.deleteIfExists(segmentPath(number));
+                }
+            }
+            for (long number : fileNumbers(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (number < snapshotSegment) {
+                    Files.deleteIfExists(snapshotPath(number));
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("journal.snapshot.failed", e);
+        } finally {
+            lock.lock();
+            try {
+                snapshotRunning = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void writeSnapshot(long number, List<byte[]> roster, Collection<Appointment> appointments)
+            throws IOException {
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + number + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            buffer.putInt(SNAPSHOT_MAGIC);
+            buffer.putLong(appointments.size());
+            CRC32C snapshotCrc = new CRC32C();
+            for (byte[] record : roster) {
+                if (buffer.remaining() < record.length) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.put(record);
+            }
+            for (Appointment appointment : appointments) {
+                if (buffer.remaining() < 1024) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                encodeBooked(buffer, appointment, snapshotCrc);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, snapshotPath(number), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void openSegment(long number) throws IOException {
+        FileChannel previous = channel;
+        channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = number;
+        segmentBytes = channel.size();
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Appends a BOOKED record to the pending buffer; caller holds the lock
+     */
+    private void encodeBooked(Appointment appointment) {
+        encodeBooked(pending(bookedBytes(appointment)), appointment, crc);
+    }
+
+    /**
+     * Makes room for a record with the given payload size in the pending buffer; caller holds the lock
+     */
+    private ByteBuffer pending(int payloadBytes) {
+        int needed = HEADER_BYTES + payloadBytes;
+        if (pending.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        return pending;
+    }
+
+    private static void encodeBooked(ByteBuffer buffer, Appointment appointment, CRC32C crc) {
+        byte[] patient = appointment.getPatientName().getBytes(StandardCharsets.UTF_8);
+        int start = startRecord(buffer, BOOKED);
+        buffer.putLong(appointment.getId());
+        buffer.putInt(appointment.getDoctorId());
+        buffer.putLong(appointment.getEpochMinute());
+        buffer.putShort((short) patient.length);
+        buffer.put(patient);
+        finishRecord(buffer, start, crc);
+    }
+
+    private static void encodeCancelled(ByteBuffer buffer, long appointmentId, CRC32C crc) {
+        int start = startRecord(buffer, CANCELLED);
+        buffer.putLong(appointmentId);
+        finishRecord(buffer, start, crc);
+    }
+
+    private static void encodeRescheduled(ByteBuffer buffer, long appointmentId, long epochMinute, CRC32C crc) {
+        int start = startRecord(buffer, RESCHEDULED);
+        buffer.putLong(appointmentId);
+        buffer.putLong(epochMinute);
+        finishRecord(buffer, start, crc);
+    }
+
+    private static void encodeDoctorAdded(ByteBuffer buffer, Doctor doctor, CRC32C crc) {
+        int start = startRecord(buffer, DOCTOR_ADDED);
+        buffer.putInt(doctor.getId());
+        putString(buffer, doctor.getName());
+        putString(buffer, doctor.getSpecialization());
+        putString(buffer, doctor.getDescription());
+        finishRecord(buffer, start, crc);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Upper bound of a BOOKED payload
+     */
+    private static int bookedBytes(Appointment appointment) {
+        return 1 + 8 + 4 + 8 + 2 + appointment.getPatientName().length() * 3;
+    }
+
+    /**
+     * A framed BOOKED record, as it appears in a segment
+     */
+    static byte[] bookedRecord(Appointment appointment) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bookedBytes(appointment));
+        encodeBooked(buffer, appointment, new CRC32C());
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * A framed CANCELLED record, as it appears in a segment
+     */
+    static byte[] cancelledRecord(long appointmentId) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + CANCELLED_BYTES);
+        encodeCancelled(buffer, appointmentId, new CRC32C());
+        return buffer.array();
+    }
+
+    /**
+     * A framed RESCHEDULED record, as it appears in a segment
+     */
+    static byte[] rescheduledRecord(long appointmentId, long epochMinute) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + RESCHEDULED_BYTES);
+        encodeRescheduled(buffer, appointmentId, epochMinute, new CRC32C());
+        return buffer.array();
+    }
+
+    /**
+     * A framed DOCTOR_ADDED record, as it appears in a segment
+     */
+    static byte[] doctorAddedRecord(Doctor doctor) {
+        int payload = 1 + 4 + 3 * 2 + (doctor.getName().length() + doctor.getSpecialization().length()
+                + doctor.getDescription().length()) * 3;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload);
+        encodeDoctorAdded(buffer, doctor, new CRC32C());
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * A framed DOCTOR_REMOVED record, as it appears in a segment
+     */
+    static byte[] doctorRemovedRecord(int doctorId) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + DOCTOR_REMOVED_BYTES);
+        int start = startRecord(buffer, DOCTOR_REMOVED);
+        buffer.putInt(doctorId);
+        finishRecord(buffer, start, new CRC32C());
+        return buffer.array();
+    }
+
+    /**
+     * A framed SHIFT_SET record, as it appears in a segment
+     */
+    static byte[] shiftSetRecord(int doctorId, int startSlot, int endSlot) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + SHIFT_SET_BYTES);
+        int start = startRecord(buffer, SHIFT_SET);
+        buffer.putInt(doctorId);
+        buffer.put((byte) startSlot);
+        buffer.put((byte) endSlot);
+        finishRecord(buffer, start, new CRC32C());
+        return buffer.array();
+    }
+
+    /**
+     * A framed LEAVE_SET record, as it appears in a segment
+     */
+    static byte[] leaveSetRecord(int doctorId, long fromEpochDay, long toEpochDay) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + LEAVE_SET_BYTES);
+        int start = startRecord(buffer, LEAVE_SET);
+        buffer.putInt(doctorId);
+        buffer.putLong(fromEpochDay);
+        buffer.putLong(toEpochDay);
+        finishRecord(buffer, start, new CRC32C());
+        return buffer.array();
+    }
+
+    /**
+     * Reserves the record header and writes the record type
+     * @return Position of the record, for {@link #finishRecord}
+     */
+    private static int startRecord(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type);
+        return start;
+    }
+
+    /**
+     * Fills in the length and checksum of a record whose payload has been written
+     */
+    private static void finishRecord(ByteBuffer buffer, int start, CRC32C crc) {
+        int end = buffer.position();
+
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + HEADER_BYTES, end - start - HEADER_BYTES);
+        buffer.putInt(start, end - start - HEADER_BYTES);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    /**
+     * Replays every valid record of a file, stopping at the first torn or corrupt one
+     */
+    private static long replayFile(Path file, int skipBytes, Replayer replayer) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() <= skipBytes) {
+                return 0;
+            }
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (skipBytes > 0 && map.getInt(0) != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a booking snapshot: " + file);
+            }
+            map.position(skipBytes);
+            return replay(map, replayer, file.getFileName().toString());
+        }
+    }
+
+    /**
+     * Replays framed records from the buffer's position, stopping at the first torn or corrupt one
+     * @param source Where the records came from, for log messages
+     * @return number of records replayed
+     */
+    static long replay(ByteBuffer records, Replayer replayer, String source) {
+        long replayed = 0;
+        CRC32C recordCrc = new CRC32C();
+        byte[] text = new byte[Short.MAX_VALUE * 2 + 1];
+        while (records.remaining() >= HEADER_BYTES) {
+            int length = records.getInt();
+            int expectedCrc = records.getInt();
+            if (length <= 0 || length > records.remaining()) {
+                LOG.warn("journal.torn.record", "source", source, "offset", records.position() - HEADER_BYTES);
+                break;
+            }
+            ByteBuffer payload = records.slice(records.position(), length);
+            recordCrc.reset();
+            recordCrc.update(payload);
+            if ((int) recordCrc.getValue() != expectedCrc) {
+                LOG.warn("journal.corrupt.record", "source", source, "offset", records.position() - HEADER_BYTES);
+                break;
+            }
+
+            int recordStart = records.position();
+            byte type = records.get();
+            if (type == BOOKED) {
+                long id = records.getLong();
+                int doctorId = records.getInt();
+                long epochMinute = records.getLong();
+                replayer.booked(new Appointment(id, doctorId, epochMinute, getString(records, text)));
+            } else if (type == CANCELLED) {
+                replayer.cancelled(records.getLong());
+            } else if (type == RESCHEDULED) {
+                long id = records.getLong();
+                replayer.rescheduled(id, records.getLong());
+            } else if (type == DOCTOR_ADDED) {
+                int doctorId = records.getInt();
+                String name = getString(records, text);
+                String specialization = getString(records, text);
+                replayer.doctorAdded(new Doctor(doctorId, name, specialization, getString(records, text)));
+            } else if (type == DOCTOR_REMOVED) {
+                replayer.doctorRemoved(records.getInt());
+            } else if (type == SHIFT_SET) {
+                int doctorId = records.getInt();
+                int startSlot = records.get();
+                replayer.shiftSet(doctorId, startSlot, records.get());
+            } else if (type == LEAVE_SET) {
+                int doctorId = records.getInt();
+                long fromEpochDay = records.getLong();
+                replayer.leaveSet(doctorId, fromEpochDay, records.getLong());
+            }
+            records.position(recordStart + length);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string, using buffer as scratch space
+     */
+    private static String getString(ByteBuffer records, byte[] buffer) {
+        int length = Short.toUnsignedInt(records.getShort());
+        records.get(buffer, 0, length);
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    private Path snapshotPath(long number) {
+        return directory.resolve(SNAPSHOT_PREFIX + number + SNAPSHOT_SUFFIX);
+    }
+
+    private long latestFile(String prefix, String suffix) throws IOException {
+        List<Long> numbers = fileNumbers(prefix, suffix);
+        return numbers.isEmpty() ? -1 : numbers.get(numbers.size() - 1);
+    }
+
+    /**
+     * Numbers of the files named prefix + N + suffix, in ascending order
+     */
+    private List<Long> fileNumbers(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
@@ -0,0 +1,363 @@
+package hospital.server;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free day calendar for one doctor
+ * Each day is a single long: the epoch day in the upper 32 bits and one bit
+ * per 15-minute slot (9 AM to 5 PM) in the lower 32 bits. Finding a free slot
+ * is a bit scan and claiming it is a single CAS, so booking never allocates.
+ * Slots are identified by {@code epochDay * SLOTS_PER_DAY + slotOfDay}.
+ * The doctor's shift and leave are kept apart in one immutable value that is
+ * swapped as a whole; slots outside the shift or on a day of leave read as
+ * taken, but existing bookings in them are kept.
+ * A calendar is closed while its doctor is taken off the roster: claims made
+ * after that fail, and a claim that raced the close gives its slot back, so
+ * once closed, {@link #hasClaimedSlots} sees every claim that will stand.
+ */
+public class DoctorCalendar {
+
+    public static final int FIRST_HOUR = 9;
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 32;
+    public static final int HORIZON_DAYS = 64;
+
+    private static final long SLOT_BITS = 0xFFFFFFFFL;
+
+    // Ring of day words indexed by epochDay % HORIZON_DAYS
+    private final AtomicLongArray days = new AtomicLongArray(HORIZON_DAYS);
+    private volatile Availability availability = Availability.FULL_TIME;
+    private volatile boolean closed;
+
+    /**
+     * Finds the earliest free slot on or after the given day without claiming it
+     * @return slot number, or -1 if the booking horizon is full
+     */
+    public long peekFreeSlot(long fromEpochDay) {
+        Availability current = availability;
+        for (long day = fromEpochDay; day < fromEpochDay + HORIZON_DAYS; day++) {
+            long free = ~(bookedBits(day, days.get(index(day))) | current.blockedBits(day)) & SLOT_BITS;
+            if (free != 0) {
+                return day * SLOTS_PER_DAY + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the earliest free slot in [fromSlot, beforeSlot) without claiming it
+     * The range must lie within the booking horizon; days past it read as free.
+     * @return slot number, or -1 if every slot in the range is taken
+     */
+    public long peekFreeSlot(long fromSlot, long beforeSlot) {
+        Availability current = availability;
+        for (long day = Math.floorDiv(fromSlot, SLOTS_PER_DAY); day * SLOTS_PER_DAY < beforeSlot; day++) {
+            long first = day * SLOTS_PER_DAY;
+            long low = Math.max(0, fromSlot - first);
+            long high = Math.min(SLOTS_PER_DAY, beforeSlot - first);
+            long range = ((1L << high) - 1) & -(1L << low);
+            long free = ~(bookedBits(day, days.get(index(day))) | current.blockedBits(day)) & range;
+            if (free != 0) {
+                return first + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claims the earliest free slot on or after the given day
+     * @return claimed slot number, or -1 if the booking horizon is full
+     */
+    public long claimNextSlot(long fromEpochDay) {
+        if (closed) {
+            return -1;
+        }
+        Availability current = availability;
+        for (long day = fromEpochDay; day < fromEpochDay + HORIZON_DAYS; day++) {
+            int index = index(day);
+            long blocked = current.blockedBits(day);
+            while (true) {
+                long word = days.get(index);
+                long booked = bookedBits(day, word);
+                long free = ~(booked | blocked) & SLOT_BITS;
+                if (free == 0) {
+                    break;
+                }
+                long bit = Long.lowestOneBit(free);
+                if (days.compareAndSet(index, word, (day << 32) | booked | bit)) {
+                    long slot = day * SLOTS_PER_DAY + Long.numberOfTrailingZeros(bit);
+                    return keepUnlessClosed(slot) ? slot : -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claims a specific slot
+     * @return true if the slot was free and bookable and is now taken by the caller
+     */
+    public boolean claim(long slot) {
+        return !closed && claim(slot, availability) && keepUnlessClosed(slot);
+    }
+
+    /**
+     * Marks a slot taken even outside the shift or on leave, for bookings made before the change
+     * @return true if the slot was free
+     */
+    public boolean occupy(long slot) {
+        return claim(slot, Availability.FULL_TIME);
+    }
+
+    /**
+     * Re-checks a fresh claim after the CAS that made it; the close is written before the
+     * closer reads the slots, so either the closer sees the claim or the claim sees the close
+     */
+    private boolean keepUnlessClosed(long slot) {
+        if (closed) {
+            release(slot);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean claim(long slot, Availability current) {
+        long day = Math.floorDiv(slot, SLOTS_PER_DAY);
+        long bit = 1L << Math.floorMod(slot, SLOTS_PER_DAY);
+        long blocked = current.blockedBits(day);
+        int index = index(day);
+        while (true) {
+            long word = days.get(index);
+            long booked = bookedBits(day, word);
+            if (((booked | blocked) & bit) != 0) {
+                return false;
+            }
+            if (days.compareAndSet(index, word, (day << 32) | booked | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees a previously claimed slot
+     * @return true if the slot was taken and is now free
+     */
+    public boolean release(long slot) {
+        long day = Math.floorDiv(slot, SLOTS_PER_DAY);
+        long bit = 1L << Math.floorMod(slot, SLOTS_PER_DAY);
+        int index = index(day);
+        while (true) {
+            long word = days.get(index);
+            if ((word >>> 32) != day || (word & bit) == 0) {
+                return false;
+            }
+            if (days.compareAndSet(index, word, word & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Number of booked slots on a day
+     */
+    public int bookedCount(long epochDay) {
+        return Long.bitCount(bookedBits(epochDay, days.get(index(epochDay))));
+    }
+
+    /**
+     * Whether any slot on or after the given day is claimed, by a booking, a hold or a slot offered to the waitlist
+     */
+    public boolean hasClaimedSlots(long fromEpochDay) {
+        for (long day = fromEpochDay; day < fromEpochDay + HORIZON_DAYS; day++) {
+            if (bookedBits(day, days.get(index(day))) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops new claims, for taking the doctor off the roster; {@link #occupy} still restores bookings
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Takes claims again after a removal was called off
+     */
+    public void reopen() {
+        closed = false;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Sets the slots of each day the doctor can be booked in
+     * @param startSlot First slot of the shift
+     * @param endSlot Slot after the last one of the shift
+     */
+    public synchronized void setShift(int startSlot, int endSlot) {
+        if (startSlot < 0 || startSlot >= endSlot || endSlot > SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("Invalid shift: slots " + startSlot + " to " + endSlot);
+        }
+        Availability current = availability;
+        availability = new Availability(startSlot, endSlot, current.leaveFromDay, current.leaveToDay);
+    }
+
+    /**
+     * Sets the days the doctor is on leave; a range that ends before it starts means no leave
+     */
+    public synchronized void setLeave(long fromEpochDay, long toEpochDay) {
+        Availability current = availability;
+        availability = fromEpochDay > toEpochDay
+                ? new Availability(current.shiftStart, current.shiftEnd, 0, -1)
+                : new Availability(current.shiftStart, current.shiftEnd, fromEpochDay, toEpochDay);
+    }
+
+    public int getShiftStart() {
+        return availability.shiftStart;
+    }
+
+    public int getShiftEnd() {
+        return availability.shiftEnd;
+    }
+
+    public boolean isFullTime() {
+        Availability current = availability;
+        return current.shiftStart == 0 && current.shiftEnd == SLOTS_PER_DAY;
+    }
+
+    /**
+     * First day of leave; greater than {@link #getLeaveTo} when the doctor has no leave
+     */
+    public long getLeaveFrom() {
+        return availability.leaveFromDay;
+    }
+
+    public long getLeaveTo() {
+        return availability.leaveToDay;
+    }
+
+    /**
+     * Whether a slot is outside the shift or on a day of leave
+     */
+    public boolean isBlocked(long slot) {
+        long day = Math.floorDiv(slot, SLOTS_PER_DAY);
+        return (availability.blockedBits(day) & (1L << Math.floorMod(slot, SLOTS_PER_DAY))) != 0;
+    }
+
+    public boolean isOnLeave(long epochDay) {
+        Availability current = availability;
+        return epochDay >= current.leaveFromDay && epochDay <= current.leaveToDay;
+    }
+
+    /**
+     * Converts a slot number to its start time
+     */
+    public static LocalDateTime toDateTime(long slot) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(slot, SLOTS_PER_DAY));
+        int minutes = Math.floorMod(slot, SLOTS_PER_DAY) * SLOT_MINUTES;
+        return day.atTime(FIRST_HOUR + minutes / 60, minutes % 60);
+    }
+
+    /**
+     * Converts a slot number to its start time in epoch minutes
+     */
+    public static long toEpochMinute(long slot) {
+        long day = Math.floorDiv(slot, SLOTS_PER_DAY);
+        return day * 24 * 60 + FIRST_HOUR * 60 + (long) Math.floorMod(slot, SLOTS_PER_DAY) * SLOT_MINUTES;
+    }
+
+    /**
+     * Converts a start time in epoch minutes to its slot number
+     */
+    public static long fromEpochMinute(long epochMinute) {
+        long day = Math.floorDiv(epochMinute, 24 * 60);
+        long minuteOfDay = epochMinute - day * 24 * 60;
+        return day * SLOTS_PER_DAY + (minuteOfDay - FIRST_HOUR * 60) / SLOT_MINUTES;
+    }
+
+    /**
+     * Converts a start time to its slot number, or -1 if it is not on a slot boundary
+     */
+    public static long toSlot(LocalDateTime time) {
+        int minutes = (time.getHour() - FIRST_HOUR) * 60 + time.getMinute();
+        if (minutes < 0 || minutes % SLOT_MINUTES != 0 || time.getSecond() != 0 || time.getNano() != 0
+                || minutes / SLOT_MINUTES >= SLOTS_PER_DAY) {
+            return -1;
+        }
+        return time.toLocalDate().toEpochDay() * SLOTS_PER_DAY + minutes / SLOT_MINUTES;
+    }
+
+    /**
+     * Slot boundary a time of day falls on, from 0 at 9 AM to SLOTS_PER_DAY at 5 PM
+     * @return the boundary, or -1 if the time is outside those hours or between boundaries
+     */
+    public static int boundaryOf(LocalTime time) {
+        int minutes = (time.getHour() - FIRST_HOUR) * 60 + time.getMinute();
+        if (minutes < 0 || minutes % SLOT_MINUTES != 0 || time.getSecond() != 0 || time.getNano() != 0
+                || minutes / SLOT_MINUTES > SLOTS_PER_DAY) {
+            return -1;
+        }
+        return minutes / SLOT_MINUTES;
+    }
+
+    /**
+     * Time of day a slot boundary falls on
+     */
+    public static LocalTime timeOf(int boundary) {
+        int minutes = boundary * SLOT_MINUTES;
+        return LocalTime.of(FIRST_HOUR + minutes / 60, minutes % 60);
+    }
+
+    /**
+     * Number of the first slot starting at or after a time
+     */
+    public static long firstSlotFrom(LocalDateTime time) {
+        long day = time.toLocalDate().toEpochDay();
+        long minutes = (time.getHour() - FIRST_HOUR) * 60L + time.getMinute()
+                + (time.getSecond() != 0 || time.getNano() != 0 ? 1 : 0);
+        long slotOfDay = minutes <= 0 ? 0 : (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        return slotOfDay >= SLOTS_PER_DAY ? (day + 1) * SLOTS_PER_DAY : day * SLOTS_PER_DAY + slotOfDay;
+    }
+
+    /**
+     * Booked bits of a day word; a word tagged with an older day is stale and
+     * counts as empty, one tagged with a later day belongs to that day and
+     * counts as full so it is never overwritten
+     */
+    private static long bookedBits(long day, long word) {
+        long tag = word >>> 32;
+        if (tag == day) {
+            return word & SLOT_BITS;
+        }
+        return tag < day ? 0L : SLOT_BITS;
+    }
+
+    private static int index(long day) {
+        return Math.floorMod(day, HORIZON_DAYS);
+    }
+
+    /**
+     * Shift and leave of the doctor; slots outside the shift and days of leave cannot be booked
+     */
+    private record Availability(int shiftStart, int shiftEnd, long leaveFromDay, long leaveToDay) {
+        static final Availability FULL_TIME = new Availability(0, SLOTS_PER_DAY, 0, -1);
+
+        /**
+         * Slots of a day that cannot be booked, in the same layout as the booked bits
+         */
+        long blockedBits(long day) {
+            if (day >= leaveFromDay && day <= leaveToDay) {
+                return SLOT_BITS;
+            }
+            return SLOT_BITS & ~(((1L << shiftEnd) - 1) & -(1L << shiftStart));
+        }
+    }
+}
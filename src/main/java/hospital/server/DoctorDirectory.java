@@ -0,0 +1,274 @@
+package hospital.server;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Directory of doctors keyed by a dense int ID
+ * Lookup by ID is an array index; lookup by name goes through a hash index
+ * of both the plain name and the display name (case-insensitive), and lookup
+ * by specialization through an index of the IDs with each specialization.
+ * The arrays form one immutable snapshot behind a single volatile reference:
+ * changes are synchronized, build a new snapshot and publish it in one write,
+ * so lookups never lock and never see half of a change. The name and
+ * specialization indexes are concurrent maps that each change updates one
+ * entry at a time, after publishing an added doctor and before publishing a
+ * removal, so a name never resolves to an ID that get() does not know yet.
+ * Every change is appended to a change log and bumps the version, so clients
+ * can fetch just the changes since the version they already have; the log
+ * grows in place, and each snapshot only reads the entries it counts.
+ * A change costs one copy of the ID arrays and of one specialization's IDs,
+ * not a rebuild of the indexes. IDs of removed doctors are never reused.
+ */
+public class DoctorDirectory {
+
+    // Versions start at the creation time in microseconds, so a version handed out
+    // by an earlier server run is never mistaken for one of this directory's
+    private final long baseVersion = System.currentTimeMillis() * 1000;
+
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<String, int[]> idsBySpecialization = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new Doctor[0], new Doctor[0], new Doctor[0], new Change[16], 0);
+
+    /**
+     * Adds a doctor and assigns the next free ID
+     * @return the registered doctor
+     */
+    public synchronized Doctor register(String name, String specialization, String description) {
+        Snapshot current = snapshot;
+        if (idsByName.containsKey(key(name + " - " + specialization))) {
+            throw new IllegalArgumentException("Doctor already registered: " + name + " - " + specialization);
+        }
+        Doctor doctor = new Doctor(current.assigned.length, name, specialization, description);
+        add(doctor);
+        return doctor;
+    }
+
+    /**
+     * Adds a doctor under the ID it was given, e.g. when replaying the journal
+     * @return true if the directory changed; false if the ID is already assigned
+     */
+    public synchronized boolean add(Doctor doctor) {
+        Snapshot current = snapshot;
+        if (doctor.getId() < current.assigned.length) {
+            return false;
+        }
+        Doctor[] doctors = Arrays.copyOf(current.doctors, current.doctors.length + 1);
+        doctors[current.doctors.length] = doctor;
+        publish(withDoctor(current.assigned, doctor), withDoctor(current.byId, doctor), doctors,
+                new Change(doctor, -1));
+
+        // IDs only grow, so the new doctor goes last and a plain name stays with the first doctor that has it
+        idsByName.put(key(doctor.getDisplayName()), doctor.getId());
+        idsByName.putIfAbsent(key(doctor.getName()), doctor.getId());
+        idsBySpecialization.merge(key(doctor.getSpecialization()), new int[]{doctor.getId()}, DoctorDirectory::concat);
+        return true;
+    }
+
+    /**
+     * Removes a doctor; the ID stays assigned
+     * @return true if the doctor was in the directory
+     */
+    public synchronized boolean remove(int doctorId) {
+        Snapshot current = snapshot;
+        if (doctorId < 0 || doctorId >= current.byId.length || current.byId[doctorId] == null) {
+            return false;
+        }
+        Doctor doctor = current.byId[doctorId];
+        Doctor[] remaining = current.byId.clone();
+        remaining[doctorId] = null;
+
+        reindexName(key(doctor.getDisplayName()), doctorId, remaining);
+        reindexName(key(doctor.getName()), doctorId, remaining);
+        idsBySpecialization.computeIfPresent(key(doctor.getSpecialization()), (specialization, ids) -> {
+            int[] kept = Arrays.stream(ids).filter(id -> id != doctorId).toArray();
+            return kept.length == 0 ? null : kept;
+        });
+        Doctor[] doctors = Arrays.stream(current.doctors).filter(d -> d.getId() != doctorId).toArray(Doctor[]::new);
+        publish(current.assigned, remaining, doctors, new Change(null, doctorId));
+        return true;
+    }
+
+    /**
+     * @return the doctor with this ID, or null if there is none
+     */
+    public Doctor get(int doctorId) {
+        Doctor[] current = snapshot.byId;
+        return doctorId >= 0 && doctorId < current.length ? current[doctorId] : null;
+    }
+
+    public boolean contains(int doctorId) {
+        return get(doctorId) != null;
+    }
+
+    /**
+     * Resolves a doctor's name or display name to its ID
+     * @return the ID, or -1 if no doctor has that name
+     */
+    public int idOf(String doctorName) {
+        if (doctorName == null) {
+            return -1;
+        }
+        Integer id = idsByName.get(key(doctorName));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * IDs of the doctors with a specialization (case-insensitive), in ID order;
+     * callers must not modify the returned array
+     */
+    public int[] idsWithSpecialization(String specialization) {
+        if (specialization == null) {
+            return new int[0];
+        }
+        int[] ids = idsBySpecialization.get(key(specialization));
+        return ids == null ? new int[0] : ids;
+    }
+
+    /**
+     * Number of IDs assigned so far, including those of removed doctors
+     */
+    public int size() {
+        return snapshot.assigned.length;
+    }
+
+    /**
+     * All current doctors in ID order; callers must not modify the returned array
+     */
+    public Doctor[] all() {
+        return snapshot.doctors;
+    }
+
+    /**
+     * Every doctor ever added, removed ones included, indexed by ID; callers must not modify the returned array
+     */
+    public Doctor[] assigned() {
+        return snapshot.assigned;
+    }
+
+    /**
+     * Current version; changes with every registration
+     */
+    public long version() {
+        return baseVersion + snapshot.changeCount;
+    }
+
+    /**
+     * Changes made after the given version
+     * A version this directory never issued (e.g. from before a server restart)
+     * gets the whole directory with the full-reload flag set.
+     */
+    public DoctorDirectoryDelta changesSince(long sinceVersion) {
+        Snapshot snapshot = this.snapshot;
+        Change[] log = snapshot.changes;
+        int count = snapshot.changeCount;
+        long current = baseVersion + count;
+        boolean fullReload = sinceVersion < baseVersion || sinceVersion > current;
+        int from = fullReload ? 0 : (int) (sinceVersion - baseVersion);
+
+        // Later changes win: a doctor added and then removed is only reported as removed
+        Map<Integer, Doctor> added = new LinkedHashMap<>();
+        List<Integer> removed = new ArrayList<>();
+        for (int i = from; i < count; i++) {
+            Change change = log[i];
+            if (change.added != null) {
+                added.put(change.added.getId(), change.added);
+                removed.remove((Integer) change.added.getId());
+            } else {
+                added.remove(change.removedId);
+                if (!fullReload) {
+                    removed.add(change.removedId);
+                }
+            }
+        }
+        return new DoctorDirectoryDelta(current, fullReload, added.values().toArray(new Doctor[0]),
+                removed.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Publishes the directory with a new set of doctors and one more change; caller holds the lock
+     * The change goes in the first slot past the current count, which no published snapshot reads,
+     * so the log is only copied when it runs out of room.
+     */
+    private void publish(Doctor[] assigned, Doctor[] byId, Doctor[] doctors, Change change) {
+        Snapshot current = snapshot;
+        Change[] log = current.changes;
+        int count = current.changeCount;
+        if (count == log.length) {
+            log = Arrays.copyOf(log, count * 2);
+        }
+        log[count] = change;
+        snapshot = new Snapshot(assigned, byId, doctors, log, count + 1);
+    }
+
+    /**
+     * Points a name the removed doctor resolved to at the doctor it falls back to, or drops it; caller holds the lock
+     * A display name wins over a plain name, and a plain name shared by several doctors resolves to the first of them.
+     */
+    private void reindexName(String name, int removedId, Doctor[] remaining) {
+        Integer current = idsByName.get(name);
+        if (current == null || current != removedId) {
+            return;
+        }
+        int fallback = -1;
+        for (Doctor doctor : remaining) {
+            if (doctor == null) {
+                continue;
+            }
+            if (key(doctor.getDisplayName()).equals(name)) {
+                fallback = doctor.getId();
+                break;
+            }
+            if (fallback < 0 && key(doctor.getName()).equals(name)) {
+                fallback = doctor.getId();
+            }
+        }
+        if (fallback < 0) {
+            idsByName.remove(name);
+        } else {
+            idsByName.put(name, fallback);
+        }
+    }
+
+    private static int[] concat(int[] ids, int[] more) {
+        int[] joined = Arrays.copyOf(ids, ids.length + more.length);
+        System.arraycopy(more, 0, joined, ids.length, more.length);
+        return joined;
+    }
+
+    /**
+     * Copy of the doctors with one more, growing the array to its ID (IDs in between stay unassigned)
+     */
+    private static Doctor[] withDoctor(Doctor[] byId, Doctor doctor) {
+        Doctor[] grown = Arrays.copyOf(byId, doctor.getId() + 1);
+        grown[doctor.getId()] = doctor;
+        return grown;
+    }
+
+    private static String key(String doctorName) {
+        return doctorName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One published state of the directory; never modified once built
+     * @param assigned Every doctor ever added, indexed by ID
+     * @param byId The current doctors indexed by ID, null for removed doctors
+     * @param doctors The current doctors in ID order, without gaps
+     * @param changes The change log; only the first changeCount entries belong to this state
+     */
+    private record Snapshot(Doctor[] assigned, Doctor[] byId, Doctor[] doctors, Change[] changes, int changeCount) {
+    }
+
+    /**
+     * One entry of the change log: a doctor was added, or the doctor with removedId was removed
+     */
+    private record Change(Doctor added, int removedId) {
+    }
+}
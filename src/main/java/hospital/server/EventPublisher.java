@@ -0,0 +1,251 @@
+package hospital.server;
+
+import hospital.interfaces.DoctorStatusEvent;
+import hospital.interfaces.HospitalEventListener;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * Pushes doctor status changes to subscribed clients
+ *
+ * Booking threads only mark a doctor as changed in each subscriber's bounded
+ * queue; a doctor already queued is not queued again, so bursts coalesce into
+ * one event per doctor. Every subscriber has its own dispatcher (a virtual
+ * thread) that waits briefly to collect a batch, reads the doctors' current
+ * status and calls the client. A slow or dead client only holds up its own
+ * dispatcher. If a subscriber's queue overflows it gets the status of every
+ * doctor instead; after repeated failed calls it is dropped.
+ *
+ * Configured with -Dhospital.events.maxSubscribers (default 256),
+ * -Dhospital.events.queueCapacity (default 4096) and
+ * -Dhospital.events.batchDelayMillis (default 50).
+ */
+public class EventPublisher {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+    private static final int MAX_FAILURES = 3;
+    private static final int MAX_BATCH = 1024;
+
+    private final IntFunction<DoctorStatusEvent> statusSource;
+    private final IntSupplier doctorCount;
+    private final int maxSubscribers = Integer.getInteger("hospital.events.maxSubscribers", 256);
+    private final int queueCapacity = Integer.getInteger("hospital.events.queueCapacity", 4096);
+    private final long batchDelayMillis = Long.getLong("hospital.events.batchDelayMillis", 50);
+
+    private final AtomicLong nextSubscriptionId = new AtomicLong(1);
+    // Copy-on-write so publishing never locks
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    /**
+     * @param statusSource Current status of a doctor by ID
+     * @param doctorCount Number of doctor IDs, for sending every doctor's status
+     */
+    public EventPublisher(IntFunction<DoctorStatusEvent> statusSource, IntSupplier doctorCount) {
+        this.statusSource = statusSource;
+        this.doctorCount = doctorCount;
+    }
+
+    /**
+     * Starts pushing events to a listener, beginning with every doctor's status
+     * @return Subscription ID
+     */
+    public long subscribe(HospitalEventListener listener) throws RemoteException {
+        Subscription subscription;
+        synchronized (this) {
+            if (subscriptions.length >= maxSubscribers) {
+                throw new RemoteException("Too many subscribers, please poll instead");
+            }
+            subscription = new Subscription(nextSubscriptionId.getAndIncrement(), listener);
+            Subscription[] grown = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            grown[subscriptions.length] = subscription;
+            subscriptions = grown;
+        }
+        subscription.start();
+        LOG.info("events.subscribed", "subscriptionId", subscription.id, "subscribers", subscriptions.length);
+        return subscription.id;
+    }
+
+    /**
+     * @return true if the subscription existed
+     */
+    public boolean unsubscribe(long subscriptionId) {
+        Subscription removed = null;
+        synchronized (this) {
+            Subscription[] current = subscriptions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].id == subscriptionId) {
+                    removed = current[i];
+                    Subscription[] shrunk = new Subscription[current.length - 1];
+                    System.arraycopy(current, 0, shrunk, 0, i);
+                    System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                    subscriptions = shrunk;
+                    break;
+                }
+            }
+        }
+        if (removed == null) {
+            return false;
+        }
+        removed.stop();
+        LOG.info("events.unsubscribed", "subscriptionId", subscriptionId, "subscribers", subscriptions.length);
+        return true;
+    }
+
+    /**
+     * Notes that a doctor's status changed; never blocks
+     */
+    public void publish(int doctorId) {
+        for (Subscription subscription : subscriptions) {
+            subscription.markChanged(doctorId);
+        }
+    }
+
+    /**
+     * Notes that every doctor's status changed, e.g. after a roster change
+     */
+    public void publishAll() {
+        for (Subscription subscription : subscriptions) {
+            subscription.markAllChanged();
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Stops all dispatchers
+     */
+    public void close() {
+        Subscription[] current;
+        synchronized (this) {
+            current = subscriptions;
+            subscriptions = new Subscription[0];
+        }
+        for (Subscription subscription : current) {
+            subscription.stop();
+        }
+    }
+
+    private List<DoctorStatusEvent> statusOf(List<Integer> doctorIds) {
+        List<DoctorStatusEvent> events = new ArrayList<>(doctorIds.size());
+        for (int doctorId : doctorIds) {
+            DoctorStatusEvent event = statusSource.apply(doctorId);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private List<DoctorStatusEvent> statusOfAll() {
+        List<DoctorStatusEvent> events = new ArrayList<>();
+        for (int doctorId = 0, count = doctorCount.getAsInt(); doctorId < count; doctorId++) {
+            DoctorStatusEvent event = statusSource.apply(doctorId);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * One client: its queue of changed doctors and the thread that delivers them
+     */
+    private final class Subscription implements Runnable {
+        private final long id;
+        private final HospitalEventListener listener;
+        private final BlockingQueue<Integer> changed = new ArrayBlockingQueue<>(queueCapacity);
+        private final Set<Integer> queued = ConcurrentHashMap.newKeySet();
+        private volatile boolean resyncNeeded = true;
+        private volatile boolean stopped;
+        // Created with the subscription, since unsubscribe or close may stop it before start()
+        private final Thread dispatcher;
+
+        Subscription(long id, HospitalEventListener listener) {
+            this.id = id;
+            this.listener = listener;
+            this.dispatcher = Thread.ofVirtual().name("event-dispatch-" + id).unstarted(this);
+        }
+
+        void start() {
+            dispatcher.start();
+        }
+
+        void stop() {
+            stopped = true;
+            dispatcher.interrupt();
+        }
+
+        void markChanged(int doctorId) {
+            Integer key = doctorId;
+            if (queued.add(key) && !changed.offer(key)) {
+                // Queue full: fall back to sending everything on the next batch
+                queued.remove(key);
+                markAllChanged();
+            }
+        }
+
+        void markAllChanged() {
+            resyncNeeded = true;
+            changed.offer(-1); // wake the dispatcher; ignored if the queue is full
+        }
+
+        @Override
+        public void run() {
+            List<Integer> batch = new ArrayList<>();
+            int failures = 0;
+            while (!stopped) {
+                try {
+                    if (!resyncNeeded) {
+                        batch.add(changed.take());
+                        // Let more changes coalesce into this batch
+                        Thread.sleep(batchDelayMillis);
+                    }
+                    // Dequeue before reading status, so a change made while sending is queued again
+                    boolean resync = resyncNeeded;
+                    resyncNeeded = false;
+                    changed.drainTo(batch, resync ? Integer.MAX_VALUE : MAX_BATCH);
+                    batch.removeIf(doctorId -> doctorId < 0 || !queued.remove(doctorId));
+
+                    List<DoctorStatusEvent> events = resync ? statusOfAll() : statusOf(batch);
+                    batch.clear();
+
+                    if (!events.isEmpty()) {
+                        listener.doctorStatusChanged(events);
+                    }
+                    failures = 0;
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RemoteException e) {
+                    if (stopped) {
+                        return;
+                    }
+                    LOG.warn("events.delivery.failed", "subscriptionId", id, "error", e.getMessage());
+                    if (++failures >= MAX_FAILURES) {
+                        unsubscribe(id);
+                        return;
+                    }
+                    // Resend everything once the client is reachable again
+                    resyncNeeded = true;
+                    try {
+                        Thread.sleep(failures * 1000L);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    LOG.error("events.dispatch.failed", e, "subscriptionId", id);
+                }
+            }
+        }
+    }
+}
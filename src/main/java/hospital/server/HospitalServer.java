@@ -1,52 +1,263 @@
 package hospital.server;
 
+import hospital.interfaces.HospitalAdmin;
 import hospital.interfaces.HospitalService;
+import hospital.interfaces.Partitioning;
+import hospital.interfaces.ReplicationSource;
+import hospital.metrics.ServiceMetrics;
+import hospital.transport.TransportConfig;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.rmi.Naming;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Server application that starts the RMI registry and registers the hospital service
+ *
+ * To spread doctors over several processes, start one server per partition with
+ * -Dhospital.partition.count=N and -Dhospital.partition.index=0..N-1. Node i then
+ * uses registry port (registry.port + i), registers as HospitalService-i and keeps
+ * its journal in data/node-i, so all nodes can run side by side on one host.
+ *
+ * For read scaling and failover, start a node with
+ * -Dhospital.replication.role=primary to export its booking mutations as
+ * HospitalReplication, and more servers with -Dhospital.replication.role=replica
+ * and -Dhospital.replication.primary=rmi://host:port/HospitalReplication. A
+ * replica keeps the primary's partition but needs its own node ID in it (e.g.
+ * -Dhospital.nodeId=partitionIndex + partitionCount), serves reads, and only
+ * opens its journal (its data directory must be empty) when it is promoted
+ * through the hospital:type=Replication MBean. See {@link ReplicaFollower}.
+ * A promoted replica fences the old primary, which then refuses writes, also
+ * after a restart, until its data directory is emptied (see {@link PrimaryFence}).
+ *
+ * Each node also registers HospitalAdmin in its registry for changing the doctor
+ * roster at runtime; the HospitalAdminClient console makes each change on every
+ * node. A replica refuses roster changes like bookings.
+ *
+ * With -Dhospital.http.port set, the same service is also served as JSON over
+ * HTTP (see {@link HttpGateway}) alongside RMI.
  */
 public class HospitalServer {
 
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    // Strong references keep the exported service from being garbage collected
+    private static HospitalServiceImpl hospitalService;
+    private static HospitalService exportedService;
+    private static HospitalAdmin exportedAdmin;
+    private static ReplicationLog replicationLog;
+    private static HttpGateway httpGateway;
+
     public static void main(String[] args) {
         try {
             System.out.println("Starting MetroCare Hospital RMI Server...");
 
-            // Create and start RMI registry on port 1099
-            System.out.println("Creating RMI Registry on port 1099...");
-            Registry registry = LocateRegistry.createRegistry(1099);
+            // Socket settings come from transport.properties (or -Dhospital.transport.config)
+            TransportConfig transport = TransportConfig.load();
+            transport.applyConnectionReuse();
+            System.out.println("Transport: " + transport);
+
+            // Which share of the doctors this node serves
+            int partitionCount = Integer.getInteger("hospital.partition.count", 1);
+            int partitionIndex = Integer.getInteger("hospital.partition.index", 0);
+            Partitioning partitioning = new Partitioning(partitionCount);
+            boolean partitioned = partitionCount > 1;
+            if (partitioned) {
+                System.out.println("Partition " + partitionIndex + " of " + partitionCount);
+            }
+
+            // Create and start RMI registry
+            int registryPort = transport.getRegistryPort() + partitionIndex;
+            System.out.println("Creating RMI Registry on port " + registryPort + "...");
+            Registry registry = LocateRegistry.createRegistry(registryPort);
             System.out.println("RMI Registry created successfully!");
 
             // Create the hospital service implementation
-            System.out.println("Initializing Hospital Service...");
-            HospitalServiceImpl hospitalService = new HospitalServiceImpl();
+            // Each server node needs its own node ID so appointment IDs never collide
+            int nodeId = Integer.getInteger("hospital.nodeId", partitionIndex);
+
+            // Bookings are journaled to disk and replayed on restart
+            Path dataDir = Path.of(System.getProperty("hospital.dataDir",
+                    partitioned ? "data/node-" + partitionIndex : "data"));
+            String role = System.getProperty("hospital.replication.role", "none");
+            boolean replica = role.equals("replica");
+
+            ReplicaFollower follower = null;
+            PrimaryFence fence;
+            if (replica) {
+                // A replica copies the primary; its own journal starts when it is promoted
+                if (Files.isDirectory(dataDir)) {
+                    try (Stream<Path> files = Files.list(dataDir)) {
+                        if (files.findAny().isPresent()) {
+                            throw new IllegalStateException("Replica data directory " + dataDir.toAbsolutePath()
+                                    + " must be empty");
+                        }
+                    }
+                }
+                fence = PrimaryFence.open(dataDir);
+                System.out.println("Initializing Hospital Service (node " + nodeId + ", replica)...");
+                hospitalService = new HospitalServiceImpl(
+                        HospitalServiceImpl.createDefaultDirectory(), nodeId, null, partitioning, partitionIndex);
+                follower = ReplicaFollower.fromSystemProperties(hospitalService,
+                        generation -> becomePrimary(registry, registryPort, dataDir, transport, fence, generation));
+                follower.registerMBean("hospital");
+            } else {
+                fence = PrimaryFence.open(dataDir);
+                BookingJournal journal = openJournal(dataDir);
+                System.out.println("Initializing Hospital Service (node " + nodeId + ")...");
+                hospitalService = new HospitalServiceImpl(
+                        HospitalServiceImpl.createDefaultDirectory(), nodeId, journal, partitioning, partitionIndex);
+                if (role.equals("primary")) {
+                    replicationLog = hospitalService.startReplication(fence);
+                    exportReplication(registry, registryPort, transport);
+                    System.out.println("Primary generation: " + fence.getGeneration());
+                }
+                if (fence.isFenced()) {
+                    System.out.println("⛔ Replaced by a newer primary (generation " + fence.getFencedBy()
+                            + "), refusing bookings; empty " + dataDir.toAbsolutePath()
+                            + " and restart as a replica to rejoin");
+                }
+            }
+
+            // Calls pass admission control first, then everything (rejections included) is measured
+            // A replica refuses bookings and stale reads, and a fenced primary bookings, before they reach the service
+            AdmissionController admission = AdmissionController.fromSystemProperties();
+            HospitalService fenced = fence.protect(HospitalService.class, hospitalService);
+            HospitalService gated = follower == null ? fenced : follower.protect(HospitalService.class, fenced);
+            HospitalService admitted = admission == null ? gated
+                    : admission.protect(HospitalService.class, gated);
+            ServiceMetrics metrics = new ServiceMetrics(HospitalService.class);
+            metrics.registerMBeans("hospital");
+            exportedService = metrics.instrument(HospitalService.class, admitted);
+            UnicastRemoteObject.exportObject(exportedService, transport.getExportPort(),
+                    transport.clientSocketFactory(), transport.serverSocketFactory());
 
             // Register the service with a name in the RMI registry
-            String serviceName = "HospitalService";
-            Naming.rebind("rmi://localhost:1099/" + serviceName, hospitalService);
+            String serviceName = partitioning.serviceName(partitionIndex);
+            String serviceURL = "rmi://localhost:" + registryPort + "/" + serviceName;
+            Naming.rebind(serviceURL, exportedService);
 
             System.out.println("✅ Hospital Service registered successfully!");
             System.out.println("Service Name: " + serviceName);
-            System.out.println("Service URL: rmi://localhost:1099/" + serviceName);
+            System.out.println("Service URL: " + serviceURL);
+            System.out.println("Metrics: JMX domain 'hospital'");
+
+            // Roster changes pass the same replica gate and admission control, and are measured as their own service
+            HospitalAdmin fencedAdmin = fence.protect(HospitalAdmin.class, hospitalService);
+            HospitalAdmin gatedAdmin = follower == null ? fencedAdmin
+                    : follower.protect(HospitalAdmin.class, fencedAdmin);
+            HospitalAdmin admittedAdmin = admission == null ? gatedAdmin
+                    : admission.protect(HospitalAdmin.class, gatedAdmin);
+            ServiceMetrics adminMetrics = new ServiceMetrics(HospitalAdmin.class);
+            adminMetrics.registerMBeans("hospital");
+            exportedAdmin = adminMetrics.instrument(HospitalAdmin.class, admittedAdmin);
+            UnicastRemoteObject.exportObject(exportedAdmin, transport.getExportPort(),
+                    transport.clientSocketFactory(), transport.serverSocketFactory());
+            registry.rebind(HospitalAdmin.SERVICE_NAME, exportedAdmin);
+            System.out.println("🛠️ Admin URL: rmi://localhost:" + registryPort + "/" + HospitalAdmin.SERVICE_NAME);
+
+            // Web and mobile portals reach the same service, with the same checks, over HTTP
+            httpGateway = HttpGateway.fromSystemProperties(exportedService, partitionIndex);
+            if (httpGateway != null) {
+                httpGateway.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> httpGateway.stop(1)));
+                System.out.println("🌐 HTTP gateway: http://localhost:" + httpGateway.getPort() + "/api/");
+            }
+            if (follower != null) {
+                follower.start();
+                System.out.println("🔁 Replicating from " + System.getProperty("hospital.replication.primary"));
+            }
             System.out.println("\n🏥 MetroCare Hospital RMI Server is running...");
             System.out.println("Waiting for client connections...");
             System.out.println("Press Ctrl+C to stop the server.");
 
-            // Keep the server running
-            while (true) {
-                Thread.sleep(5000);
-
-                // Optional: Print periodic status
-                if (hospitalService != null) {
-                    hospitalService.printAppointmentStats();
-                }
-            }
+            // Print periodic status
+            startMetricsReporter(metrics, admission);
 
         } catch (Exception e) {
             System.err.println("❌ Server error: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Opens the booking journal in a data directory and closes it on shutdown
+     */
+    private static BookingJournal openJournal(Path dataDir) throws IOException {
+        boolean fsync = Boolean.parseBoolean(System.getProperty("hospital.journal.fsync", "true"));
+        long snapshotInterval = Long.getLong("hospital.journal.snapshotInterval", 1_000_000L);
+        System.out.println("Opening booking journal in " + dataDir.toAbsolutePath() + "...");
+        BookingJournal journal = new BookingJournal(dataDir, fsync, snapshotInterval);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (Exception e) {
+                System.err.println("❌ Error closing booking journal: " + e.getMessage());
+            }
+        }));
+        return journal;
+    }
+
+    /**
+     * Exports the replication log for replicas as HospitalReplication
+     */
+    private static void exportReplication(Registry registry, int registryPort, TransportConfig transport)
+            throws IOException {
+        UnicastRemoteObject.exportObject(replicationLog, transport.getExportPort(),
+                transport.clientSocketFactory(), transport.serverSocketFactory());
+        registry.rebind(ReplicationSource.SERVICE_NAME, replicationLog);
+        System.out.println("Replication URL: rmi://localhost:" + registryPort + "/" + ReplicationSource.SERVICE_NAME);
+    }
+
+    /**
+     * Promotion step of a replica: record the new generation, start journaling, then let other replicas follow this node
+     */
+    private static void becomePrimary(Registry registry, int registryPort, Path dataDir, TransportConfig transport,
+                                      PrimaryFence fence, long generation) throws IOException {
+        fence.startGeneration(generation);
+        BookingJournal journal = openJournal(dataDir);
+        replicationLog = hospitalService.promote(journal, fence);
+        exportReplication(registry, registryPort, transport);
+        System.out.println("👑 Promoted to primary (generation " + generation + "), now taking bookings");
+    }
+
+    /**
+     * Periodically prints per-method metrics and, if -Dhospital.metrics.file is set,
+     * writes a snapshot of them to that file
+     * Interval is -Dhospital.metrics.interval seconds (default 5)
+     */
+    private static void startMetricsReporter(ServiceMetrics metrics, AdmissionController admission) {
+        long interval = Long.getLong("hospital.metrics.interval", 5);
+        String snapshotFile = System.getProperty("hospital.metrics.file");
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                r -> new Thread(r, "metrics-reporter"));
+        reporter.scheduleAtFixedRate(() -> {
+            try {
+                String report = metrics.formatReport();
+                if (!report.isEmpty()) {
+                    System.out.println("\n=== SERVICE METRICS ===");
+                    System.out.println("Total appointments: " + hospitalService.getTotalAppointments());
+                    if (admission != null) {
+                        System.out.println("Rejected: busy=" + admission.getRejectedBusy()
+                                + " rateLimited=" + admission.getRejectedRateLimited());
+                    }
+                    System.out.print(report);
+                    System.out.println("=======================\n");
+                }
+                if (snapshotFile != null) {
+                    metrics.writeSnapshot(Path.of(snapshotFile));
+                }
+            } catch (Exception e) {
+                LOG.error("metrics.report.failed", e);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+}
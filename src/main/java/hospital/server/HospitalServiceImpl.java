@@ -1,141 +1,1350 @@
 package hospital.server;
 
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingRequest;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import hospital.interfaces.DoctorStatusEvent;
+import hospital.interfaces.HospitalAdmin;
+import hospital.interfaces.HospitalEventListener;
 import hospital.interfaces.HospitalService;
+import hospital.interfaces.Partitioning;
+import hospital.interfaces.SlotHold;
+import hospital.interfaces.WaitlistStatus;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.rmi.RemoteException;
-import java.rmi.server.UnicastRemoteObject;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Implementation of HospitalService interface
  * Contains business logic for hospital appointment system
+ * Not exported itself; HospitalServer exports it behind its metrics proxy
+ * In a partitioned deployment it knows every doctor but only books, reports
+ * and pushes events for the doctors its partition owns.
+ * As a replica it takes no bookings itself but applies the primary's mutations
+ * (see {@link #applyReplicated}) until it is promoted.
+ * Slots freed by cancellations, reschedules and lapsed holds go to the
+ * doctor's waitlist first (see {@link WaitlistEngine}).
+ * Holds last at most -Dhospital.holds.maxSeconds (default 300) seconds.
+ * The roster starts from the directory it is given and changes through
+ * {@link HospitalAdmin}; each change is journaled and replicated before it
+ * takes effect, then the doctors and calendars this node serves are published
+ * as one immutable {@link Roster}, so listing doctors and checking them never
+ * lock or copy.
  */
-public class HospitalServiceImpl extends UnicastRemoteObject implements HospitalService {
+public class HospitalServiceImpl implements HospitalService, HospitalAdmin {
+
+    static final int MAX_PATIENT_NAME_LENGTH = 200;
+    static final int MAX_ROSTER_FIELD_LENGTH = 200;
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final long NO_SLOT = Long.MAX_VALUE;
+    private static final int MAX_SEARCH_ATTEMPTS = 16;
+    // Below this many candidate doctors a sequential scan is faster than forking
+    private static final int PARALLEL_SEARCH_THRESHOLD = 256;
+    private static final String CHANGED_CONCURRENTLY_ERROR =
+            "Error: The appointment was changed by another request, please try again";
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
 
     // Data structures to store hospital information
-    private final List<String> availableDoctors;
-    private final Map<String, List<String>> doctorAppointments;
-    private final Map<String, String> doctorSpecializations;
-    private final DateTimeFormatter timeFormatter;
+    private final DoctorDirectory doctorDirectory;
+    private final AppointmentStore doctorAppointments;
+    // Listed doctors and calendars by doctor ID, replaced as a whole on every roster change
+    private volatile Roster roster = new Roster(new Doctor[0], new DoctorCalendar[0]);
+    private final Object rosterLock = new Object(); // serializes roster changes
+    private final int nodeId;
+    private final AppointmentIdGenerator idGenerator;
+    private volatile BookingJournal journal; // null when running in memory only or as a replica
+    private volatile ReplicationLog replicationLog; // null unless replicas follow this node
+    private final EventPublisher events;
+    private final WaitlistEngine waitlists;
+    private final SlotHolds holds;
+    private final int maxHoldSeconds = Integer.getInteger("hospital.holds.maxSeconds", 300);
+    private final Partitioning partitioning;
+    private final int partitionIndex;
 
     /**
      * Constructor initializes dummy data for the hospital system
      */
     public HospitalServiceImpl() throws RemoteException {
-        super();
+        this(0);
+    }
+
+    /**
+     * @param nodeId ID of this server node, embedded in every appointment ID it issues
+     */
+    public HospitalServiceImpl(int nodeId) throws RemoteException {
+        this(createDefaultDirectory(), nodeId, null);
+    }
+
+    /**
+     * @param doctorDirectory Doctors served by this node
+     * @param nodeId ID of this server node, embedded in every appointment ID it issues
+     * @param journal Journal to recover from and record bookings in, or null to keep bookings in memory only
+     */
+    public HospitalServiceImpl(DoctorDirectory doctorDirectory, int nodeId, BookingJournal journal)
+            throws RemoteException {
+        this(doctorDirectory, nodeId, journal, Partitioning.single(), 0);
+    }
+
+    /**
+     * @param doctorDirectory Every doctor of the hospital
+     * @param nodeId ID of this server node; must map back to partitionIndex (see {@link Partitioning})
+     * @param journal Journal to recover from and record bookings in, or null to keep bookings in memory only
+     * @param partitioning How doctors are spread over the nodes
+     * @param partitionIndex Index of the partition this node serves
+     */
+    public HospitalServiceImpl(DoctorDirectory doctorDirectory, int nodeId, BookingJournal journal,
+                               Partitioning partitioning, int partitionIndex) throws RemoteException {
+        if (partitionIndex < 0 || partitionIndex >= partitioning.getNodeCount()) {
+            throw new IllegalArgumentException("Partition index " + partitionIndex + " is outside " + partitioning);
+        }
+        if (Math.floorMod(nodeId, partitioning.getNodeCount()) != partitionIndex) {
+            throw new IllegalArgumentException("Node ID " + nodeId + " does not belong to partition " + partitionIndex);
+        }
+        this.doctorDirectory = doctorDirectory;
+        this.partitioning = partitioning;
+        this.partitionIndex = partitionIndex;
+
+        // Initialize appointment tracking, indexed by doctor ID
+        doctorAppointments = new AppointmentStore();
+        publishRoster();
+
+        this.nodeId = nodeId;
+        idGenerator = new AppointmentIdGenerator(nodeId);
+        events = new EventPublisher(this::doctorStatus, doctorDirectory::size);
+        waitlists = new WaitlistEngine(new WaitlistBooker());
+        holds = new SlotHolds((doctorId, slot) -> {
+            releaseSlot(doctorId, slot);
+            events.publish(doctorId);
+        });
+
+        // Rebuild bookings from the journal before accepting new ones
+        this.journal = journal;
+        if (journal != null) {
+            try {
+                long start = System.nanoTime();
+                long replayed = journal.recover(new Restorer());
+                LOG.info("journal.recovered", "records", replayed, "appointments", doctorAppointments.totalCount(),
+                        "millis", (System.nanoTime() - start) / 1_000_000);
+                journal.start(doctorAppointments::allAppointments, this::rosterRecords);
+            } catch (IOException e) {
+                throw new RemoteException("Could not recover booking journal", e);
+            }
+        }
+
+        waitlists.start();
+        holds.start();
+        LOG.info("service.initialized", "doctors", doctorDirectory.size(), "nodeId", nodeId,
+                "partition", partitionIndex + "/" + partitioning.getNodeCount());
+    }
+
+    /**
+     * Streams every mutation made durable from now on to replicas
+     * @param fence This node's primary generation, which the replicas learn and a promoted one raises
+     * @return the log to export to the replicas
+     */
+    public ReplicationLog startReplication(PrimaryFence fence) {
+        ReplicationLog log = new ReplicationLog(nodeId, fence, doctorAppointments::allAppointments,
+                this::rosterRecords);
+        this.replicationLog = log;
+        return log;
+    }
 
-        // Initialize available doctors
-        availableDoctors = new ArrayList<>();
-        availableDoctors.add("Dr. Sarah Wanjiku - Cardiologist");
-        availableDoctors.add("Dr. James Kiprotich - Pediatrician");
-        availableDoctors.add("Dr. Amina Hassan - Dermatologist");
-        availableDoctors.add("Dr. Peter Mwangi - General Medicine");
-        availableDoctors.add("Dr. Grace Achieng - Gynecologist");
+    /**
+     * Applies a batch of the primary's mutations, in journal record format, and pushes
+     * the changed doctors' status to this node's subscribers
+     * @return number of mutations applied
+     */
+    long applyReplicated(ByteBuffer records) {
+        Restorer restorer = new Restorer();
+        long applied = BookingJournal.replay(records, restorer, "replication");
+        restorer.changedDoctors.stream().forEach(events::publish);
+        return applied;
+    }
 
-        // Initialize appointment tracking
-        doctorAppointments = new HashMap<>();
-        for (String doctor : availableDoctors) {
-            doctorAppointments.put(doctor, new ArrayList<>());
+    /**
+     * Replaces this replica's roster and appointments with the primary's snapshot
+     * The roster goes first so every appointment finds its doctor. Appointments missing
+     * from the snapshot or booked at another time are dropped first, so the calendars
+     * never see two appointments in one slot.
+     */
+    void resetTo(byte[] roster, Appointment[] snapshot) {
+        if (roster != null) {
+            BookingJournal.replay(ByteBuffer.wrap(roster), new Restorer(), "replication snapshot");
         }
+        Map<Long, Appointment> byId = new HashMap<>();
+        for (Appointment appointment : snapshot) {
+            byId.put(appointment.getId(), appointment);
+        }
+        for (Appointment current : doctorAppointments.allAppointments()) {
+            Appointment wanted = byId.get(current.getId());
+            if (wanted == null || wanted.getEpochMinute() != current.getEpochMinute()) {
+                restoreCancellation(current.getId());
+            }
+        }
+        for (Appointment appointment : snapshot) {
+            restoreAppointment(appointment);
+        }
+        events.publishAll();
+    }
 
-        // Initialize doctor specializations
-        doctorSpecializations = new HashMap<>();
-        doctorSpecializations.put("Dr. Sarah Wanjiku - Cardiologist", "Heart and cardiovascular conditions");
-        doctorSpecializations.put("Dr. James Kiprotich - Pediatrician", "Children's health and development");
-        doctorSpecializations.put("Dr. Amina Hassan - Dermatologist", "Skin, hair, and nail conditions");
-        doctorSpecializations.put("Dr. Peter Mwangi - General Medicine", "General health consultations");
-        doctorSpecializations.put("Dr. Grace Achieng - Gynecologist", "Women's reproductive health");
+    /**
+     * Turns this replica into a primary: from now on it takes bookings, journals
+     * them and streams them to its own replicas
+     * @param journal Empty journal; the current appointments are written to it first
+     * @param fence Fence already moved to this node's new generation
+     * @return the log to export to the replicas that will follow this node
+     */
+    ReplicationLog promote(BookingJournal journal, PrimaryFence fence) throws IOException {
+        journal.start(doctorAppointments::allAppointments, this::rosterRecords);
+        for (byte[] record : rosterRecords()) {
+            journal.appendRoster(record);
+        }
+        journal.appendAll(new ArrayList<>(doctorAppointments.allAppointments()));
+        this.journal = journal;
+        LOG.info("replica.promoted", "appointments", doctorAppointments.totalCount(), "nodeId", nodeId,
+                "generation", fence.getGeneration());
+        return startReplication(fence);
+    }
+
+    /**
+     * Node ID embedded in every appointment ID this node issues
+     */
+    int getNodeId() {
+        return nodeId;
+    }
 
-        timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    /**
+     * Builds the hospital's standard doctor roster, the starting point before any roster changes
+     */
+    public static DoctorDirectory createDefaultDirectory() {
+        DoctorDirectory directory = new DoctorDirectory();
+        directory.register("Dr. Sarah Wanjiku", "Cardiologist", "Heart and cardiovascular conditions");
+        directory.register("Dr. James Kiprotich", "Pediatrician", "Children's health and development");
+        directory.register("Dr. Amina Hassan", "Dermatologist", "Skin, hair, and nail conditions");
+        directory.register("Dr. Peter Mwangi", "General Medicine", "General health consultations");
+        directory.register("Dr. Grace Achieng", "Gynecologist", "Women's reproductive health");
+        return directory;
+    }
 
-        System.out.println("HospitalService implementation initialized successfully!");
-        System.out.println("Available doctors: " + availableDoctors.size());
+    @Override
+    public Doctor[] getAvailableDoctors() throws RemoteException {
+        LOG.debug("doctors.listed");
+        // Built once per roster change; RMI serializes it and local callers must not modify it
+        return roster.doctors();
     }
 
     @Override
-    public String[] getAvailableDoctors() throws RemoteException {
-        System.out.println("Client requested available doctors list");
-        return availableDoctors.toArray(new String[0]);
+    public long getDirectoryVersion() throws RemoteException {
+        return doctorDirectory.version();
     }
 
     @Override
-    public String bookAppointment(String doctorName, String patientName) throws RemoteException {
-        System.out.println("Booking request - Doctor: " + doctorName + ", Patient: " + patientName);
+    public DoctorDirectoryDelta getDoctorDirectoryDelta(long sinceVersion) throws RemoteException {
+        DoctorDirectoryDelta delta = doctorDirectory.changesSince(sinceVersion);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("directory.delta", "since", sinceVersion, "version", delta.getVersion(),
+                    "fullReload", delta.isFullReload());
+        }
+        return delta;
+    }
+
+    @Override
+    public int findDoctorId(String doctorName) throws RemoteException {
+        return doctorDirectory.idOf(doctorName);
+    }
+
+    @Override
+    public BookingResult bookAppointment(int doctorId, String patientName) throws RemoteException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("booking.requested", "doctorId", doctorId, "patient", patientName);
+        }
 
         // Validate input parameters
-        if (patientName == null || patientName.trim().isEmpty()) {
-            return "Error: Patient name cannot be empty";
+        String error = validateBooking(doctorId, patientName);
+        if (error != null) {
+            return BookingResult.failed(error);
         }
 
-        if (doctorName == null || !availableDoctors.contains(doctorName)) {
-            return "Error: Doctor '" + doctorName + "' is not available";
+        // Claim the next free slot in the doctor's calendar
+        long slot = calendar(doctorId).claimNextSlot(firstBookableDay());
+        if (slot < 0) {
+            return BookingResult.failed(noFreeSlotsError(doctorId));
         }
+        return confirmBooking(doctorId, slot, patientName);
+    }
 
-        // Generate appointment details
-        String appointmentTime = getNextAvailableSlot(doctorName);
-        String appointmentId = generateAppointmentId();
+    @Override
+    public List<BookingResult> bookAppointments(List<BookingRequest> requests) throws RemoteException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("batch.requested", "size", requests.size());
+        }
 
-        // Record the appointment
-        List<String> appointments = doctorAppointments.get(doctorName);
-        String appointmentRecord = String.format("Patient: %s, Time: %s, ID: %s",
-                patientName, appointmentTime, appointmentId);
-        appointments.add(appointmentRecord);
+        // Validate every request and group the valid ones by doctor
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<Integer, List<Integer>> requestsByDoctor = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            BookingRequest request = requests.get(i);
+            String error = request == null ? "Error: Missing booking request"
+                    : validateBooking(request.getDoctorId(), request.getPatientName());
+            if (error != null) {
+                results[i] = BookingResult.failed(error);
+            } else {
+                requestsByDoctor.computeIfAbsent(request.getDoctorId(), d -> new ArrayList<>()).add(i);
+            }
+        }
 
-        // Create confirmation message
-        String confirmation = String.format(
-                "✅ APPOINTMENT CONFIRMED\n" +
-                        "Patient: %s\n" +
-                        "Doctor: %s\n" +
-                        "Appointment Time: %s\n" +
-                        "Appointment ID: %s\n" +
-                        "Specialization: %s\n" +
-                        "Location: MetroCare Hospital, Nairobi\n" +
-                        "Please arrive 15 minutes early.",
-                patientName, doctorName, appointmentTime, appointmentId,
-                doctorSpecializations.get(doctorName)
-        );
+        // Allocate each doctor's bookings together and record them under one lock
+        long firstDay = firstBookableDay();
+        List<Appointment> allBooked = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> entry : requestsByDoctor.entrySet()) {
+            int doctorId = entry.getKey();
+            DoctorCalendar calendar = calendar(doctorId);
+            List<Appointment> booked = new ArrayList<>();
 
-        System.out.println("Appointment booked successfully: " + appointmentId);
-        return confirmation;
+            for (int index : entry.getValue()) {
+                long slot = calendar.claimNextSlot(firstDay);
+                if (slot < 0) {
+                    results[index] = BookingResult.failed(noFreeSlotsError(doctorId));
+                    continue;
+                }
+                Appointment appointment = new Appointment(idGenerator.nextId(), doctorId,
+                        DoctorCalendar.toEpochMinute(slot), requests.get(index).getPatientName());
+                booked.add(appointment);
+                results[index] = BookingResult.confirmed(appointment);
+            }
+            doctorAppointments.addAll(doctorId, booked);
+            allBooked.addAll(booked);
+        }
+
+        // One group commit for the whole batch
+        if (!journal(allBooked)) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i].isConfirmed()) {
+                    results[i] = BookingResult.failed("Error: Appointment could not be saved, please try again");
+                }
+            }
+        } else {
+            for (int doctorId : requestsByDoctor.keySet()) {
+                events.publish(doctorId);
+            }
+        }
+
+        if (LOG.isEnabled(AsyncLogger.Level.INFO)) {
+            LOG.info("batch.booked", "requested", requests.size(), "confirmed", allBooked.size());
+        }
+        return Arrays.asList(results);
     }
 
     @Override
-    public boolean isDoctorAvailable(String doctorName) throws RemoteException {
-        boolean available = availableDoctors.contains(doctorName);
-        System.out.println("Availability check for " + doctorName + ": " + available);
+    public SlotHold holdSlot(int doctorId, int seconds) throws RemoteException {
+        if (!doctorDirectory.contains(doctorId)) {
+            return SlotHold.failed("Error: Doctor #" + doctorId + " is not available");
+        }
+        if (!owns(doctorId)) {
+            return SlotHold.failed("Error: Doctor #" + doctorId + " is booked through node "
+                    + partitioning.ownerOf(doctorId));
+        }
+        if (seconds < 1 || seconds > maxHoldSeconds) {
+            return SlotHold.failed("Error: Slots can be held for 1 to " + maxHoldSeconds + " seconds");
+        }
+
+        long slot = calendar(doctorId).claimNextSlot(firstBookableDay());
+        if (slot < 0) {
+            return SlotHold.failed(noFreeSlotsError(doctorId));
+        }
+        long holdId = idGenerator.nextId();
+        if (!holds.add(holdId, doctorId, slot, seconds * 1000L)) {
+            releaseSlot(doctorId, slot);
+            return SlotHold.failed("Error: Too many slots are being held, please try again");
+        }
+        events.publish(doctorId);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("slot.held", "holdId", Appointment.formatId(holdId), "doctorId", doctorId, "seconds", seconds);
+        }
+        return SlotHold.held(holdId, doctorId, DoctorCalendar.toEpochMinute(slot),
+                System.currentTimeMillis() + seconds * 1000L);
+    }
+
+    @Override
+    public BookingResult confirmHold(long holdId, String patientName) throws RemoteException {
+        // Check the name first so a typo does not use up the hold
+        String error = validatePatientName(patientName);
+        if (error != null) {
+            return BookingResult.failed(error);
+        }
+        SlotHolds.Hold hold = holds.take(holdId);
+        if (hold == null) {
+            return BookingResult.failed("Error: Hold " + Appointment.formatId(holdId)
+                    + " has expired or was already used");
+        }
+        if (!doctorDirectory.contains(hold.getDoctorId())) {
+            calendar(hold.getDoctorId()).release(hold.getSlot());
+            return BookingResult.failed("Error: Doctor #" + hold.getDoctorId() + " has left the roster");
+        }
+        return confirmBooking(hold.getDoctorId(), hold.getSlot(), patientName);
+    }
+
+    @Override
+    public boolean releaseHold(long holdId) throws RemoteException {
+        SlotHolds.Hold hold = holds.take(holdId);
+        if (hold == null) {
+            return false;
+        }
+        releaseSlot(hold.getDoctorId(), hold.getSlot());
+        events.publish(hold.getDoctorId());
+        return true;
+    }
+
+    @Override
+    public boolean isDoctorAvailable(int doctorId) throws RemoteException {
+        boolean available = serves(doctorId) && !calendar(doctorId).isOnLeave(LocalDate.now().toEpochDay());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("availability.checked", "doctorId", doctorId, "available", available);
+        }
         return available;
     }
 
     @Override
-    public String getNextAvailableSlot(String doctorName) throws RemoteException {
-        // Simulate next available slot (in real system, this would check actual schedule)
-        LocalDateTime nextSlot = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0);
+    public LocalDateTime getNextAvailableSlot(int doctorId) throws RemoteException {
+        if (!serves(doctorId)) {
+            return null;
+        }
+
+        // Peek only - the slot is claimed when the appointment is booked
+        long slot = calendar(doctorId).peekFreeSlot(firstBookableDay());
+        return slot < 0 ? null : DoctorCalendar.toDateTime(slot);
+    }
+
+    @Override
+    public LocalDateTime getEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to)
+            throws RemoteException {
+        long[] window = slotWindow(from, to);
+        if (window == null) {
+            return null;
+        }
+        long best = searchEarliest(doctorDirectory.idsWithSpecialization(specialization), window[0], window[1]);
+        return best == NO_SLOT ? null : DoctorCalendar.toDateTime(best >>> 32);
+    }
+
+    @Override
+    public BookingResult findEarliestSlot(String specialization, LocalDateTime from, LocalDateTime to,
+                                          String patientName) throws RemoteException {
+        String error = validatePatientName(patientName);
+        if (error != null) {
+            return BookingResult.failed(error);
+        }
+        int[] doctorIds = doctorDirectory.idsWithSpecialization(specialization);
+        if (doctorIds.length == 0) {
+            return BookingResult.failed("Error: No doctor is a " + specialization);
+        }
+        long[] window = slotWindow(from, to);
+        if (window == null) {
+            return BookingResult.failed("Error: The window holds no appointment slot within the next "
+                    + DoctorCalendar.HORIZON_DAYS + " days");
+        }
+
+        // Another booking may take the winning slot between search and claim; search again if so
+        for (int attempt = 0; attempt < MAX_SEARCH_ATTEMPTS; attempt++) {
+            long best = searchEarliest(doctorIds, window[0], window[1]);
+            if (best == NO_SLOT) {
+                return BookingResult.failed("Error: No " + specialization + " has a free slot in that window");
+            }
+            int doctorId = (int) best;
+            long slot = best >>> 32;
+            if (calendar(doctorId).claim(slot)) {
+                return confirmBooking(doctorId, slot, patientName);
+            }
+        }
+        return BookingResult.failed("Error: Slots are being booked too quickly, please try again");
+    }
+
+    @Override
+    public Appointment findAppointment(long appointmentId) throws RemoteException {
+        return doctorAppointments.findById(appointmentId);
+    }
+
+    @Override
+    public BookingResult cancelAppointment(long appointmentId) throws RemoteException {
+        Appointment appointment = doctorAppointments.findById(appointmentId);
+        String error = validateChange(appointmentId, appointment);
+        if (error != null) {
+            return BookingResult.failed(error);
+        }
+        if (!doctorAppointments.remove(appointment)) {
+            return BookingResult.failed(CHANGED_CONCURRENTLY_ERROR);
+        }
+
+        // Free the slot only once the cancellation is durable, so a rebooking of it is always journaled after
+        if (!journalChange(journal -> journal.appendCancelled(appointmentId))) {
+            doctorAppointments.add(appointment);
+            return BookingResult.failed("Error: Cancellation could not be saved, please try again");
+        }
+        replicate(log -> log.appendCancelled(appointmentId));
+        int doctorId = appointment.getDoctorId();
+        releaseSlot(doctorId, DoctorCalendar.fromEpochMinute(appointment.getEpochMinute()));
+        events.publish(doctorId);
+
+        if (LOG.isEnabled(AsyncLogger.Level.INFO)) {
+            LOG.info("appointment.cancelled", "appointmentId", appointment.getDisplayId(), "doctorId", doctorId);
+        }
+        return BookingResult.confirmed(appointment);
+    }
+
+    @Override
+    public BookingResult rescheduleAppointment(long appointmentId, LocalDateTime newTime) throws RemoteException {
+        Appointment appointment = doctorAppointments.findById(appointmentId);
+        String error = validateChange(appointmentId, appointment);
+        if (error != null) {
+            return BookingResult.failed(error);
+        }
+        if (newTime == null) {
+            return BookingResult.failed("Error: New appointment time is required");
+        }
+        long newSlot = DoctorCalendar.toSlot(newTime);
+        if (newSlot < 0) {
+            return BookingResult.failed("Error: " + newTime + " is not the start of an appointment slot");
+        }
+        long day = Math.floorDiv(newSlot, DoctorCalendar.SLOTS_PER_DAY);
+        long firstDay = firstBookableDay();
+        if (day < firstDay || day >= firstDay + DoctorCalendar.HORIZON_DAYS) {
+            return BookingResult.failed("Error: Appointments can only be moved to a day within the next "
+                    + DoctorCalendar.HORIZON_DAYS + " days");
+        }
+        long oldSlot = DoctorCalendar.fromEpochMinute(appointment.getEpochMinute());
+        if (newSlot == oldSlot) {
+            return BookingResult.confirmed(appointment);
+        }
+
+        // Secure the new slot before giving up the old one
+        int doctorId = appointment.getDoctorId();
+        DoctorCalendar calendar = calendar(doctorId);
+        if (!calendar.claim(newSlot)) {
+            Doctor doctor = doctorDirectory.get(doctorId);
+            return BookingResult.failed(doctor == null || calendar.isClosed()
+                    ? "Error: Doctor #" + doctorId + " is not available"
+                    : "Error: " + doctor.getDisplayName() + " is already booked at that time");
+        }
+        Appointment moved = new Appointment(appointmentId, doctorId, DoctorCalendar.toEpochMinute(newSlot),
+                appointment.getPatientName());
+        if (!doctorAppointments.replace(appointment, moved)) {
+            calendar.release(newSlot);
+            return BookingResult.failed(CHANGED_CONCURRENTLY_ERROR);
+        }
+        if (!journalChange(journal -> journal.appendRescheduled(appointmentId, moved.getEpochMinute()))) {
+            doctorAppointments.replace(moved, appointment);
+            calendar.release(newSlot);
+            return BookingResult.failed("Error: New appointment time could not be saved, please try again");
+        }
+        replicate(log -> log.appendRescheduled(appointmentId, moved.getEpochMinute()));
+        releaseSlot(doctorId, oldSlot);
+        events.publish(doctorId);
+
+        if (LOG.isEnabled(AsyncLogger.Level.INFO)) {
+            LOG.info("appointment.rescheduled", "appointmentId", moved.getDisplayId(), "doctorId", doctorId,
+                    "time", moved.getTime());
+        }
+        return BookingResult.confirmed(moved);
+    }
+
+    @Override
+    public AppointmentPage findAppointmentsByPatient(String patientName, long cursor, int limit)
+            throws RemoteException {
+        if (patientName == null || patientName.isBlank()) {
+            return AppointmentPage.empty();
+        }
+        AppointmentPage page = doctorAppointments.findByPatient(patientName, cursor, pageSize(limit));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("appointments.byPatient", "returned", page.getAppointments().size(), "more", page.hasMore());
+        }
+        return page;
+    }
+
+    @Override
+    public AppointmentPage getDoctorSchedule(int doctorId, LocalDateTime from, LocalDateTime to, long cursor,
+                                             int limit) throws RemoteException {
+        long fromMinute = from == null ? Long.MIN_VALUE : Appointment.toEpochMinute(from);
+        long toMinute = to == null ? Long.MAX_VALUE : Appointment.toEpochMinute(to);
+        AppointmentPage page = doctorAppointments.scheduleFor(doctorId, fromMinute, toMinute, cursor, pageSize(limit));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("appointments.byDoctor", "doctorId", doctorId, "returned", page.getAppointments().size(),
+                    "more", page.hasMore());
+        }
+        return page;
+    }
+
+    @Override
+    public AppointmentPage getAppointmentsOn(LocalDate day, long cursor, int limit) throws RemoteException {
+        if (day == null) {
+            return AppointmentPage.empty();
+        }
+        long fromMinute = Appointment.toEpochMinute(day.atStartOfDay());
+        AppointmentPage page = doctorAppointments.scheduleForAll(fromMinute, fromMinute + MINUTES_PER_DAY, cursor,
+                pageSize(limit));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("appointments.byDay", "day", day, "returned", page.getAppointments().size(),
+                    "more", page.hasMore());
+        }
+        return page;
+    }
+
+    @Override
+    public long subscribe(HospitalEventListener listener) throws RemoteException {
+        if (listener == null) {
+            throw new RemoteException("Listener cannot be null");
+        }
+        return events.subscribe(listener);
+    }
+
+    @Override
+    public boolean unsubscribe(long subscriptionId) throws RemoteException {
+        return events.unsubscribe(subscriptionId);
+    }
+
+    @Override
+    public WaitlistStatus joinWaitlist(int doctorId, String patientName, int urgency) throws RemoteException {
+        String error = validateBooking(doctorId, patientName);
+        if (error == null && (urgency < WaitlistStatus.MIN_URGENCY || urgency > WaitlistStatus.MAX_URGENCY)) {
+            error = "Error: Urgency must be between " + WaitlistStatus.MIN_URGENCY + " and "
+                    + WaitlistStatus.MAX_URGENCY;
+        }
+        if (error != null) {
+            return WaitlistStatus.rejected(error);
+        }
+        WaitlistStatus status = waitlists.join(doctorId, patientName, urgency, idGenerator.nextId());
+
+        // Joined while the doctor was being taken off the roster: either the removal saw this patient, or this sees it
+        if (status.getState() == WaitlistStatus.State.WAITING && calendar(doctorId).isClosed()) {
+            waitlists.leave(status.getTicketId());
+            return WaitlistStatus.rejected("Error: Doctor #" + doctorId + " is leaving the roster");
+        }
+        return status;
+    }
+
+    @Override
+    public WaitlistStatus getWaitlistStatus(long ticketId) throws RemoteException {
+        return waitlists.status(ticketId);
+    }
+
+    @Override
+    public boolean leaveWaitlist(long ticketId) throws RemoteException {
+        return waitlists.leave(ticketId);
+    }
+
+    @Override
+    public Doctor addDoctor(String name, String specialization, String description) throws RemoteException {
+        return addDoctorAs(-1, name, specialization, description);
+    }
+
+    @Override
+    public Doctor addDoctor(int doctorId, String name, String specialization, String description)
+            throws RemoteException {
+        if (doctorId < 0) {
+            throw new RemoteException("Error: Doctor ID must not be negative");
+        }
+        return addDoctorAs(doctorId, name, specialization, description);
+    }
+
+    /**
+     * @param doctorId ID to add the doctor under, or -1 for this node's next free ID
+     */
+    private Doctor addDoctorAs(int doctorId, String name, String specialization, String description)
+            throws RemoteException {
+        String doctorName = requireRosterField("Doctor name", name);
+        String doctorSpecialization = requireRosterField("Specialization", specialization);
+        String details = description == null ? "" : description.trim();
+        if (details.length() > MAX_ROSTER_FIELD_LENGTH) {
+            throw new RemoteException("Error: Description is too long");
+        }
+
+        Doctor doctor;
+        synchronized (rosterLock) {
+            int nextId = doctorDirectory.size();
+            if (doctorId >= 0 && doctorId != nextId) {
+                Doctor existing = doctorDirectory.get(doctorId);
+                if (existing != null && existing.getName().equals(doctorName)
+                        && existing.getSpecialization().equals(doctorSpecialization)
+                        && existing.getDescription().equals(details)) {
+                    return existing;
+                }
+                throw new RemoteException(doctorId < nextId
+                        ? "Error: Doctor ID " + doctorId + " is already taken on this node; its roster is out of step"
+                        : "Error: This node's next doctor ID is " + nextId + ", not " + doctorId
+                                + "; its roster is out of step");
+            }
+            doctor = new Doctor(nextId, doctorName, doctorSpecialization, details);
+            if (doctorDirectory.idOf(doctor.getDisplayName()) >= 0) {
+                throw new RemoteException("Error: " + doctor.getDisplayName() + " is already on the roster");
+            }
+            writeRoster(BookingJournal.doctorAddedRecord(doctor));
+            restoreDoctor(doctor);
+        }
+        events.publish(doctor.getId());
+        LOG.info("doctor.added", "doctorId", doctor.getId(), "specialization", doctorSpecialization);
+        return doctor;
+    }
+
+    @Override
+    public boolean removeDoctor(int doctorId) throws RemoteException {
+        synchronized (rosterLock) {
+            Doctor doctor = doctorDirectory.get(doctorId);
+            if (doctor == null) {
+                return false;
+            }
+            // Close the calendar before checking, so nothing can be booked, held or waitlisted after the checks pass
+            DoctorCalendar calendar = calendar(doctorId);
+            calendar.close();
+            String blocker = removalBlocker(doctor, calendar);
+            if (blocker != null) {
+                calendar.reopen();
+                throw new RemoteException(blocker);
+            }
+            try {
+                writeRoster(BookingJournal.doctorRemovedRecord(doctorId));
+            } catch (RemoteException e) {
+                calendar.reopen();
+                throw e;
+            }
+            restoreRemoval(doctorId);
+        }
+        events.publish(doctorId);
+        LOG.info("doctor.removed", "doctorId", doctorId);
+        return true;
+    }
+
+    /**
+     * Why a doctor whose calendar is closed cannot leave the roster yet
+     * @return error message, or null if nothing is booked, held or waiting for the doctor
+     */
+    private String removalBlocker(Doctor doctor, DoctorCalendar calendar) {
+        long now = Appointment.toEpochMinute(LocalDateTime.now());
+        long upcoming = doctorAppointments.appointmentsFor(doctor.getId()).stream()
+                .filter(appointment -> appointment.getEpochMinute() > now)
+                .count();
+        if (upcoming > 0) {
+            return "Error: " + doctor.getDisplayName() + " still has " + upcoming
+                    + " upcoming appointment(s); cancel or move them first";
+        }
+        if (waitlists.waitingCount(doctor.getId()) > 0) {
+            return "Error: " + doctor.getDisplayName() + " still has patients on the waitlist";
+        }
+        // Holds, and bookings claimed but not yet stored, only show in the calendar
+        if (calendar.hasClaimedSlots(firstBookableDay())) {
+            return "Error: " + doctor.getDisplayName() + " has slots being held or booked right now; try again shortly";
+        }
+        return null;
+    }
+
+    @Override
+    public void setShift(int doctorId, LocalTime start, LocalTime end) throws RemoteException {
+        int startSlot = start == null ? -1 : DoctorCalendar.boundaryOf(start);
+        int endSlot = end == null ? -1 : DoctorCalendar.boundaryOf(end);
+        if (startSlot < 0 || endSlot <= startSlot) {
+            throw new RemoteException("Error: A shift runs within " + DoctorCalendar.timeOf(0) + " to "
+                    + DoctorCalendar.timeOf(DoctorCalendar.SLOTS_PER_DAY) + " and starts and ends on a quarter hour");
+        }
+        synchronized (rosterLock) {
+            requireDoctor(doctorId);
+            writeRoster(BookingJournal.shiftSetRecord(doctorId, startSlot, endSlot));
+            calendar(doctorId).setShift(startSlot, endSlot);
+        }
+        events.publish(doctorId);
+        LOG.info("doctor.shift.set", "doctorId", doctorId, "start", start, "end", end);
+    }
+
+    @Override
+    public void setLeave(int doctorId, LocalDate from, LocalDate to) throws RemoteException {
+        if ((from == null) != (to == null)) {
+            throw new RemoteException("Error: Give both the first and the last day of leave, or neither");
+        }
+        if (from != null && to.isBefore(from)) {
+            throw new RemoteException("Error: Leave cannot end before it starts");
+        }
+        long fromDay = from == null ? 0 : from.toEpochDay();
+        long toDay = from == null ? -1 : to.toEpochDay();
+        synchronized (rosterLock) {
+            requireDoctor(doctorId);
+            writeRoster(BookingJournal.leaveSetRecord(doctorId, fromDay, toDay));
+            calendar(doctorId).setLeave(fromDay, toDay);
+        }
+        events.publish(doctorId);
+        LOG.info("doctor.leave.set", "doctorId", doctorId, "from", from, "to", to);
+    }
+
+    /**
+     * Checks booking parameters
+     * @return error message, or null if the booking is valid
+     */
+    private String validateBooking(int doctorId, String patientName) {
+        String error = validatePatientName(patientName);
+        if (error != null) {
+            return error;
+        }
+        if (!doctorDirectory.contains(doctorId)) {
+            return "Error: Doctor #" + doctorId + " is not available";
+        }
+        if (!owns(doctorId)) {
+            return "Error: Doctor #" + doctorId + " is booked through node " + partitioning.ownerOf(doctorId);
+        }
+        return null;
+    }
+
+    /**
+     * @return error message, or null if the name can be booked under
+     */
+    private static String validatePatientName(String patientName) {
+        if (patientName == null || patientName.trim().isEmpty()) {
+            return "Error: Patient name cannot be empty";
+        }
+        if (patientName.length() > MAX_PATIENT_NAME_LENGTH) {
+            return "Error: Patient name is too long";
+        }
+        return null;
+    }
+
+    /**
+     * Whether this node's partition owns a doctor
+     */
+    private boolean owns(int doctorId) {
+        return partitioning.ownerOf(doctorId) == partitionIndex;
+    }
+
+    /**
+     * Whether a doctor exists and is booked on this node
+     */
+    private boolean serves(int doctorId) {
+        return doctorDirectory.contains(doctorId) && owns(doctorId);
+    }
+
+    /**
+     * Clamps a requested page size so one call never returns more than a page
+     */
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, AppointmentPage.MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Checks that an appointment can still be cancelled or rescheduled
+     * @return error message, or null if it can
+     */
+    private static String validateChange(long appointmentId, Appointment appointment) {
+        if (appointment == null) {
+            return "Error: No appointment found with ID " + Appointment.formatId(appointmentId);
+        }
+        if (appointment.getEpochMinute() <= Appointment.toEpochMinute(LocalDateTime.now())) {
+            return "Error: Appointment " + appointment.getDisplayId() + " has already started";
+        }
+        return null;
+    }
+
+    /**
+     * Why a claim on a doctor's calendar failed: it is full, or it was closed because the doctor is leaving the roster
+     */
+    private String noFreeSlotsError(int doctorId) {
+        Doctor doctor = doctorDirectory.get(doctorId);
+        if (doctor == null || calendar(doctorId).isClosed()) {
+            return "Error: Doctor #" + doctorId + " is not available";
+        }
+        return "Error: " + doctor.getDisplayName() + " has no free slots in the next "
+                + DoctorCalendar.HORIZON_DAYS + " days";
+    }
+
+    /**
+     * Records an appointment in a claimed slot and makes it durable before confirming
+     */
+    private BookingResult confirmBooking(int doctorId, long slot, String patientName) {
+        Appointment appointment = new Appointment(idGenerator.nextId(), doctorId,
+                DoctorCalendar.toEpochMinute(slot), patientName);
+        doctorAppointments.add(appointment);
+        if (!journal(List.of(appointment))) {
+            return BookingResult.failed("Error: Appointment could not be saved, please try again");
+        }
+
+        events.publish(doctorId);
+
+        if (LOG.isEnabled(AsyncLogger.Level.INFO)) {
+            LOG.info("booking.confirmed", "appointmentId", appointment.getDisplayId(), "doctorId", doctorId);
+        }
+        return BookingResult.confirmed(appointment);
+    }
+
+    /**
+     * Clamps a search window to the booking horizon
+     * @return {first slot, end slot (exclusive)}, or null if nothing bookable is left in the window
+     */
+    private static long[] slotWindow(LocalDateTime from, LocalDateTime to) {
+        long firstSlot = firstBookableDay() * DoctorCalendar.SLOTS_PER_DAY;
+        long endSlot = firstSlot + (long) DoctorCalendar.HORIZON_DAYS * DoctorCalendar.SLOTS_PER_DAY;
+        if (from != null) {
+            firstSlot = Math.max(firstSlot, DoctorCalendar.firstSlotFrom(from));
+        }
+        if (to != null) {
+            endSlot = Math.min(endSlot, DoctorCalendar.firstSlotFrom(to));
+        }
+        return firstSlot < endSlot ? new long[]{firstSlot, endSlot} : null;
+    }
+
+    /**
+     * Finds the earliest free slot among some doctors, searching their calendars in parallel
+     * Each doctor's calendar is only scanned up to the best slot found so far, and a doctor
+     * is skipped once that is the first slot of the window.
+     * @return the slot in the upper and the doctor ID in the lower 32 bits, or NO_SLOT
+     */
+    private long searchEarliest(int[] doctorIds, long firstSlot, long endSlot) {
+        // Packed so that the minimum is the earliest slot, then the lowest doctor ID
+        AtomicLong best = new AtomicLong(NO_SLOT);
+        IntStream candidates = IntStream.of(doctorIds);
+        if (doctorIds.length >= PARALLEL_SEARCH_THRESHOLD) {
+            candidates = candidates.parallel();
+        }
+        candidates.forEach(doctorId -> {
+            if (!owns(doctorId) || !doctorDirectory.contains(doctorId)) {
+                return;
+            }
+            long bound = Math.min(endSlot, (best.get() >>> 32) + 1);
+            if (bound <= firstSlot) {
+                return;
+            }
+            long slot = calendar(doctorId).peekFreeSlot(firstSlot, bound);
+            if (slot >= 0) {
+                best.accumulateAndGet((slot << 32) | doctorId, Math::min);
+            }
+        });
+        return best.get();
+    }
+
+    /**
+     * Gives up a slot after its cancellation or reschedule is durable, or when its hold ends
+     * Bookable slots go to the doctor's waitlist if anyone is waiting, otherwise back to the calendar
+     */
+    private void releaseSlot(int doctorId, long slot) {
+        DoctorCalendar calendar = calendar(doctorId);
+        boolean bookable = Math.floorDiv(slot, DoctorCalendar.SLOTS_PER_DAY) >= firstBookableDay()
+                && !calendar.isBlocked(slot) && doctorDirectory.contains(doctorId);
+        if (!bookable || !waitlists.offer(doctorId, slot)) {
+            calendar.release(slot);
+        }
+    }
+
+    /**
+     * Writes new appointments to the journal; if that fails they are rolled back
+     * @return true if the appointments are durable (always true without a journal)
+     */
+    private boolean journal(List<Appointment> appointments) {
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            try {
+                journal.appendAll(appointments);
+            } catch (IOException e) {
+                LOG.error("journal.append.failed", e, "appointments", appointments.size());
+                for (Appointment appointment : appointments) {
+                    doctorAppointments.remove(appointment.getId());
+                    calendar(appointment.getDoctorId()).release(DoctorCalendar.fromEpochMinute(appointment.getEpochMinute()));
+                }
+                return false;
+            }
+        }
+        replicate(log -> log.appendBooked(appointments));
+        return true;
+    }
+
+    /**
+     * Writes a cancellation or reschedule to the journal
+     * @return true if it is durable (always true without a journal)
+     */
+    private boolean journalChange(JournalWrite write) {
+        BookingJournal journal = this.journal;
+        if (journal == null) {
+            return true;
+        }
+        try {
+            write.writeTo(journal);
+            return true;
+        } catch (IOException e) {
+            LOG.error("journal.append.failed", e, "appointments", 1);
+            return false;
+        }
+    }
+
+    /**
+     * Passes a durable mutation on to the replicas, if any
+     * Callers do this before freeing a slot, so a rebooking of the slot always comes later in the stream
+     */
+    private void replicate(Consumer<ReplicationLog> append) {
+        ReplicationLog log = replicationLog;
+        if (log != null) {
+            append.accept(log);
+        }
+    }
+
+    /**
+     * Re-applies a journaled or replicated booking; replaying a booking twice has no effect
+     * @return the appointment's doctor, or -1 if nothing changed
+     */
+    private int restoreAppointment(Appointment appointment) {
+        idGenerator.advancePast(appointment.getId());
+        // A doctor removed since still has a calendar, so a booking that raced the removal is kept
+        DoctorCalendar calendar = calendarOrNull(appointment.getDoctorId());
+        if (calendar == null || doctorAppointments.findById(appointment.getId()) != null) {
+            return -1;
+        }
+        doctorAppointments.add(appointment);
+
+        // Booked before any later change of shift or leave, so it keeps its slot regardless
+        long slot = DoctorCalendar.fromEpochMinute(appointment.getEpochMinute());
+        if (inCalendar(slot)) {
+            calendar.occupy(slot);
+        }
+        return appointment.getDoctorId();
+    }
+
+    /**
+     * Re-applies a journaled or replicated cancellation
+     * @return the appointment's doctor, or -1 if nothing changed
+     */
+    private int restoreCancellation(long appointmentId) {
+        Appointment appointment = doctorAppointments.remove(appointmentId);
+        if (appointment == null) {
+            return -1;
+        }
+        long slot = DoctorCalendar.fromEpochMinute(appointment.getEpochMinute());
+        if (inCalendar(slot)) {
+            calendar(appointment.getDoctorId()).release(slot);
+        }
+        return appointment.getDoctorId();
+    }
+
+    /**
+     * Re-applies a journaled or replicated reschedule
+     * @return the appointment's doctor, or -1 if nothing changed
+     */
+    private int restoreReschedule(long appointmentId, long epochMinute) {
+        Appointment appointment = doctorAppointments.findById(appointmentId);
+        if (appointment == null || appointment.getEpochMinute() == epochMinute) {
+            return -1;
+        }
+        doctorAppointments.replace(appointment, new Appointment(appointmentId, appointment.getDoctorId(),
+                epochMinute, appointment.getPatientName()));
+
+        DoctorCalendar calendar = calendar(appointment.getDoctorId());
+        long oldSlot = DoctorCalendar.fromEpochMinute(appointment.getEpochMinute());
+        long newSlot = DoctorCalendar.fromEpochMinute(epochMinute);
+        if (inCalendar(oldSlot)) {
+            calendar.release(oldSlot);
+        }
+        if (inCalendar(newSlot)) {
+            calendar.occupy(newSlot);
+        }
+        return appointment.getDoctorId();
+    }
+
+    /**
+     * Past days are outside the booking calendar
+     */
+    private static boolean inCalendar(long slot) {
+        return Math.floorDiv(slot, DoctorCalendar.SLOTS_PER_DAY) >= LocalDate.now().toEpochDay();
+    }
+
+    /**
+     * Current status of a doctor as pushed to subscribers, or null if the ID was never assigned
+     * or another partition owns the doctor
+     */
+    private DoctorStatusEvent doctorStatus(int doctorId) {
+        DoctorCalendar calendar = calendarOrNull(doctorId);
+        if (calendar == null || !owns(doctorId)) {
+            return null;
+        }
+        boolean available = doctorDirectory.contains(doctorId) && !calendar.isOnLeave(LocalDate.now().toEpochDay());
+        long slot = doctorDirectory.contains(doctorId) ? calendar.peekFreeSlot(firstBookableDay()) : -1;
+        return new DoctorStatusEvent(doctorId, available, slot < 0 ? -1 : DoctorCalendar.toEpochMinute(slot),
+                doctorAppointments.count(doctorId));
+    }
+
+    /**
+     * Calendar of a doctor ID the caller knows is assigned, e.g. because the doctor is in the directory
+     */
+    private DoctorCalendar calendar(int doctorId) {
+        return roster.calendars()[doctorId];
+    }
+
+    /**
+     * @return the calendar, or null if the ID was never assigned
+     */
+    private DoctorCalendar calendarOrNull(int doctorId) {
+        DoctorCalendar[] calendars = roster.calendars();
+        return doctorId >= 0 && doctorId < calendars.length ? calendars[doctorId] : null;
+    }
+
+    /**
+     * Adds a doctor to the directory and the roster; no-op if the ID is already assigned
+     * The calendar is published before the directory entry, so anyone who finds the doctor finds its calendar.
+     * @return true if the doctor was added
+     */
+    private boolean restoreDoctor(Doctor doctor) {
+        synchronized (rosterLock) {
+            growCalendars(doctor.getId() + 1);
+            if (!doctorDirectory.add(doctor)) {
+                return false;
+            }
+            publishRoster();
+            return true;
+        }
+    }
+
+    /**
+     * Takes a doctor off the directory and the roster; the calendar stays for the doctor's past bookings
+     * @return true if the doctor was removed
+     */
+    private boolean restoreRemoval(int doctorId) {
+        synchronized (rosterLock) {
+            if (!doctorDirectory.remove(doctorId)) {
+                return false;
+            }
+            calendar(doctorId).close();
+            publishRoster();
+            return true;
+        }
+    }
 
-        // Add some randomness to appointment times
-        Random random = new Random();
-        nextSlot = nextSlot.plusHours(random.nextInt(8)); // 9 AM to 5 PM
-        nextSlot = nextSlot.plusMinutes(random.nextInt(4) * 15); // 15-minute intervals
+    /**
+     * Publishes the doctors this node lists, with a calendar for every assigned doctor ID
+     */
+    private void publishRoster() {
+        synchronized (rosterLock) {
+            growCalendars(doctorDirectory.size());
+            Doctor[] doctors = doctorDirectory.all();
+            if (partitioning.getNodeCount() > 1) {
+                doctors = Arrays.stream(doctors).filter(doctor -> owns(doctor.getId())).toArray(Doctor[]::new);
+            }
+            roster = new Roster(doctors, roster.calendars());
+        }
+    }
 
-        return nextSlot.format(timeFormatter);
+    /**
+     * Publishes a calendar and ledger for every doctor ID below size; caller holds the roster lock
+     */
+    private void growCalendars(int size) {
+        DoctorCalendar[] calendars = roster.calendars();
+        if (calendars.length >= size) {
+            return;
+        }
+        DoctorCalendar[] grown = Arrays.copyOf(calendars, size);
+        for (int id = calendars.length; id < size; id++) {
+            doctorAppointments.registerDoctor(id);
+            grown[id] = new DoctorCalendar();
+        }
+        roster = new Roster(roster.doctors(), grown);
     }
 
     /**
-     * Generates a unique appointment ID
+     * Makes a roster change durable and passes it on to the replicas, before it takes effect
      */
-    private String generateAppointmentId() {
-        return "MCH" + System.currentTimeMillis() % 100000;
+    private void writeRoster(byte[] record) throws RemoteException {
+        BookingJournal journal = this.journal;
+        if (journal != null) {
+            try {
+                journal.appendRoster(record);
+            } catch (IOException e) {
+                LOG.error("journal.roster.failed", e);
+                throw new RemoteException("Error: The roster change could not be saved, please try again", e);
+            }
+        }
+        replicate(log -> log.appendRoster(record));
     }
 
     /**
-     * Gets appointment statistics (bonus method for demonstration)
+     * Records that rebuild the roster from the default directory: every doctor ever added,
+     * the removals, and every shift and leave that is not the default
+     * A roster change is journaled and replicated before it is applied, both under the roster
+     * lock, so the snapshots read the roster under that lock too: one taken between the write
+     * and the apply would miss a change whose record it supersedes.
      */
-    public void printAppointmentStats() {
-        System.out.println("\n=== APPOINTMENT STATISTICS ===");
-        for (String doctor : availableDoctors) {
-            List<String> appointments = doctorAppointments.get(doctor);
-            System.out.println(doctor + ": " + appointments.size() + " appointments");
+    private List<byte[]> rosterRecords() {
+        synchronized (rosterLock) {
+            List<byte[]> records = new ArrayList<>();
+            for (Doctor doctor : doctorDirectory.assigned()) {
+                if (doctor == null) {
+                    continue;
+                }
+                int doctorId = doctor.getId();
+                records.add(BookingJournal.doctorAddedRecord(doctor));
+                if (!doctorDirectory.contains(doctorId)) {
+                    records.add(BookingJournal.doctorRemovedRecord(doctorId));
+                }
+                DoctorCalendar calendar = calendar(doctorId);
+                if (!calendar.isFullTime()) {
+                    records.add(BookingJournal.shiftSetRecord(doctorId, calendar.getShiftStart(),
+                            calendar.getShiftEnd()));
+                }
+                if (calendar.getLeaveFrom() <= calendar.getLeaveTo()) {
+                    records.add(BookingJournal.leaveSetRecord(doctorId, calendar.getLeaveFrom(),
+                            calendar.getLeaveTo()));
+                }
+            }
+            return records;
         }
-        System.out.println("===============================\n");
     }
-}
\ No newline at end of file
+
+    private void requireDoctor(int doctorId) throws RemoteException {
+        if (!doctorDirectory.contains(doctorId)) {
+            throw new RemoteException("Error: Doctor #" + doctorId + " is not on the roster");
+        }
+    }
+
+    /**
+     * @return the trimmed value
+     */
+    private static String requireRosterField(String field, String value) throws RemoteException {
+        if (value == null || value.trim().isEmpty()) {
+            throw new RemoteException("Error: " + field + " cannot be empty");
+        }
+        if (value.trim().length() > MAX_ROSTER_FIELD_LENGTH) {
+            throw new RemoteException("Error: " + field + " is too long");
+        }
+        return value.trim();
+    }
+
+    /**
+     * Appointments are booked from tomorrow onwards
+     */
+    private static long firstBookableDay() {
+        return LocalDate.now().toEpochDay() + 1;
+    }
+
+    /**
+     * Number of appointments currently booked across all doctors
+     */
+    public long getTotalAppointments() {
+        return doctorAppointments.totalCount();
+    }
+
+    /**
+     * The store behind this service, for checks from within the package
+     */
+    AppointmentStore appointmentStore() {
+        return doctorAppointments;
+    }
+
+    /**
+     * Applies journaled or replicated mutations, remembering which doctors they changed
+     */
+    private final class Restorer implements BookingJournal.Replayer {
+        private final BitSet changedDoctors = new BitSet();
+
+        @Override
+        public void booked(Appointment appointment) {
+            changed(restoreAppointment(appointment));
+        }
+
+        @Override
+        public void cancelled(long appointmentId) {
+            changed(restoreCancellation(appointmentId));
+        }
+
+        @Override
+        public void rescheduled(long appointmentId, long epochMinute) {
+            changed(restoreReschedule(appointmentId, epochMinute));
+        }
+
+        @Override
+        public void doctorAdded(Doctor doctor) {
+            if (restoreDoctor(doctor)) {
+                changed(doctor.getId());
+            }
+        }
+
+        @Override
+        public void doctorRemoved(int doctorId) {
+            if (restoreRemoval(doctorId)) {
+                changed(doctorId);
+            }
+        }
+
+        @Override
+        public void shiftSet(int doctorId, int startSlot, int endSlot) {
+            DoctorCalendar calendar = calendarOrNull(doctorId);
+            if (calendar != null) {
+                calendar.setShift(startSlot, endSlot);
+                changed(doctorId);
+            }
+        }
+
+        @Override
+        public void leaveSet(int doctorId, long fromEpochDay, long toEpochDay) {
+            DoctorCalendar calendar = calendarOrNull(doctorId);
+            if (calendar != null) {
+                calendar.setLeave(fromEpochDay, toEpochDay);
+                changed(doctorId);
+            }
+        }
+
+        private void changed(int doctorId) {
+            if (doctorId >= 0) {
+                changedDoctors.set(doctorId);
+            }
+        }
+    }
+
+    /**
+     * Books waitlisted patients through the same store, journal and events as bookAppointment
+     */
+    private final class WaitlistBooker implements WaitlistEngine.SlotBooker {
+
+        @Override
+        public long claimNextSlot(int doctorId) {
+            return serves(doctorId) ? calendar(doctorId).claimNextSlot(firstBookableDay()) : -1;
+        }
+
+        @Override
+        public void release(int doctorId, long slot) {
+            calendar(doctorId).release(slot);
+        }
+
+        @Override
+        public long nextId() {
+            return idGenerator.nextId();
+        }
+
+        @Override
+        public boolean book(List<Appointment> appointments) {
+            BitSet doctors = new BitSet();
+            for (Appointment appointment : appointments) {
+                doctorAppointments.add(appointment);
+                doctors.set(appointment.getDoctorId());
+            }
+            if (!journal(appointments)) {
+                return false;
+            }
+            doctors.stream().forEach(events::publish);
+            return true;
+        }
+    }
+
+    /**
+     * The doctors this node lists and a calendar per assigned doctor ID, published together
+     * @param doctors Doctors this node's partition owns, in ID order; handed out as is, never modified
+     * @param calendars Calendar per doctor ID, kept after a doctor is removed so past bookings can still change
+     */
+    private record Roster(Doctor[] doctors, DoctorCalendar[] calendars) {
+    }
+
+    /**
+     * One journal write for {@link #journalChange}
+     */
+    @FunctionalInterface
+    private interface JournalWrite {
+        void writeTo(BookingJournal journal) throws IOException;
+    }
+}
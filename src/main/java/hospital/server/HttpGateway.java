@@ -0,0 +1,633 @@
+package hospital.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingRequest;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.ReplicaRefusedException;
+import hospital.interfaces.ServiceBusyException;
+import hospital.interfaces.SlotHold;
+import hospital.interfaces.WaitlistStatus;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.rmi.RemoteException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * JSON over HTTP front-end for the hospital service, next to the RMI export
+ *
+ * Serves the same HospitalService object that is exported over RMI, so calls
+ * pass the same metrics, admission control and replica checks; each request
+ * is rate limited as its client's host. Requests run on virtual threads of
+ * the JDK's built-in HTTP server, which keeps connections alive between
+ * requests. Responses are streamed (chunked) as they are written.
+ *
+ * Appointment IDs and page cursors are sent as strings, since they do not fit
+ * in a JavaScript number; times are ISO-8601 local date-times.
+ *
+ * <pre>
+ * GET    /api/doctors                          all doctors
+ * GET    /api/doctors?name=...                 {"doctorId": n}
+ * GET    /api/doctors/{id}/availability        {"doctorId": n, "available": b}
+ * GET    /api/doctors/{id}/next-slot           {"doctorId": n, "nextSlot": t}
+ * GET    /api/doctors/{id}/schedule?from=&amp;to=&amp;cursor=&amp;limit=
+ * GET    /api/directory[?since=v]              version, or the changes since v
+ * GET    /api/specializations/{s}/earliest-slot?from=&amp;to=   {"specialization": s, "earliestSlot": t}
+ * POST   /api/appointments                     {"doctorId": n, "patientName": s}
+ * POST   /api/appointments/batch               [{"doctorId": n, "patientName": s}, ...]
+ * POST   /api/appointments/earliest            {"specialization": s, "patientName": s, "from": t, "to": t}
+ * GET    /api/appointments?patient=...|day=yyyy-MM-dd[&amp;cursor=&amp;limit=]
+ * GET    /api/appointments/{id}
+ * DELETE /api/appointments/{id}
+ * POST   /api/appointments/{id}/reschedule     {"time": t}
+ * POST   /api/holds                            {"doctorId": n, "seconds": n}
+ * POST   /api/holds/{id}/confirm               {"patientName": s}
+ * DELETE /api/holds/{id}                       {"released": b}
+ * POST   /api/waitlist                         {"doctorId": n, "patientName": s, "urgency": 0-9}
+ * GET    /api/waitlist/{ticket}
+ * DELETE /api/waitlist/{ticket}                {"left": b}
+ * </pre>
+ *
+ * Enabled with -Dhospital.http.port (partition i listens on port + i; default
+ * -1, disabled) and tuned with -Dhospital.http.backlog (default 0, the
+ * system default) and -Dhospital.http.maxBodyBytes (default 1 MiB).
+ */
+public class HttpGateway {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    private static final String API = "/api/";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final HospitalService service;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxBodyBytes;
+
+    /**
+     * @param service Service to serve, normally the same object that is exported over RMI
+     * @param address Address to listen on
+     * @param backlog Pending connection queue length, or 0 for the system default
+     * @param maxBodyBytes Largest request body accepted
+     */
+    public HttpGateway(HospitalService service, InetSocketAddress address, int backlog, int maxBodyBytes)
+            throws IOException {
+        this.service = service;
+        this.maxBodyBytes = maxBodyBytes;
+        server = HttpServer.create(address, backlog);
+        server.createContext(API, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Reads the settings from system properties
+     * @param portOffset Added to the configured port, e.g. the partition index
+     * @return the gateway, or null if it is disabled
+     */
+    public static HttpGateway fromSystemProperties(HospitalService service, int portOffset) throws IOException {
+        int port = Integer.getInteger("hospital.http.port", -1);
+        if (port < 0) {
+            return null;
+        }
+        return new HttpGateway(service, new InetSocketAddress(port + portOffset),
+                Integer.getInteger("hospital.http.backlog", 0),
+                Integer.getInteger("hospital.http.maxBodyBytes", 1 << 20));
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("http.started", "port", getPort());
+    }
+
+    /**
+     * Stops accepting requests, waiting up to delaySeconds for running ones
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) {
+        try (exchange) {
+            try {
+                String host = exchange.getRemoteAddress().getAddress().getHostAddress();
+                AdmissionController.callAs(host, () -> {
+                    route(exchange);
+                    return null;
+                });
+            } catch (HttpError e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (ServiceBusyException e) {
+                exchange.getResponseHeaders().set("Retry-After",
+                        Long.toString(Math.max(1, (e.getRetryAfterMillis() + 999) / 1000)));
+                sendError(exchange, 429, e.getMessage());
+            } catch (ReplicaRefusedException e) {
+                sendError(exchange, 503, e.getMessage());
+            } catch (RemoteException | RuntimeException e) {
+                LOG.error("http.request.failed", e, "path", exchange.getRequestURI().getPath());
+                sendError(exchange, 500, "Internal server error");
+            }
+        } catch (Exception e) {
+            // The response could not be written, usually because the client went away
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("http.response.failed", "error", e.toString());
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, HttpError {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring(API.length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        switch (path[0]) {
+            case "doctors" -> {
+                if (path.length == 1) {
+                    requireMethod(method, "GET");
+                    listDoctors(exchange, query.get("name"));
+                    return;
+                }
+                int doctorId = parseInt(path[1], "doctor ID");
+                String action = path.length == 3 ? path[2] : "";
+                requireMethod(method, "GET");
+                switch (action) {
+                    case "availability" -> {
+                        boolean available = service.isDoctorAvailable(doctorId);
+                        send(exchange, 200, json -> json.beginObject()
+                                .field("doctorId", doctorId).field("available", available).endObject());
+                    }
+                    case "next-slot" -> {
+                        LocalDateTime slot = service.getNextAvailableSlot(doctorId);
+                        send(exchange, 200, json -> json.beginObject()
+                                .field("doctorId", doctorId).field("nextSlot", slot == null ? null : slot.toString())
+                                .endObject());
+                    }
+                    case "schedule" -> sendPage(exchange, service.getDoctorSchedule(doctorId,
+                            parseTime(query.get("from")), parseTime(query.get("to")),
+                            parseCursor(query.get("cursor")), parseLimit(query.get("limit"))));
+                    default -> throw new HttpError(404, "Not found");
+                }
+            }
+            case "directory" -> {
+                requireMethod(method, "GET");
+                if (path.length > 1) {
+                    throw new HttpError(404, "Not found");
+                }
+                String since = query.get("since");
+                if (since == null) {
+                    long version = service.getDirectoryVersion();
+                    send(exchange, 200, json -> json.beginObject().field("version", version).endObject());
+                } else {
+                    DoctorDirectoryDelta delta = service.getDoctorDirectoryDelta(parseLong(since, "since"));
+                    send(exchange, 200, json -> writeDelta(json, delta));
+                }
+            }
+            case "specializations" -> {
+                requireMethod(method, "GET");
+                if (path.length != 3 || !path[2].equals("earliest-slot")) {
+                    throw new HttpError(404, "Not found");
+                }
+                String specialization = path[1];
+                LocalDateTime slot = service.getEarliestSlot(specialization,
+                        parseTime(query.get("from")), parseTime(query.get("to")));
+                send(exchange, 200, json -> json.beginObject()
+                        .field("specialization", specialization)
+                        .field("earliestSlot", slot == null ? null : slot.toString())
+                        .endObject());
+            }
+            case "appointments" -> routeAppointments(exchange, method, path, query);
+            case "holds" -> routeHolds(exchange, method, path);
+            case "waitlist" -> routeWaitlist(exchange, method, path);
+            default -> throw new HttpError(404, "Not found");
+        }
+    }
+
+    private void routeAppointments(HttpExchange exchange, String method, String[] path, Map<String, String> query)
+            throws IOException, HttpError {
+        if (path.length == 1) {
+            if (method.equals("POST")) {
+                Map<String, Object> body = asObject(readBody(exchange));
+                BookingResult result = service.bookAppointment(
+                        requireInt(body, "doctorId"), requireString(body, "patientName"));
+                sendResult(exchange, result, 201);
+                return;
+            }
+            requireMethod(method, "GET");
+            long cursor = parseCursor(query.get("cursor"));
+            int limit = parseLimit(query.get("limit"));
+            if (query.containsKey("patient")) {
+                sendPage(exchange, service.findAppointmentsByPatient(query.get("patient"), cursor, limit));
+            } else if (query.containsKey("day")) {
+                sendPage(exchange, service.getAppointmentsOn(parseDay(query.get("day")), cursor, limit));
+            } else {
+                throw new HttpError(400, "Give either patient or day");
+            }
+            return;
+        }
+
+        if (path.length == 2 && path[1].equals("batch")) {
+            requireMethod(method, "POST");
+            if (!(readBody(exchange) instanceof List<?> items)) {
+                throw new HttpError(400, "Expected a JSON array of bookings");
+            }
+            List<BookingRequest> requests = new ArrayList<>(items.size());
+            for (Object item : items) {
+                Map<String, Object> booking = asObject(item);
+                requests.add(new BookingRequest(requireInt(booking, "doctorId"),
+                        requireString(booking, "patientName")));
+            }
+            List<BookingResult> results = service.bookAppointments(requests);
+            send(exchange, 200, json -> {
+                json.beginObject().name("results").beginArray();
+                for (BookingResult result : results) {
+                    writeResult(json, result);
+                }
+                json.endArray().endObject();
+            });
+            return;
+        }
+
+        if (path.length == 2 && path[1].equals("earliest")) {
+            requireMethod(method, "POST");
+            Map<String, Object> body = asObject(readBody(exchange));
+            BookingResult result = service.findEarliestSlot(requireString(body, "specialization"),
+                    parseTime(optionalString(body, "from")), parseTime(optionalString(body, "to")),
+                    requireString(body, "patientName"));
+            sendResult(exchange, result, 201);
+            return;
+        }
+
+        long appointmentId = Appointment.parseId(path[1]);
+        if (appointmentId < 0) {
+            throw new HttpError(400, "Invalid appointment ID: " + path[1]);
+        }
+        if (path.length == 3 && path[2].equals("reschedule")) {
+            requireMethod(method, "POST");
+            Map<String, Object> body = asObject(readBody(exchange));
+            LocalDateTime time = parseTime(requireString(body, "time"));
+            sendResult(exchange, service.rescheduleAppointment(appointmentId, time), 200);
+        } else if (path.length == 2 && method.equals("DELETE")) {
+            sendResult(exchange, service.cancelAppointment(appointmentId), 200);
+        } else if (path.length == 2) {
+            requireMethod(method, "GET");
+            Appointment appointment = service.findAppointment(appointmentId);
+            if (appointment == null) {
+                throw new HttpError(404, "No appointment found with ID " + Appointment.formatId(appointmentId));
+            }
+            send(exchange, 200, json -> writeAppointment(json, appointment));
+        } else {
+            throw new HttpError(404, "Not found");
+        }
+    }
+
+    private void routeHolds(HttpExchange exchange, String method, String[] path) throws IOException, HttpError {
+        if (path.length == 1) {
+            requireMethod(method, "POST");
+            Map<String, Object> body = asObject(readBody(exchange));
+            SlotHold hold = service.holdSlot(requireInt(body, "doctorId"), requireInt(body, "seconds"));
+            send(exchange, hold.isHeld() ? 201 : 409, json -> {
+                json.beginObject().field("held", hold.isHeld());
+                if (hold.isHeld()) {
+                    json.field("holdId", Appointment.formatId(hold.getHoldId()))
+                            .field("doctorId", hold.getDoctorId())
+                            .field("time", hold.getTime().toString())
+                            .field("expiresAt", Instant.ofEpochMilli(hold.getExpiresAtMillis()).toString());
+                } else {
+                    json.field("message", hold.getMessage());
+                }
+                json.endObject();
+            });
+            return;
+        }
+        long holdId = Appointment.parseId(path[1]);
+        if (holdId < 0) {
+            throw new HttpError(400, "Invalid hold ID: " + path[1]);
+        }
+        if (path.length == 3 && path[2].equals("confirm")) {
+            requireMethod(method, "POST");
+            Map<String, Object> body = asObject(readBody(exchange));
+            sendResult(exchange, service.confirmHold(holdId, requireString(body, "patientName")), 201);
+        } else if (path.length == 2) {
+            requireMethod(method, "DELETE");
+            boolean released = service.releaseHold(holdId);
+            send(exchange, 200, json -> json.beginObject().field("released", released).endObject());
+        } else {
+            throw new HttpError(404, "Not found");
+        }
+    }
+
+    private void routeWaitlist(HttpExchange exchange, String method, String[] path) throws IOException, HttpError {
+        if (path.length == 1) {
+            requireMethod(method, "POST");
+            Map<String, Object> body = asObject(readBody(exchange));
+            WaitlistStatus status = service.joinWaitlist(requireInt(body, "doctorId"),
+                    requireString(body, "patientName"), requireInt(body, "urgency"));
+            send(exchange, status.getState() == WaitlistStatus.State.REJECTED ? 409 : 201,
+                    json -> writeWaitlistStatus(json, status));
+            return;
+        }
+        if (path.length != 2) {
+            throw new HttpError(404, "Not found");
+        }
+        long ticketId = Appointment.parseId(path[1]);
+        if (ticketId < 0) {
+            throw new HttpError(400, "Invalid waitlist ticket: " + path[1]);
+        }
+        if (method.equals("DELETE")) {
+            boolean left = service.leaveWaitlist(ticketId);
+            send(exchange, 200, json -> json.beginObject().field("left", left).endObject());
+            return;
+        }
+        requireMethod(method, "GET");
+        WaitlistStatus status = service.getWaitlistStatus(ticketId);
+        if (status == null) {
+            throw new HttpError(404, "No waitlist ticket found with ID " + Appointment.formatId(ticketId));
+        }
+        send(exchange, 200, json -> writeWaitlistStatus(json, status));
+    }
+
+    private void listDoctors(HttpExchange exchange, String name) throws IOException, HttpError {
+        if (name != null) {
+            int doctorId = service.findDoctorId(name);
+            if (doctorId < 0) {
+                throw new HttpError(404, "No doctor named " + name);
+            }
+            send(exchange, 200, json -> json.beginObject().field("doctorId", doctorId).endObject());
+            return;
+        }
+        Doctor[] doctors = service.getAvailableDoctors();
+        send(exchange, 200, json -> {
+            json.beginArray();
+            for (Doctor doctor : doctors) {
+                writeDoctor(json, doctor);
+            }
+            json.endArray();
+        });
+    }
+
+    private void sendResult(HttpExchange exchange, BookingResult result, int confirmedStatus) throws IOException {
+        send(exchange, result.isConfirmed() ? confirmedStatus : 409, json -> writeResult(json, result));
+    }
+
+    private void sendPage(HttpExchange exchange, AppointmentPage page) throws IOException {
+        send(exchange, 200, json -> {
+            json.beginObject().name("appointments").beginArray();
+            for (Appointment appointment : page.getAppointments()) {
+                writeAppointment(json, appointment);
+            }
+            json.endArray()
+                    .field("nextCursor", page.hasMore() ? Long.toString(page.getNextCursor()) : null)
+                    .endObject();
+        });
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, json -> json.beginObject().field("error", message).endObject());
+    }
+
+    /**
+     * Streams a JSON response body with chunked transfer encoding
+     */
+    private static void send(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        JsonWriter json = new JsonWriter(writer);
+        body.writeTo(json);
+        json.flush();
+        writer.close();
+    }
+
+    private static void writeResult(JsonWriter json, BookingResult result) throws IOException {
+        json.beginObject().field("confirmed", result.isConfirmed());
+        if (result.isConfirmed()) {
+            json.name("appointment");
+            writeAppointment(json, result.getAppointment());
+        } else {
+            json.field("message", result.getMessage());
+        }
+        json.endObject();
+    }
+
+    private static void writeAppointment(JsonWriter json, Appointment appointment) throws IOException {
+        json.beginObject()
+                .field("id", appointment.getDisplayId())
+                .field("doctorId", appointment.getDoctorId())
+                .field("patientName", appointment.getPatientName())
+                .field("time", appointment.getTime().toString())
+                .endObject();
+    }
+
+    private static void writeWaitlistStatus(JsonWriter json, WaitlistStatus status) throws IOException {
+        json.beginObject().field("state", status.getState().name());
+        if (status.getState() == WaitlistStatus.State.REJECTED) {
+            json.field("message", status.getMessage());
+        } else {
+            json.field("ticket", Appointment.formatId(status.getTicketId()))
+                    .field("doctorId", status.getDoctorId())
+                    .field("urgency", status.getUrgency());
+            if (status.getAppointment() != null) {
+                json.name("appointment");
+                writeAppointment(json, status.getAppointment());
+            }
+        }
+        json.endObject();
+    }
+
+    private static void writeDoctor(JsonWriter json, Doctor doctor) throws IOException {
+        json.beginObject()
+                .field("id", doctor.getId())
+                .field("name", doctor.getName())
+                .field("specialization", doctor.getSpecialization())
+                .field("description", doctor.getDescription())
+                .endObject();
+    }
+
+    private static void writeDelta(JsonWriter json, DoctorDirectoryDelta delta) throws IOException {
+        json.beginObject()
+                .field("version", delta.getVersion())
+                .field("fullReload", delta.isFullReload())
+                .name("added").beginArray();
+        for (Doctor doctor : delta.getAdded()) {
+            writeDoctor(json, doctor);
+        }
+        json.endArray().name("removedIds").beginArray();
+        for (int id : delta.getRemovedIds()) {
+            json.value(id);
+        }
+        json.endArray().endObject();
+    }
+
+    /**
+     * Reads and parses the request body, refusing bodies over maxBodyBytes
+     */
+    private Object readBody(HttpExchange exchange) throws IOException, HttpError {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                throw new HttpError(413, "Request body is larger than " + maxBodyBytes + " bytes");
+            }
+            return JsonReader.parse(new String(body, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    private static void requireMethod(String method, String expected) throws HttpError {
+        if (!method.equals(expected)) {
+            throw new HttpError(405, "Use " + expected);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) throws HttpError {
+        if (!(value instanceof Map)) {
+            throw new HttpError(400, "Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static long requireLong(Map<String, Object> object, String field) throws HttpError {
+        if (!(object.get(field) instanceof Long value)) {
+            throw new HttpError(400, field + " must be a whole number");
+        }
+        return value;
+    }
+
+    private static int requireInt(Map<String, Object> object, String field) throws HttpError {
+        long value = requireLong(object, field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new HttpError(400, field + " is out of range");
+        }
+        return (int) value;
+    }
+
+    private static String requireString(Map<String, Object> object, String field) throws HttpError {
+        if (!(object.get(field) instanceof String value)) {
+            throw new HttpError(400, field + " must be a string");
+        }
+        return value;
+    }
+
+    private static String optionalString(Map<String, Object> object, String field) throws HttpError {
+        Object value = object.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new HttpError(400, field + " must be a string");
+        }
+        return (String) value;
+    }
+
+    /**
+     * Decodes a raw query string, refusing malformed percent escapes
+     */
+    static Map<String, String> parseQuery(String rawQuery) throws HttpError {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(decode(key), decode(value));
+        }
+        return query;
+    }
+
+    private static String decode(String encoded) throws HttpError {
+        try {
+            return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Invalid query encoding: " + encoded);
+        }
+    }
+
+    private static int parseInt(String value, String what) throws HttpError {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Invalid " + what + ": " + value);
+        }
+    }
+
+    private static long parseLong(String value, String what) throws HttpError {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Invalid " + what + ": " + value);
+        }
+    }
+
+    private static long parseCursor(String value) throws HttpError {
+        return value == null || value.isEmpty() ? AppointmentPage.FIRST_PAGE : parseLong(value, "cursor");
+    }
+
+    private static int parseLimit(String value) throws HttpError {
+        return value == null || value.isEmpty() ? DEFAULT_PAGE_SIZE : parseInt(value, "limit");
+    }
+
+    private static LocalDateTime parseTime(String value) throws HttpError {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "Invalid time, expected e.g. 2025-03-01T09:30: " + value);
+        }
+    }
+
+    private static LocalDate parseDay(String value) throws HttpError {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "Invalid day, expected e.g. 2025-03-01: " + value);
+        }
+    }
+
+    /**
+     * Writes a response body
+     */
+    @FunctionalInterface
+    private interface JsonBody {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * A request that is answered with an error status
+     */
+    static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
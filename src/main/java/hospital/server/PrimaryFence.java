@@ -0,0 +1,150 @@
+package hospital.server;
+
+import hospital.interfaces.ReplicaRefusedException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Generation of a primary, and the fence that retires it once a replica takes over
+ *
+ * Every promotion starts a new generation, one above that of the primary the
+ * replica followed. The promoted replica then tells the old primary about it
+ * (see {@link hospital.interfaces.ReplicationSource#fence}); a node that learns
+ * of a newer generation than its own refuses every write from then on, with a
+ * {@link ReplicaRefusedException} that sends clients on to the next server.
+ * Put {@link #protect} in front of the service. Together with the rule that a
+ * replica must run under its own node ID, this keeps a primary that comes back
+ * after a failover from taking bookings next to its successor.
+ *
+ * Both numbers are kept in a small file in the data directory, so a fenced
+ * primary stays fenced across restarts; to bring it back, empty its data
+ * directory and start it as a replica of the new primary.
+ */
+public class PrimaryFence {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    private static final String FILE_NAME = "generation.properties";
+
+    private final Path file;
+    private volatile long generation;
+    private volatile long fencedBy;
+
+    /**
+     * @param file File to keep the generation in, or null to keep it in memory only
+     */
+    public PrimaryFence(Path file) throws IOException {
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            generation = Long.parseLong(properties.getProperty("generation", "0"));
+            fencedBy = Long.parseLong(properties.getProperty("fencedBy", "0"));
+        }
+    }
+
+    /**
+     * Fence kept in a data directory
+     */
+    public static PrimaryFence open(Path dataDir) throws IOException {
+        return new PrimaryFence(dataDir.resolve(FILE_NAME));
+    }
+
+    /**
+     * Generation this node takes writes in as a primary; 0 until it is first promoted
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Newer generation that replaced this node, or 0 if it has not been replaced
+     */
+    public long getFencedBy() {
+        return fencedBy;
+    }
+
+    public boolean isFenced() {
+        return fencedBy > generation;
+    }
+
+    /**
+     * Makes this node the primary of a new generation; saved before it takes any write
+     */
+    public synchronized void startGeneration(long newGeneration) throws IOException {
+        if (newGeneration <= generation || newGeneration <= fencedBy) {
+            throw new IllegalStateException("Generation " + newGeneration + " is not newer than "
+                    + Math.max(generation, fencedBy));
+        }
+        save(newGeneration, fencedBy);
+        generation = newGeneration;
+        LOG.info("fence.generation.started", "generation", newGeneration);
+    }
+
+    /**
+     * Retires this node if a newer generation has started elsewhere
+     * The fence holds in memory even if it cannot be saved.
+     * @return true if this node is fenced now
+     */
+    public synchronized boolean fence(long newerGeneration) {
+        if (newerGeneration > generation && newerGeneration > fencedBy) {
+            fencedBy = newerGeneration;
+            LOG.warn("fence.fenced", "generation", generation, "fencedBy", newerGeneration);
+            try {
+                save(generation, newerGeneration);
+            } catch (IOException e) {
+                LOG.error("fence.save.failed", e, "fencedBy", newerGeneration);
+            }
+        }
+        return isFenced();
+    }
+
+    /**
+     * Wraps a target so writes are refused once this node is fenced
+     */
+    public <T> T protect(Class<T> serviceInterface, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() != Object.class && isFenced()
+                    && ReplicaFollower.isWrite(method.getName())) {
+                throw new ReplicaRefusedException("This server was replaced by a newer primary (generation "
+                        + fencedBy + "), send bookings there");
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return serviceInterface.cast(Proxy.newProxyInstance(serviceInterface.getClassLoader(),
+                new Class<?>[]{serviceInterface}, handler));
+    }
+
+    /**
+     * Writes both numbers to a temporary file and moves it into place, so a crash leaves the old or the new file
+     */
+    private void save(long generation, long fencedBy) throws IOException {
+        if (file == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("generation", Long.toString(generation));
+        properties.setProperty("fencedBy", Long.toString(fencedBy));
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "Primary generation; a node fenced by a newer one refuses writes");
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,366 @@
+package hospital.server;
+
+import hospital.interfaces.ReplicaRefusedException;
+import hospital.interfaces.ReplicationBatch;
+import hospital.interfaces.ReplicationSource;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Replica side of replication: keeps a service in step with the primary
+ *
+ * A virtual thread long-polls the primary's {@link ReplicationSource} and
+ * applies each batch in sequence order. The replica counts as caught up as of
+ * the moment it sent a fetch that returned everything the primary had; its lag
+ * is the time since then. Put {@link #protect} in front of the service: until
+ * the replica is promoted it refuses bookings, cancellations, reschedules,
+ * holds, joining or leaving a waitlist and roster changes (the replica gets
+ * those from the primary). Waitlist ticket status is a read, but waitlists live
+ * on the primary only, so it is refused too and must be read from the primary.
+ * Reads of booking state, doctor availability included, are refused while the
+ * lag is above the staleness bound. Doctor listings, roster lookups and
+ * subscriptions are always served.
+ *
+ * Promotion (through JMX, or automatically once the primary has been
+ * unreachable for autoPromoteMillis) stops following and runs the server's
+ * promotion step, which makes the service journal and take bookings in the
+ * next primary generation. The replica then fences the old primary (see
+ * {@link PrimaryFence}), retrying until it answers, so that one refuses writes
+ * if it comes back. A replica must run under its own node ID, or the two could
+ * issue the same appointment IDs; one that shares its primary's is never
+ * promoted.
+ *
+ * Configured with -Dhospital.replication.primary (registry URL of the primary's
+ * HospitalReplication, required), -Dhospital.replication.maxStalenessMillis
+ * (default 5000) and -Dhospital.replication.autoPromoteMillis (default 0,
+ * promote by hand only).
+ */
+public class ReplicaFollower implements ReplicaFollowerMBean {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    private static final int BATCH_RECORDS = 5_000;
+    private static final long RETRY_MILLIS = 500;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            "bookAppointment", "bookAppointments", "cancelAppointment", "rescheduleAppointment",
+            "findEarliestSlot", "holdSlot", "confirmHold", "releaseHold", "joinWaitlist", "leaveWaitlist",
+            "addDoctor", "removeDoctor", "setShift", "setLeave");
+    // Reads of state that is never replicated, so a replica has nothing to answer with
+    private static final Set<String> PRIMARY_READS = Set.of("getWaitlistStatus");
+    private static final Set<String> ROSTER_METHODS = Set.of(
+            "getAvailableDoctors", "getDirectoryVersion", "getDoctorDirectoryDelta", "findDoctorId",
+            "subscribe", "unsubscribe");
+
+    public enum Role { REPLICA, PROMOTING, PRIMARY }
+
+    /**
+     * Makes this node a primary; run once when the replica is promoted
+     */
+    @FunctionalInterface
+    public interface Promotion {
+        /**
+         * @param generation Primary generation to start, one above the old primary's
+         */
+        void run(long generation) throws Exception;
+    }
+
+    private final String primaryURL;
+    private final HospitalServiceImpl service;
+    private final long maxStalenessMillis;
+    private final long autoPromoteMillis;
+    private final long pollMillis;
+    private final Promotion promotion;
+
+    // Batches are applied and promotion starts under this lock, so nothing is applied after promotion
+    private final Object applyLock = new Object();
+    private volatile Role role = Role.REPLICA;
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile long caughtUpAt; // 0 until the first time the replica catches up
+    private volatile long lastContactAt = System.currentTimeMillis();
+    private volatile long primaryGeneration;
+    private volatile int primaryNodeId = -1; // -1 until the first batch
+    private volatile boolean stopped;
+    private long epoch = -1; // follower thread only
+
+    /**
+     * @param primaryURL Registry URL of the primary's replication source
+     * @param service Service to keep in step; it must have no journal
+     * @param maxStalenessMillis Largest lag at which booking state is still served
+     * @param autoPromoteMillis Promote after the primary has been unreachable this long, or 0 to never
+     * @param promotion Server step that makes this node a primary
+     */
+    public ReplicaFollower(String primaryURL, HospitalServiceImpl service, long maxStalenessMillis,
+                           long autoPromoteMillis, Promotion promotion) {
+        this.primaryURL = primaryURL;
+        this.service = service;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.autoPromoteMillis = autoPromoteMillis;
+        this.promotion = promotion;
+        // An idle primary answers a caught-up replica after pollMillis, which keeps the lag under the bound
+        this.pollMillis = Math.max(1, Math.min(1000, maxStalenessMillis / 2));
+    }
+
+    /**
+     * Reads the settings from system properties
+     */
+    public static ReplicaFollower fromSystemProperties(HospitalServiceImpl service, Promotion promotion) {
+        String primaryURL = System.getProperty("hospital.replication.primary");
+        if (primaryURL == null || primaryURL.isBlank()) {
+            throw new IllegalArgumentException("-Dhospital.replication.primary must name the primary's "
+                    + ReplicationSource.SERVICE_NAME);
+        }
+        return new ReplicaFollower(primaryURL.trim(), service,
+                Long.getLong("hospital.replication.maxStalenessMillis", 5000),
+                Long.getLong("hospital.replication.autoPromoteMillis", 0),
+                promotion);
+    }
+
+    /**
+     * Starts following the primary
+     */
+    public void start() {
+        Thread.ofVirtual().name("replica-follower").start(this::followLoop);
+    }
+
+    /**
+     * Stops following the primary, and fencing it after a promotion, within one poll or retry
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Registers this replica's MBean with the platform MBean server
+     */
+    public void registerMBean(String domain) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(domain + ":type=Replication");
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+    }
+
+    /**
+     * Wraps a target so writes, and reads of booking state while stale, are refused until promotion
+     */
+    public <T> T protect(Class<T> serviceInterface, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() != Object.class) {
+                check(method.getName());
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return serviceInterface.cast(Proxy.newProxyInstance(serviceInterface.getClassLoader(),
+                new Class<?>[]{serviceInterface}, handler));
+    }
+
+    /**
+     * True for the calls a replica refuses outright, and a fenced primary too
+     */
+    static boolean isWrite(String method) {
+        return WRITE_METHODS.contains(method);
+    }
+
+    private void check(String method) throws ReplicaRefusedException {
+        if (role == Role.PRIMARY || ROSTER_METHODS.contains(method)) {
+            return;
+        }
+        if (WRITE_METHODS.contains(method)) {
+            throw new ReplicaRefusedException("This server is a read-only replica, send bookings to the primary");
+        }
+        if (PRIMARY_READS.contains(method)) {
+            throw new ReplicaRefusedException("Waitlists are kept on the primary only, read from the primary");
+        }
+        long lag = getLagMillis();
+        if (lag < 0 || lag > maxStalenessMillis) {
+            throw new ReplicaRefusedException("This replica is "
+                    + (lag < 0 ? "still catching up" : lag + " ms behind the primary") + ", read from the primary");
+        }
+    }
+
+    private void followLoop() {
+        ReplicationSource source = null;
+        boolean reachable = true;
+        while (role == Role.REPLICA && !stopped) {
+            try {
+                if (source == null) {
+                    source = (ReplicationSource) Naming.lookup(primaryURL);
+                }
+                long sentAt = System.currentTimeMillis();
+                ReplicationBatch batch = source.fetch(epoch, appliedSequence + 1, BATCH_RECORDS, pollMillis);
+                lastContactAt = System.currentTimeMillis();
+                if (!reachable) {
+                    LOG.info("replication.primary.reachable", "primary", primaryURL);
+                    reachable = true;
+                }
+                apply(batch, sentAt);
+            } catch (RemoteException | NotBoundException | MalformedURLException e) {
+                source = null;
+                if (reachable) {
+                    LOG.warn("replication.primary.unreachable", "primary", primaryURL, "error", e.getMessage());
+                    reachable = false;
+                }
+                if (autoPromoteMillis > 0 && System.currentTimeMillis() - lastContactAt >= autoPromoteMillis
+                        && !sharesPrimaryNodeId()) {
+                    try {
+                        promote();
+                    } catch (IllegalStateException promotionFailed) {
+                        // Already logged, and promote() went back to following on a new thread
+                    }
+                    return;
+                }
+                if (!pause(RETRY_MILLIS)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                LOG.error("replication.apply.failed", e, "sequence", appliedSequence);
+                source = null;
+                if (!pause(RETRY_MILLIS)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(ReplicationBatch batch, long sentAt) {
+        synchronized (applyLock) {
+            if (role != Role.REPLICA) {
+                return;
+            }
+            if (batch.isSnapshot()) {
+                service.resetTo(batch.getRoster(), batch.getSnapshot());
+                LOG.info("replication.snapshot.loaded", "appointments", batch.getSnapshot().length,
+                        "sequence", batch.getFirstSequence() - 1);
+            }
+            long applied = service.applyReplicated(ByteBuffer.wrap(batch.getRecords()));
+            epoch = batch.getEpoch();
+            primaryGeneration = batch.getGeneration();
+            if (batch.getNodeId() != primaryNodeId) {
+                primaryNodeId = batch.getNodeId();
+                if (sharesPrimaryNodeId()) {
+                    LOG.warn("replica.nodeId.conflict", "nodeId", primaryNodeId,
+                            "error", "replica shares its primary's node ID and cannot be promoted");
+                }
+            }
+            appliedSequence = batch.getFirstSequence() + applied - 1;
+            primarySequence = batch.getHeadSequence();
+            if (applied == batch.getRecordCount() && batch.isCaughtUp()) {
+                caughtUpAt = sentAt;
+            }
+        }
+    }
+
+    @Override
+    public void promote() {
+        long generation;
+        synchronized (applyLock) {
+            if (role != Role.REPLICA) {
+                return;
+            }
+            if (sharesPrimaryNodeId()) {
+                throw new IllegalStateException("This replica issues appointment IDs under its primary's node ID "
+                        + primaryNodeId + "; restart it with its own -Dhospital.nodeId before promoting it");
+            }
+            role = Role.PROMOTING;
+            generation = primaryGeneration + 1;
+        }
+        LOG.info("replica.promoting", "sequence", appliedSequence, "lagMillis", getLagMillis(),
+                "generation", generation);
+        try {
+            promotion.run(generation);
+            role = Role.PRIMARY;
+        } catch (Exception e) {
+            LOG.error("replica.promotion.failed", e);
+            role = Role.REPLICA;
+            start();
+            throw new IllegalStateException("Promotion failed: " + e.getMessage(), e);
+        }
+        Thread.ofVirtual().name("replica-fence").start(() -> fenceOldPrimary(generation));
+    }
+
+    /**
+     * Tells the old primary about the new generation, retrying with backoff until it answers
+     */
+    private void fenceOldPrimary(long generation) {
+        long retryMillis = RETRY_MILLIS;
+        while (!stopped) {
+            try {
+                ReplicationSource source = (ReplicationSource) Naming.lookup(primaryURL);
+                if (source.fence(generation)) {
+                    LOG.info("replica.oldPrimary.fenced", "primary", primaryURL, "generation", generation);
+                } else {
+                    LOG.warn("replica.oldPrimary.notFenced", "primary", primaryURL, "generation", generation);
+                }
+                return;
+            } catch (RemoteException | NotBoundException | MalformedURLException e) {
+                if (!pause(retryMillis)) {
+                    return;
+                }
+                retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private boolean sharesPrimaryNodeId() {
+        return primaryNodeId == service.getNodeId();
+    }
+
+    /**
+     * @return false if the thread was interrupted
+     */
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    public boolean isPrimary() {
+        return role == Role.PRIMARY;
+    }
+
+    @Override
+    public String getRole() {
+        return role.name();
+    }
+
+    @Override
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    @Override
+    public long getPrimarySequence() {
+        return primarySequence;
+    }
+
+    @Override
+    public long getLagMillis() {
+        if (role == Role.PRIMARY) {
+            return 0;
+        }
+        long at = caughtUpAt;
+        return at == 0 ? -1 : Math.max(0, System.currentTimeMillis() - at);
+    }
+}
@@ -0,0 +1,33 @@
+package hospital.server;
+
+/**
+ * JMX view of a replica
+ */
+public interface ReplicaFollowerMBean {
+
+    /**
+     * REPLICA, PROMOTING or PRIMARY
+     */
+    String getRole();
+
+    /**
+     * Sequence number of the last primary mutation applied
+     */
+    long getAppliedSequence();
+
+    /**
+     * Latest sequence number the primary reported
+     */
+    long getPrimarySequence();
+
+    /**
+     * How far behind the primary this replica may be, or -1 if it has never caught up
+     */
+    long getLagMillis();
+
+    /**
+     * Stops following the primary and starts taking bookings in the next generation (no-op unless
+     * still a replica); refused while the replica shares its primary's node ID
+     */
+    void promote();
+}
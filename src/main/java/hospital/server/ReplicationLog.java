@@ -0,0 +1,199 @@
+package hospital.server;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.ReplicationBatch;
+import hospital.interfaces.ReplicationSource;
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Primary side of replication: the booking mutations made durable since startup
+ *
+ * The service appends each mutation after it is journaled and before the slot
+ * it frees can be booked again, so the sequence order matches the journal
+ * order. Records are kept in journal format in a ring of the last
+ * logCapacity mutations; a replica that falls further behind than that, or
+ * that last followed an earlier run of this server (another epoch), gets a
+ * snapshot of the roster and the store plus the mutations made while they were copied.
+ * Replaying a mutation twice has no effect, so the overlap is harmless.
+ *
+ * Replicas long-poll {@link #fetch}: a caught-up replica's call waits for the
+ * next mutation, so changes reach it without a polling delay.
+ *
+ * Ring size is -Dhospital.replication.logCapacity (default 100000).
+ */
+public class ReplicationLog implements ReplicationSource {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    private static final int MAX_BATCH_RECORDS = 10_000;
+    private static final long MAX_WAIT_MILLIS = 30_000;
+
+    private final long epoch = System.currentTimeMillis();
+    private final int nodeId;
+    private final PrimaryFence fence;
+    private final byte[][] ring;
+    private final Supplier<Collection<Appointment>> snapshotSource;
+    private final Supplier<List<byte[]>> rosterSource;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long headSequence; // guarded by lock
+
+    /**
+     * @param nodeId Node ID this primary issues appointment IDs under, so replicas can check theirs differs
+     * @param fence This primary's generation, sent to replicas and raised by a promoted replica's fence call
+     * @param snapshotSource Every appointment in the store, for replicas that need to start over
+     * @param rosterSource Framed records that rebuild the doctor roster, for the same replicas
+     */
+    public ReplicationLog(int nodeId, PrimaryFence fence, Supplier<Collection<Appointment>> snapshotSource,
+                          Supplier<List<byte[]>> rosterSource) {
+        this(Integer.getInteger("hospital.replication.logCapacity", 100_000), nodeId, fence, snapshotSource,
+                rosterSource);
+    }
+
+    public ReplicationLog(int capacity, int nodeId, PrimaryFence fence,
+                          Supplier<Collection<Appointment>> snapshotSource, Supplier<List<byte[]>> rosterSource) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.nodeId = nodeId;
+        this.fence = fence;
+        this.ring = new byte[capacity][];
+        this.snapshotSource = snapshotSource;
+        this.rosterSource = rosterSource;
+    }
+
+    public void appendBooked(List<Appointment> appointments) {
+        byte[][] records = new byte[appointments.size()][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = BookingJournal.bookedRecord(appointments.get(i));
+        }
+        append(records);
+    }
+
+    public void appendCancelled(long appointmentId) {
+        append(BookingJournal.cancelledRecord(appointmentId));
+    }
+
+    public void appendRescheduled(long appointmentId, long epochMinute) {
+        append(BookingJournal.rescheduledRecord(appointmentId, epochMinute));
+    }
+
+    /**
+     * Passes on a framed roster record, as journaled
+     */
+    public void appendRoster(byte[] record) {
+        append(record);
+    }
+
+    /**
+     * Numbers framed records and wakes waiting replicas; encoding happens before, outside the lock
+     */
+    private void append(byte[]... records) {
+        if (records.length == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (byte[] record : records) {
+                headSequence++;
+                ring[slot(headSequence)] = record;
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ReplicationBatch fetch(long epoch, long fromSequence, int maxRecords, long waitMillis) {
+        int limit = Math.max(1, Math.min(maxRecords, Math.min(MAX_BATCH_RECORDS, ring.length)));
+        if (epoch == this.epoch && fromSequence > 0) {
+            ReplicationBatch batch = read(fromSequence, limit, Math.min(waitMillis, MAX_WAIT_MILLIS));
+            if (batch != null) {
+                return batch;
+            }
+        }
+        return snapshot(limit);
+    }
+
+    @Override
+    public boolean fence(long generation) {
+        return fence.fence(generation);
+    }
+
+    /**
+     * Sequence number of the latest mutation
+     */
+    public long getHeadSequence() {
+        lock.lock();
+        try {
+            return headSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Copies up to limit records starting at fromSequence, waiting up to waitMillis for the first one
+     * @return the records, or null if fromSequence is no longer (or not yet) in the ring
+     */
+    private ReplicationBatch read(long fromSequence, int limit, long waitMillis) {
+        lock.lock();
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, waitMillis));
+            while (fromSequence == headSequence + 1 && remainingNanos > 0) {
+                remainingNanos = appended.awaitNanos(remainingNanos);
+            }
+            if (fromSequence > headSequence + 1 || fromSequence <= headSequence - ring.length) {
+                return null;
+            }
+            int count = (int) Math.min(limit, headSequence - fromSequence + 1);
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            for (long sequence = fromSequence; sequence < fromSequence + count; sequence++) {
+                records.writeBytes(ring[slot(sequence)]);
+            }
+            return new ReplicationBatch(this.epoch, fence.getGeneration(), nodeId, fromSequence, count,
+                    records.toByteArray(), headSequence, null, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ReplicationBatch(this.epoch, fence.getGeneration(), nodeId, fromSequence, 0, new byte[0],
+                    headSequence, null, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the roster and the store, then attaches the mutations appended since copying started
+     */
+    private ReplicationBatch snapshot(int limit) {
+        while (true) {
+            long from = getHeadSequence() + 1;
+            ByteArrayOutputStream roster = new ByteArrayOutputStream();
+            rosterSource.get().forEach(roster::writeBytes);
+            Appointment[] appointments = snapshotSource.get().toArray(new Appointment[0]);
+            ReplicationBatch tail = read(from, limit, 0);
+            if (tail != null) {
+                LOG.info("replication.snapshot", "appointments", appointments.length, "sequence", from - 1);
+                return new ReplicationBatch(epoch, fence.getGeneration(), nodeId, from, tail.getRecordCount(),
+                        tail.getRecords(), tail.getHeadSequence(), appointments, roster.toByteArray());
+            }
+            // The ring wrapped while the store was copied; only possible with a tiny ring
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+}
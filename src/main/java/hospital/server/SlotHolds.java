@@ -0,0 +1,120 @@
+package hospital.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slots reserved for a client between showing them and booking them
+ *
+ * The service claims a slot in the doctor's calendar and registers the hold
+ * here; the hold is then taken exactly once, either by the client confirming
+ * or releasing it, or by its timeout, which hands the slot back through the
+ * expiry callback. Timeouts live on a hashed {@link TimerWheel}, so holding
+ * and expiring are O(1) however many holds are open. Holds are kept in
+ * memory only: after a restart every held slot is free again.
+ *
+ * Configured with -Dhospital.holds.maxHolds (default 1000000) and
+ * -Dhospital.holds.tickMillis (default 100, the expiry resolution).
+ */
+public class SlotHolds {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+    private static final int WHEEL_SIZE = 512;
+
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final int maxHolds = Integer.getInteger("hospital.holds.maxHolds", 1_000_000);
+    private final TimerWheel timers = new TimerWheel("hold-expiry",
+            Long.getLong("hospital.holds.tickMillis", 100), WHEEL_SIZE);
+    private final Expiry onExpiry;
+
+    /**
+     * @param onExpiry Gives back the slot of a hold that timed out
+     */
+    public SlotHolds(Expiry onExpiry) {
+        this.onExpiry = onExpiry;
+    }
+
+    public void start() {
+        timers.start();
+    }
+
+    public void close() {
+        timers.close();
+    }
+
+    /**
+     * Registers a hold on a slot the caller has claimed
+     * @return false if too many holds are open; the caller still owns the slot
+     */
+    public boolean add(long holdId, int doctorId, long slot, long millis) {
+        if (holds.size() >= maxHolds) {
+            return false;
+        }
+        Hold hold = new Hold(doctorId, slot);
+        // Registered before its timeout is scheduled, so a timeout that fires at once still finds it
+        holds.put(holdId, hold);
+        hold.timeout = timers.schedule(() -> expire(holdId, hold), millis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Ends a hold for its client
+     * @return the hold, now owned by the caller, or null if it expired, was taken already or never existed
+     */
+    public Hold take(long holdId) {
+        Hold hold = holds.remove(holdId);
+        // A hold taken before add() scheduled its timeout has none yet; that timeout finds it gone and does nothing
+        TimerWheel.Timeout timeout = hold == null ? null : hold.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return hold;
+    }
+
+    /**
+     * Number of open holds
+     */
+    public int size() {
+        return holds.size();
+    }
+
+    private void expire(long holdId, Hold hold) {
+        if (holds.remove(holdId, hold)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("hold.expired", "holdId", holdId, "doctorId", hold.doctorId);
+            }
+            onExpiry.expired(hold.doctorId, hold.slot);
+        }
+    }
+
+    /**
+     * Gives back the slot of a hold that timed out
+     */
+    @FunctionalInterface
+    public interface Expiry {
+        void expired(int doctorId, long slot);
+    }
+
+    /**
+     * One held slot
+     */
+    public static final class Hold {
+        private final int doctorId;
+        private final long slot;
+        private volatile TimerWheel.Timeout timeout;
+
+        private Hold(int doctorId, long slot) {
+            this.doctorId = doctorId;
+            this.slot = slot;
+        }
+
+        public int getDoctorId() {
+            return doctorId;
+        }
+
+        public long getSlot() {
+            return slot;
+        }
+    }
+}
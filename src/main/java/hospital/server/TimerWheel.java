@@ -0,0 +1,189 @@
+package hospital.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timer wheel for large numbers of short timeouts
+ *
+ * Time is cut into ticks and the wheel has one bucket per tick; a timeout goes
+ * into the bucket of its deadline tick (modulo the wheel size), together with
+ * the number of turns of the wheel still to wait. Scheduling only queues the
+ * timeout and cancelling only flips its state, so both are O(1) and lock-free.
+ * A single worker thread moves queued timeouts into their buckets and, once
+ * per tick, walks one bucket: it runs the timeouts that are due and unlinks
+ * the cancelled ones it meets. Timeouts fire up to one tick late, never early.
+ * Tasks run on the worker thread and must be short.
+ */
+public class TimerWheel {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final String name;
+    private final long tickNanos;
+    private final Timeout[] buckets; // heads of singly linked lists, worker thread only
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private long tick; // worker thread only
+    private volatile boolean stopped;
+    private Thread worker;
+
+    /**
+     * @param name Name of the worker thread
+     * @param tickMillis Length of a tick, and so the timer's resolution
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     */
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis < 1 || wheelSize < 1 || wheelSize > 1 << 20) {
+            throw new IllegalArgumentException("Invalid timer wheel: tick " + tickMillis + " ms, " + wheelSize
+                    + " buckets");
+        }
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+    }
+
+    public synchronized void start() {
+        if (worker == null) {
+            worker = Thread.ofVirtual().name(name).start(this::run);
+        }
+    }
+
+    /**
+     * Stops the worker; timeouts that have not fired never will
+     */
+    public synchronized void close() {
+        stopped = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Runs a task once the delay has passed, unless it is cancelled first
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of timeouts that have neither fired nor been cancelled
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    private void run() {
+        while (!stopped) {
+            try {
+                long sleepNanos = (tick + 1) * tickNanos - (System.nanoTime() - startNanos);
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            transferAdded();
+            expire((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    /**
+     * Moves newly scheduled timeouts into the buckets of their deadline ticks
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            // A deadline already passed goes into the current bucket and fires this tick
+            long deadlineTick = Math.max(timeout.deadlineNanos / tickNanos, tick);
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.length;
+            int bucket = (int) (deadlineTick & mask);
+            timeout.next = buckets[bucket];
+            buckets[bucket] = timeout;
+        }
+    }
+
+    /**
+     * Runs a bucket's due timeouts and drops its cancelled ones; the rest wait another turn
+     */
+    private void expire(int bucket) {
+        Timeout previous = null;
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean done = timeout.state.get() != PENDING || timeout.remainingRounds-- <= 0;
+            if (done) {
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    pending.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        LOG.error("timer.task.failed", e, "timer", name);
+                    }
+                }
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * A scheduled task
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds; // worker thread only
+        private Timeout next; // worker thread only
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * @return true if the task had not run yet and now never will
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package hospital.server;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.WaitlistStatus;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-doctor waitlists that backfill freed slots automatically
+ *
+ * Every doctor has its own priority queue ordered by urgency, then arrival, so
+ * joining and taking the head are O(log n) and doctors never contend with each
+ * other. Leaving only marks the ticket; the queue drops it when it reaches the
+ * head. When a slot frees up and patients are waiting, the service hands the
+ * slot to {@link #offer} instead of freeing it. A single dispatcher thread
+ * pairs handed-over slots with the heads of the queues and books each batch
+ * with one journal write. Joining also wakes the dispatcher, so a patient who
+ * joins while the doctor still has a free slot is booked into it at once.
+ * Every sweepSeconds, whether or not slots were handed over meanwhile, the
+ * dispatcher also claims free slots for doctors with waiting patients, which
+ * picks up the day that opens at midnight.
+ *
+ * Waitlists are kept in memory only; they are lost on restart and not replicated.
+ *
+ * Configured with -Dhospital.waitlist.maxPerDoctor (default 100000),
+ * -Dhospital.waitlist.retainFinished (default 100000) and
+ * -Dhospital.waitlist.sweepSeconds (default 60).
+ */
+public class WaitlistEngine {
+
+    private static final AsyncLogger LOG = AsyncLogger.get();
+    private static final int MAX_BATCH = 1024;
+
+    private static final int WAITING = 0;
+    private static final int PLACING = 1;
+    private static final int BOOKED = 2;
+    private static final int LEFT = 3;
+
+    private static final Comparator<Entry> PRIORITY =
+            Comparator.comparingInt((Entry entry) -> -entry.urgency).thenComparingLong(entry -> entry.arrival);
+
+    private final SlotBooker booker;
+    private final int maxPerDoctor = Integer.getInteger("hospital.waitlist.maxPerDoctor", 100_000);
+    private final int retainFinished = Integer.getInteger("hospital.waitlist.retainFinished", 100_000);
+    private final long sweepMillis = TimeUnit.SECONDS.toMillis(Long.getLong("hospital.waitlist.sweepSeconds", 60));
+
+    private final Map<Integer, DoctorWaitlist> waitlists = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> tickets = new ConcurrentHashMap<>();
+    private final Queue<Long> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+    private final AtomicLong nextArrival = new AtomicLong();
+
+    // Slots to fill, or -1 to claim the doctor's next free slot
+    private final BlockingQueue<Handoff> handoffs = new LinkedBlockingQueue<>();
+    private volatile boolean stopped;
+    private Thread dispatcher;
+
+    /**
+     * @param booker The service's calendars and booking path
+     */
+    public WaitlistEngine(SlotBooker booker) {
+        this.booker = booker;
+    }
+
+    public void start() {
+        dispatcher = Thread.ofVirtual().name("waitlist-dispatch").start(this::run);
+    }
+
+    /**
+     * Stops the dispatcher; slots still queued for it stay claimed until restart
+     */
+    public void close() {
+        stopped = true;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Adds a patient to a doctor's waitlist; the caller has validated the doctor and name
+     * @return the WAITING ticket, or REJECTED if the waitlist is full
+     */
+    public WaitlistStatus join(int doctorId, String patientName, int urgency, long ticketId) {
+        DoctorWaitlist waitlist = waitlists.computeIfAbsent(doctorId, DoctorWaitlist::new);
+        if (waitlist.waiting.incrementAndGet() > maxPerDoctor) {
+            waitlist.waiting.decrementAndGet();
+            return WaitlistStatus.rejected("Error: The waitlist for doctor #" + doctorId + " is full");
+        }
+        Entry entry = new Entry(ticketId, doctorId, patientName, urgency, nextArrival.getAndIncrement());
+        tickets.put(ticketId, entry);
+        waitlist.add(entry);
+        handoffs.add(new Handoff(doctorId, -1));
+
+        if (LOG.isEnabled(AsyncLogger.Level.INFO)) {
+            LOG.info("waitlist.joined", "ticketId", Appointment.formatId(ticketId), "doctorId", doctorId,
+                    "urgency", urgency);
+        }
+        return entry.status();
+    }
+
+    /**
+     * @return the ticket's status, or null if it is unknown or long finished
+     */
+    public WaitlistStatus status(long ticketId) {
+        Entry entry = tickets.get(ticketId);
+        return entry == null ? null : entry.status();
+    }
+
+    /**
+     * @return true if the patient was still waiting and has left
+     */
+    public boolean leave(long ticketId) {
+        Entry entry = tickets.get(ticketId);
+        if (entry == null || !entry.state.compareAndSet(WAITING, LEFT)) {
+            return false;
+        }
+        waitlists.get(entry.doctorId).waiting.decrementAndGet();
+        finish(entry);
+        LOG.info("waitlist.left", "ticketId", Appointment.formatId(ticketId), "doctorId", entry.doctorId);
+        return true;
+    }
+
+    /**
+     * Offers a freed slot to the doctor's waitlist
+     * @return true if patients are waiting and the engine now owns the slot; false if
+     *         the caller should free it
+     */
+    public boolean offer(int doctorId, long slot) {
+        DoctorWaitlist waitlist = waitlists.get(doctorId);
+        if (waitlist == null || waitlist.waiting.get() <= 0) {
+            return false;
+        }
+        handoffs.add(new Handoff(doctorId, slot));
+        return true;
+    }
+
+    /**
+     * Number of patients waiting for a doctor
+     */
+    public int waitingCount(int doctorId) {
+        DoctorWaitlist waitlist = waitlists.get(doctorId);
+        return waitlist == null ? 0 : Math.max(0, waitlist.waiting.get());
+    }
+
+    private void run() {
+        List<Handoff> batch = new ArrayList<>();
+        long sweepNanos = TimeUnit.MILLISECONDS.toNanos(sweepMillis);
+        long nextSweep = System.nanoTime() + sweepNanos;
+        while (!stopped) {
+            try {
+                Handoff first = handoffs.poll(Math.max(0, nextSweep - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    handoffs.drainTo(batch, MAX_BATCH - 1);
+                }
+                // Due even while handoffs keep arriving, so quiet doctors still get newly opened days
+                if (System.nanoTime() - nextSweep >= 0) {
+                    sweep(batch);
+                    nextSweep = System.nanoTime() + sweepNanos;
+                }
+                dispatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("waitlist.dispatch.failed", e, "handoffs", batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Queues a claim of a free slot for each waiting patient, up to one batch
+     */
+    private void sweep(List<Handoff> batch) {
+        for (DoctorWaitlist waitlist : waitlists.values()) {
+            for (int i = waitlist.waiting.get(); i > 0 && batch.size() < MAX_BATCH; i--) {
+                batch.add(new Handoff(waitlist.doctorId, -1));
+            }
+        }
+    }
+
+    /**
+     * Pairs each slot with the head of its doctor's waitlist and books the pairs together
+     */
+    private void dispatch(List<Handoff> batch) {
+        List<Entry> placed = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+        for (Handoff handoff : batch) {
+            DoctorWaitlist waitlist = waitlists.get(handoff.doctorId());
+            long slot = handoff.slot() >= 0 ? handoff.slot() : booker.claimNextSlot(handoff.doctorId());
+            if (slot < 0) {
+                continue;
+            }
+            Entry entry = waitlist == null ? null : waitlist.pollWaiting();
+            if (entry == null) {
+                booker.release(handoff.doctorId(), slot);
+                continue;
+            }
+            placed.add(entry);
+            appointments.add(new Appointment(booker.nextId(), entry.doctorId, DoctorCalendar.toEpochMinute(slot),
+                    entry.patientName));
+        }
+        if (placed.isEmpty()) {
+            return;
+        }
+
+        if (!booker.book(appointments)) {
+            // The slots were freed by the rollback; the next sweep tries again
+            for (Entry entry : placed) {
+                entry.state.set(WAITING);
+                waitlists.get(entry.doctorId).requeue(entry);
+            }
+            return;
+        }
+        for (int i = 0; i < placed.size(); i++) {
+            Entry entry = placed.get(i);
+            entry.appointment = appointments.get(i);
+            entry.state.set(BOOKED);
+            finish(entry);
+        }
+        if (LOG.isEnabled(AsyncLogger.Level.INFO)) {
+            LOG.info("waitlist.placed", "appointments", placed.size(), "handoffs", batch.size());
+        }
+    }
+
+    /**
+     * Keeps a finished ticket for status lookups, forgetting the oldest beyond retainFinished
+     */
+    private void finish(Entry entry) {
+        finished.add(entry.ticketId);
+        if (finishedCount.incrementAndGet() > retainFinished) {
+            Long oldest = finished.poll();
+            if (oldest != null) {
+                finishedCount.decrementAndGet();
+                tickets.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * The calendars and booking path of the service the engine fills slots for
+     */
+    public interface SlotBooker {
+
+        /**
+         * @return the doctor's earliest free bookable slot, now claimed, or -1 if there is none
+         */
+        long claimNextSlot(int doctorId);
+
+        /**
+         * Frees a slot without offering it to the waitlist again
+         */
+        void release(int doctorId, long slot);
+
+        /**
+         * @return a new appointment ID
+         */
+        long nextId();
+
+        /**
+         * Stores, journals and announces appointments in claimed slots
+         * @return true if they are durable; if not they were rolled back and their slots freed
+         */
+        boolean book(List<Appointment> appointments);
+    }
+
+    private record Handoff(int doctorId, long slot) {
+    }
+
+    /**
+     * One patient's place in a waitlist
+     */
+    private static final class Entry {
+        final long ticketId;
+        final int doctorId;
+        final String patientName;
+        final int urgency;
+        final long arrival;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        volatile Appointment appointment;
+
+        Entry(long ticketId, int doctorId, String patientName, int urgency, long arrival) {
+            this.ticketId = ticketId;
+            this.doctorId = doctorId;
+            this.patientName = patientName;
+            this.urgency = urgency;
+            this.arrival = arrival;
+        }
+
+        WaitlistStatus status() {
+            WaitlistStatus.State current = switch (state.get()) {
+                case BOOKED -> WaitlistStatus.State.BOOKED;
+                case LEFT -> WaitlistStatus.State.LEFT;
+                default -> WaitlistStatus.State.WAITING;
+            };
+            return WaitlistStatus.of(current, ticketId, doctorId, urgency,
+                    current == WaitlistStatus.State.BOOKED ? appointment : null);
+        }
+    }
+
+    /**
+     * One doctor's queue; entries that left stay in it until they reach the head
+     */
+    private final class DoctorWaitlist {
+        final int doctorId;
+        final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>(16, PRIORITY);
+        // Patients in state WAITING; the queue may also hold entries that left
+        final AtomicInteger waiting = new AtomicInteger();
+
+        DoctorWaitlist(int doctorId) {
+            this.doctorId = doctorId;
+        }
+
+        void add(Entry entry) {
+            if (queue.size() >= 2 * maxPerDoctor) {
+                queue.removeIf(queued -> queued.state.get() != WAITING);
+            }
+            queue.add(entry);
+        }
+
+        void requeue(Entry entry) {
+            waiting.incrementAndGet();
+            queue.add(entry);
+        }
+
+        /**
+         * Takes the most urgent waiting patient off the queue
+         */
+        Entry pollWaiting() {
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                if (entry.state.compareAndSet(WAITING, PLACING)) {
+                    waiting.decrementAndGet();
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package hospital.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Socket whose streams are deflate-compressed
+ * The output stream sync-flushes, so every RMI message is sent in full when
+ * RMI flushes it instead of waiting in the compressor for more data.
+ * Both ends of a connection must use compressed sockets.
+ */
+final class CompressedSocket extends Socket {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+    private InputStream in;
+    private OutputStream out;
+
+    /**
+     * Unconnected socket, to be connected or accepted into
+     * @param level Deflate level, 0 (none) to 9 (smallest)
+     */
+    CompressedSocket(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+        if (in == null) {
+            in = new InflaterInputStream(super.getInputStream(), new Inflater(), BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() throws IOException {
+        if (out == null) {
+            out = new DeflaterOutputStream(super.getOutputStream(), new Deflater(level), BUFFER_SIZE, true);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,163 @@
+package hospital.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * RMI transport settings, read from a properties file
+ *
+ * The file is -Dhospital.transport.config if set, otherwise transport.properties
+ * on the classpath; missing keys keep their defaults. See transport.properties
+ * for the list of keys.
+ */
+public final class TransportConfig {
+
+    private static final String DEFAULT_RESOURCE = "/transport.properties";
+
+    private final int registryPort;
+    private final int exportPort;
+    private final boolean tcpNoDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final boolean compression;
+    private final int compressionLevel;
+    private final long connectionIdleMillis;
+
+    private TransportConfig(Properties properties) {
+        registryPort = intValue(properties, "registry.port", 1099);
+        exportPort = intValue(properties, "export.port", 0);
+        tcpNoDelay = Boolean.parseBoolean(properties.getProperty("tcp.noDelay", "true").trim());
+        sendBufferSize = intValue(properties, "socket.sendBufferSize", 0);
+        receiveBufferSize = intValue(properties, "socket.receiveBufferSize", 0);
+        compression = Boolean.parseBoolean(properties.getProperty("compression.enabled", "false").trim());
+        compressionLevel = intValue(properties, "compression.level", 1);
+        connectionIdleMillis = intValue(properties, "connection.idleMillis", 15_000);
+
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compression.level must be between 0 and 9: " + compressionLevel);
+        }
+    }
+
+    /**
+     * Built-in defaults, ignoring any config file
+     */
+    public static TransportConfig defaults() {
+        return new TransportConfig(new Properties());
+    }
+
+    public static TransportConfig fromProperties(Properties properties) {
+        return new TransportConfig(properties);
+    }
+
+    /**
+     * Loads the configured file, or the classpath defaults if none is configured
+     */
+    public static TransportConfig load() throws IOException {
+        String file = System.getProperty("hospital.transport.config");
+        if (file != null) {
+            return load(Path.of(file));
+        }
+        Properties properties = new Properties();
+        try (InputStream in = TransportConfig.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        return new TransportConfig(properties);
+    }
+
+    public static TransportConfig load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new TransportConfig(properties);
+    }
+
+    public int getRegistryPort() {
+        return registryPort;
+    }
+
+    /**
+     * Port the service is exported on; 0 picks any free port
+     */
+    public int getExportPort() {
+        return exportPort;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Socket send buffer in bytes; 0 keeps the OS default
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Socket receive buffer in bytes; 0 keeps the OS default
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * How long an idle client connection is kept for reuse
+     */
+    public long getConnectionIdleMillis() {
+        return connectionIdleMillis;
+    }
+
+    public TunedClientSocketFactory clientSocketFactory() {
+        return new TunedClientSocketFactory(tcpNoDelay, sendBufferSize, receiveBufferSize,
+                compression, compressionLevel);
+    }
+
+    public TunedServerSocketFactory serverSocketFactory() {
+        return new TunedServerSocketFactory(tcpNoDelay, sendBufferSize, receiveBufferSize,
+                compression, compressionLevel);
+    }
+
+    /**
+     * Sets how long this JVM's RMI runtime keeps idle connections for reuse
+     * Must run before the first remote call is made
+     */
+    public void applyConnectionReuse() {
+        System.setProperty("sun.rmi.transport.connectionTimeout", Long.toString(connectionIdleMillis));
+    }
+
+    @Override
+    public String toString() {
+        return "registryPort=" + registryPort + " exportPort=" + exportPort + " tcpNoDelay=" + tcpNoDelay
+                + " sendBufferSize=" + sendBufferSize + " receiveBufferSize=" + receiveBufferSize
+                + " compression=" + (compression ? "level " + compressionLevel : "off")
+                + " connectionIdleMillis=" + connectionIdleMillis;
+    }
+
+    private static int intValue(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value, e);
+        }
+    }
+}
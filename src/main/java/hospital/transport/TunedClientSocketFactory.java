@@ -0,0 +1,80 @@
+package hospital.transport;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.rmi.server.RMIClientSocketFactory;
+import java.util.Objects;
+
+/**
+ * Client side of the tuned RMI transport
+ * Sent to clients inside the service stub, so clients use the server's settings.
+ * Implements equals and hashCode so RMI can share and reuse connections to the same endpoint.
+ */
+public final class TunedClientSocketFactory implements RMIClientSocketFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean tcpNoDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final boolean compression;
+    private final int compressionLevel;
+
+    public TunedClientSocketFactory(boolean tcpNoDelay, int sendBufferSize, int receiveBufferSize,
+                                    boolean compression, int compressionLevel) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        Socket socket = compression ? new CompressedSocket(compressionLevel) : new Socket();
+        try {
+            // Buffer sizes must be set before connecting to affect the TCP window
+            configure(socket, tcpNoDelay, sendBufferSize, receiveBufferSize);
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Applies the socket options shared by both sides
+     */
+    static void configure(Socket socket, boolean tcpNoDelay, int sendBufferSize, int receiveBufferSize)
+            throws SocketException {
+        socket.setTcpNoDelay(tcpNoDelay);
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TunedClientSocketFactory other)) {
+            return false;
+        }
+        return tcpNoDelay == other.tcpNoDelay && sendBufferSize == other.sendBufferSize
+                && receiveBufferSize == other.receiveBufferSize && compression == other.compression
+                && compressionLevel == other.compressionLevel;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tcpNoDelay, sendBufferSize, receiveBufferSize, compression, compressionLevel);
+    }
+}
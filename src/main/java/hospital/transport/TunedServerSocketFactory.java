@@ -0,0 +1,81 @@
+package hospital.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.Objects;
+
+/**
+ * Server side of the tuned RMI transport; must be paired with a
+ * {@link TunedClientSocketFactory} with the same settings
+ */
+public final class TunedServerSocketFactory implements RMIServerSocketFactory {
+
+    private final boolean tcpNoDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final boolean compression;
+    private final int compressionLevel;
+
+    public TunedServerSocketFactory(boolean tcpNoDelay, int sendBufferSize, int receiveBufferSize,
+                                    boolean compression, int compressionLevel) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        ServerSocket serverSocket = new TunedServerSocket();
+        try {
+            // Accepted sockets inherit the receive buffer, which must be set before binding
+            if (receiveBufferSize > 0) {
+                serverSocket.setReceiveBufferSize(receiveBufferSize);
+            }
+            serverSocket.bind(new InetSocketAddress(port));
+            return serverSocket;
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TunedServerSocketFactory other)) {
+            return false;
+        }
+        return tcpNoDelay == other.tcpNoDelay && sendBufferSize == other.sendBufferSize
+                && receiveBufferSize == other.receiveBufferSize && compression == other.compression
+                && compressionLevel == other.compressionLevel;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tcpNoDelay, sendBufferSize, receiveBufferSize, compression, compressionLevel);
+    }
+
+    /**
+     * Hands out sockets with the configured options (compressed if enabled)
+     */
+    private final class TunedServerSocket extends ServerSocket {
+
+        TunedServerSocket() throws IOException {
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = compression ? new CompressedSocket(compressionLevel) : new Socket();
+            implAccept(socket);
+            TunedClientSocketFactory.configure(socket, tcpNoDelay, sendBufferSize, receiveBufferSize);
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package hospital.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import hospital.interfaces.HospitalService;
+import hospital.server.DoctorDirectory;
+import hospital.server.HospitalServiceImpl;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The cache downloads the directory once, then asks only for deltas, and not at all while it is fresh
+ */
+class DoctorDirectoryCacheTest {
+
+    // Long enough that only refresh() and invalidate() make the cache call the server
+    private static final Duration FRESH_FOR = Duration.ofHours(1);
+
+    private final List<DoctorDirectoryDelta> deltas = new ArrayList<>();
+    private DoctorDirectory directory;
+    private HospitalServiceImpl server;
+    private HospitalService service;
+
+    @BeforeEach
+    void start() throws Exception {
+        startServer();
+        service = (HospitalService) Proxy.newProxyInstance(HospitalService.class.getClassLoader(),
+                new Class<?>[]{HospitalService.class}, (proxy, method, args) -> {
+                    try {
+                        // Whichever server runs now, recording every delta it hands out
+                        Object result = method.invoke(server, args);
+                        if (result instanceof DoctorDirectoryDelta delta) {
+                            deltas.add(delta);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    void firstFetchIsAFullReloadAndLaterOnesAreDeltas() throws Exception {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(service, FRESH_FOR);
+        Doctor[] initial = cache.getDoctors();
+        assertTrue(deltas.get(0).isFullReload());
+        assertArrayEquals(directory.all(), initial);
+        assertEquals(server.getDirectoryVersion(), cache.getVersion());
+
+        Doctor added = server.addDoctor("Dr. Cached", "Neurologist", "Added after the first fetch");
+        Doctor removed = initial[0];
+        assertTrue(server.removeDoctor(removed.getId()));
+
+        Doctor[] refreshed = cache.refresh();
+        DoctorDirectoryDelta delta = deltas.get(1);
+        assertFalse(delta.isFullReload());
+        assertArrayEquals(new Doctor[]{added}, delta.getAdded());
+        assertArrayEquals(new int[]{removed.getId()}, delta.getRemovedIds());
+        assertArrayEquals(directory.all(), refreshed);
+        assertNull(cache.get(removed.getId()));
+        assertEquals(added.getId(), cache.findDoctorId("dr. cached"));
+        assertEquals(-1, cache.findDoctorId(removed.getDisplayName()));
+
+        cache.refresh();
+        assertTrue(deltas.get(2).isEmpty(), "nothing changed, yet the reply was not empty");
+        assertSame(refreshed, cache.getDoctors(), "an empty delta rebuilt the doctor list");
+    }
+
+    @Test
+    void freshCacheAnswersWithoutCallingTheServer() throws Exception {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(service, FRESH_FOR);
+        Doctor known = cache.getDoctors()[1];
+        assertSame(known, cache.get(known.getId()));
+        assertEquals(known.getId(), cache.findDoctorId(known.getDisplayName()));
+        assertEquals(1, deltas.size());
+
+        Doctor added = server.addDoctor("Dr. Late", "Neurologist", "Added while the cache was fresh");
+        assertEquals(-1, cache.findDoctorId("Dr. Late"));
+        assertEquals(1, deltas.size());
+
+        cache.invalidate();
+        assertEquals(added.getId(), cache.findDoctorId("Dr. Late"));
+        assertEquals(2, deltas.size());
+    }
+
+    @Test
+    void versionFromAnEarlierServerRunReloadsEverything() throws Exception {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(service, FRESH_FOR);
+        Doctor gone = cache.getDoctors()[0];
+
+        // The restarted server's versions start from a later base
+        Thread.sleep(2);
+        startServer();
+        directory.remove(gone.getId());
+
+        Doctor[] reloaded = cache.refresh();
+        assertTrue(deltas.get(1).isFullReload());
+        assertArrayEquals(directory.all(), reloaded);
+        assertNull(cache.get(gone.getId()));
+        assertEquals(server.getDirectoryVersion(), cache.getVersion());
+    }
+
+    private void startServer() throws Exception {
+        directory = HospitalServiceImpl.createDefaultDirectory();
+        server = new HospitalServiceImpl(directory, 0, null);
+    }
+}
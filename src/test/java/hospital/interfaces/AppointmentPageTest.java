@@ -0,0 +1,80 @@
+package hospital.interfaces;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pages survive serialization, and a page claiming an impossible size is refused before anything is allocated
+ */
+class AppointmentPageTest {
+
+    @Test
+    void pageRoundTripsThroughSerialization() throws Exception {
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < AppointmentPage.MAX_PAGE_SIZE; i++) {
+            appointments.add(new Appointment(1000 + i, i % 4, 29_000_000 + i * 15L, "Patient " + i));
+        }
+        AppointmentPage page = new AppointmentPage(appointments, 1499);
+
+        AppointmentPage copy = roundTrip(page);
+        assertEquals(1499, copy.getNextCursor());
+        assertTrue(copy.hasMore());
+        assertEquals(appointments.size(), copy.getAppointments().size());
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment sent = appointments.get(i);
+            Appointment received = copy.getAppointments().get(i);
+            assertEquals(sent.getId(), received.getId());
+            assertEquals(sent.getDoctorId(), received.getDoctorId());
+            assertEquals(sent.getEpochMinute(), received.getEpochMinute());
+            assertEquals(sent.getPatientName(), received.getPatientName());
+        }
+
+        AppointmentPage empty = roundTrip(AppointmentPage.empty());
+        assertFalse(empty.hasMore());
+        assertEquals(List.of(), empty.getAppointments());
+    }
+
+    @Test
+    void pageSizeOutsideTheBoundsIsRefused() throws Exception {
+        for (int size : new int[]{-1, AppointmentPage.MAX_PAGE_SIZE + 1, Integer.MAX_VALUE}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeLong(AppointmentPage.FIRST_PAGE);
+                out.writeInt(size);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                IOException error = assertThrows(IOException.class, () -> new AppointmentPage().readExternal(in));
+                assertTrue(error.getMessage().contains(Integer.toString(size)), error.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void returnedListCannotChangeThePage() {
+        AppointmentPage page = new AppointmentPage(List.of(new Appointment(1, 0, 29_000_000, "Ann")),
+                AppointmentPage.FIRST_PAGE);
+        assertThrows(UnsupportedOperationException.class, () -> page.getAppointments().clear());
+        assertEquals(1, page.getAppointments().size());
+    }
+
+    private static AppointmentPage roundTrip(AppointmentPage page) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(page);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (AppointmentPage) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hospital.interfaces.ServiceBusyException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Token bucket refill and the concurrency limit, driven by a clock the test sets
+ */
+class AdmissionControllerTest {
+
+    private static final String PATIENT = "10.0.0.1";
+    private static final String OTHER_PATIENT = "10.0.0.2";
+    private static final String STAFF = "10.0.0.100";
+    private static final long T0 = 1_000_000_000_000L;
+
+    @Test
+    void burstIsAdmittedAtOnceThenTheBucketRefillsAtTheRate() throws Exception {
+        // 10 calls a second, 3 at once
+        AdmissionController controller = new AdmissionController(64, 8, 10, 3, Set.of());
+
+        for (int i = 0; i < 3; i++) {
+            call(controller, PATIENT, T0);
+        }
+        ServiceBusyException empty = assertThrows(ServiceBusyException.class, () -> call(controller, PATIENT, T0));
+        assertEquals(100, empty.getRetryAfterMillis());
+
+        // Half a token later the wait is halved
+        ServiceBusyException halfway = assertThrows(ServiceBusyException.class,
+                () -> call(controller, PATIENT, T0 + millis(50)));
+        assertEquals(50, halfway.getRetryAfterMillis());
+
+        // A token a tenth of a second later, give or take rounding
+        call(controller, PATIENT, T0 + millis(101));
+        assertThrows(ServiceBusyException.class, () -> call(controller, PATIENT, T0 + millis(101)));
+        assertEquals(3, controller.getRejectedRateLimited());
+        assertEquals(0, controller.getRejectedBusy());
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToTheBurst() throws Exception {
+        AdmissionController controller = new AdmissionController(64, 8, 10, 3, Set.of());
+        for (int i = 0; i < 3; i++) {
+            call(controller, PATIENT, T0);
+        }
+
+        long later = T0 + TimeUnit.MINUTES.toNanos(10);
+        for (int i = 0; i < 3; i++) {
+            call(controller, PATIENT, later);
+        }
+        assertThrows(ServiceBusyException.class, () -> call(controller, PATIENT, later));
+    }
+
+    @Test
+    void eachHostHasItsOwnBucketAndStaffAreNotRateLimited() throws Exception {
+        AdmissionController controller = new AdmissionController(64, 8, 1, 1, Set.of(STAFF));
+        call(controller, PATIENT, T0);
+        assertThrows(ServiceBusyException.class, () -> call(controller, PATIENT, T0));
+
+        call(controller, OTHER_PATIENT, T0);
+        for (int i = 0; i < 100; i++) {
+            call(controller, STAFF, T0);
+        }
+        assertEquals(1, controller.getRejectedRateLimited());
+    }
+
+    @Test
+    void callsBeyondTheLimitAreRejectedAndStaffMayUseTheReservedPermits() throws Exception {
+        AdmissionController controller = new AdmissionController(3, 1, 1000, 1000, Set.of(STAFF));
+        controller.admit(PATIENT, T0);
+        controller.admit(OTHER_PATIENT, T0);
+
+        // Only the reserved permit is left
+        ServiceBusyException busy = assertThrows(ServiceBusyException.class, () -> controller.admit(PATIENT, T0));
+        assertEquals(50, busy.getRetryAfterMillis());
+        controller.admit(STAFF, T0);
+        assertThrows(ServiceBusyException.class, () -> controller.admit(STAFF, T0));
+        assertEquals(3, controller.getInFlight());
+        assertEquals(2, controller.getRejectedBusy());
+
+        // A finished call gives its permit back
+        controller.release();
+        controller.admit(STAFF, T0);
+        controller.release();
+        controller.release();
+        controller.admit(PATIENT, T0);
+        assertEquals(2, controller.getInFlight());
+    }
+
+    @Test
+    void protectedCallsReleaseTheirPermitAlsoWhenTheyFail() throws Exception {
+        AdmissionController controller = new AdmissionController(2, 1, 1000, 1000, Set.of());
+        Runnable protectedCall = controller.protect(Runnable.class, () -> {
+            assertEquals(1, controller.getInFlight());
+            throw new IllegalStateException("call failed");
+        });
+
+        assertThrows(IllegalStateException.class, protectedCall::run);
+        assertThrows(IllegalStateException.class, protectedCall::run);
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    void reservingEveryPermitForStaffIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionController(4, 4, 10, 10, Set.of()));
+    }
+
+    /**
+     * Admits a call and finishes it at once
+     */
+    private static void call(AdmissionController controller, String host, long now) throws ServiceBusyException {
+        controller.admit(host, now);
+        controller.release();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,115 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.Partitioning;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * IDs are unique and increasing under contention, carry their node, and stay ahead of IDs seen before
+ */
+class AppointmentIdGeneratorTest {
+
+    private static final int TIMESTAMP_SHIFT = AppointmentIdGenerator.NODE_BITS + AppointmentIdGenerator.SEQUENCE_BITS;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasePerThread() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        AppointmentIdGenerator generator = new AppointmentIdGenerator(7);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            // Far more IDs than fit in one millisecond's sequence, so the sequence carries over
+            Set<Long> seen = new HashSet<>();
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(i == 0 || ids[i] > ids[i - 1], "IDs of one thread went backwards");
+                    assertTrue(seen.add(ids[i]), "duplicate ID " + ids[i]);
+                    assertEquals(7, AppointmentIdGenerator.nodeOf(ids[i]));
+                }
+            }
+            assertEquals(threads * perThread, seen.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void idCarriesTheTimeAndTheNode() {
+        long before = System.currentTimeMillis() - AppointmentIdGenerator.CUSTOM_EPOCH;
+        long id = new AppointmentIdGenerator(AppointmentIdGenerator.MAX_NODE_ID).nextId();
+        long after = System.currentTimeMillis() - AppointmentIdGenerator.CUSTOM_EPOCH;
+
+        long millis = id >>> TIMESTAMP_SHIFT;
+        assertTrue(millis >= before && millis <= after,
+                "timestamp " + millis + " not in [" + before + ", " + after + "]");
+        assertEquals(AppointmentIdGenerator.MAX_NODE_ID, AppointmentIdGenerator.nodeOf(id));
+        assertEquals(AppointmentIdGenerator.MAX_NODE_ID, Partitioning.nodeIdOf(id));
+        assertEquals(id, Appointment.parseId(Appointment.formatId(id)));
+    }
+
+    @Test
+    void nodesNeverIssueTheSameId() {
+        AppointmentIdGenerator first = new AppointmentIdGenerator(1);
+        AppointmentIdGenerator second = new AppointmentIdGenerator(2);
+        for (int i = 0; i < 10_000; i++) {
+            long a = first.nextId();
+            long b = second.nextId();
+            assertNotEquals(a, b);
+            assertEquals(1, Partitioning.nodeIdOf(a));
+            assertEquals(2, Partitioning.nodeIdOf(b));
+        }
+    }
+
+    @Test
+    void idsStayAheadOfAnIdFromTheFuture() {
+        AppointmentIdGenerator generator = new AppointmentIdGenerator(3);
+        // As if the clock stepped back an hour after an earlier run issued this ID on another node
+        long future = ((generator.nextId() >>> TIMESTAMP_SHIFT) + 3_600_000) << TIMESTAMP_SHIFT
+                | (5L << AppointmentIdGenerator.SEQUENCE_BITS) | 4095;
+        generator.advancePast(future);
+
+        long next = generator.nextId();
+        assertTrue(next > future, "ID went backwards past one already issued");
+        assertEquals(3, AppointmentIdGenerator.nodeOf(next));
+        assertTrue(generator.nextId() > next);
+
+        // Advancing past an older ID changes nothing
+        generator.advancePast(1);
+        assertTrue(generator.nextId() > next);
+    }
+
+    @Test
+    void nodeIdMustFitInItsBits() {
+        assertThrows(IllegalArgumentException.class, () -> new AppointmentIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AppointmentIdGenerator(AppointmentIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,122 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Paged queries by patient, doctor and day return every match once, in order, across page boundaries
+ */
+class AppointmentQueryTest {
+
+    private static final int DOCTORS = 3;
+    private static final int COUNT = 250;
+    private static final long FIRST_MINUTE = 29_000_000;
+
+    private final List<Appointment> appointments = new ArrayList<>();
+    private final AppointmentStore store = new AppointmentStore();
+
+    AppointmentQueryTest() {
+        for (int doctorId = 0; doctorId < DOCTORS; doctorId++) {
+            store.registerDoctor(doctorId);
+        }
+        for (int i = 0; i < COUNT; i++) {
+            Appointment appointment = new Appointment(i, i % DOCTORS,
+                    FIRST_MINUTE + (long) (i / DOCTORS) * DoctorCalendar.SLOT_MINUTES, "Patient " + (i % 7));
+            appointments.add(appointment);
+            assertTrue(store.add(appointment));
+        }
+    }
+
+    @Test
+    void patientPagesHoldEachOfTheirAppointmentsOnceInBookingOrder() {
+        List<Appointment> expected = appointments.stream().filter(a -> a.getId() % 7 == 3).toList();
+
+        List<Appointment> paged = allPages(cursor -> store.findByPatient("  PATIENT 3 ", cursor, 4));
+
+        assertEquals(expected, paged);
+        assertEquals(0, store.findByPatient("Nobody", AppointmentPage.FIRST_PAGE, 4).getAppointments().size());
+    }
+
+    @Test
+    void doctorPagesStayWithinTheRangeInTimeOrder() {
+        long from = FIRST_MINUTE + 10 * DoctorCalendar.SLOT_MINUTES;
+        long to = FIRST_MINUTE + 60 * DoctorCalendar.SLOT_MINUTES;
+        List<Appointment> expected = appointments.stream()
+                .filter(a -> a.getDoctorId() == 1 && a.getEpochMinute() >= from && a.getEpochMinute() < to)
+                .toList();
+
+        for (int limit : new int[]{1, 5, expected.size(), expected.size() + 1}) {
+            assertEquals(expected, allPages(cursor -> store.scheduleFor(1, from, to, cursor, limit)), "limit " + limit);
+        }
+        assertFalse(store.scheduleFor(1, to, from, AppointmentPage.FIRST_PAGE, 5).hasMore());
+        assertEquals(0, store.scheduleFor(DOCTORS, from, to, AppointmentPage.FIRST_PAGE, 5).getAppointments().size());
+    }
+
+    @Test
+    void dayPagesGoThroughEveryDoctorInTurn() {
+        long from = FIRST_MINUTE + 20 * DoctorCalendar.SLOT_MINUTES;
+        long to = FIRST_MINUTE + 70 * DoctorCalendar.SLOT_MINUTES;
+        List<Appointment> expected = appointments.stream()
+                .filter(a -> a.getEpochMinute() >= from && a.getEpochMinute() < to)
+                .sorted(Comparator.comparingInt(Appointment::getDoctorId)
+                        .thenComparingLong(Appointment::getEpochMinute))
+                .toList();
+
+        // Pages that end on the last appointment of a doctor as well as in the middle of one
+        for (int limit : new int[]{1, 7, 50, expected.size()}) {
+            assertEquals(expected, allPages(cursor -> store.scheduleForAll(from, to, cursor, limit)), "limit " + limit);
+        }
+    }
+
+    @Test
+    void serviceCapsThePageSize() throws Exception {
+        int doctors = 20;
+        DoctorDirectory directory = new DoctorDirectory();
+        for (int i = 0; i < doctors; i++) {
+            directory.register("Dr. Paged " + i, "Specialty " + i, "");
+        }
+        HospitalServiceImpl service = new HospitalServiceImpl(directory, 0, null);
+        for (int doctorId = 0; doctorId < doctors; doctorId++) {
+            for (int slot = 0; slot < DoctorCalendar.SLOTS_PER_DAY; slot++) {
+                assertTrue(service.bookAppointment(doctorId, "Patient " + slot).isConfirmed());
+            }
+        }
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        AppointmentPage first = service.getAppointmentsOn(tomorrow, AppointmentPage.FIRST_PAGE, 10_000);
+        assertEquals(AppointmentPage.MAX_PAGE_SIZE, first.getAppointments().size());
+        assertTrue(first.hasMore());
+        AppointmentPage second = service.getAppointmentsOn(tomorrow, first.getNextCursor(), 10_000);
+        assertEquals(doctors * DoctorCalendar.SLOTS_PER_DAY - AppointmentPage.MAX_PAGE_SIZE,
+                second.getAppointments().size());
+        assertFalse(second.hasMore());
+
+        assertEquals(1, service.findAppointmentsByPatient("Patient 0", AppointmentPage.FIRST_PAGE, 0)
+                .getAppointments().size(), "a limit below one still returns a page");
+    }
+
+    /**
+     * Follows the cursors of a query from its first page to its last
+     */
+    private static List<Appointment> allPages(LongFunction<AppointmentPage> query) {
+        List<Appointment> all = new ArrayList<>();
+        AppointmentPage page = query.apply(AppointmentPage.FIRST_PAGE);
+        all.addAll(page.getAppointments());
+        while (page.hasMore()) {
+            page = query.apply(page.getNextCursor());
+            assertFalse(page.getAppointments().isEmpty(), "a page before the last one was empty");
+            all.addAll(page.getAppointments());
+        }
+        return all;
+    }
+}
@@ -0,0 +1,162 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.AppointmentPage;
+import hospital.interfaces.BookingResult;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Rescheduling and cancelling keep the ID index, the doctor's ledger, the patient index
+ * and the calendar in agreement, also when both are asked of one appointment at once
+ */
+class AppointmentRescheduleTest {
+
+    private static final int DOCTOR = 0;
+    private static final int SLOTS_PER_DOCTOR = DoctorCalendar.HORIZON_DAYS * DoctorCalendar.SLOTS_PER_DAY;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private HospitalServiceImpl service;
+    private long firstSlot;
+
+    @BeforeEach
+    void start() throws Exception {
+        DoctorDirectory directory = new DoctorDirectory();
+        directory.register("Dr. Test", "Cardiologist", "Test doctor");
+        service = new HospitalServiceImpl(directory, 0, null);
+        firstSlot = (LocalDate.now().toEpochDay() + 1) * DoctorCalendar.SLOTS_PER_DAY;
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rescheduleToAnOccupiedSlotKeepsTheOriginalBooking() throws Exception {
+        Appointment first = book("Ann");
+        Appointment second = book("Bob");
+
+        BookingResult result = service.rescheduleAppointment(first.getId(), second.getTime());
+        assertFalse(result.isConfirmed());
+        assertTrue(result.getMessage().contains("already booked"), result.getMessage());
+
+        assertSame(first, service.findAppointment(first.getId()));
+        assertSame(second, service.findAppointment(second.getId()));
+        assertEquals(List.of(first, second), service.appointmentStore().appointmentsFor(DOCTOR));
+        assertEquals(List.of(first), byPatient("Ann"));
+        assertLedgerMatchesIndex(Map.of(first.getId(), first, second.getId(), second));
+
+        // The failed move neither freed the original slot nor kept the one it tried for
+        assertEquals(SLOTS_PER_DOCTOR - 2, fillCalendar());
+    }
+
+    @Test
+    void rescheduleMovesTheBookingAndFreesTheOldSlot() throws Exception {
+        Appointment booked = book("Ann");
+        LocalDateTime later = DoctorCalendar.toDateTime(firstSlot + 40);
+
+        BookingResult result = service.rescheduleAppointment(booked.getId(), later);
+        assertTrue(result.isConfirmed(), result.getMessage());
+
+        Appointment moved = service.findAppointment(booked.getId());
+        assertEquals(later, moved.getTime());
+        assertEquals(List.of(moved), service.appointmentStore().appointmentsFor(DOCTOR));
+        assertEquals(List.of(moved), byPatient("Ann"));
+        assertEquals(booked.getTime(), book("Bob").getTime(), "the old slot was not freed");
+    }
+
+    @Test
+    void rescheduleRacingACancelLeavesOneConsistentOutcome() throws Exception {
+        int rounds = 200;
+        Map<Long, Appointment> expected = new HashMap<>();
+        for (int round = 0; round < rounds; round++) {
+            Appointment appointment = book("Patient " + round);
+            // Targets lie beyond the days the bookings fill, one per round
+            LocalDateTime target = DoctorCalendar.toDateTime(firstSlot + 10 * DoctorCalendar.SLOTS_PER_DAY + round);
+
+            CountDownLatch go = new CountDownLatch(1);
+            Future<BookingResult> reschedule = executor.submit(() -> {
+                go.await();
+                return service.rescheduleAppointment(appointment.getId(), target);
+            });
+            Future<BookingResult> cancel = executor.submit(() -> {
+                go.await();
+                return service.cancelAppointment(appointment.getId());
+            });
+            go.countDown();
+            boolean rescheduled = reschedule.get(10, TimeUnit.SECONDS).isConfirmed();
+            boolean wasCancelled = cancel.get(10, TimeUnit.SECONDS).isConfirmed();
+
+            // Both succeed only if the cancel came after the move
+            assertTrue(rescheduled || wasCancelled, "neither change of round " + round + " went through");
+            Appointment found = service.findAppointment(appointment.getId());
+            if (wasCancelled) {
+                assertNull(found, "round " + round + " was cancelled but is still stored");
+                assertEquals(List.of(), byPatient(appointment.getPatientName()));
+            } else {
+                assertEquals(target, found.getTime(), "round " + round);
+                assertEquals(List.of(found), byPatient(appointment.getPatientName()));
+                expected.put(found.getId(), found);
+            }
+        }
+        assertLedgerMatchesIndex(expected);
+
+        // Every slot of a surviving booking is still claimed and every other slot is free again
+        assertEquals(SLOTS_PER_DOCTOR - expected.size(), fillCalendar());
+        assertEquals(SLOTS_PER_DOCTOR, service.appointmentStore().count(DOCTOR));
+        assertEquals(SLOTS_PER_DOCTOR, service.getTotalAppointments());
+    }
+
+    private Appointment book(String patientName) throws Exception {
+        BookingResult result = service.bookAppointment(DOCTOR, patientName);
+        assertTrue(result.isConfirmed(), result.getMessage());
+        return result.getAppointment();
+    }
+
+    private List<Appointment> byPatient(String patientName) {
+        AppointmentPage page = service.appointmentStore().findByPatient(patientName, AppointmentPage.FIRST_PAGE, 10);
+        return page.getAppointments();
+    }
+
+    /**
+     * Books the doctor's calendar full
+     * @return number of bookings that went through
+     */
+    private int fillCalendar() throws Exception {
+        int booked = 0;
+        while (service.bookAppointment(DOCTOR, "Filler " + booked).isConfirmed()) {
+            booked++;
+        }
+        return booked;
+    }
+
+    private void assertLedgerMatchesIndex(Map<Long, Appointment> expected) {
+        AppointmentStore store = service.appointmentStore();
+        List<Appointment> ledger = store.appointmentsFor(DOCTOR);
+        assertEquals(expected.size(), ledger.size(), "appointments in the ledger");
+        assertEquals(expected.size(), store.count(DOCTOR), "ledger count");
+        assertEquals(expected.size(), store.totalCount(), "store total");
+        for (Appointment appointment : ledger) {
+            assertSame(expected.get(appointment.getId()), appointment, "ledger entry " + appointment.getDisplayId());
+            assertSame(appointment, store.findById(appointment.getId()), "index entry " + appointment.getDisplayId());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.BookingResult;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Concurrent bookings through the service must all land in the store, once each,
+ * and never share a slot
+ */
+class AppointmentStoreConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int SLOTS_PER_DOCTOR = DoctorCalendar.HORIZON_DAYS * DoctorCalendar.SLOTS_PER_DAY;
+
+    @Test
+    void concurrentBookingsForOneDoctorFillEverySlotOnce() throws Exception {
+        HospitalServiceImpl service = serviceWithDoctors(1);
+
+        // More attempts than the doctor has slots, so the calendar runs full under contention
+        int confirmed = bookConcurrently(service, 1, SLOTS_PER_DOCTOR / THREADS + 50);
+
+        assertEquals(SLOTS_PER_DOCTOR, confirmed);
+        assertStoreMatches(service, 1, confirmed);
+    }
+
+    @Test
+    void concurrentBookingsForManyDoctorsAreAllRecorded() throws Exception {
+        int doctors = 64;
+        HospitalServiceImpl service = serviceWithDoctors(doctors);
+
+        int confirmed = bookConcurrently(service, doctors, 1_000);
+
+        assertEquals(THREADS * 1_000, confirmed);
+        assertStoreMatches(service, doctors, confirmed);
+    }
+
+    private static HospitalServiceImpl serviceWithDoctors(int count) throws Exception {
+        DoctorDirectory directory = new DoctorDirectory();
+        for (int i = 0; i < count; i++) {
+            directory.register("Dr. Test " + i, "Specialty " + (i % 8), "Test doctor");
+        }
+        return new HospitalServiceImpl(directory, 0, null);
+    }
+
+    /**
+     * Starts every thread at once; each books bookingsPerThread appointments round-robin over the doctors
+     * @return number of confirmed bookings
+     */
+    private static int bookConcurrently(HospitalServiceImpl service, int doctors, int bookingsPerThread)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int confirmed = 0;
+                    for (int i = 0; i < bookingsPerThread; i++) {
+                        BookingResult result = service.bookAppointment((thread + i) % doctors, "Patient " + thread + "-" + i);
+                        if (result.isConfirmed()) {
+                            confirmed++;
+                        }
+                    }
+                    return confirmed;
+                }));
+            }
+            start.countDown();
+            int confirmed = 0;
+            for (Future<Integer> result : results) {
+                confirmed += result.get(60, TimeUnit.SECONDS);
+            }
+            return confirmed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertStoreMatches(HospitalServiceImpl service, int doctors, int confirmed) {
+        assertEquals(confirmed, service.getTotalAppointments(), "store total");
+
+        AppointmentStore store = service.appointmentStore();
+        Set<Long> ids = new HashSet<>();
+        int stored = 0;
+        for (int doctorId = 0; doctorId < doctors; doctorId++) {
+            List<Appointment> appointments = store.appointmentsFor(doctorId);
+            assertEquals(appointments.size(), store.count(doctorId), "ledger count of doctor " + doctorId);
+            Set<Long> slots = new HashSet<>();
+            for (Appointment appointment : appointments) {
+                assertTrue(slots.add(appointment.getEpochMinute()),
+                        "doctor " + doctorId + " double-booked at " + appointment.getTime());
+                assertTrue(ids.add(appointment.getId()), "duplicate appointment ID " + appointment.getDisplayId());
+            }
+            stored += appointments.size();
+        }
+        assertEquals(confirmed, stored, "appointments across ledgers");
+    }
+}
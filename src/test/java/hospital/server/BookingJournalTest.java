@@ -0,0 +1,271 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.Doctor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes records, damages the files the way a crash would, reopens the journal and
+ * checks what recovery brings back
+ */
+class BookingJournalTest {
+
+    private static final long FIRST_MINUTE = 29_000_000;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void groupCommittedAppendsFromManyThreadsAreAllReplayed() throws Exception {
+        int threads = 8;
+        int perThread = 250;
+        BookingJournal journal = open(Long.MAX_VALUE);
+        journal.start(List::of, List::of);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                done.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i += 5) {
+                        // Single appends and batches share group commits
+                        journal.append(appointment(thread * perThread + i));
+                        List<Appointment> batch = new ArrayList<>();
+                        for (int j = 1; j < 5; j++) {
+                            batch.add(appointment(thread * perThread + i + j));
+                        }
+                        journal.appendAll(batch);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+            journal.close();
+        }
+
+        Store recovered = recover();
+        assertEquals(threads * perThread, recovered.replayed);
+        assertEquals(threads * perThread, recovered.appointments.size());
+        for (long id = 0; id < threads * perThread; id++) {
+            assertEquals(appointment(id).getPatientName(), recovered.appointments.get(id).getPatientName());
+        }
+    }
+
+    @Test
+    void tornTailRecordIsDroppedAndLaterSegmentsStillReplay() throws Exception {
+        writeBookings(0, 10);
+        Path segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        Store recovered = recover();
+        assertEquals(9, recovered.appointments.size());
+        assertFalse(recovered.appointments.containsKey(9L));
+
+        // The next run writes to a new segment behind the torn one
+        writeBookings(10, 5);
+        Store again = recover();
+        assertEquals(14, again.appointments.size());
+        assertFalse(again.appointments.containsKey(9L));
+        assertTrue(again.appointments.containsKey(14L));
+    }
+
+    @Test
+    void tornRecordHeaderIsDropped() throws Exception {
+        writeBookings(0, 10);
+        Path segment = onlySegment();
+        // Half a header of an eleventh record
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40}));
+        }
+
+        assertEquals(10, recover().appointments.size());
+    }
+
+    @Test
+    void recordWithWrongChecksumEndsTheSegment() throws Exception {
+        writeBookings(0, 10);
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        Store recovered = recover();
+        assertEquals(9, recovered.replayed);
+        assertFalse(recovered.appointments.containsKey(9L));
+    }
+
+    @Test
+    void recoversFromSnapshotPlusLaterSegments() throws Exception {
+        Map<Long, Appointment> store = new ConcurrentHashMap<>();
+        BookingJournal journal = open(10);
+        journal.start(store::values, List::of);
+        for (long id = 0; id < 12; id++) {
+            // Into the store first, as the service does, so a snapshot never misses a journaled record
+            Appointment appointment = appointment(id);
+            store.put(id, appointment);
+            journal.append(appointment);
+        }
+        store.remove(3L);
+        journal.appendCancelled(3);
+        awaitSnapshot();
+
+        for (long id = 12; id < 20; id++) {
+            Appointment appointment = appointment(id);
+            store.put(id, appointment);
+            journal.append(appointment);
+        }
+        Appointment moved = new Appointment(5, 0, FIRST_MINUTE + 999, "Patient 5");
+        store.put(5L, moved);
+        journal.appendRescheduled(5, moved.getEpochMinute());
+        store.remove(13L);
+        journal.appendCancelled(13);
+        journal.close();
+
+        Store recovered = recover();
+        assertEquals(store.keySet(), recovered.appointments.keySet());
+        assertEquals(FIRST_MINUTE + 999, recovered.appointments.get(5L).getEpochMinute());
+    }
+
+    @Test
+    void rosterRecordsReplayInOrder() throws Exception {
+        BookingJournal journal = open(Long.MAX_VALUE);
+        journal.start(List::of, List::of);
+        journal.appendRoster(BookingJournal.doctorAddedRecord(new Doctor(5, "Dr. Journal", "Neurologist", "")));
+        journal.appendRoster(BookingJournal.shiftSetRecord(5, 4, 12));
+        journal.appendRoster(BookingJournal.leaveSetRecord(5, 20_000, 20_003));
+        journal.appendRoster(BookingJournal.doctorRemovedRecord(5));
+        journal.close();
+
+        Store recovered = recover();
+        assertEquals(List.of("added 5 Dr. Journal", "shift 5 4-12", "leave 5 20000-20003", "removed 5"),
+                recovered.roster);
+    }
+
+    private BookingJournal open(long snapshotInterval) throws IOException {
+        return new BookingJournal(dataDir, false, snapshotInterval);
+    }
+
+    /**
+     * Runs the journal once: recovers what is there, then journals count new bookings from firstId
+     */
+    private void writeBookings(long firstId, int count) throws IOException {
+        BookingJournal journal = open(Long.MAX_VALUE);
+        journal.recover(new Store());
+        journal.start(List::of, List::of);
+        for (long id = firstId; id < firstId + count; id++) {
+            journal.append(appointment(id));
+        }
+        journal.close();
+    }
+
+    private Store recover() throws IOException {
+        Store store = new Store();
+        store.replayed = open(Long.MAX_VALUE).recover(store);
+        return store;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            List<Path> segments = files.filter(path -> path.getFileName().toString().startsWith("journal-")).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    /**
+     * Waits until a snapshot is written and the first segment, which it supersedes, is deleted
+     */
+    private void awaitSnapshot() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            List<String> names;
+            try (Stream<Path> files = Files.list(dataDir)) {
+                names = files.map(path -> path.getFileName().toString()).toList();
+            }
+            if (names.stream().anyMatch(name -> name.endsWith(".dat")) && !names.contains("journal-0.log")) {
+                return;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "no snapshot replaced the first segment");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Appointment appointment(long id) {
+        return new Appointment(id, (int) (id % 5), FIRST_MINUTE + id * DoctorCalendar.SLOT_MINUTES, "Patient " + id);
+    }
+
+    /**
+     * Rebuilds appointments from replayed records, and lists the roster records in order
+     */
+    private static final class Store implements BookingJournal.Replayer {
+
+        final Map<Long, Appointment> appointments = new ConcurrentHashMap<>();
+        final List<String> roster = new ArrayList<>();
+        long replayed;
+
+        @Override
+        public void booked(Appointment appointment) {
+            appointments.put(appointment.getId(), appointment);
+        }
+
+        @Override
+        public void cancelled(long appointmentId) {
+            appointments.remove(appointmentId);
+        }
+
+        @Override
+        public void rescheduled(long appointmentId, long epochMinute) {
+            appointments.computeIfPresent(appointmentId, (id, appointment) -> new Appointment(id,
+                    appointment.getDoctorId(), epochMinute, appointment.getPatientName()));
+        }
+
+        @Override
+        public void doctorAdded(Doctor doctor) {
+            roster.add("added " + doctor.getId() + " " + doctor.getName());
+        }
+
+        @Override
+        public void doctorRemoved(int doctorId) {
+            roster.add("removed " + doctorId);
+        }
+
+        @Override
+        public void shiftSet(int doctorId, int startSlot, int endSlot) {
+            roster.add("shift " + doctorId + " " + startSlot + "-" + endSlot);
+        }
+
+        @Override
+        public void leaveSet(int doctorId, long fromEpochDay, long toEpochDay) {
+            roster.add("leave " + doctorId + " " + fromEpochDay + "-" + toEpochDay);
+        }
+    }
+}
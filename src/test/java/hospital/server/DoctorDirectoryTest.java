@@ -0,0 +1,107 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Doctor;
+import hospital.interfaces.DoctorDirectoryDelta;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Versions, change deltas and lookups of the doctor directory
+ */
+class DoctorDirectoryTest {
+
+    @Test
+    void deltaHoldsOnlyTheChangesSinceAVersion() {
+        DoctorDirectory directory = new DoctorDirectory();
+        Doctor first = directory.register("Dr. One", "Cardiologist", "");
+        long version = directory.version();
+
+        DoctorDirectoryDelta unchanged = directory.changesSince(version);
+        assertTrue(unchanged.isEmpty());
+        assertEquals(version, unchanged.getVersion());
+
+        Doctor second = directory.register("Dr. Two", "Neurologist", "");
+        assertTrue(directory.remove(first.getId()));
+        DoctorDirectoryDelta delta = directory.changesSince(version);
+        assertFalse(delta.isFullReload());
+        assertEquals(version + 2, delta.getVersion());
+        assertEquals(directory.version(), delta.getVersion());
+        assertArrayEquals(new Doctor[]{second}, delta.getAdded());
+        assertArrayEquals(new int[]{first.getId()}, delta.getRemovedIds());
+    }
+
+    @Test
+    void doctorAddedAndRemovedSinceAVersionIsOnlyReportedAsRemoved() {
+        DoctorDirectory directory = new DoctorDirectory();
+        long version = directory.version();
+        Doctor passing = directory.register("Dr. Passing", "Cardiologist", "");
+        directory.remove(passing.getId());
+
+        DoctorDirectoryDelta delta = directory.changesSince(version);
+        assertEquals(0, delta.getAdded().length);
+        assertArrayEquals(new int[]{passing.getId()}, delta.getRemovedIds());
+    }
+
+    @Test
+    void unknownVersionGetsTheWholeDirectory() {
+        DoctorDirectory directory = new DoctorDirectory();
+        Doctor kept = directory.register("Dr. Kept", "Cardiologist", "");
+        Doctor removed = directory.register("Dr. Removed", "Cardiologist", "");
+        directory.remove(removed.getId());
+
+        for (long version : new long[]{-1, 0, directory.version() + 1}) {
+            DoctorDirectoryDelta delta = directory.changesSince(version);
+            assertTrue(delta.isFullReload(), "version " + version);
+            assertArrayEquals(new Doctor[]{kept}, delta.getAdded());
+            assertEquals(0, delta.getRemovedIds().length, "a full reload lists no removals");
+        }
+    }
+
+    @Test
+    void changeLogKeepsEveryChangeAsItGrows() {
+        DoctorDirectory directory = new DoctorDirectory();
+        long version = directory.version();
+        for (int i = 0; i < 100; i++) {
+            directory.register("Dr. " + i, "Specialty " + (i % 3), "");
+        }
+        for (int id = 0; id < 100; id += 2) {
+            directory.remove(id);
+        }
+
+        DoctorDirectoryDelta delta = directory.changesSince(version + 10);
+        assertEquals(version + 150, delta.getVersion());
+        assertArrayEquals(IntStream.range(10, 100).filter(id -> id % 2 == 1).toArray(),
+                Arrays.stream(delta.getAdded()).mapToInt(Doctor::getId).toArray());
+        assertEquals(50, delta.getRemovedIds().length);
+    }
+
+    @Test
+    void lookupsFollowAddsAndRemovals() {
+        DoctorDirectory directory = new DoctorDirectory();
+        Doctor heart = directory.register("Dr. Lee", "Cardiologist", "");
+        Doctor brain = directory.register("Dr. Lee", "Neurologist", "");
+        Doctor other = directory.register("Dr. Park", "Cardiologist", "");
+
+        assertEquals(heart.getId(), directory.idOf("dr. lee"));
+        assertEquals(brain.getId(), directory.idOf(" Dr. Lee - Neurologist "));
+        assertArrayEquals(new int[]{heart.getId(), other.getId()}, directory.idsWithSpecialization("cardiologist"));
+        assertThrows(IllegalArgumentException.class, () -> directory.register("Dr. Lee", "Cardiologist", ""));
+
+        directory.remove(heart.getId());
+        assertNull(directory.get(heart.getId()));
+        assertEquals(brain.getId(), directory.idOf("Dr. Lee"), "the plain name falls back to the other Dr. Lee");
+        assertEquals(-1, directory.idOf("Dr. Lee - Cardiologist"));
+        assertArrayEquals(new int[]{other.getId()}, directory.idsWithSpecialization("Cardiologist"));
+        assertArrayEquals(new Doctor[]{brain, other}, directory.all());
+        assertEquals(3, directory.size(), "IDs of removed doctors stay assigned");
+        assertEquals(3, directory.register("Dr. Lee", "Cardiologist", "").getId());
+    }
+}
@@ -0,0 +1,121 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Requests the gateway cannot make sense of are answered with a 4xx status, never a 500
+ */
+class HttpGatewayTest {
+
+    private static final int MAX_BODY_BYTES = 1024;
+
+    private HttpGateway gateway;
+
+    @BeforeEach
+    void start() throws Exception {
+        HospitalServiceImpl service = new HospitalServiceImpl(HospitalServiceImpl.createDefaultDirectory(), 0, null);
+        gateway = new HttpGateway(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0,
+                MAX_BODY_BYTES);
+        gateway.start();
+    }
+
+    @AfterEach
+    void stop() {
+        gateway.stop(0);
+    }
+
+    @Test
+    void validRequestSucceeds() throws Exception {
+        Response response = request("POST", "/api/appointments", "{\"doctorId\": 1, \"patientName\": \"Ann\"}");
+        assertEquals(201, response.status, response.body);
+        assertEquals(200, request("GET", "/api/doctors", null).status);
+        assertEquals(404, request("GET", "/api/doctors?name=Dr.%20Nobody", null).status);
+    }
+
+    @Test
+    void malformedJsonIsABadRequest() throws Exception {
+        Response response = request("POST", "/api/appointments", "{\"doctorId\": 1, \"patientName\": ");
+        assertEquals(400, response.status);
+        assertTrue(response.body.contains("Invalid JSON"), response.body);
+
+        assertEquals(400, request("POST", "/api/appointments", "[1, 2]").status);
+        assertEquals(400, request("POST", "/api/appointments/batch", "{}").status);
+        assertEquals(400, request("POST", "/api/holds", "{\"doctorId\": 1, \"seconds\": 1e2}").status);
+    }
+
+    @Test
+    void fieldsOfTheWrongTypeOrOutOfRangeAreBadRequests() throws Exception {
+        Response outOfRange = request("POST", "/api/appointments",
+                "{\"doctorId\": 4294967296, \"patientName\": \"Ann\"}");
+        assertEquals(400, outOfRange.status);
+        assertTrue(outOfRange.body.contains("doctorId is out of range"), outOfRange.body);
+
+        assertEquals(400, request("POST", "/api/appointments",
+                "{\"doctorId\": 99999999999999999999, \"patientName\": \"Ann\"}").status);
+        assertEquals(400, request("POST", "/api/appointments", "{\"doctorId\": \"1\", \"patientName\": \"Ann\"}")
+                .status);
+        assertEquals(400, request("POST", "/api/appointments", "{\"doctorId\": 1}").status);
+        assertEquals(400, request("GET", "/api/doctors/99999999999/availability", null).status);
+        assertEquals(400, request("GET", "/api/appointments?day=2025-03-01&limit=lots", null).status);
+        assertEquals(400, request("GET", "/api/appointments/not-an-id", null).status);
+    }
+
+    @Test
+    void badQueryEncodingIsABadRequest() throws Exception {
+        assertEquals(400, request("GET", "/api/doctors?name=%zz", null).status);
+        assertEquals(400, request("GET", "/api/appointments?day=2025-03-01&cursor=%2", null).status);
+    }
+
+    @Test
+    void queryWithMalformedEscapesIsRefusedWhenDecoded() throws Exception {
+        assertEquals(Map.of("name", "Dr. Who", "flag", ""), HttpGateway.parseQuery("name=Dr.+Who&flag"));
+        for (String rawQuery : new String[]{"name=%zz", "name=%2", "%=1"}) {
+            HttpGateway.HttpError error = assertThrows(HttpGateway.HttpError.class,
+                    () -> HttpGateway.parseQuery(rawQuery), rawQuery);
+            assertEquals(400, error.status);
+        }
+    }
+
+    @Test
+    void oversizedBodyAndWrongMethodAreRefused() throws Exception {
+        String name = "x".repeat(MAX_BODY_BYTES);
+        assertEquals(413, request("POST", "/api/appointments", "{\"doctorId\": 1, \"patientName\": \"" + name + "\"}")
+                .status);
+        assertEquals(405, request("PUT", "/api/doctors", null).status);
+        assertEquals(404, request("GET", "/api/nothing-here", null).status);
+    }
+
+    /**
+     * Sends one request over a plain socket, so request lines an HTTP client would refuse to build still go out
+     */
+    private Response request(String method, String target, String body) throws IOException {
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), gateway.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((method + " " + target + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n"
+                    + "Content-Type: application/json\r\nContent-Length: " + content.length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            // HTTP/1.1 <status> <reason>
+            return new Response(Integer.parseInt(response.substring(9, 12)), response);
+        }
+    }
+
+    private record Response(int status, String body) {
+    }
+}
@@ -0,0 +1,54 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Request bodies parse to the expected Java values, and anything that is not JSON is refused
+ */
+class JsonReaderTest {
+
+    @Test
+    void parsesObjectsArraysAndScalars() {
+        Object parsed = JsonReader.parse(" {\"doctorId\": 12, \"patientName\": \"Ann \\\"A\\\" \\u00e9\","
+                + " \"scores\": [1.5, -2, 3e2], \"urgent\": true, \"note\": null, \"empty\": {}} ");
+
+        Map<?, ?> object = (Map<?, ?>) parsed;
+        assertEquals(12L, object.get("doctorId"));
+        assertEquals("Ann \"A\" \u00e9", object.get("patientName"));
+        assertEquals(List.of(1.5, -2L, 300.0), object.get("scores"));
+        assertEquals(Boolean.TRUE, object.get("urgent"));
+        assertTrue(object.containsKey("note"));
+        assertNull(object.get("note"));
+        assertEquals(Map.of(), object.get("empty"));
+        assertEquals(List.of(), JsonReader.parse("[]"));
+    }
+
+    @Test
+    void wholeNumbersBeyondLongAreRefused() {
+        assertEquals(Long.MAX_VALUE, JsonReader.parse(Long.toString(Long.MAX_VALUE)));
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.parse("9223372036854775808"));
+    }
+
+    @Test
+    void malformedDocumentsAreRefused() {
+        for (String text : List.of("", "{", "{\"doctorId\" 1}", "{doctorId: 1}", "[1, 2", "[1 2]", "\"open",
+                "\"bad \\x escape\"", "\"\\u12\"", "tru", "nul", "1-2", "{} {}", "{\"a\": 1,}")) {
+            assertThrows(IllegalArgumentException.class, () -> JsonReader.parse(text), text);
+        }
+    }
+
+    @Test
+    void deeplyNestedDocumentsAreRefused() {
+        String nested = "[".repeat(40) + "]".repeat(40);
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.parse(nested));
+        String shallow = "[".repeat(10) + "]".repeat(10);
+        assertEquals(1, ((List<?>) JsonReader.parse(shallow)).size());
+    }
+}
@@ -0,0 +1,289 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.BookingResult;
+import hospital.interfaces.Doctor;
+import hospital.interfaces.HospitalService;
+import hospital.interfaces.Partitioning;
+import hospital.interfaces.ReplicaRefusedException;
+import hospital.interfaces.ReplicationSource;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A primary and a replica in one JVM, each behind its own RMI registry, talking
+ * over loopback exactly as two servers would
+ */
+class ReplicationLoopbackTest {
+
+    private static final long CONVERGE_MILLIS = 10_000;
+    private static final int PRIMARY_NODE_ID = 0;
+    private static final int REPLICA_NODE_ID = 1;
+
+    @TempDir
+    Path replicaDataDir;
+
+    private final List<Remote> primaryExports = new ArrayList<>();
+    private final List<Remote> replicaExports = new ArrayList<>();
+    private int primaryPort;
+    private HospitalServiceImpl primary;
+    private PrimaryFence primaryFence;
+    private ReplicationLog replicationLog;
+    private HospitalService primaryStub;
+
+    private HospitalServiceImpl replica;
+    private PrimaryFence replicaFence;
+    private BookingJournal replicaJournal;
+    private ReplicaFollower follower;
+    private HospitalService replicaStub;
+
+    @BeforeEach
+    void startPrimary() throws Exception {
+        primary = new HospitalServiceImpl(HospitalServiceImpl.createDefaultDirectory(), PRIMARY_NODE_ID, null);
+        primaryFence = new PrimaryFence(null);
+        replicationLog = primary.startReplication(primaryFence);
+        primaryPort = freePort();
+        exportPrimary();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (follower != null) {
+            follower.stop();
+        }
+        unexport(primaryExports);
+        unexport(replicaExports);
+        if (replicaJournal != null) {
+            replicaJournal.close();
+        }
+    }
+
+    @Test
+    void replicaLoadsSnapshotThenFollowsLiveChanges() throws Exception {
+        // Booked before the replica starts, so it arrives in the snapshot
+        List<Appointment> booked = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            booked.add(book(primary, i % 5, "Early " + i));
+        }
+        startReplica(REPLICA_NODE_ID, 0);
+        awaitCaughtUp();
+
+        for (int i = 0; i < 50; i++) {
+            booked.add(book(primary, i % 5, "Live " + i));
+        }
+        Appointment cancelled = booked.remove(0);
+        assertTrue(primary.cancelAppointment(cancelled.getId()).isConfirmed());
+        Appointment moved = booked.remove(0);
+        LocalDateTime newTime = primary.getNextAvailableSlot(moved.getDoctorId());
+        assertTrue(primary.rescheduleAppointment(moved.getId(), newTime).isConfirmed());
+        Doctor added = primary.addDoctor("Dr. Loopback", "Neurologist", "Added while replicating");
+        awaitCaughtUp();
+
+        assertEquals(primary.getTotalAppointments(), replica.getTotalAppointments());
+        for (Appointment appointment : booked) {
+            assertSameAppointment(appointment, replicaStub.findAppointment(appointment.getId()));
+        }
+        assertNull(replicaStub.findAppointment(cancelled.getId()));
+        assertEquals(Appointment.toEpochMinute(newTime),
+                replicaStub.findAppointment(moved.getId()).getEpochMinute());
+        assertEquals(added.getId(), replicaStub.findDoctorId(added.getName()));
+        assertEquals(primary.getAvailableDoctors().length, replicaStub.getAvailableDoctors().length);
+    }
+
+    @Test
+    void replicaRefusesBookings() throws Exception {
+        startReplica(REPLICA_NODE_ID, 0);
+        awaitCaughtUp();
+
+        assertRefused(() -> replicaStub.bookAppointment(0, "Turned Away"));
+        assertEquals(0, replica.getTotalAppointments());
+    }
+
+    @Test
+    void replicaServesAvailabilityButNotWaitlistStatus() throws Exception {
+        startReplica(REPLICA_NODE_ID, 0);
+        awaitCaughtUp();
+
+        assertEquals(primary.isDoctorAvailable(0), replicaStub.isDoctorAvailable(0));
+        assertRefused(() -> replicaStub.getWaitlistStatus(1));
+    }
+
+    @Test
+    void promotedReplicaBooksUnderItsOwnNodeIdAndFencesTheOldPrimary() throws Exception {
+        Appointment before = book(primary, 0, "Before Failover");
+        startReplica(REPLICA_NODE_ID, 0);
+        awaitCaughtUp();
+
+        follower.promote();
+
+        assertTrue(follower.isPrimary());
+        assertEquals(1, replicaFence.getGeneration());
+        Appointment after = replicaStub.bookAppointment(0, "After Failover").getAppointment();
+        assertNotNull(after);
+        assertEquals(REPLICA_NODE_ID, Partitioning.nodeIdOf(after.getId()));
+        assertTrue(after.getId() > before.getId());
+        assertSameAppointment(before, replicaStub.findAppointment(before.getId()));
+
+        await(primaryFence::isFenced, "old primary was not fenced");
+        assertRefused(() -> primaryStub.bookAppointment(0, "Split Brain"));
+        assertNotNull(primaryStub.findAppointment(before.getId()));
+    }
+
+    @Test
+    void replicaTakesOverWhenThePrimaryStopsAndFencesItOnReturn() throws Exception {
+        List<Appointment> booked = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            booked.add(book(primary, i % 5, "Patient " + i));
+        }
+        startReplica(REPLICA_NODE_ID, 300);
+        awaitCaughtUp();
+
+        unexport(primaryExports);
+        await(follower::isPrimary, "replica did not promote itself");
+
+        // Everything the primary confirmed before it stopped is on the new primary
+        for (Appointment appointment : booked) {
+            assertSameAppointment(appointment, replicaStub.findAppointment(appointment.getId()));
+        }
+        assertTrue(replicaStub.bookAppointment(1, "After Takeover").isConfirmed());
+
+        // The old primary comes back at the same address and learns it was replaced
+        exportPrimary();
+        await(primaryFence::isFenced, "returning primary was not fenced");
+        assertRefused(() -> primaryStub.bookAppointment(0, "Split Brain"));
+    }
+
+    @Test
+    void replicaSharingThePrimaryNodeIdIsNotPromoted() throws Exception {
+        startReplica(PRIMARY_NODE_ID, 0);
+        awaitCaughtUp();
+
+        assertThrows(IllegalStateException.class, follower::promote);
+        assertFalse(follower.isPrimary());
+        assertFalse(primaryFence.isFenced());
+    }
+
+    @Test
+    void fencedPrimaryStaysFencedAfterRestart() throws Exception {
+        PrimaryFence fence = PrimaryFence.open(replicaDataDir);
+        fence.startGeneration(2);
+        assertFalse(fence.fence(2));
+        assertTrue(fence.fence(3));
+
+        PrimaryFence restarted = PrimaryFence.open(replicaDataDir);
+        assertEquals(2, restarted.getGeneration());
+        assertEquals(3, restarted.getFencedBy());
+        assertTrue(restarted.isFenced());
+    }
+
+    /**
+     * Exports the primary's replication log and service (behind its fence) in a registry on primaryPort
+     */
+    private void exportPrimary() throws IOException {
+        Registry registry = LocateRegistry.createRegistry(primaryPort);
+        primaryExports.add(registry);
+        registry.rebind(ReplicationSource.SERVICE_NAME, export(replicationLog, primaryExports));
+        primaryStub = (HospitalService) export(primaryFence.protect(HospitalService.class, primary), primaryExports);
+    }
+
+    /**
+     * Starts a replica that follows the primary and, when promoted, journals to replicaDataDir
+     */
+    private void startReplica(int nodeId, long autoPromoteMillis) throws Exception {
+        replica = new HospitalServiceImpl(HospitalServiceImpl.createDefaultDirectory(), nodeId, null);
+        replicaFence = new PrimaryFence(null);
+        String primaryURL = "rmi://localhost:" + primaryPort + "/" + ReplicationSource.SERVICE_NAME;
+        follower = new ReplicaFollower(primaryURL, replica, 5_000, autoPromoteMillis, generation -> {
+            replicaFence.startGeneration(generation);
+            replicaJournal = new BookingJournal(replicaDataDir, false, Long.MAX_VALUE);
+            replica.promote(replicaJournal, replicaFence);
+        });
+
+        Registry registry = LocateRegistry.createRegistry(freePort());
+        replicaExports.add(registry);
+        HospitalService gated = follower.protect(HospitalService.class,
+                replicaFence.protect(HospitalService.class, replica));
+        registry.rebind(Partitioning.SERVICE_NAME, export(gated, replicaExports));
+        replicaStub = (HospitalService) registry.lookup(Partitioning.SERVICE_NAME);
+        follower.start();
+    }
+
+    private static Appointment book(HospitalService service, int doctorId, String patientName) throws Exception {
+        BookingResult result = service.bookAppointment(doctorId, patientName);
+        assertTrue(result.isConfirmed(), result.getMessage());
+        return result.getAppointment();
+    }
+
+    private void awaitCaughtUp() throws InterruptedException {
+        await(() -> follower.getAppliedSequence() >= replicationLog.getHeadSequence() && follower.getLagMillis() >= 0,
+                "replica did not catch up");
+    }
+
+    private static void await(BooleanSupplier condition, String failure) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONVERGE_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, failure);
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * RMI wraps remote exceptions thrown by the server in a ServerException
+     */
+    private static void assertRefused(RemoteCall call) {
+        RemoteException refused = assertThrows(RemoteException.class, call::run);
+        assertNotNull(ReplicaRefusedException.find(refused), refused.toString());
+    }
+
+    private static void assertSameAppointment(Appointment expected, Appointment actual) {
+        assertNotNull(actual, "Missing on the replica: " + expected);
+        assertEquals(expected.getDoctorId(), actual.getDoctorId());
+        assertEquals(expected.getEpochMinute(), actual.getEpochMinute());
+        assertEquals(expected.getPatientName(), actual.getPatientName());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+
+    private static Remote export(Remote remote, List<Remote> exports) throws IOException {
+        Remote stub = UnicastRemoteObject.exportObject(remote, 0);
+        exports.add(remote);
+        return stub;
+    }
+
+    private static void unexport(List<Remote> exports) throws IOException {
+        for (Remote remote : exports) {
+            UnicastRemoteObject.unexportObject(remote, true);
+        }
+        exports.clear();
+    }
+
+    @FunctionalInterface
+    private interface RemoteCall {
+        void run() throws RemoteException;
+    }
+}
@@ -0,0 +1,171 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.Doctor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A snapshot that reads the roster right after a roster change is journaled, before
+ * the service has applied it, must still contain the change: the journal drops the
+ * segment holding the record once the snapshot is written
+ */
+class RosterSnapshotTest {
+
+    @TempDir
+    Path dataDir;
+
+    private SnapshottingJournal journal;
+    private HospitalServiceImpl service;
+
+    @BeforeEach
+    void start() throws Exception {
+        journal = new SnapshottingJournal(dataDir);
+        service = new HospitalServiceImpl(HospitalServiceImpl.createDefaultDirectory(), 0, journal);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    void snapshotDuringAnAddIncludesTheDoctor() throws Exception {
+        Doctor added = service.addDoctor("Dr. Snapshot", "Neurologist", "Added during a snapshot");
+
+        assertTrue(journal.awaitSnapshot().doctors.contains(added.getId()));
+    }
+
+    @Test
+    void snapshotDuringARemovalIncludesTheRemoval() throws Exception {
+        Doctor added = service.addDoctor("Dr. Leaving", "Neurologist", "Removed during a snapshot");
+        journal.awaitSnapshot();
+
+        assertTrue(service.removeDoctor(added.getId()));
+
+        assertFalse(journal.awaitSnapshot().doctors.contains(added.getId()));
+    }
+
+    @Test
+    void snapshotDuringShiftAndLeaveChangesIncludesThem() throws Exception {
+        service.setShift(1, LocalTime.of(10, 0), LocalTime.of(12, 0));
+        assertArrayEquals(new long[]{DoctorCalendar.boundaryOf(LocalTime.of(10, 0)),
+                DoctorCalendar.boundaryOf(LocalTime.of(12, 0))}, journal.awaitSnapshot().shifts.get(1));
+
+        LocalDate from = LocalDate.now().plusDays(3);
+        service.setLeave(1, from, from.plusDays(2));
+        assertArrayEquals(new long[]{from.toEpochDay(), from.plusDays(2).toEpochDay()},
+                journal.awaitSnapshot().leave.get(1));
+    }
+
+    /**
+     * Journal that, like a snapshot racing the caller, reads the roster from another thread as soon as a
+     * roster record is durable, and gives that read a moment to finish before the service may apply the change
+     */
+    private static final class SnapshottingJournal extends BookingJournal {
+
+        private Supplier<List<byte[]>> rosterSource;
+        private Thread reader;
+        private volatile RosterState snapshot;
+
+        SnapshottingJournal(Path directory) throws IOException {
+            super(directory, false, Long.MAX_VALUE);
+        }
+
+        @Override
+        public void start(Supplier<Collection<Appointment>> snapshotSource, Supplier<List<byte[]>> rosterSource)
+                throws IOException {
+            this.rosterSource = rosterSource;
+            super.start(snapshotSource, rosterSource);
+        }
+
+        @Override
+        public void appendRoster(byte[] record) throws IOException {
+            super.appendRoster(record);
+            reader = Thread.ofVirtual().start(() -> snapshot = RosterState.of(rosterSource.get()));
+            try {
+                // A roster source that waits for the change times out here and reads after the apply
+                reader.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Roster as read for the latest roster record
+         */
+        RosterState awaitSnapshot() throws InterruptedException {
+            reader.join();
+            return snapshot;
+        }
+    }
+
+    /**
+     * Doctors, shifts and leave rebuilt from roster records
+     */
+    private static final class RosterState implements BookingJournal.Replayer {
+
+        final Set<Integer> doctors = new HashSet<>();
+        final Map<Integer, long[]> shifts = new HashMap<>();
+        final Map<Integer, long[]> leave = new HashMap<>();
+
+        static RosterState of(List<byte[]> records) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            records.forEach(bytes::writeBytes);
+            RosterState state = new RosterState();
+            BookingJournal.replay(ByteBuffer.wrap(bytes.toByteArray()), state, "test");
+            return state;
+        }
+
+        @Override
+        public void booked(Appointment appointment) {
+        }
+
+        @Override
+        public void cancelled(long appointmentId) {
+        }
+
+        @Override
+        public void rescheduled(long appointmentId, long epochMinute) {
+        }
+
+        @Override
+        public void doctorAdded(Doctor doctor) {
+            doctors.add(doctor.getId());
+        }
+
+        @Override
+        public void doctorRemoved(int doctorId) {
+            doctors.remove(doctorId);
+        }
+
+        @Override
+        public void shiftSet(int doctorId, int startSlot, int endSlot) {
+            shifts.put(doctorId, new long[]{startSlot, endSlot});
+        }
+
+        @Override
+        public void leaveSet(int doctorId, long fromEpochDay, long toEpochDay) {
+            leave.put(doctorId, new long[]{fromEpochDay, toEpochDay});
+        }
+    }
+}
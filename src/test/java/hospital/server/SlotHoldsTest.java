@@ -0,0 +1,106 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Holds end exactly once, by their client or by their timeout, and no more than the cap are open
+ */
+class SlotHoldsTest {
+
+    private static final long CONVERGE_MILLIS = 10_000;
+
+    private final List<Long> expired = new CopyOnWriteArrayList<>();
+    private SlotHolds holds;
+
+    @AfterEach
+    void stop() {
+        if (holds != null) {
+            holds.close();
+        }
+    }
+
+    @Test
+    void holdThatTimesOutGivesItsSlotBack() throws Exception {
+        holds = started(1_000_000);
+        assertTrue(holds.add(1, 3, 100, 50));
+        assertTrue(holds.add(2, 3, 101, 60_000));
+
+        await(() -> expired.contains(100L), "the hold did not expire");
+        assertEquals(List.of(100L), expired);
+        assertNull(holds.take(1), "an expired hold was taken");
+        assertEquals(101, holds.take(2).getSlot());
+        assertEquals(0, holds.size());
+    }
+
+    @Test
+    void holdsWithNoTimeLeftAllExpire() throws Exception {
+        holds = started(1_000_000);
+        int count = 2_000;
+        for (long id = 0; id < count; id++) {
+            // The timeout may fire before add returns
+            assertTrue(holds.add(id, 0, id, 0));
+        }
+
+        await(() -> expired.size() == count, "only " + expired.size() + " of " + count + " holds expired");
+        assertEquals(0, holds.size());
+    }
+
+    @Test
+    void takenHoldNeverExpires() throws Exception {
+        holds = started(1_000_000);
+        assertTrue(holds.add(1, 3, 100, 30));
+
+        SlotHolds.Hold hold = holds.take(1);
+        assertNotNull(hold);
+        assertEquals(3, hold.getDoctorId());
+        assertNull(holds.take(1), "a hold was taken twice");
+
+        assertTrue(holds.add(2, 3, 101, 30));
+        await(() -> expired.contains(101L), "the later hold did not expire");
+        assertFalse(expired.contains(100L), "a taken hold expired");
+    }
+
+    @Test
+    void addFailsOnceTheCapIsReached() {
+        holds = started(2);
+        assertTrue(holds.add(1, 0, 100, 60_000));
+        assertTrue(holds.add(2, 0, 101, 60_000));
+
+        assertFalse(holds.add(3, 0, 102, 60_000));
+        assertEquals(2, holds.size());
+
+        holds.take(1);
+        assertTrue(holds.add(3, 0, 102, 60_000), "a taken hold still counted against the cap");
+    }
+
+    private SlotHolds started(int maxHolds) {
+        System.setProperty("hospital.holds.maxHolds", Integer.toString(maxHolds));
+        System.setProperty("hospital.holds.tickMillis", "5");
+        try {
+            SlotHolds started = new SlotHolds((doctorId, slot) -> expired.add(slot));
+            started.start();
+            return started;
+        } finally {
+            System.clearProperty("hospital.holds.maxHolds");
+            System.clearProperty("hospital.holds.tickMillis");
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String failure) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONVERGE_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, failure);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Timeouts fire once and not early, and a cancelled one never fires
+ */
+class TimerWheelTest {
+
+    private static final long CONVERGE_MILLIS = 10_000;
+
+    private final TimerWheel wheel = new TimerWheel("timer-test", 5, 8);
+
+    @AfterEach
+    void stop() {
+        wheel.close();
+    }
+
+    @Test
+    void timeoutFiresOnceAfterItsDelay() throws Exception {
+        wheel.start();
+        AtomicInteger runs = new AtomicInteger();
+        long scheduled = System.nanoTime();
+        // Longer than a turn of the wheel, so it waits out whole rounds in its bucket
+        TimerWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+
+        await(timeout::isExpired, "the timeout did not fire");
+        assertTrue(System.nanoTime() - scheduled >= TimeUnit.MILLISECONDS.toNanos(100), "the timeout fired early");
+        Thread.sleep(50);
+        assertEquals(1, runs.get());
+        assertEquals(0, wheel.pendingCount());
+        assertFalse(timeout.cancel(), "a timeout that fired was cancelled");
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() throws Exception {
+        wheel.start();
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout cancelled = wheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout kept = wheel.schedule(() -> { }, 40, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel(), "a timeout was cancelled twice");
+        assertEquals(1, wheel.pendingCount());
+
+        await(kept::isExpired, "the other timeout did not fire");
+        assertEquals(0, runs.get());
+        assertFalse(cancelled.isExpired());
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    void cancelRacingTheWorkerRunsTheTaskExactlyWhenCancelFails() throws Exception {
+        wheel.start();
+        int count = 2_000;
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout[] timeouts = new TimerWheel.Timeout[count];
+        for (int i = 0; i < count; i++) {
+            timeouts[i] = wheel.schedule(runs::incrementAndGet, i % 10, TimeUnit.MILLISECONDS);
+        }
+        int cancelled = 0;
+        for (TimerWheel.Timeout timeout : timeouts) {
+            if (timeout.cancel()) {
+                cancelled++;
+            }
+        }
+
+        await(() -> wheel.pendingCount() == 0, wheel.pendingCount() + " timeouts neither fired nor were cancelled");
+        int fired = count - cancelled;
+        await(() -> runs.get() == fired, "fired " + runs.get() + " of " + fired + " timeouts that were not cancelled");
+        for (TimerWheel.Timeout timeout : timeouts) {
+            assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    void taskThatThrowsDoesNotStopTheWheel() throws Exception {
+        wheel.start();
+        wheel.schedule(() -> {
+            throw new IllegalStateException("task failed");
+        }, 0, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout later = wheel.schedule(() -> { }, 20, TimeUnit.MILLISECONDS);
+
+        await(later::isExpired, "the wheel stopped after a failing task");
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel("bad", 0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel("bad", 5, 0));
+    }
+
+    private static void await(BooleanSupplier condition, String failure) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONVERGE_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, failure);
+            Thread.sleep(10);
+        }
+    }
+}
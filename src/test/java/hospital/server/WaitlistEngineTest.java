@@ -0,0 +1,187 @@
+package hospital.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hospital.interfaces.Appointment;
+import hospital.interfaces.WaitlistStatus;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Backfill order of the waitlists and the periodic sweep, against calendars the test controls
+ */
+class WaitlistEngineTest {
+
+    private static final long CONVERGE_MILLIS = 10_000;
+    private static final int DOCTOR = 0;
+    private static final int BUSY_DOCTOR = 1;
+
+    private final Calendars calendars = new Calendars();
+    private final AtomicLong ticketIds = new AtomicLong(1);
+    private WaitlistEngine engine;
+
+    @AfterEach
+    void stop() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void freedSlotsGoToTheMostUrgentPatientThenTheEarliestToJoin() throws Exception {
+        engine = started();
+        WaitlistStatus routineFirst = join(DOCTOR, 1);
+        WaitlistStatus urgent = join(DOCTOR, 5);
+        WaitlistStatus routineSecond = join(DOCTOR, 1);
+        WaitlistStatus urgentLater = join(DOCTOR, 5);
+        WaitlistStatus routineThird = join(DOCTOR, 1);
+
+        // Freed one at a time, earliest slot first
+        List<WaitlistStatus> expectedOrder = List.of(urgent, urgentLater, routineFirst, routineSecond, routineThird);
+        for (int i = 0; i < expectedOrder.size(); i++) {
+            assertTrue(engine.offer(DOCTOR, 100 + i));
+        }
+        for (int i = 0; i < expectedOrder.size(); i++) {
+            Appointment appointment = awaitBooked(expectedOrder.get(i));
+            assertEquals(DoctorCalendar.toEpochMinute(100 + i), appointment.getEpochMinute(),
+                    "slot " + i + " went to the wrong patient");
+        }
+        assertFalse(engine.offer(DOCTOR, 200), "a slot was taken with nobody waiting");
+    }
+
+    @Test
+    void patientWhoLeftIsSkipped() throws Exception {
+        engine = started();
+        WaitlistStatus leaving = join(DOCTOR, 5);
+        WaitlistStatus staying = join(DOCTOR, 1);
+
+        assertTrue(engine.leave(leaving.getTicketId()));
+        assertTrue(engine.offer(DOCTOR, 100));
+
+        assertEquals(DoctorCalendar.toEpochMinute(100), awaitBooked(staying).getEpochMinute());
+        assertEquals(WaitlistStatus.State.LEFT, engine.status(leaving.getTicketId()).getState());
+    }
+
+    @Test
+    void joiningWhileTheDoctorHasAFreeSlotBooksItAtOnce() throws Exception {
+        engine = started();
+        calendars.free(DOCTOR, 42);
+
+        WaitlistStatus ticket = join(DOCTOR, 3);
+
+        assertEquals(DoctorCalendar.toEpochMinute(42), awaitBooked(ticket).getEpochMinute());
+    }
+
+    @Test
+    void sweepRunsWhileOtherDoctorsKeepTheDispatcherBusy() throws Exception {
+        System.setProperty("hospital.waitlist.sweepSeconds", "1");
+        try {
+            engine = started();
+        } finally {
+            System.clearProperty("hospital.waitlist.sweepSeconds");
+        }
+        WaitlistStatus waiting = join(DOCTOR, 3);
+        await(() -> calendars.claims(DOCTOR) > 0, "the join was not dispatched");
+        // A day opens for the doctor after the join found nothing, without a slot being handed over
+        calendars.free(DOCTOR, 7);
+
+        // Joins for another, fully booked doctor hand the dispatcher work far more often than the sweep interval
+        long deadline = System.currentTimeMillis() + CONVERGE_MILLIS;
+        while (calendars.booked.isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "the sweep never ran under steady handoffs");
+            join(BUSY_DOCTOR, 1);
+            Thread.sleep(20);
+        }
+        assertEquals(DoctorCalendar.toEpochMinute(7), awaitBooked(waiting).getEpochMinute());
+    }
+
+    private WaitlistEngine started() {
+        WaitlistEngine started = new WaitlistEngine(calendars);
+        started.start();
+        return started;
+    }
+
+    private WaitlistStatus join(int doctorId, int urgency) {
+        long ticketId = ticketIds.getAndIncrement();
+        WaitlistStatus status = engine.join(doctorId, "Patient " + ticketId, urgency, ticketId);
+        // The dispatcher may book a patient before join returns
+        assertNotEquals(WaitlistStatus.State.REJECTED, status.getState());
+        return status;
+    }
+
+    /**
+     * Waits for a ticket to be booked; the engine marks it after the booking is durable
+     */
+    private Appointment awaitBooked(WaitlistStatus ticket) throws InterruptedException {
+        await(() -> engine.status(ticket.getTicketId()).getState() == WaitlistStatus.State.BOOKED,
+                "ticket " + ticket.getTicketId() + " was not booked");
+        return engine.status(ticket.getTicketId()).getAppointment();
+    }
+
+    private static void await(BooleanSupplier condition, String failure) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONVERGE_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, failure);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Free slots per doctor that the test opens by hand, and the appointments booked into them
+     */
+    private static final class Calendars implements WaitlistEngine.SlotBooker {
+
+        final Map<Integer, Deque<Long>> freeSlots = new ConcurrentHashMap<>();
+        final List<Appointment> booked = new CopyOnWriteArrayList<>();
+        private final Map<Integer, AtomicInteger> claims = new ConcurrentHashMap<>();
+        private final AtomicLong appointmentIds = new AtomicLong(1000);
+
+        void free(int doctorId, long slot) {
+            freeSlots.computeIfAbsent(doctorId, id -> new ConcurrentLinkedDeque<>()).add(slot);
+        }
+
+        /**
+         * Number of times the engine tried to claim a slot of the doctor
+         */
+        int claims(int doctorId) {
+            AtomicInteger count = claims.get(doctorId);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public long claimNextSlot(int doctorId) {
+            claims.computeIfAbsent(doctorId, id -> new AtomicInteger()).incrementAndGet();
+            Deque<Long> free = freeSlots.get(doctorId);
+            Long slot = free == null ? null : free.poll();
+            return slot == null ? -1 : slot;
+        }
+
+        @Override
+        public void release(int doctorId, long slot) {
+            free(doctorId, slot);
+        }
+
+        @Override
+        public long nextId() {
+            return appointmentIds.getAndIncrement();
+        }
+
+        @Override
+        public boolean book(List<Appointment> appointments) {
+            booked.addAll(appointments);
+            return true;
+        }
+    }
+}